@@ -4,10 +4,9 @@ import com.almasb.fxgl.entity.Entity;
 import com.roguelike.entities.Player;
 import com.roguelike.entities.Enemy;
 import com.roguelike.entities.Bullet;
-import com.roguelike.physics.EntityCollisionDetector.CollisionResult;
-
-import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import com.roguelike.physics.ContactBuffer;
+import com.roguelike.physics.CooldownStore;
+import com.roguelike.physics.EntityCollisionDetector;
 
 /**
  * 碰撞事件批处理器
@@ -25,54 +24,23 @@ public class CollisionEventBatcher {
         ENEMY_HIT_WALL
     }
     
-    // 碰撞事件数据
-    public static class CollisionEventData {
-        private final CollisionEventType type;
-        private final Entity entity1;
-        private final Entity entity2;
-        private final CollisionResult collisionResult;
-        private final long timestamp;
-        
-        public CollisionEventData(CollisionEventType type, Entity entity1, Entity entity2, CollisionResult collisionResult) {
-            this.type = type;
-            this.entity1 = entity1;
-            this.entity2 = entity2;
-            this.collisionResult = collisionResult;
-            this.timestamp = System.currentTimeMillis();
-        }
-        
-        public CollisionEventType getType() {
-            return type;
-        }
-        
-        public Entity getEntity1() {
-            return entity1;
-        }
-        
-        public Entity getEntity2() {
-            return entity2;
-        }
-        
-        public CollisionResult getCollisionResult() {
-            return collisionResult;
-        }
-        
-        public long getTimestamp() {
-            return timestamp;
-        }
-    }
-    
-    // 事件队列
-    private final Queue<CollisionEventData> eventQueue;
+    // 事件环形缓冲区（并行数组，容量不足时翻倍，稳定状态下入队出队都不分配对象）
+    // 只在游戏线程上使用
+    private static final int INITIAL_CAPACITY = 64;
+    private CollisionEventType[] eventTypes = new CollisionEventType[INITIAL_CAPACITY];
+    private Entity[] eventFirsts = new Entity[INITIAL_CAPACITY];
+    private Entity[] eventSeconds = new Entity[INITIAL_CAPACITY];
+    private int eventHead = 0;
+    private int eventCount = 0;
     
     // 批处理配置
     private final int maxBatchSize;
     private final long maxBatchTimeMs;
     private final boolean enableCollisionDeduplication;
     
-    // 碰撞去重映射（避免同一对实体重复碰撞）
-    private final Map<String, Long> collisionDeduplicationMap;
+    // 碰撞去重（避免同一对实体重复碰撞），按实体对键值记录，不创建字符串键
     private static final long DEDUPLICATION_WINDOW_MS = 50; // 50ms去重窗口
+    private final CooldownStore collisionDeduplication = new CooldownStore(DEDUPLICATION_WINDOW_MS / 1000.0);
     
     // 性能统计
     private long totalCollisionEvents = 0;
@@ -91,15 +59,12 @@ public class CollisionEventBatcher {
         this.maxBatchSize = maxBatchSize;
         this.maxBatchTimeMs = maxBatchTimeMs;
         this.enableCollisionDeduplication = enableCollisionDeduplication;
-        
-        this.eventQueue = new ConcurrentLinkedQueue<>();
-        this.collisionDeduplicationMap = new HashMap<>();
     }
     
     /**
      * 添加碰撞事件到批处理队列
      */
-    public void addCollisionEvent(CollisionEventType type, Entity entity1, Entity entity2, CollisionResult collisionResult) {
+    public void addCollisionEvent(CollisionEventType type, Entity entity1, Entity entity2) {
         // 碰撞去重检查
         if (enableCollisionDeduplication && isDuplicateCollision(entity1, entity2)) {
             deduplicatedEvents++;
@@ -109,19 +74,58 @@ public class CollisionEventBatcher {
             return;
         }
         
-        CollisionEventData event = new CollisionEventData(type, entity1, entity2, collisionResult);
-        eventQueue.offer(event);
+        if (eventCount == eventTypes.length) {
+            growEventBuffer();
+        }
+        int tail = (eventHead + eventCount) & (eventTypes.length - 1);
+        eventTypes[tail] = type;
+        eventFirsts[tail] = entity1;
+        eventSeconds[tail] = entity2;
+        eventCount++;
         
         if (debugMode) {
             System.out.println("💥 碰撞事件添加到批处理队列: " + type + " (" + getEntityType(entity1) + " vs " + getEntityType(entity2) + ")");
         }
     }
     
+    /**
+     * 直接读取接触缓冲区中被标记为事件的接触并入队
+     */
+    public void addContacts(ContactBuffer contacts) {
+        for (int i = 0; i < contacts.size(); i++) {
+            if (!contacts.isEventMarked(i)) {
+                continue;
+            }
+            CollisionEventType type = eventTypeOf(contacts.getType(i));
+            if (type != null) {
+                addCollisionEvent(type, contacts.getFirst(i), contacts.getSecond(i));
+            }
+        }
+    }
+    
+    /**
+     * 接触类型对应的事件类型
+     */
+    private static CollisionEventType eventTypeOf(EntityCollisionDetector.CollisionType type) {
+        switch (type) {
+            case PLAYER_ENEMY:
+                return CollisionEventType.PLAYER_ENEMY_COLLISION;
+            case BULLET_ENEMY:
+                return CollisionEventType.BULLET_ENEMY_COLLISION;
+            case BULLET_PLAYER:
+                return CollisionEventType.BULLET_PLAYER_COLLISION;
+            case ENEMY_ENEMY:
+                return CollisionEventType.ENEMY_ENEMY_COLLISION;
+            default:
+                return null;
+        }
+    }
+    
     /**
      * 处理所有待处理的碰撞事件批次
      */
     public void processCollisionBatches() {
-        if (eventQueue.isEmpty()) {
+        if (eventCount == 0) {
             return;
         }
         
@@ -129,16 +133,22 @@ public class CollisionEventBatcher {
         int processedCount = 0;
         
         // 批量处理事件
-        while (!eventQueue.isEmpty() && processedCount < maxBatchSize) {
+        while (eventCount > 0 && processedCount < maxBatchSize) {
             if (System.currentTimeMillis() - startTime >= maxBatchTimeMs) {
                 break; // 时间限制
             }
             
-            CollisionEventData event = eventQueue.poll();
-            if (event != null) {
-                processCollisionEvent(event);
-                processedCount++;
-            }
+            CollisionEventType type = eventTypes[eventHead];
+            Entity first = eventFirsts[eventHead];
+            Entity second = eventSeconds[eventHead];
+            eventTypes[eventHead] = null;
+            eventFirsts[eventHead] = null;
+            eventSeconds[eventHead] = null;
+            eventHead = (eventHead + 1) & (eventTypes.length - 1);
+            eventCount--;
+            
+            processCollisionEvent(type, first, second);
+            processedCount++;
         }
         
         long processingTime = System.currentTimeMillis() - startTime;
@@ -156,44 +166,67 @@ public class CollisionEventBatcher {
     /**
      * 处理单个碰撞事件
      */
-    private void processCollisionEvent(CollisionEventData event) {
+    private void processCollisionEvent(CollisionEventType type, Entity first, Entity second) {
         try {
-            switch (event.getType()) {
+            switch (type) {
                 case PLAYER_ENEMY_COLLISION:
-                    handlePlayerEnemyCollision(event);
+                    handlePlayerEnemyCollision(first, second);
                     break;
                 case BULLET_ENEMY_COLLISION:
-                    handleBulletEnemyCollision(event);
+                    handleBulletEnemyCollision(first, second);
                     break;
                 case BULLET_PLAYER_COLLISION:
-                    handleBulletPlayerCollision(event);
+                    handleBulletPlayerCollision(first, second);
                     break;
                 case ENEMY_ENEMY_COLLISION:
-                    handleEnemyEnemyCollision(event);
+                    handleEnemyEnemyCollision(first, second);
                     break;
                 case PLAYER_HIT_WALL:
-                    handlePlayerHitWall(event);
+                    handlePlayerHitWall(first);
                     break;
                 case ENEMY_HIT_WALL:
-                    handleEnemyHitWall(event);
+                    handleEnemyHitWall(first);
                     break;
             }
         } catch (Exception e) {
-            System.err.println("❌ 碰撞事件处理错误: " + event.getType() + " - " + e.getMessage());
+            System.err.println("❌ 碰撞事件处理错误: " + type + " - " + e.getMessage());
         }
     }
     
+    /**
+     * 扩容环形缓冲区（容量保持为2的幂，按队列顺序搬移）
+     */
+    private void growEventBuffer() {
+        int capacity = eventTypes.length * 2;
+        CollisionEventType[] types = new CollisionEventType[capacity];
+        Entity[] firsts = new Entity[capacity];
+        Entity[] seconds = new Entity[capacity];
+        for (int i = 0; i < eventCount; i++) {
+            int index = (eventHead + i) & (eventTypes.length - 1);
+            types[i] = eventTypes[index];
+            firsts[i] = eventFirsts[index];
+            seconds[i] = eventSeconds[index];
+        }
+        eventTypes = types;
+        eventFirsts = firsts;
+        eventSeconds = seconds;
+        eventHead = 0;
+    }
+    
     /**
      * 处理玩家与敌人碰撞
      */
-    private void handlePlayerEnemyCollision(CollisionEventData event) {
-        Player player = (Player) event.getEntity1();
-        Enemy enemy = (Enemy) event.getEntity2();
+    private void handlePlayerEnemyCollision(Entity first, Entity second) {
+        Player player;
+        Enemy enemy;
         
         // 确保玩家是第一个实体
-        if (!(event.getEntity1() instanceof Player)) {
-            player = (Player) event.getEntity2();
-            enemy = (Enemy) event.getEntity1();
+        if (first instanceof Player) {
+            player = (Player) first;
+            enemy = (Enemy) second;
+        } else {
+            player = (Player) second;
+            enemy = (Enemy) first;
         }
         
         if (player != null && enemy != null && enemy.isAlive()) {
@@ -205,14 +238,17 @@ public class CollisionEventBatcher {
     /**
      * 处理子弹与敌人碰撞
      */
-    private void handleBulletEnemyCollision(CollisionEventData event) {
-        Bullet bullet = (Bullet) event.getEntity1();
-        Enemy enemy = (Enemy) event.getEntity2();
+    private void handleBulletEnemyCollision(Entity first, Entity second) {
+        Bullet bullet;
+        Enemy enemy;
         
         // 确保子弹是第一个实体
-        if (!(event.getEntity1() instanceof Bullet)) {
-            bullet = (Bullet) event.getEntity2();
-            enemy = (Enemy) event.getEntity1();
+        if (first instanceof Bullet) {
+            bullet = (Bullet) first;
+            enemy = (Enemy) second;
+        } else {
+            bullet = (Bullet) second;
+            enemy = (Enemy) first;
         }
         
         if (bullet != null && enemy != null && bullet.isActive() && enemy.isAlive()) {
@@ -224,14 +260,17 @@ public class CollisionEventBatcher {
     /**
      * 处理子弹与玩家碰撞
      */
-    private void handleBulletPlayerCollision(CollisionEventData event) {
-        Bullet bullet = (Bullet) event.getEntity1();
-        Player player = (Player) event.getEntity2();
+    private void handleBulletPlayerCollision(Entity first, Entity second) {
+        Bullet bullet;
+        Player player;
         
         // 确保子弹是第一个实体
-        if (!(event.getEntity1() instanceof Bullet)) {
-            bullet = (Bullet) event.getEntity2();
-            player = (Player) event.getEntity1();
+        if (first instanceof Bullet) {
+            bullet = (Bullet) first;
+            player = (Player) second;
+        } else {
+            bullet = (Bullet) second;
+            player = (Player) first;
         }
         
         if (bullet != null && player != null && bullet.isActive()) {
@@ -243,9 +282,9 @@ public class CollisionEventBatcher {
     /**
      * 处理敌人与敌人碰撞
      */
-    private void handleEnemyEnemyCollision(CollisionEventData event) {
-        Enemy enemy1 = (Enemy) event.getEntity1();
-        Enemy enemy2 = (Enemy) event.getEntity2();
+    private void handleEnemyEnemyCollision(Entity first, Entity second) {
+        Enemy enemy1 = (Enemy) first;
+        Enemy enemy2 = (Enemy) second;
         
         if (enemy1 != null && enemy2 != null && enemy1.isAlive() && enemy2.isAlive()) {
             // 发布碰撞事件
@@ -256,8 +295,8 @@ public class CollisionEventBatcher {
     /**
      * 处理玩家撞墙
      */
-    private void handlePlayerHitWall(CollisionEventData event) {
-        Player player = (Player) event.getEntity1();
+    private void handlePlayerHitWall(Entity entity) {
+        Player player = (Player) entity;
         if (player != null) {
             // 发布碰撞事件
             GameEvent.post(new GameEvent(GameEvent.Type.PLAYER_HIT_WALL));
@@ -267,8 +306,8 @@ public class CollisionEventBatcher {
     /**
      * 处理敌人撞墙
      */
-    private void handleEnemyHitWall(CollisionEventData event) {
-        Enemy enemy = (Enemy) event.getEntity1();
+    private void handleEnemyHitWall(Entity entity) {
+        Enemy enemy = (Enemy) entity;
         if (enemy != null && enemy.isAlive()) {
             // 发布碰撞事件
             GameEvent.post(new GameEvent(GameEvent.Type.ENEMY_HIT_WALL));
@@ -276,36 +315,11 @@ public class CollisionEventBatcher {
     }
     
     /**
-     * 检查是否为重复碰撞
+     * 检查是否为重复碰撞（不重复时记录本次碰撞时间）
      */
     private boolean isDuplicateCollision(Entity entity1, Entity entity2) {
-        String key = generateCollisionKey(entity1, entity2);
-        long currentTime = System.currentTimeMillis();
-        
-        if (collisionDeduplicationMap.containsKey(key)) {
-            long lastCollisionTime = collisionDeduplicationMap.get(key);
-            if (currentTime - lastCollisionTime < DEDUPLICATION_WINDOW_MS) {
-                return true; // 重复碰撞
-            }
-        }
-        
-        // 记录碰撞时间
-        collisionDeduplicationMap.put(key, currentTime);
-        return false;
-    }
-    
-    /**
-     * 生成碰撞键值
-     */
-    private String generateCollisionKey(Entity entity1, Entity entity2) {
-        int id1 = entity1.hashCode();
-        int id2 = entity2.hashCode();
-        
-        if (id1 < id2) {
-            return id1 + "_" + id2;
-        } else {
-            return id2 + "_" + id1;
-        }
+        double now = System.currentTimeMillis() / 1000.0;
+        return !collisionDeduplication.tryAcquire(entity1, entity2, now);
     }
     
     /**
@@ -327,17 +341,14 @@ public class CollisionEventBatcher {
      * 清理过期的去重记录
      */
     public void cleanupExpiredDeduplicationRecords() {
-        long currentTime = System.currentTimeMillis();
-        collisionDeduplicationMap.entrySet().removeIf(entry -> 
-            (currentTime - entry.getValue()) > DEDUPLICATION_WINDOW_MS * 2
-        );
+        collisionDeduplication.expire(System.currentTimeMillis() / 1000.0);
     }
     
     /**
      * 获取待处理事件数量
      */
     public int getPendingEventCount() {
-        return eventQueue.size();
+        return eventCount;
     }
     
     /**
@@ -385,6 +396,10 @@ public class CollisionEventBatcher {
      * 清空所有待处理事件
      */
     public void clearAllEvents() {
-        eventQueue.clear();
+        java.util.Arrays.fill(eventTypes, null);
+        java.util.Arrays.fill(eventFirsts, null);
+        java.util.Arrays.fill(eventSeconds, null);
+        eventHead = 0;
+        eventCount = 0;
     }
 }
@@ -1,7 +1,6 @@
 package com.roguelike.core;
 
 import com.roguelike.entities.Enemy;
-import com.roguelike.physics.EntityCollisionDetector.CollisionResult;
 
 import java.util.List;
 
@@ -80,10 +79,9 @@ public class EventBatchingManager {
      */
     public void addCollisionEvent(CollisionEventBatcher.CollisionEventType type, 
                                  com.almasb.fxgl.entity.Entity entity1, 
-                                 com.almasb.fxgl.entity.Entity entity2, 
-                                 CollisionResult collisionResult) {
+                                 com.almasb.fxgl.entity.Entity entity2) {
         if (enableCollisionBatching) {
-            collisionEventBatcher.addCollisionEvent(type, entity1, entity2, collisionResult);
+            collisionEventBatcher.addCollisionEvent(type, entity1, entity2);
         } else {
             // 直接处理事件
             processCollisionEventDirectly(type, entity1, entity2);
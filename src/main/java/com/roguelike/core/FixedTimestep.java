@@ -0,0 +1,104 @@
+package com.roguelike.core;
+
+/**
+ * 固定步长累加器
+ * 每个渲染帧把实际经过的时间累加进来，模拟按固定步长推进整数步，模拟开销只取决于模拟频率而不是帧率。
+ * 单帧最多追赶 maxStepsPerFrame 步，超出部分直接丢弃（卡顿后游戏短暂变慢，而不是连续多帧集中追赶）。
+ * 剩余不足一步的时间换算为插值系数，用于在两个模拟步之间平滑显示位置。
+ * 玩家（按住的方向键）、子弹（SimulationMovement 组件）与敌人都只在模拟步中移动，碰撞检测每步读取移动后的位置。
+ */
+public final class FixedTimestep {
+
+    // 单帧计入的最长时间（窗口拖动、断点等造成的超长帧）
+    private static final double MAX_FRAME_SECONDS = 0.25;
+
+    private double stepSeconds;
+    private final int maxStepsPerFrame;
+    private double accumulator = 0.0;
+
+    // 统计信息
+    private long totalFrames = 0;
+    private long totalSteps = 0;
+    private long droppedSteps = 0;
+    private int lastSteps = 0;
+
+    /**
+     * @param stepsPerSecond 模拟频率（步/秒）
+     * @param maxStepsPerFrame 单帧最多推进的步数
+     */
+    public FixedTimestep(double stepsPerSecond, int maxStepsPerFrame) {
+        this.stepSeconds = 1.0 / Math.max(1.0, stepsPerSecond);
+        this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+    }
+
+    /**
+     * 累加一帧的时间
+     * @return 本帧需要推进的模拟步数
+     */
+    public int advance(double frameSeconds) {
+        totalFrames++;
+        if (frameSeconds > 0) {
+            accumulator += Math.min(frameSeconds, MAX_FRAME_SECONDS);
+        }
+
+        int steps = (int) (accumulator / stepSeconds);
+        if (steps > maxStepsPerFrame) {
+            droppedSteps += steps - maxStepsPerFrame;
+            accumulator -= steps * stepSeconds;
+            steps = maxStepsPerFrame;
+        } else {
+            accumulator -= steps * stepSeconds;
+        }
+        if (accumulator < 0) {
+            accumulator = 0;
+        }
+
+        totalSteps += steps;
+        lastSteps = steps;
+        return steps;
+    }
+
+    /**
+     * 插值系数：上一模拟步之后经过的时间占一步的比例，[0, 1)
+     */
+    public double getAlpha() {
+        return Math.min(accumulator / stepSeconds, 1.0);
+    }
+
+    public double getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public double getStepsPerSecond() {
+        return 1.0 / stepSeconds;
+    }
+
+    /**
+     * 修改模拟频率（保留已累加的时间）
+     */
+    public void setStepsPerSecond(double stepsPerSecond) {
+        this.stepSeconds = 1.0 / Math.max(1.0, stepsPerSecond);
+    }
+
+    /**
+     * 丢弃累加的时间（开始新局、从暂停恢复等）
+     */
+    public void reset() {
+        accumulator = 0.0;
+        lastSteps = 0;
+    }
+
+    /**
+     * 获取调试信息
+     */
+    public String getDebugInfo() {
+        return String.format("固定步长模拟:\n" +
+                           "  - 模拟频率: %.0f Hz (步长 %.2fms)\n" +
+                           "  - 单帧最多步数: %d\n" +
+                           "  - 平均每帧步数: %.2f (上一帧 %d)\n" +
+                           "  - 丢弃步数: %d",
+                           getStepsPerSecond(), stepSeconds * 1000.0, maxStepsPerFrame,
+                           totalFrames > 0 ? (double) totalSteps / totalFrames : 0.0, lastSteps,
+                           droppedSteps);
+    }
+}
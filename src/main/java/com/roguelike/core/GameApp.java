@@ -60,18 +60,20 @@ public class GameApp extends GameApplication {
     private com.roguelike.ui.NetworkHUD networkHUD;
     private static final double ENEMY_SPAWN_INTERVAL = 2;
     private static boolean INPUT_BOUND = false;
-    private static final double TARGET_DT = 1.0 / 60.0; // 目标帧时长
     private int frameCount = 0; // 帧计数器，用于跳过不稳定的初始帧
     private boolean gameReady = false; // 覆盖层完成后才开始计时与更新
 
-    // 帧率控制相关变量
-    private long lastFrameTime = 0; // 上一帧的时间戳
+    // 固定步长模拟：默认 60Hz，单帧最多追赶 5 步
+    private static final int MAX_SIMULATION_STEPS_PER_FRAME = 5;
+    private final FixedTimestep simulationClock = new FixedTimestep(SIMULATION_RATE, MAX_SIMULATION_STEPS_PER_FRAME);
+    private long simulationStepIndex = 0;
+    private int appliedSimulationRate = SIMULATION_RATE;
 
     // 输入缓冲相关变量
     private long lastFPSToggleTime = 0; // 上次FPS切换的时间戳
-    private long lastFPSLimitChangeTime = 0; // 上次帧率限制更改的时间戳
+    private long lastSimulationRateChangeTime = 0; // 上次模拟频率更改的时间戳
     private static final long FPS_TOGGLE_COOLDOWN = 300_000_000L; // 0.3秒的冷却时间（纳秒）
-    private static final long FPS_LIMIT_CHANGE_COOLDOWN = 200_000_000L; // 0.2秒的冷却时间（纳秒）
+    private static final long SIMULATION_RATE_CHANGE_COOLDOWN = 200_000_000L; // 0.2秒的冷却时间（纳秒）
 
     // 性能优化：缓存玩家实体引用，避免每帧查找
     private Player cachedPlayer = null;
@@ -79,8 +81,30 @@ public class GameApp extends GameApplication {
     // 实体缓存系统 - 避免每帧重复查找实体
     private java.util.List<com.roguelike.entities.Enemy> cachedEnemies = new java.util.ArrayList<>();
     private java.util.List<com.roguelike.entities.Bullet> cachedBullets = new java.util.ArrayList<>();
-    private long lastEntityCacheUpdateTime = 0;
-    private static final long ENTITY_CACHE_UPDATE_INTERVAL = 100; // 100ms更新一次实体缓存
+    private int stepsSinceEnemyCacheRefresh = Integer.MAX_VALUE;
+    // 子弹登记表：生成时加入，销毁时只标记，下一步压缩，碰撞阶段不再扫描整个世界
+    // 敌人的生成与销毁同时转发给范围查询服务，光环、闪电、爆炸与近邻查询不依赖缓存刷新间隔
+    private boolean bulletRegistryDirty = false;
+    private final com.almasb.fxgl.entity.EntityWorldListener entityRegistryListener = new com.almasb.fxgl.entity.EntityWorldListener() {
+        @Override
+        public void onEntityAdded(com.almasb.fxgl.entity.Entity entity) {
+            if (entity instanceof com.roguelike.entities.Bullet) {
+                cachedBullets.add((com.roguelike.entities.Bullet) entity);
+            } else if (entity instanceof com.roguelike.entities.Enemy) {
+                com.roguelike.physics.AreaQueryService.shared().onEnemySpawned(entity);
+            }
+        }
+
+        @Override
+        public void onEntityRemoved(com.almasb.fxgl.entity.Entity entity) {
+            if (entity instanceof com.roguelike.entities.Bullet) {
+                bulletRegistryDirty = true;
+            } else if (entity instanceof com.roguelike.entities.Enemy) {
+                com.roguelike.physics.AreaQueryService.shared().onEnemyRemoved(entity);
+            }
+        }
+    };
+    private static final int ENTITY_CACHE_REFRESH_STEPS = 6; // 每 6 个模拟步更新一次敌人缓存（60Hz 下约 100ms）
 
     // 调试配置
     public static boolean DEBUG_MODE = false; // 调试模式开关
@@ -89,25 +113,34 @@ public class GameApp extends GameApplication {
     // 碰撞系统调试配置
     public static boolean COLLISION_DEBUG_MODE = false; // 碰撞调试模式
     public static double COLLISION_PUSH_FORCE_MULTIPLIER = 10.0; // 碰撞推挤力度倍数
-    public static double COLLISION_UPDATE_INTERVAL = 0.016; // 碰撞更新间隔（秒）
     public static boolean COLLISION_VELOCITY_PUSH_ENABLED = true; // 是否启用速度推挤
     public static boolean COLLISION_POSITION_PUSH_ENABLED = true; // 是否启用位置推挤
+    public static boolean COLLISION_PARALLEL_ENABLED = false; // 是否启用并行窄相位
+    public static double COLLISION_CHECK_RATE = 30.0; // 碰撞检测频率（次/秒），子弹为扫掠检测，低配机器可降低
 
     // 地图配置（由关卡选择界面赋值）
     private static String selectedMapName = "square"; // 默认地图
     private static final boolean USE_INFINITE_MAP = true; // 是否使用无限地图
     
     // 路径寻找配置
-    private static final int ENEMY_COUNT_THRESHOLD = 100; // 敌人数量阈值，超过此数量使用流体算法
+    private static final int ENEMY_COUNT_THRESHOLD = 100; // 敌人数量阈值，达到此数量改用共享流场
     private static final boolean ALLOW_DIAGONAL_MOVEMENT = true; // 是否允许对角线移动
     private static final double PATHFINDING_UPDATE_INTERVAL = 0.05; // 路径寻找更新间隔（秒）
     private static final boolean ENABLE_PATH_OPTIMIZATION = true; // 是否启用路径优化
     private static final boolean ENABLE_PATH_SMOOTHING = true; // 是否启用路径平滑
+    private static final boolean ENABLE_ASYNC_PATHFINDING = true; // 是否在工作线程上执行单体寻路
+    private static final int PATH_RESULTS_PER_FRAME = 8; // 每个模拟步最多送达的异步寻路结果数
+    private static final int PATH_SEARCH_NODE_BUDGET = 2000; // 所有敌人的寻路搜索每个模拟步共享的节点预算
 
 
-    private static int TARGET_FPS = 60;
-            // 使用固定移动距离，避免 tpf() 异常值导致的移动问题
-    private static double moveDistance = 15.0; // 固定移动距离，提高移动速度
+    private static int SIMULATION_RATE = 60; // 模拟频率（步/秒）
+    // 玩家移动速度（像素/秒，原先每帧固定 15 像素，按 60 帧折算），由模拟步按步长推进
+    private static final double PLAYER_MOVE_SPEED = 900.0;
+    // 按住的方向键数量（输入回调只记录按键状态，移动在模拟步中进行）
+    private int heldMoveLeft = 0;
+    private int heldMoveRight = 0;
+    private int heldMoveUp = 0;
+    private int heldMoveDown = 0;
 
     @Override
     protected void initSettings(GameSettings settings) {
@@ -225,8 +258,17 @@ public class GameApp extends GameApplication {
         getWorldProperties().setValue("score", 0);
         TimeService.reset();
         frameCount = 0;
+        simulationClock.reset();
+        stepsSinceEnemyCacheRefresh = Integer.MAX_VALUE;
         com.roguelike.entities.Enemy.resetNavigation();
 
+        // 实体登记：新局重新挂载世界监听器（GameWorld 跨局复用，先移除避免重复登记）
+        cachedBullets.clear();
+        bulletRegistryDirty = false;
+        com.roguelike.physics.AreaQueryService.shared().reset();
+        FXGL.getGameWorld().removeWorldListener(entityRegistryListener);
+        FXGL.getGameWorld().addWorldListener(entityRegistryListener);
+
         // 注册实体工厂：每次新游戏都注册，确保 GameWorld 持有工厂
         com.roguelike.entities.EntityFactory.setGameState(gameState);
         FXGL.getGameWorld().addEntityFactory(new com.roguelike.entities.EntityFactory());
@@ -318,6 +360,8 @@ public class GameApp extends GameApplication {
         System.out.println("   - 路径更新间隔: " + PATHFINDING_UPDATE_INTERVAL + "秒");
         System.out.println("   - 路径优化: " + ENABLE_PATH_OPTIMIZATION);
         System.out.println("   - 路径平滑: " + ENABLE_PATH_SMOOTHING);
+        System.out.println("   - 异步寻路: " + ENABLE_ASYNC_PATHFINDING + " (每步送达 " + PATH_RESULTS_PER_FRAME + " 个结果)");
+        System.out.println("   - 寻路搜索预算: " + PATH_SEARCH_NODE_BUDGET + " 节点/步");
 
         // 事件示例
         GameEvent.listen(GameEvent.Type.MAP_LOADED, e -> {
@@ -435,6 +479,10 @@ public class GameApp extends GameApplication {
         movementValidator = new OptimizedMovementValidator(collisionDetector);
         collisionManager = new CollisionManager();
         collisionManager.setMapCollisionDetector(collisionDetector);
+        collisionManager.setBroadPhaseType(com.roguelike.map.config.MapConfigLoader.resolveMapOption(
+            selectedMapName, m -> com.roguelike.physics.BroadPhase.Type.fromConfig(m.broadPhase),
+            com.roguelike.physics.BroadPhase.Type.GRID));
+        collisionManager.setCollisionCheckRate(COLLISION_CHECK_RATE);
 
         // 设置移动验证器到EntityFactory，确保所有生成的敌人都能获得碰撞检测
         com.roguelike.entities.EntityFactory.setMovementValidator(movementValidator);
@@ -450,8 +498,15 @@ public class GameApp extends GameApplication {
         config.setPathfindingUpdateInterval(PATHFINDING_UPDATE_INTERVAL);
         config.setEnablePathOptimization(ENABLE_PATH_OPTIMIZATION);
         config.setEnableSmoothing(ENABLE_PATH_SMOOTHING);
+        config.setGridAlgorithm(com.roguelike.map.config.MapConfigLoader.resolveMapOption(
+            selectedMapName, m -> AdaptivePathfinder.PathfindingType.fromConfig(m.gridPathfinding),
+            AdaptivePathfinder.PathfindingType.ASTAR));
+        config.setEnableAsyncPathfinding(ENABLE_ASYNC_PATHFINDING);
+        config.setPathResultsPerFrame(PATH_RESULTS_PER_FRAME);
+        config.setPathSearchNodeBudget(PATH_SEARCH_NODE_BUDGET);
         
-        // 初始化路径寻找系统
+        // 初始化路径寻找系统（共享路径缓存随地图重置）
+        com.roguelike.utils.PathCache.shared().clear();
         if (USE_INFINITE_MAP) {
             // 无限地图模式下启用跨区块寻路
             adaptivePathfinder = new AdaptivePathfinder(infiniteMapManager, config);
@@ -532,7 +587,9 @@ public class GameApp extends GameApplication {
         // 缓存玩家引用，避免每帧查找
         cachedPlayer = player;
 
-        FXGL.getGameScene().getViewport().bindToEntity(player, getAppWidth() / 2.0, getAppHeight() / 2.0);
+        // 摄像机不绑定实体位置，由每个渲染帧跟随玩家的插值位置（见 applyViewInterpolation）
+        FXGL.getGameScene().getViewport().unbind();
+        followPlayerWithCamera();
 
         // 输入
         initInput(player);
@@ -577,6 +634,7 @@ public class GameApp extends GameApplication {
         TimeService.reset();
         TimeService.startGame();
         frameCount = 0;
+        simulationClock.reset();
         gameReady = true;
     }
 
@@ -587,65 +645,97 @@ public class GameApp extends GameApplication {
 
         getInput().addAction(new UserAction("MOVE_LEFT_A") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(-moveDistance, 0);
+            protected void onActionBegin() {
+                heldMoveLeft++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveLeft = Math.max(0, heldMoveLeft - 1);
             }
         }, KeyCode.A);
 
         getInput().addAction(new UserAction("MOVE_LEFT_ARROW") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(-moveDistance, 0);
+            protected void onActionBegin() {
+                heldMoveLeft++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveLeft = Math.max(0, heldMoveLeft - 1);
             }
         }, KeyCode.LEFT);
 
         getInput().addAction(new UserAction("MOVE_RIGHT_D") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(moveDistance, 0);
+            protected void onActionBegin() {
+                heldMoveRight++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveRight = Math.max(0, heldMoveRight - 1);
             }
         }, KeyCode.D);
 
         getInput().addAction(new UserAction("MOVE_RIGHT_ARROW") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(moveDistance, 0);
+            protected void onActionBegin() {
+                heldMoveRight++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveRight = Math.max(0, heldMoveRight - 1);
             }
         }, KeyCode.RIGHT);
 
         getInput().addAction(new UserAction("MOVE_UP_W") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(0, -moveDistance);
+            protected void onActionBegin() {
+                heldMoveUp++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveUp = Math.max(0, heldMoveUp - 1);
             }
         }, KeyCode.W);
 
         getInput().addAction(new UserAction("MOVE_UP_ARROW") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(0, -moveDistance);
+            protected void onActionBegin() {
+                heldMoveUp++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveUp = Math.max(0, heldMoveUp - 1);
             }
         }, KeyCode.UP);
 
         getInput().addAction(new UserAction("MOVE_DOWN_S") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(0, moveDistance);
+            protected void onActionBegin() {
+                heldMoveDown++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveDown = Math.max(0, heldMoveDown - 1);
             }
         }, KeyCode.S);
 
         getInput().addAction(new UserAction("MOVE_DOWN_ARROW") {
             @Override
-            protected void onAction() {
-                com.almasb.fxgl.entity.Entity p = FXGL.getGameWorld().getEntitiesByType().stream().filter(e -> e instanceof com.roguelike.entities.Player).findFirst().orElse(null);
-                if (p != null) ((com.roguelike.entities.Player) p).move(0, moveDistance);
+            protected void onActionBegin() {
+                heldMoveDown++;
+            }
+
+            @Override
+            protected void onActionEnd() {
+                heldMoveDown = Math.max(0, heldMoveDown - 1);
             }
         }, KeyCode.DOWN);
 
@@ -735,6 +825,20 @@ public class GameApp extends GameApplication {
                 }
             }, KeyCode.F5);
 
+            getInput().addAction(new UserAction("TOGGLE_PARALLEL_COLLISION") {
+                @Override
+                protected void onAction() {
+                    toggleParallelCollisionMode();
+                }
+            }, KeyCode.P);
+
+            getInput().addAction(new UserAction("TOGGLE_BROAD_PHASE") {
+                @Override
+                protected void onAction() {
+                    toggleBroadPhaseType();
+                }
+            }, KeyCode.B);
+
             getInput().addAction(new UserAction("RESET_COLLISION_DEBUG") {
                 @Override
                 protected void onAction() {
@@ -775,25 +879,25 @@ public class GameApp extends GameApplication {
             }
         }, KeyCode.F8);
 
-        // 帧率控制快捷键（带输入缓冲）
-        getInput().addAction(new UserAction("INCREASE_FPS_LIMIT") {
+        // 模拟频率控制快捷键（带输入缓冲）
+        getInput().addAction(new UserAction("INCREASE_SIMULATION_RATE") {
             @Override
             protected void onAction() {
-                changeFPSLimitWithBuffer(10);
+                changeSimulationRateWithBuffer(10);
             }
         }, KeyCode.F9);
 
-        getInput().addAction(new UserAction("DECREASE_FPS_LIMIT") {
+        getInput().addAction(new UserAction("DECREASE_SIMULATION_RATE") {
             @Override
             protected void onAction() {
-                changeFPSLimitWithBuffer(-10);
+                changeSimulationRateWithBuffer(-10);
             }
         }, KeyCode.F10);
 
-        getInput().addAction(new UserAction("RESET_FPS_LIMIT") {
+        getInput().addAction(new UserAction("RESET_SIMULATION_RATE") {
             @Override
             protected void onAction() {
-                resetFPSLimitWithBuffer();
+                resetSimulationRateWithBuffer();
             }
         }, KeyCode.F11);
 
@@ -824,6 +928,7 @@ public class GameApp extends GameApplication {
             TimeService.reset();
             TimeService.startGame();
             frameCount = 0;
+            simulationClock.reset();
             // 恢复输入
             getInput().setProcessInput(true);
             // 恢复 HUD 计时
@@ -853,26 +958,6 @@ public class GameApp extends GameApplication {
             return;
         }
 
-        // 帧率控制逻辑
-        long currentTime = System.nanoTime();
-        if (lastFrameTime == 0) {
-            lastFrameTime = currentTime;
-        }
-
-        long frameTime = currentTime - lastFrameTime;
-        long targetFrameTime = 1_000_000_000L / TARGET_FPS; // 纳秒
-
-        // 如果帧时间小于目标时间，则等待
-        if (frameTime < targetFrameTime) {
-            try {
-                Thread.sleep((targetFrameTime - frameTime) / 1_000_000); // 转换为毫秒
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-
-        lastFrameTime = System.nanoTime();
-
         // 更新地图系统
         if (USE_INFINITE_MAP && infiniteMapManager != null) {
             // 使用缓存的玩家引用，避免每帧查找
@@ -902,28 +987,51 @@ public class GameApp extends GameApplication {
             return;
         }
 
-        // 使用实际时间推进，但严格限幅避免首帧异常
-        // 根据TARGET_FPS动态计算目标帧时长
-        double targetDt = 1.0 / TARGET_FPS;
-        double realDt = Math.max(0.0, Math.min(tpf, targetDt));
+        // 固定步长推进模拟（渲染帧率与模拟频率无关，单帧追赶步数有上限）
+        if (appliedSimulationRate != SIMULATION_RATE) {
+            simulationClock.setStepsPerSecond(SIMULATION_RATE);
+            appliedSimulationRate = SIMULATION_RATE;
+        }
+        int steps = simulationClock.advance(tpf);
+        for (int i = 0; i < steps; i++) {
+            simulationStep(simulationClock.getStepSeconds());
+        }
 
-        // 推进受控时间（与现实时间同步）
-        TimeService.update(realDt);
+        // 箭头指示器与视图插值每个渲染帧更新
+        updateArrowIndicator();
+        applyViewInterpolation(simulationClock.getAlpha());
+    }
 
-        // 简易碰撞检测：子弹 vs 敌人（用于伤害与经验结算）
-        checkBulletEnemyCollisions();
+    /**
+     * 推进一个固定步长的模拟：时间、玩家与子弹移动、碰撞、事件、定时器瓦片与AI
+     */
+    private void simulationStep(double dt) {
+        simulationStepIndex++;
+        if (cachedPlayer != null) {
+            cachedPlayer.captureStepStart(simulationStepIndex);
+        }
+        for (int i = 0; i < cachedEnemies.size(); i++) {
+            com.roguelike.entities.Enemy enemy = cachedEnemies.get(i);
+            if (enemy != null) {
+                enemy.captureStepStart(simulationStepIndex);
+            }
+        }
+
+        // 推进受控时间（与模拟步同步）
+        TimeService.update(dt);
 
-        // 更新实体缓存（控制频率，避免每帧更新）
+        // 更新实体缓存（敌人按步数控制频率；子弹每步刷新，供碰撞管线统一结算命中）
         updateEntityCache();
 
-        // 更新箭头指示器
-        updateArrowIndicator();
+        // 玩家与子弹按步长移动，碰撞检测读取本步移动后的位置
+        stepPlayerMovement(dt);
+        stepBulletMovement(dt);
 
         // 更新碰撞管理器
         if (collisionManager != null) {
             // 将缓存的实体传递给碰撞管理器
             collisionManager.updateEntityCache(cachedPlayer, cachedEnemies, cachedBullets);
-            collisionManager.update(realDt);
+            collisionManager.update(dt);
         }
 
         // 处理所有批处理事件
@@ -936,56 +1044,96 @@ public class GameApp extends GameApplication {
             timerTileManager.update();
         }
 
-        // 使用缓存的敌人数量，避免每帧遍历所有实体
+        // 使用缓存的敌人数量，避免每步遍历所有实体
         int enemyCount = cachedEnemies.size();
 
         if (adaptivePathfinder != null) {
             adaptivePathfinder.updateEnemyCount(enemyCount);
+            // 流场模式下由这里统一设置目标，玩家换格时才重建一次
+            if (cachedPlayer != null && cachedPlayer.isActive()) {
+                javafx.geometry.Point2D playerCenter = cachedPlayer.getCenter();
+                adaptivePathfinder.setTarget(playerCenter.getX(), playerCenter.getY());
+            }
+            // 在敌人AI更新前送达工作线程算好的路径（受每步预算限制）
+            adaptivePathfinder.deliverPathResults();
         }
 
         // 使用批处理系统进行AI更新，提高性能
         if (eventBatchingManager.isAIBatchingEnabled()) {
-            eventBatchingManager.addAIUpdateTasks(cachedEnemies, realDt);
+            eventBatchingManager.addAIUpdateTasks(cachedEnemies, dt);
         } else {
             // 直接更新AI（非批处理模式）
-            final double step = realDt;
             for (com.roguelike.entities.Enemy enemy : cachedEnemies) {
                 if (enemy != null && enemy.isActive()) {
-                    enemy.updateAI(step);
+                    enemy.updateAI(dt);
                 }
             }
         }
     }
 
-    private void checkBulletEnemyCollisions() {
-        java.util.List<com.almasb.fxgl.entity.Entity> bullets = getGameWorld().getEntitiesByType().stream()
-                .filter(e -> e instanceof com.roguelike.entities.Bullet)
-                .toList();
-        if (bullets.isEmpty()) return;
-        java.util.List<com.almasb.fxgl.entity.Entity> enemies = getGameWorld().getEntitiesByType().stream()
-                .filter(e -> e instanceof com.roguelike.entities.Enemy)
-                .toList();
-        if (enemies.isEmpty()) return;
-
-        for (com.almasb.fxgl.entity.Entity b : bullets) {
-            com.roguelike.entities.Bullet bullet = (com.roguelike.entities.Bullet) b;
-            if (!b.isActive()) continue;
-            javafx.geometry.Rectangle2D boxB = ((com.roguelike.entities.EntityBase) b).getCollisionBox();
-            for (com.almasb.fxgl.entity.Entity e : enemies) {
-                if (!e.isActive()) continue;
-                if (!bullet.shouldCollideWith(e)) continue;
-                javafx.geometry.Rectangle2D boxE = ((com.roguelike.entities.EntityBase) e).getCollisionBox();
-                if (boxB.intersects(boxE)) {
-                    bullet.onCollisionBegin(e);
-                    // 子弹可能在命中时被移除（非穿透），此时不应再对其进行后续处理
-                    if (!b.isActive()) {
-                        break;
-                    }
-                }
+    /**
+     * 按住的方向键推动玩家（每个轴单独验证，保持原先逐轴移动与贴墙滑动的手感）
+     */
+    private void stepPlayerMovement(double dt) {
+        if (cachedPlayer == null || !cachedPlayer.isActive()) {
+            return;
+        }
+        int inputX = (heldMoveRight > 0 ? 1 : 0) - (heldMoveLeft > 0 ? 1 : 0);
+        int inputY = (heldMoveDown > 0 ? 1 : 0) - (heldMoveUp > 0 ? 1 : 0);
+        double distance = PLAYER_MOVE_SPEED * dt;
+        if (inputX != 0) {
+            cachedPlayer.move(inputX * distance, 0);
+        }
+        if (inputY != 0) {
+            cachedPlayer.move(0, inputY * distance);
+        }
+    }
+
+    /**
+     * 推进所有子弹的移动组件
+     */
+    private void stepBulletMovement(double dt) {
+        for (int i = 0; i < cachedBullets.size(); i++) {
+            com.roguelike.entities.Bullet bullet = cachedBullets.get(i);
+            if (bullet.isActive()) {
+                bullet.captureStepStart(simulationStepIndex);
+                bullet.stepMovement(dt);
             }
         }
     }
 
+    /**
+     * 玩家、敌人与子弹只在模拟步中移动，按插值系数把视图放在上一步起点与当前位置之间；
+     * 摄像机跟随玩家的插值位置
+     */
+    private void applyViewInterpolation(double alpha) {
+        for (int i = 0; i < cachedEnemies.size(); i++) {
+            com.roguelike.entities.Enemy enemy = cachedEnemies.get(i);
+            if (enemy != null && enemy.isActive()) {
+                enemy.applyViewInterpolation(alpha, simulationStepIndex);
+            }
+        }
+        for (int i = 0; i < cachedBullets.size(); i++) {
+            com.roguelike.entities.Bullet bullet = cachedBullets.get(i);
+            if (bullet.isActive()) {
+                bullet.applyViewInterpolation(alpha, simulationStepIndex);
+            }
+        }
+        if (cachedPlayer != null && cachedPlayer.isActive()) {
+            cachedPlayer.applyViewInterpolation(alpha, simulationStepIndex);
+            followPlayerWithCamera();
+        }
+    }
+
+    /**
+     * 摄像机居中到玩家的显示位置（模拟位置加插值偏移）
+     */
+    private void followPlayerWithCamera() {
+        com.almasb.fxgl.app.scene.Viewport viewport = FXGL.getGameScene().getViewport();
+        viewport.setX(cachedPlayer.getX() + cachedPlayer.getViewOffsetX() - getAppWidth() / 2.0);
+        viewport.setY(cachedPlayer.getY() + cachedPlayer.getViewOffsetY() - getAppHeight() / 2.0);
+    }
+
     /**
      * 获取碰撞检测器实例
      */
@@ -1077,6 +1225,18 @@ public class GameApp extends GameApplication {
         } else {
             System.out.println("碰撞管理器未初始化");
         }
+        if (movementValidator != null) {
+            System.out.println(movementValidator.getDebugInfo());
+        }
+        System.out.println(com.roguelike.physics.AreaQueryService.shared().getDebugInfo());
+        System.out.println(com.roguelike.utils.PathCache.shared().getDebugInfo());
+        if (adaptivePathfinder != null) {
+            System.out.println(adaptivePathfinder.getPathfindingService().getDebugInfo());
+            if (adaptivePathfinder.getChunkPortalGraph() != null) {
+                System.out.println(adaptivePathfinder.getChunkPortalGraph().getDebugInfo());
+            }
+        }
+        System.out.println(simulationClock.getDebugInfo());
     }
 
 
@@ -1106,13 +1266,14 @@ public class GameApp extends GameApplication {
     }
 
     /**
-     * 调整碰撞更新间隔
+     * 调整碰撞更新间隔（换算为碰撞检测频率，由碰撞管理器按模拟时间控制）
      * @param delta 间隔变化量（秒）
      */
     public void adjustCollisionUpdateInterval(double delta) {
-        double newInterval = Math.max(0.005, Math.min(0.1, COLLISION_UPDATE_INTERVAL + delta));
-        COLLISION_UPDATE_INTERVAL = newInterval;
-        System.out.println("⏱️ 碰撞更新间隔调整为: " + (newInterval * 1000) + "ms");
+        if (collisionManager == null) return;
+        double newInterval = Math.max(0.005, Math.min(0.1, 1.0 / collisionManager.getCollisionCheckRate() + delta));
+        collisionManager.setCollisionCheckRate(1.0 / newInterval);
+        System.out.println("⏱️ 碰撞更新间隔调整为: " + String.format("%.1f", 1000.0 / collisionManager.getCollisionCheckRate()) + "ms");
     }
 
     /**
@@ -1131,19 +1292,42 @@ public class GameApp extends GameApplication {
         System.out.println("📍 位置推挤模式: " + (COLLISION_POSITION_PUSH_ENABLED ? "开启" : "关闭"));
     }
 
+    /**
+     * 切换并行窄相位模式
+     */
+    public void toggleParallelCollisionMode() {
+        COLLISION_PARALLEL_ENABLED = !COLLISION_PARALLEL_ENABLED;
+        System.out.println("🧵 并行碰撞检测: " + (COLLISION_PARALLEL_ENABLED ? "开启" : "关闭"));
+    }
+
+    /**
+     * 在网格与排序扫描宽相位之间切换
+     */
+    public void toggleBroadPhaseType() {
+        if (collisionManager == null) {
+            return;
+        }
+        com.roguelike.physics.BroadPhase.Type next =
+            collisionManager.getBroadPhaseType() == com.roguelike.physics.BroadPhase.Type.GRID
+                ? com.roguelike.physics.BroadPhase.Type.SWEEP_AND_PRUNE
+                : com.roguelike.physics.BroadPhase.Type.GRID;
+        collisionManager.setBroadPhaseType(next);
+    }
+
     /**
      * 重置所有碰撞调试参数
      */
     public void resetCollisionDebugSettings() {
         COLLISION_DEBUG_MODE = false;
         COLLISION_PUSH_FORCE_MULTIPLIER = 1.0;
-        COLLISION_UPDATE_INTERVAL = 0.016;
         COLLISION_VELOCITY_PUSH_ENABLED = true;
         COLLISION_POSITION_PUSH_ENABLED = true;
+        COLLISION_PARALLEL_ENABLED = false;
 
         if (collisionManager != null) {
             collisionManager.setDebugMode(false);
             collisionManager.setPushForceMultiplier(1.0);
+            collisionManager.setCollisionCheckRate(COLLISION_CHECK_RATE);
         }
 
         System.out.println("🔄 碰撞调试参数已重置");
@@ -1158,34 +1342,52 @@ public class GameApp extends GameApplication {
 
     /**
      * 更新实体缓存 - 避免每帧重复查找实体
+     * 子弹由世界监听器在生成与销毁时登记，这里只压缩已销毁的子弹；敌人列表按模拟步数刷新（与机器帧率无关）
      */
     private void updateEntityCache() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastEntityCacheUpdateTime < ENTITY_CACHE_UPDATE_INTERVAL) {
-            return; // 使用缓存，避免频繁更新
+        if (bulletRegistryDirty) {
+            compactBulletRegistry();
         }
 
-        // 清空旧缓存
-        cachedEnemies.clear();
-        cachedBullets.clear();
+        boolean refreshEnemies = stepsSinceEnemyCacheRefresh >= ENTITY_CACHE_REFRESH_STEPS - 1;
+        stepsSinceEnemyCacheRefresh = refreshEnemies ? 0 : stepsSinceEnemyCacheRefresh + 1;
+        if (!refreshEnemies) {
+            return;
+        }
 
-        // 重新收集实体
-        getGameWorld().getEntitiesByType().forEach(entity -> {
+        // 重新收集敌人（直接遍历世界实体列表，不做拷贝）
+        cachedEnemies.clear();
+        java.util.List<com.almasb.fxgl.entity.Entity> entities = getGameWorld().getEntities();
+        for (int i = 0, n = entities.size(); i < n; i++) {
+            com.almasb.fxgl.entity.Entity entity = entities.get(i);
             if (entity instanceof com.roguelike.entities.Enemy) {
                 cachedEnemies.add((com.roguelike.entities.Enemy) entity);
-            } else if (entity instanceof com.roguelike.entities.Bullet) {
-                cachedBullets.add((com.roguelike.entities.Bullet) entity);
             }
-        });
-
-        lastEntityCacheUpdateTime = currentTime;
+        }
 
         // 调试信息（可选）
-        if (DEBUG_MODE && frameCount % 300 == 0) { // 每5秒打印一次
+        if (DEBUG_MODE && simulationStepIndex % 300 < ENTITY_CACHE_REFRESH_STEPS) { // 60Hz 下每5秒打印一次
             System.out.println("🔄 实体缓存更新: 敌人=" + cachedEnemies.size() + ", 子弹=" + cachedBullets.size());
         }
     }
 
+    /**
+     * 原地移除已离开世界的子弹（保持生成顺序）
+     */
+    private void compactBulletRegistry() {
+        int live = 0;
+        for (int i = 0, n = cachedBullets.size(); i < n; i++) {
+            com.roguelike.entities.Bullet bullet = cachedBullets.get(i);
+            if (bullet.isActive()) {
+                cachedBullets.set(live++, bullet);
+            }
+        }
+        for (int i = cachedBullets.size() - 1; i >= live; i--) {
+            cachedBullets.remove(i);
+        }
+        bulletRegistryDirty = false;
+    }
+
     /**
      * 获取缓存的敌人列表
      */
@@ -1208,33 +1410,32 @@ public class GameApp extends GameApplication {
     }
 
     /**
-     * 获取当前目标帧率上限
-     * @return 目标帧率上限
+     * 获取模拟频率
+     * @return 模拟频率（步/秒）
      */
-    public static int getTargetFPS() {
-        return TARGET_FPS;
+    public static int getSimulationRate() {
+        return SIMULATION_RATE;
     }
 
     /**
-     * 设置目标帧率上限
-     * @param fps 新的目标帧率上限
+     * 设置模拟频率（渲染帧率不受限制，模拟按该频率固定步长推进）
+     * @param rate 新的模拟频率（步/秒）
      */
-    public static void setTargetFPS(int fps) {
-        if (fps > 0 && fps <= 120) {
-            TARGET_FPS = fps;
-            System.out.println("✅ 帧率上限已设置为: " + fps + " FPS");
-            System.out.println("   注意：帧率限制通过游戏循环中的时间控制实现");
+    public static void setSimulationRate(int rate) {
+        if (rate >= 30 && rate <= 120) {
+            SIMULATION_RATE = rate;
+            System.out.println("✅ 模拟频率已设置为: " + rate + " Hz");
         } else {
-            System.out.println("❌ 无效的帧率值: " + fps + " (有效范围: 1-120)");
+            System.out.println("❌ 无效的模拟频率: " + rate + " (有效范围: 30-120)");
         }
     }
 
     /**
-     * 获取帧率设置信息
-     * @return 帧率设置信息字符串
+     * 获取模拟频率设置信息
+     * @return 模拟频率设置信息字符串
      */
-    public static String getFPSInfo() {
-        return "当前目标帧率: " + TARGET_FPS + " FPS (有效范围: 1-120)";
+    public static String getSimulationInfo() {
+        return "当前模拟频率: " + SIMULATION_RATE + " Hz (有效范围: 30-120)";
     }
 
     /**
@@ -1260,47 +1461,45 @@ public class GameApp extends GameApplication {
     }
 
     /**
-     * 带输入缓冲的帧率限制更改
-     * @param delta 帧率变化量
+     * 带输入缓冲的模拟频率更改
+     * @param delta 模拟频率变化量
      */
-    private void changeFPSLimitWithBuffer(int delta) {
+    private void changeSimulationRateWithBuffer(int delta) {
         long currentTime = System.nanoTime();
 
         // 检查是否在冷却时间内
-        if (currentTime - lastFPSLimitChangeTime < FPS_LIMIT_CHANGE_COOLDOWN) {
+        if (currentTime - lastSimulationRateChangeTime < SIMULATION_RATE_CHANGE_COOLDOWN) {
             // 在冷却时间内，忽略输入
             return;
         }
 
         // 更新上次更改时间
-        lastFPSLimitChangeTime = currentTime;
-
-        // 执行帧率更改
-        int currentFPS = getTargetFPS();
-        int newFPS = currentFPS + delta;
+        lastSimulationRateChangeTime = currentTime;
 
-        if (newFPS >= 30 && newFPS <= 120) {
-            setTargetFPS(newFPS);
+        // 执行模拟频率更改
+        int newRate = getSimulationRate() + delta;
+        if (newRate >= 30 && newRate <= 120) {
+            setSimulationRate(newRate);
         }
     }
 
     /**
-     * 带输入缓冲的帧率限制重置
+     * 带输入缓冲的模拟频率重置
      */
-    private void resetFPSLimitWithBuffer() {
+    private void resetSimulationRateWithBuffer() {
         long currentTime = System.nanoTime();
 
         // 检查是否在冷却时间内
-        if (currentTime - lastFPSLimitChangeTime < FPS_LIMIT_CHANGE_COOLDOWN) {
+        if (currentTime - lastSimulationRateChangeTime < SIMULATION_RATE_CHANGE_COOLDOWN) {
             // 在冷却时间内，忽略输入
             return;
         }
 
         // 更新上次更改时间
-        lastFPSLimitChangeTime = currentTime;
+        lastSimulationRateChangeTime = currentTime;
 
-        // 执行帧率重置
-        setTargetFPS(60);
+        // 执行模拟频率重置
+        setSimulationRate(60);
     }
 
     private void showGameOverScreen() {
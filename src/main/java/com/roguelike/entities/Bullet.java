@@ -2,12 +2,15 @@ package com.roguelike.entities;
 
 import com.almasb.fxgl.dsl.FXGL;
 import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.component.Component;
 import com.almasb.fxgl.entity.components.CollidableComponent;
 import com.almasb.fxgl.physics.BoundingShape;
 import com.almasb.fxgl.physics.HitBox;
 import com.roguelike.core.GameEvent;
 import com.roguelike.core.GameState;
 import com.roguelike.entities.components.LinearMovementComponent;
+import com.roguelike.entities.components.SimulationMovement;
+import com.roguelike.physics.CollisionLayer;
 import javafx.geometry.Point2D;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Shape;
@@ -34,6 +37,9 @@ public abstract class Bullet extends EntityBase {
     protected String id = "unknown";
     protected String displayName = "Unknown Bullet";
 
+    // 当前的移动组件（由模拟步驱动）
+    private SimulationMovement movement;
+
     // 穿透子弹伤害判定时间间隔
     private double lastDamageTime = 0.0;
     private static final double PIERCING_DAMAGE_INTERVAL = 0.1; // 100ms间隔
@@ -47,6 +53,7 @@ public abstract class Bullet extends EntityBase {
         // 使用EntityBase的现有方法设置碰撞
         getBoundingBoxComponent().addHitBox(new HitBox(BoundingShape.box(8, 8)));
         addComponent(new CollidableComponent(true));
+        setCollisionLayer(faction == Faction.ENEMY ? CollisionLayer.ENEMY_BULLET : CollisionLayer.PLAYER_BULLET);
         // 在构造方法中添加 ViewComponent（恢复与原逻辑一致）
         //addAndGetComponent(new ViewComponent());
         // 默认大小
@@ -88,7 +95,29 @@ public abstract class Bullet extends EntityBase {
      */
     protected void initMovement(Point2D direction) {
         // 使用自定义直线运动组件，完全去除默认射程限制
-        addComponent(new LinearMovementComponent(direction, speed));
+        setMovement(new LinearMovementComponent(direction, speed));
+    }
+
+    /**
+     * 替换子弹的移动组件（移除原有的移动组件）
+     */
+    public <T extends Component & SimulationMovement> void setMovement(T component) {
+        if (movement != null) {
+            removeComponent(((Component) movement).getClass());
+        }
+        movement = component;
+        if (component != null) {
+            addComponent(component);
+        }
+    }
+
+    /**
+     * 按一个模拟步推进子弹移动
+     */
+    public void stepMovement(double dt) {
+        if (movement != null) {
+            movement.step(dt);
+        }
     }
 
     /**
@@ -223,10 +252,10 @@ public abstract class Bullet extends EntityBase {
     }
 
     /**
-     * 检查子弹是否应该与指定实体发生碰撞
+     * 检查子弹是否应该与指定实体发生碰撞（按碰撞层矩阵判断）
      */
     public boolean shouldCollideWith(Entity other) {
-        return !isSameFaction(other);
+        return other instanceof EntityBase && canCollideWith((EntityBase) other);
     }
 
     /**
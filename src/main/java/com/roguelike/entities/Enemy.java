@@ -6,6 +6,7 @@ import com.almasb.fxgl.entity.components.CollidableComponent;
 import com.roguelike.core.GameEvent;
 import com.roguelike.core.GameState;
 import com.roguelike.entities.components.CharacterAnimationComponent;
+import com.roguelike.physics.CollisionLayer;
 import com.roguelike.physics.OptimizedMovementValidator;
 import com.roguelike.physics.OptimizedMovementValidator.MovementResult;
 import com.roguelike.physics.OptimizedMovementValidator.MovementType;
@@ -37,6 +38,7 @@ public class Enemy extends EntityBase {
     private double currentDirectionX = 0;
     private double currentDirectionY = 0;
     private double maxTurnRate = Math.PI * 2; // 最大转向速率
+    private final double[] flowDirection = new double[2]; // 流场采样结果（复用）
 
     // 碰撞检测相关
     private OptimizedMovementValidator movementValidator;
@@ -45,6 +47,7 @@ public class Enemy extends EntityBase {
     private AdaptivePathfinder adaptivePathfinder;
     private java.util.List<javafx.geometry.Point2D> currentPath;
     private int currentPathIndex = 0;
+    private boolean pathRequestPending = false; // 异步寻路请求尚未送达
 
     // 动画组件
     private CharacterAnimationComponent animationComponent;
@@ -63,6 +66,7 @@ public class Enemy extends EntityBase {
     public Enemy() {
         // 添加碰撞组件
         addComponent(new CollidableComponent(true));
+        setCollisionLayer(CollisionLayer.ENEMY);
 
         // 设置实体大小（根据敌人动画帧大小调整）
         setSize(32, 32);
@@ -185,6 +189,7 @@ public class Enemy extends EntityBase {
         
         // 添加碰撞组件
         addComponent(new CollidableComponent(true));
+        setCollisionLayer(CollisionLayer.ENEMY);
         
         // 从配置设置属性
         this.maxHP = config.getStats().getMaxHP();
@@ -250,13 +255,18 @@ public class Enemy extends EntityBase {
         double currentTime = com.roguelike.core.TimeService.getSeconds();
         if (isNewlySpawned || currentTime - lastTargetUpdateTime >= TARGET_UPDATE_INTERVAL) {
             updateTargetToPlayer();
-            updatePathToTarget();
+            // 流场模式下不需要单独寻路
+            if (adaptivePathfinder == null || !adaptivePathfinder.isFlowFieldActive()) {
+                updatePathToTarget();
+            }
             lastTargetUpdateTime = currentTime;
             isNewlySpawned = false; // 标记为已初始化
         }
 
-        // 始终使用A*路径移动（流场算法已移除）
-        moveWithAStarPath(tpf);
+        // 敌人较多时采样共享流场，采样不到方向（窗口外、不可达）时回退到A*路径
+        if (!moveWithFlowField(tpf)) {
+            moveWithAStarPath(tpf);
+        }
         
         // 检查敌人是否处于墙壁内，如果是则扣血
         checkEnemyInWallDamage();
@@ -585,6 +595,7 @@ public class Enemy extends EntityBase {
      */
     public void setAdaptivePathfinder(AdaptivePathfinder pathfinder) {
         this.adaptivePathfinder = pathfinder;
+        this.pathRequestPending = false;
     }
 
     /**
@@ -607,14 +618,70 @@ public class Enemy extends EntityBase {
         // 检查是否需要更新路径（距离目标太远或路径为空）
         double distanceToTarget = currentPos.distance(targetX, targetY);
         if (currentPath == null || currentPath.isEmpty() || distanceToTarget > 100.0) {
-            if (adaptivePathfinder != null) {
-                currentPath = adaptivePathfinder.findPath(
-                    currentPos.getX(), currentPos.getY(),
-                    targetX, targetY
-                );
-                currentPathIndex = 0;
-            }
+            requestPath(currentPos);
+        }
+    }
+
+    /**
+     * 请求新路径：缓存命中或不需要搜索时立即替换，否则交给寻路服务分步搜索，结果到达前继续沿旧路径移动
+     * 同一时间最多一个未完成的请求；死亡或移出世界后未完成的搜索由寻路服务取消
+     */
+    private void requestPath(Point2D currentPos) {
+        if (adaptivePathfinder == null || pathRequestPending) {
+            return;
+        }
+        java.util.List<Point2D> path = adaptivePathfinder.findPathAsync(
+            currentPos.getX(), currentPos.getY(),
+            targetX, targetY,
+            this::onPathResult,
+            () -> !isDead && isActive()
+        );
+        if (path != null) {
+            currentPath = path;
+            currentPathIndex = 0;
+        } else {
+            pathRequestPending = true;
+        }
+    }
+
+    /**
+     * 异步寻路结果送达（游戏线程）
+     */
+    private void onPathResult(java.util.List<Point2D> path) {
+        pathRequestPending = false;
+        if (isDead || !isActive()) {
+            return;
         }
+        currentPath = path;
+        currentPathIndex = 0;
+    }
+
+    /**
+     * 沿共享流场移动：在当前位置采样方向，不做单独寻路
+     * @return 是否已按流场移动；返回 false 时由调用方走A*路径
+     */
+    private boolean moveWithFlowField(double tpf) {
+        if (adaptivePathfinder == null || !adaptivePathfinder.isFlowFieldActive()) {
+            return false;
+        }
+
+        Point2D currentPos = getCenter();
+        // 距离玩家很近时直接贴近，流场分辨率只有一个瓦片
+        if ((targetX != 0 || targetY != 0) && currentPos.distance(targetX, targetY) < 30.0) {
+            fallbackToDirectMovement(tpf);
+            return true;
+        }
+
+        if (!adaptivePathfinder.sampleMovementDirection(currentPos.getX(), currentPos.getY(), flowDirection)) {
+            return false;
+        }
+
+        // 切回A*时重新计算路径
+        currentPath = null;
+        currentDirectionX = flowDirection[0];
+        currentDirectionY = flowDirection[1];
+        moveInCurrentDirection(tpf);
+        return true;
     }
 
     /**
@@ -644,12 +711,7 @@ public class Enemy extends EntityBase {
             // 如果路径为空或距离目标很远，重新计算路径
             if (currentPath == null || currentPath.isEmpty() || distanceToPlayer > 300.0) {
                 try {
-                    currentPath = adaptivePathfinder.findPath(
-                            currentPos.getX(), currentPos.getY(),
-                            targetX, targetY
-                    );
-                    currentPathIndex = 0;
-
+                    requestPath(currentPos);
                 } catch (Exception e) {
                     currentPath = null;
                 }
@@ -5,11 +5,30 @@ import com.almasb.fxgl.entity.components.BoundingBoxComponent;
 import com.almasb.fxgl.entity.components.TransformComponent;
 import com.almasb.fxgl.physics.BoundingShape;
 import com.almasb.fxgl.physics.HitBox;
+import com.roguelike.physics.CollisionLayer;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class EntityBase extends Entity {
 
+    // 实体整数ID（单调递增，用于冷却表等原始类型键值）
+    private static final AtomicInteger NEXT_ENTITY_ID = new AtomicInteger(1);
+    private final int entityId = NEXT_ENTITY_ID.getAndIncrement();
+
+    // 碰撞层位与掩码（未分层的实体不与任何实体碰撞）
+    private int collisionLayer = 0;
+    private int collisionMask = 0;
+
+    // 渲染插值：最近一个模拟步开始时的位置与步序号（视图在两步之间从该位置平滑过渡到当前位置）
+    private static final double MAX_INTERPOLATION_DISTANCE = 64.0;
+    private double stepStartX;
+    private double stepStartY;
+    private long stepIndex = -1;
+    private double viewOffsetX = 0;
+    private double viewOffsetY = 0;
+
     public EntityBase() {
         getTransformComponent();
         if (getBoundingBoxComponent() == null) {
@@ -33,6 +52,85 @@ public class EntityBase extends Entity {
         getBoundingBoxComponent().addHitBox(new HitBox(BoundingShape.box(w, h)));
     }
 
+    public int getEntityId() {
+        return entityId;
+    }
+
+    /**
+     * 设置碰撞层，掩码取层矩阵中的当前值
+     */
+    public void setCollisionLayer(CollisionLayer layer) {
+        this.collisionLayer = layer != null ? layer.bit() : 0;
+        this.collisionMask = layer != null ? layer.getMask() : 0;
+    }
+
+    /**
+     * 单独覆盖掩码（例如临时忽略某些层）
+     */
+    public void setCollisionMask(int mask) {
+        this.collisionMask = mask;
+    }
+
+    public int getCollisionLayer() {
+        return collisionLayer;
+    }
+
+    public int getCollisionMask() {
+        return collisionMask;
+    }
+
+    /**
+     * 本实体是否需要与另一实体做碰撞检测
+     */
+    public boolean canCollideWith(EntityBase other) {
+        return (collisionMask & other.collisionLayer) != 0;
+    }
+
+    /**
+     * 模拟步开始时记录当前位置
+     */
+    public void captureStepStart(long step) {
+        this.stepStartX = getX();
+        this.stepStartY = getY();
+        this.stepIndex = step;
+    }
+
+    /**
+     * 按插值系数偏移视图（不改变实体位置，碰撞与逻辑仍使用模拟位置）
+     * 只有在最近一步记录过起点的实体才插值；位移过大（传送、重新定位）时直接显示当前位置
+     * @param alpha 上一模拟步之后经过的时间占一步的比例
+     * @param lastStep 最近一个模拟步的序号
+     */
+    public void applyViewInterpolation(double alpha, long lastStep) {
+        double offsetX = 0;
+        double offsetY = 0;
+        if (stepIndex == lastStep) {
+            double dx = stepStartX - getX();
+            double dy = stepStartY - getY();
+            if (dx * dx + dy * dy <= MAX_INTERPOLATION_DISTANCE * MAX_INTERPOLATION_DISTANCE) {
+                offsetX = dx * (1.0 - alpha);
+                offsetY = dy * (1.0 - alpha);
+            }
+        }
+        if (offsetX == viewOffsetX && offsetY == viewOffsetY) return;
+        viewOffsetX = offsetX;
+        viewOffsetY = offsetY;
+        // 视图根节点的 translate 绑定在实体位置上，插值偏移使用独立的 layout 属性
+        getViewComponent().getParent().setLayoutX(offsetX);
+        getViewComponent().getParent().setLayoutY(offsetY);
+    }
+
+    /**
+     * 当前视图相对模拟位置的插值偏移
+     */
+    public double getViewOffsetX() {
+        return viewOffsetX;
+    }
+
+    public double getViewOffsetY() {
+        return viewOffsetY;
+    }
+
     public Point2D getGamePosition() {
         TransformComponent tc = getTransformComponent();
         return new Point2D(tc.getX(), tc.getY());
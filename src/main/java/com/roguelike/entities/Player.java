@@ -13,6 +13,7 @@ import com.roguelike.core.GameEvent;
 import com.roguelike.core.GameState;
 import com.roguelike.entities.components.CharacterAnimationComponent;
 import com.roguelike.entities.components.AutoFireComponent;
+import com.roguelike.physics.CollisionLayer;
 import javafx.geometry.Point2D;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
@@ -47,6 +48,7 @@ public class Player extends EntityBase {
     public Player() {
         // 添加碰撞组件
         addComponent(new CollidableComponent(true));
+        setCollisionLayer(CollisionLayer.PLAYER);
 
         // 设置实体大小（根据GIF动画帧大小调整）
         //setSize(128, 192);
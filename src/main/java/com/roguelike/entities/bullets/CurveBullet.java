@@ -4,6 +4,7 @@ import com.almasb.fxgl.core.math.Vec2;
 import com.almasb.fxgl.entity.component.Component;
 import com.roguelike.entities.Bullet;
 import com.roguelike.entities.components.BulletAnimationComponent;
+import com.roguelike.entities.components.SimulationMovement;
 import javafx.geometry.Point2D;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
@@ -58,7 +59,7 @@ public class CurveBullet extends Bullet {
         setSize(radius * 2, radius * 2);
 
         // 添加自定义运动组件
-        addComponent(new CurveMovementComponent(initialDirection, speed, curveFactor, 
+        setMovement(new CurveMovementComponent(initialDirection, speed, curveFactor, 
                                               curveType, curveFrequency));
         // 不在构造器中追加越界或寿命管理，交给 BulletFactory 或 Spec 决定
     }
@@ -130,7 +131,7 @@ public class CurveBullet extends Bullet {
     /**
      * 弧形运动组件，支持多种曲线模式
      */
-    private static class CurveMovementComponent extends Component {
+    private static class CurveMovementComponent extends Component implements SimulationMovement {
         private final Vec2 baseVelocity;
         private final double curveFactor;
         private final CurveType curveType;
@@ -146,8 +147,8 @@ public class CurveBullet extends Bullet {
         }
 
         @Override
-        public void onUpdate(double tpf) {
-            time += tpf;
+        public void step(double dt) {
+            time += dt;
             
             double offsetX = 0;
             double offsetY = 0;
@@ -170,8 +171,8 @@ public class CurveBullet extends Bullet {
                     break;
             }
             
-            entity.translate(baseVelocity.x * tpf + offsetX * tpf, 
-                           baseVelocity.y * tpf + offsetY * tpf);
+            entity.translate(baseVelocity.x * dt + offsetX * dt, 
+                           baseVelocity.y * dt + offsetY * dt);
         }
     }
 
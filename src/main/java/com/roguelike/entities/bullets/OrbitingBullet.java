@@ -4,6 +4,7 @@ import com.almasb.fxgl.entity.Entity;
 import com.almasb.fxgl.entity.component.Component;
 import com.roguelike.entities.Bullet;
 import com.roguelike.entities.components.BulletAnimationComponent;
+import com.roguelike.entities.components.SimulationMovement;
 import javafx.geometry.Point2D;
 
 /**
@@ -31,13 +32,13 @@ public class OrbitingBullet extends Bullet {
         animationComponent.loadAnimationFrames(animBasePath, frameCount);
 
         // 环绕控制（durationSeconds <= 0 表示无限）
-        addComponent(new OrbitMovementComponent(playerEntity, radius, angularSpeedDegPerSec, initialAngleDeg, durationSeconds));
+        setMovement(new OrbitMovementComponent(playerEntity, radius, angularSpeedDegPerSec, initialAngleDeg, durationSeconds));
     }
 
     /**
      * 环绕运动组件：围绕目标实体中心点，以固定半径与角速度旋转，持续 durationSeconds 后移除。
      */
-    private static class OrbitMovementComponent extends Component {
+    private static class OrbitMovementComponent extends Component implements SimulationMovement {
         private final Entity target; // 玩家实体
         private final double radius;
         private final double angularSpeed; // 度/秒
@@ -54,14 +55,14 @@ public class OrbitingBullet extends Bullet {
         }
 
         @Override
-        public void onUpdate(double tpf) {
-            elapsed += tpf;
+        public void step(double dt) {
+            elapsed += dt;
             if (duration > 0 && elapsed >= duration) {
                 entity.removeFromWorld();
                 return;
             }
 
-            angleDeg += angularSpeed * tpf;
+            angleDeg += angularSpeed * dt;
             double rad = Math.toRadians(angleDeg);
 
             double cx = target.getCenter().getX();
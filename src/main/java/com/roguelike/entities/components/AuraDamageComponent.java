@@ -19,6 +19,8 @@ public class AuraDamageComponent extends Component {
     private java.util.List<Image> frames;
     private double frameDurationSec = 0.07; // 默认值，会被动态计算覆盖
     private javafx.scene.effect.ColorAdjust colorAdjust;
+    // 范围查询结果（复用）
+    private final java.util.List<com.roguelike.entities.Enemy> targets = new java.util.ArrayList<>();
 
     @Override
     public void onAdded() {
@@ -91,11 +93,11 @@ public class AuraDamageComponent extends Component {
         int dmg = com.roguelike.entities.weapons.WeaponManager.getWeapon04Damage();
         double cx = (target != null ? target.getCenter().getX() : entity.getCenter().getX());
         double cy = (target != null ? target.getCenter().getY() : entity.getCenter().getY());
-        com.almasb.fxgl.dsl.FXGL.getGameWorld().getEntitiesByType().stream()
-                .filter(e -> e instanceof com.roguelike.entities.Enemy)
-                .map(e -> (com.roguelike.entities.Enemy) e)
-                .filter(en -> en.getCenter().distance(cx, cy) <= r)
-                .forEach(en -> en.takeDamage(dmg));
+        com.roguelike.physics.AreaQueryService.shared().queryCircle(cx, cy, r, targets);
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).takeDamage(dmg);
+        }
+        targets.clear();
     }
 
     public void setTarget(com.almasb.fxgl.entity.Entity target) {
@@ -39,6 +39,15 @@ public class AutoFireComponent extends Component {
     // p02被动物品额外发射的独立冷却时间管理
     private final java.util.Map<String, Double> p02AdditionalFireTimes = new java.util.HashMap<>();
 
+    // 06 落雷目标选择：只考虑该距离内的敌人，候选数量为落雷数量的倍数
+    private static final double LIGHTNING_TARGET_RANGE = 900.0;
+    private static final int LIGHTNING_CANDIDATE_FACTOR = 4;
+    private final java.util.List<com.roguelike.entities.Enemy> lightningTargets = new java.util.ArrayList<>();
+    private final java.util.Random lightningRandom = new java.util.Random();
+    // 落点缓冲（按落雷数量扩容后复用）
+    private double[] lightningCentersX = new double[8];
+    private double[] lightningCentersY = new double[8];
+
     public AutoFireComponent() {}
 
     public AutoFireComponent(String attackSpecId, AttackStrategy strategy) {
@@ -453,7 +462,8 @@ public class AutoFireComponent extends Component {
         if (!(p instanceof com.roguelike.entities.Player)) return;
         com.roguelike.entities.Player player = (com.roguelike.entities.Player) p;
         // 创建一个附着到玩家中心的光环实体（与玩家分离，便于独立渲染与定位）
-        com.almasb.fxgl.entity.Entity aura = new com.roguelike.entities.EntityBase();
+        com.roguelike.entities.EntityBase aura = new com.roguelike.entities.EntityBase();
+        aura.setCollisionLayer(com.roguelike.physics.CollisionLayer.AURA);
         AuraDamageComponent comp = new AuraDamageComponent();
         comp.setTarget(player);
         aura.addComponent(comp);
@@ -498,14 +508,13 @@ public class AutoFireComponent extends Component {
         double offset = Math.max(player.getWidth(), player.getHeight()) * 0.8 + Math.max(b.getWidth(), b.getHeight()) * 0.8 + 20.0;
         b.getTransformComponent().setPosition(cx + nd.getX() * offset - b.getWidth() / 2.0, cy + nd.getY() * offset - b.getHeight() / 2.0);
 
-        // 移除直线运动与越界销毁，只依赖反弹组件移动+寿命控制
-        b.removeComponent(com.roguelike.entities.components.LinearMovementComponent.class);
+        // 移除越界销毁，用反弹组件替换直线运动，只依赖反弹移动+寿命控制
         b.removeComponent(com.roguelike.entities.components.OutOfViewportDestroyComponent.class);
 
         // 反弹+寿命（5s）。把速度大小取自 BulletSpec.baseSpeed
         double speed = Math.max(50.0, bulletSpec.getBaseSpeed());
         Point2D vel = nd.multiply(speed);
-        b.addComponent(new ReboundDrillComponent(vel));
+        b.setMovement(new ReboundDrillComponent(vel));
         double life = com.roguelike.entities.weapons.WeaponManager.getWeapon08Lifetime();
         b.applyLifetime(Math.max(0.1, life));
 
@@ -541,59 +550,71 @@ public class AutoFireComponent extends Component {
         activeDrills.add(b);
     }
 
-    // 06 落雷：选择不重叠落点并生成一次性落雷
+    // 06 落雷：从玩家附近最近的敌人中选择不重叠落点并生成一次性落雷
     private void spawnLightningStrikes() {
         int count = com.roguelike.entities.weapons.WeaponManager.getWeapon06Count();
         if (count <= 0) return;
         double radius = com.roguelike.entities.weapons.WeaponManager.getWeapon06Radius();
         int dmg = com.roguelike.entities.weapons.WeaponManager.getWeapon06Damage();
 
-        // 收集敌人位置
-        java.util.List<com.roguelike.entities.Enemy> enemies = FXGL.getGameWorld().getEntitiesByType().stream()
-                .filter(e -> e instanceof com.roguelike.entities.Enemy)
-                .map(e -> (com.roguelike.entities.Enemy) e)
-                .toList();
-        if (enemies.isEmpty()) return;
+        // k 近邻查询：多取几倍候选，保证去重后仍有足够的落点
+        double originX = com.roguelike.physics.SpatialPartitionSystem.centerX(entity);
+        double originY = com.roguelike.physics.SpatialPartitionSystem.centerY(entity);
+        com.roguelike.physics.AreaQueryService.shared().queryNearest(
+                originX, originY, count * LIGHTNING_CANDIDATE_FACTOR, LIGHTNING_TARGET_RANGE, lightningTargets);
+        if (lightningTargets.isEmpty()) return;
 
-        java.util.List<javafx.geometry.Point2D> centers = new java.util.ArrayList<>();
-        java.util.Random rnd = new java.util.Random();
-
-        // 简单去重选择：
-        for (int i = 0; i < enemies.size() && centers.size() < count; i++) {
-            var en = enemies.get(rnd.nextInt(enemies.size()));
-            javafx.geometry.Point2D c = en.getCenter();
-            boolean ok = true;
-            for (var p : centers) {
-                if (p.distance(c) < radius * 0.9) { ok = false; break; }
+        if (lightningCentersX.length < count) {
+            lightningCentersX = new double[count];
+            lightningCentersY = new double[count];
+        }
+        int centerCount = 0;
+        double minSpacingSq = radius * 0.9 * radius * 0.9;
+
+        // 按距离由近到远去重选择
+        for (int i = 0; i < lightningTargets.size() && centerCount < count; i++) {
+            com.roguelike.entities.Enemy target = lightningTargets.get(i);
+            double x = com.roguelike.physics.SpatialPartitionSystem.centerX(target);
+            double y = com.roguelike.physics.SpatialPartitionSystem.centerY(target);
+            if (isLightningSpotFree(x, y, centerCount, minSpacingSq)) {
+                lightningCentersX[centerCount] = x;
+                lightningCentersY[centerCount] = y;
+                centerCount++;
             }
-            if (!ok) continue;
-            centers.add(c);
         }
+        lightningTargets.clear();
+
         // 若数量仍不足，基于已有点做小偏移补齐
-        while (centers.size() < count && !centers.isEmpty()) {
-            var base = centers.get(rnd.nextInt(centers.size()));
-            double ang = rnd.nextDouble() * Math.PI * 2;
-            double dist = radius;
-            javafx.geometry.Point2D c2 = new javafx.geometry.Point2D(
-                    base.getX() + Math.cos(ang) * dist,
-                    base.getY() + Math.sin(ang) * dist
-            );
-            boolean ok = true;
-            for (var p : centers) {
-                if (p.distance(c2) < radius * 0.9) { ok = false; break; }
-            }
-            if (ok) centers.add(c2); else break;
+        while (centerCount < count && centerCount > 0) {
+            int base = lightningRandom.nextInt(centerCount);
+            double ang = lightningRandom.nextDouble() * Math.PI * 2;
+            double x = lightningCentersX[base] + Math.cos(ang) * radius;
+            double y = lightningCentersY[base] + Math.sin(ang) * radius;
+            if (!isLightningSpotFree(x, y, centerCount, minSpacingSq)) break;
+            lightningCentersX[centerCount] = x;
+            lightningCentersY[centerCount] = y;
+            centerCount++;
         }
 
         // 生成落雷实体
-        for (var c : centers) {
+        for (int i = 0; i < centerCount; i++) {
             com.almasb.fxgl.entity.Entity strike = new com.roguelike.entities.EntityBase();
             strike.addComponent(new LightningStrikeComponent(radius, dmg, 1.0));
-            strike.getTransformComponent().setPosition(c.getX(), c.getY());
+            strike.getTransformComponent().setPosition(lightningCentersX[i], lightningCentersY[i]);
             FXGL.getGameWorld().addEntity(strike);
         }
     }
 
+    // 落点与已选的前 centerCount 个落点是否都保持最小间距
+    private boolean isLightningSpotFree(double x, double y, int centerCount, double minSpacingSq) {
+        for (int i = 0; i < centerCount; i++) {
+            double dx = lightningCentersX[i] - x;
+            double dy = lightningCentersY[i] - y;
+            if (dx * dx + dy * dy < minSpacingSq) return false;
+        }
+        return true;
+    }
+
     public void setAttackSpecId(String attackSpecId) { this.attackSpecId = attackSpecId; }
     public void setStrategy(AttackStrategy strategy) { this.strategy = strategy; }
     public void setForward(Point2D forward) { if (forward != null) this.forward = forward.normalize(); }
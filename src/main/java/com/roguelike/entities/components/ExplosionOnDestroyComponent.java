@@ -17,6 +17,8 @@ public class ExplosionOnDestroyComponent extends Component {
     private final double visualScale;
     private final double radius;
     private final int damage;
+    // 范围查询结果（复用）
+    private final java.util.List<com.roguelike.entities.Enemy> targets = new java.util.ArrayList<>();
 
     public ExplosionOnDestroyComponent(String animBasePath, int frameCount, double frameDuration,
                                        double visualScale, double radius, int damage) {
@@ -35,11 +37,11 @@ public class ExplosionOnDestroyComponent extends Component {
         double cy = entity.getCenter().getY();
 
         // AOE 伤害：在半径内的敌人扣血
-        com.almasb.fxgl.dsl.FXGL.getGameWorld().getEntitiesByType().stream()
-                .filter(e -> e instanceof com.roguelike.entities.Enemy)
-                .map(e -> (com.roguelike.entities.Enemy) e)
-                .filter(en -> en.getCenter().distance(cx, cy) <= radius)
-                .forEach(en -> en.takeDamage(damage));
+        com.roguelike.physics.AreaQueryService.shared().queryCircle(cx, cy, radius, targets);
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).takeDamage(damage);
+        }
+        targets.clear();
 
         // 播放爆炸音效（使用节流机制防止重叠）
         try { com.roguelike.ui.ExplosionSoundThrottle.tryPlayExplosionSound(); } catch (Exception ignored) {}
@@ -20,6 +20,8 @@ public class LightningStrikeComponent extends Component {
     private final double visualScale;
     private ImageView view;
     private Timeline anim;
+    // 范围查询结果（复用）
+    private final java.util.List<com.roguelike.entities.Enemy> targets = new java.util.ArrayList<>();
 
     public LightningStrikeComponent(double radius, int damage, double visualScale) {
         this.radius = Math.max(1.0, radius);
@@ -100,11 +102,11 @@ public class LightningStrikeComponent extends Component {
     private void applyDamageOnce() {
         double cx = entity.getCenter().getX();
         double cy = entity.getCenter().getY();
-        com.almasb.fxgl.dsl.FXGL.getGameWorld().getEntitiesByType().stream()
-                .filter(e -> e instanceof com.roguelike.entities.Enemy)
-                .map(e -> (com.roguelike.entities.Enemy) e)
-                .filter(en -> en.getCenter().distance(cx, cy) <= radius)
-                .forEach(en -> en.takeDamage(damage));
+        com.roguelike.physics.AreaQueryService.shared().queryCircle(cx, cy, radius, targets);
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).takeDamage(damage);
+        }
+        targets.clear();
     }
 }
 
@@ -5,8 +5,9 @@ import javafx.geometry.Point2D;
 
 /**
  * 简单的直线运动组件：以固定速度沿固定方向移动，无射程上限。
+ * 移动由模拟步驱动（见 SimulationMovement）。
  */
-public class LinearMovementComponent extends Component {
+public class LinearMovementComponent extends Component implements SimulationMovement {
 
     private Point2D direction = new Point2D(1, 0);
     private double speed = 0.0; // 像素/秒
@@ -23,11 +24,10 @@ public class LinearMovementComponent extends Component {
     }
 
     @Override
-    public void onUpdate(double tpf) {
-        if (com.roguelike.core.TimeService.isPaused()) return;
+    public void step(double dt) {
         if (speed <= 0) return;
-        double dx = direction.getX() * speed * tpf;
-        double dy = direction.getY() * speed * tpf;
+        double dx = direction.getX() * speed * dt;
+        double dy = direction.getY() * speed * dt;
         entity.translate(dx, dy);
     }
 
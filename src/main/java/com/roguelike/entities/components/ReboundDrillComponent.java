@@ -5,9 +5,9 @@ import javafx.geometry.Point2D;
 
 /**
  * 反弹钻头：以速度向量移动，撞到屏幕边界反弹。外部保证寿命（5s）。
- * 暂不做敌人碰撞，仅移动与反弹。
+ * 暂不做敌人碰撞，仅移动与反弹。移动由模拟步驱动（见 SimulationMovement）。
  */
-public class ReboundDrillComponent extends Component {
+public class ReboundDrillComponent extends Component implements SimulationMovement {
     private Point2D velocity;
 
     public ReboundDrillComponent(Point2D initialVelocity) {
@@ -20,10 +20,9 @@ public class ReboundDrillComponent extends Component {
     }
 
     @Override
-    public void onUpdate(double tpf) {
-        if (com.roguelike.core.TimeService.isPaused()) return;
-        double dx = velocity.getX() * tpf;
-        double dy = velocity.getY() * tpf;
+    public void step(double dt) {
+        double dx = velocity.getX() * dt;
+        double dy = velocity.getY() * dt;
         entity.translate(dx, dy);
 
         // 使用视口可见区域作为反弹边界
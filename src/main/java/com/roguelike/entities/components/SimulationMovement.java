@@ -0,0 +1,14 @@
+package com.roguelike.entities.components;
+
+/**
+ * 由固定步长模拟驱动的移动组件
+ * 实现该接口的组件不在 onUpdate 中移动实体，而是由模拟循环每步调用 step，移动距离只取决于模拟时间。
+ */
+public interface SimulationMovement {
+
+    /**
+     * 推进一个模拟步
+     * @param dt 步长（秒）
+     */
+    void step(double dt);
+}
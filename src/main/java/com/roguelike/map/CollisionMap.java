@@ -2,17 +2,21 @@ package com.roguelike.map;
 
 /**
  * 碰撞地图类，用于管理地图的碰撞数据
+ * 碰撞数据按行打包为位集：每行占若干个 long，一个位对应一个瓦片（1 表示不可通行）。
+ * 矩形区域查询对每行只需用首尾掩码检查少量字，不再逐个瓦片判断。
  */
 public class CollisionMap {
     
     private int width;        // 地图宽度（格数）
     private int height;       // 地图高度（格数）
-    private boolean[][] collisionData; // 碰撞数据：true表示不可通行
+    private int wordsPerRow;  // 每行占用的 long 数
+    private long[] collisionBits; // 碰撞数据：按行存放，位为1表示不可通行
     
     public CollisionMap(int width, int height) {
         this.width = width;
         this.height = height;
-        this.collisionData = new boolean[height][width];
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.collisionBits = new long[wordsPerRow * height];
     }
     
     /**
@@ -20,7 +24,13 @@ public class CollisionMap {
      */
     public void setCollision(int x, int y, boolean isCollision) {
         if (isValidPosition(x, y)) {
-            collisionData[y][x] = isCollision;
+            int word = y * wordsPerRow + (x >>> 6);
+            long bit = 1L << (x & 63);
+            if (isCollision) {
+                collisionBits[word] |= bit;
+            } else {
+                collisionBits[word] &= ~bit;
+            }
         }
     }
     
@@ -31,7 +41,90 @@ public class CollisionMap {
         if (!isValidPosition(x, y)) {
             return true; // 超出边界视为碰撞
         }
-        return collisionData[y][x];
+        return (collisionBits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+    
+    /**
+     * 检查矩形区域内是否存在不可通行的瓦片（坐标为闭区间，超出边界的部分视为碰撞）
+     */
+    public boolean isAreaBlocked(int minX, int minY, int maxX, int maxY) {
+        if (minX > maxX || minY > maxY) {
+            return false;
+        }
+        if (minX < 0 || minY < 0 || maxX >= width || maxY >= height) {
+            return true;
+        }
+        
+        int firstWord = minX >>> 6;
+        int lastWord = maxX >>> 6;
+        long firstMask = -1L << (minX & 63);
+        long lastMask = -1L >>> (63 - (maxX & 63));
+        
+        for (int y = minY; y <= maxY; y++) {
+            int rowStart = y * wordsPerRow;
+            if (firstWord == lastWord) {
+                if ((collisionBits[rowStart + firstWord] & firstMask & lastMask) != 0) {
+                    return true;
+                }
+                continue;
+            }
+            if ((collisionBits[rowStart + firstWord] & firstMask) != 0
+                || (collisionBits[rowStart + lastWord] & lastMask) != 0) {
+                return true;
+            }
+            for (int word = firstWord + 1; word < lastWord; word++) {
+                if (collisionBits[rowStart + word] != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 读取一行中 [minX, maxX] 的可通行性写入 out[offset..]（超出边界的部分视为不可通行）
+     * 直接按字读取位集，整个字没有障碍时批量填充
+     */
+    public void fillRowPassability(int y, int minX, int maxX, boolean[] out, int offset) {
+        if (minX > maxX) {
+            return;
+        }
+        if (y < 0 || y >= height) {
+            java.util.Arrays.fill(out, offset, offset + maxX - minX + 1, false);
+            return;
+        }
+        
+        int x = minX;
+        if (x < 0) {
+            int stop = Math.min(maxX, -1);
+            java.util.Arrays.fill(out, offset, offset + stop - minX + 1, false);
+            x = stop + 1;
+        }
+        int end = Math.min(maxX, width - 1);
+        int rowStart = y * wordsPerRow;
+        while (x <= end) {
+            int word = x >>> 6;
+            long bits = collisionBits[rowStart + word];
+            int wordEnd = Math.min(end, (word << 6) + 63);
+            if (bits == 0) {
+                java.util.Arrays.fill(out, offset + x - minX, offset + wordEnd - minX + 1, true);
+            } else {
+                for (int i = x; i <= wordEnd; i++) {
+                    out[offset + i - minX] = (bits & (1L << (i & 63))) == 0;
+                }
+            }
+            x = wordEnd + 1;
+        }
+        if (x <= maxX) {
+            java.util.Arrays.fill(out, offset + x - minX, offset + maxX - minX + 1, false);
+        }
+    }
+    
+    /**
+     * 检查矩形区域是否全部可通行（坐标为闭区间）
+     */
+    public boolean isAreaPassable(int minX, int minY, int maxX, int maxY) {
+        return !isAreaBlocked(minX, minY, maxX, maxY);
     }
     
     /**
@@ -73,11 +166,7 @@ public class CollisionMap {
      * 清空所有碰撞数据
      */
     public void clear() {
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                collisionData[y][x] = false;
-            }
-        }
+        java.util.Arrays.fill(collisionBits, 0L);
     }
     
     /**
@@ -138,7 +227,7 @@ public class CollisionMap {
         for (int y = 0; y < height; y++) {
             StringBuilder line = new StringBuilder();
             for (int x = 0; x < width; x++) {
-                line.append(collisionData[y][x] ? "X" : ".");
+                line.append(hasCollision(x, y) ? "X" : ".");
             }
             System.out.println(line.toString());
         }
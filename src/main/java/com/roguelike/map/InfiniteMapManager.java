@@ -23,7 +23,20 @@ import com.roguelike.map.strategy.FourDirectionalStrategy;
  */
 public class InfiniteMapManager {
     
+    /**
+     * 区块生命周期监听器（在游戏线程中回调）
+     */
+    public interface ChunkLifecycleListener {
+        /** 区块加载完成（已加入 loadedChunks，可以读取通行性） */
+        void onChunkLoaded(MapChunk chunk);
+        /** 区块即将卸载（仍可读取坐标，不应再读取通行性） */
+        void onChunkUnloaded(MapChunk chunk);
+    }
+    
     private Map<String, MapChunk> loadedChunks;   // 已加载的区块，键格式："chunkX,chunkY"
+    private final List<ChunkLifecycleListener> chunkListeners = new ArrayList<>(); // 区块加载/卸载监听器
+    // 已加载区块集合的修订号：每次加载或卸载递增（异步加载在加载线程中写入 loadedChunks，因此用原子计数）
+    private final java.util.concurrent.atomic.AtomicLong chunkRevision = new java.util.concurrent.atomic.AtomicLong();
     private int playerChunkX;                     // 玩家当前所在区块X坐标
     private int playerChunkY;                     // 玩家当前所在区块Y坐标
     private int loadRadius;                       // 加载半径（区块数）
@@ -524,6 +537,9 @@ public class InfiniteMapManager {
         chunk.load();
         chunk.addToScene(); // 同步加载时直接添加到场景
         loadedChunks.put(chunkKey, chunk);
+        chunkRevision.incrementAndGet();
+        // 加载前区块内瓦片视为障碍，失效搜索窗口覆盖该区块的缓存路径（绕行路径可能不再最短）
+        invalidateCachedPaths(chunk, true);
         stateManager.transitionToState(chunkKey, ChunkState.LOADED);
         
         // 扫描新加载区块中的定时器瓦片
@@ -534,6 +550,7 @@ public class InfiniteMapManager {
         if (teleportManager != null) {
             teleportManager.scanChunkForTeleportTiles(chunk);
         }
+        notifyChunkLoaded(chunk);
         
         System.out.println("🗺️ 区块 (" + chunkX + "," + chunkY + ") 使用地图: " + chunkMapName);
         
@@ -565,6 +582,8 @@ public class InfiniteMapManager {
             future.thenAccept(chunk -> {
                 if (chunk != null) {
                     loadedChunks.put(chunkKey, chunk);
+                    chunkRevision.incrementAndGet();
+                    invalidateCachedPaths(chunk, true);
                     // 立即在主线程中添加地图视图到场景，减少延迟
                     Platform.runLater(() -> {
                         // Provider 渲染在 MapChunk 内部控制；此处不重复添加
@@ -576,6 +595,10 @@ public class InfiniteMapManager {
                         if (teleportManager != null) {
                             teleportManager.scanChunkForTeleportTiles(chunk);
                         }
+                        // 期间已被卸载的区块不再通知
+                        if (loadedChunks.get(chunkKey) == chunk) {
+                            notifyChunkLoaded(chunk);
+                        }
                         
                         System.out.println("✅ 区块 (" + chunkX + "," + chunkY + ") 异步加载完成并添加到场景 (地图: " + chunkMapName + ")");
                         
@@ -596,6 +619,32 @@ public class InfiniteMapManager {
         }
     }
     
+    /**
+     * 注册区块生命周期监听器，并立即为已加载的区块补发加载通知
+     */
+    public void addChunkLifecycleListener(ChunkLifecycleListener listener) {
+        if (listener == null || chunkListeners.contains(listener)) {
+            return;
+        }
+        chunkListeners.add(listener);
+        for (MapChunk chunk : new ArrayList<>(loadedChunks.values())) {
+            listener.onChunkLoaded(chunk);
+        }
+    }
+    
+    /**
+     * 移除区块生命周期监听器
+     */
+    public void removeChunkLifecycleListener(ChunkLifecycleListener listener) {
+        chunkListeners.remove(listener);
+    }
+    
+    private void notifyChunkLoaded(MapChunk chunk) {
+        for (ChunkLifecycleListener listener : chunkListeners) {
+            listener.onChunkLoaded(chunk);
+        }
+    }
+    
     /**
      * 卸载指定区块
      */
@@ -603,6 +652,7 @@ public class InfiniteMapManager {
         stateManager.transitionToState(chunkKey, ChunkState.UNLOADING);
         MapChunk chunk = loadedChunks.remove(chunkKey);
         if (chunk != null) {
+            chunkRevision.incrementAndGet();
             // 清理区块内的敌人和子弹
             cleanupEntitiesInChunk(chunkKey);
             
@@ -611,7 +661,13 @@ public class InfiniteMapManager {
                 timerTileManager.clearChunkTimerTiles(chunkKey);
             }
             
+            for (ChunkLifecycleListener listener : chunkListeners) {
+                listener.onChunkUnloaded(chunk);
+            }
             chunk.unload();
+            
+            // 卸载后区块内瓦片视为障碍，失效经过该区块的缓存路径
+            invalidateCachedPaths(chunk, false);
         }
         stateManager.transitionToState(chunkKey, ChunkState.UNLOADED);
         // 清理注册的定时器/传送瓦片
@@ -620,6 +676,18 @@ public class InfiniteMapManager {
         }
     }
     
+    /**
+     * 区块加载或卸载后失效与该区块相关的缓存路径，并递增通行性版本号（过期的异步寻路结果不再写入缓存）
+     * @param passable 加载时为 true（区块内可能出现可通行瓦片），卸载时为 false（整块视为障碍）
+     */
+    private void invalidateCachedPaths(MapChunk chunk, boolean passable) {
+        int minTileX = chunk.getChunkX() * getChunkWidthTiles();
+        int minTileY = chunk.getChunkY() * getChunkHeightTiles();
+        com.roguelike.utils.PathCache.shared().invalidateArea(
+            minTileX, minTileY,
+            minTileX + getChunkWidthTiles() - 1, minTileY + getChunkHeightTiles() - 1, passable);
+    }
+    
     /**
      * 清理指定区块内的实体（敌人、子弹等）
      */
@@ -807,6 +875,79 @@ public class InfiniteMapManager {
         return false;
     }
     
+    /**
+     * 检查瓦片矩形是否全部可通行（世界瓦片坐标，结束坐标不包含）
+     * 按覆盖的区块拆分，每个区块只查找一次并用位集区域查询，未加载的区块视为不可通行
+     */
+    public boolean isTileAreaPassable(int startTileX, int startTileY, int endTileX, int endTileY) {
+        int chunkTilesX = getChunkWidthTiles();
+        int chunkTilesY = getChunkHeightTiles();
+        double tileSize = getTileSize();
+        
+        int tileY = startTileY;
+        while (tileY < endTileY) {
+            int chunkY = worldToChunkY(tileY * tileSize);
+            int originTileY = chunkY * chunkTilesY;
+            // 水平无限地图只有一行区块，超出部分由区块自身按越界处理
+            int rowEnd = isHorizontalInfinite ? endTileY : Math.min(endTileY, originTileY + chunkTilesY);
+            
+            int tileX = startTileX;
+            while (tileX < endTileX) {
+                int chunkX = worldToChunkX(tileX * tileSize);
+                int originTileX = chunkX * chunkTilesX;
+                int columnEnd = Math.min(endTileX, originTileX + chunkTilesX);
+                
+                MapChunk chunk = getChunk(chunkX, chunkY);
+                if (chunk == null || !chunk.isTileAreaPassable(tileX - originTileX, tileY - originTileY,
+                                                               columnEnd - 1 - originTileX, rowEnd - 1 - originTileY)) {
+                    return false;
+                }
+                tileX = columnEnd;
+            }
+            tileY = rowEnd;
+        }
+        return true;
+    }
+
+    /**
+     * 批量读取瓦片矩形的可通行性（世界瓦片坐标，左上角 + 宽高），按行优先写入 out
+     * 与 isTileAreaPassable 一样按区块拆分，每个区块只查找一次并按行读取碰撞位集，未加载的区块整块视为不可通行
+     */
+    public void fillTilePassability(int startTileX, int startTileY, int width, int height, boolean[] out) {
+        int chunkTilesX = getChunkWidthTiles();
+        int chunkTilesY = getChunkHeightTiles();
+        double tileSize = getTileSize();
+        int endTileX = startTileX + width;
+        int endTileY = startTileY + height;
+
+        int tileY = startTileY;
+        while (tileY < endTileY) {
+            int chunkY = worldToChunkY(tileY * tileSize);
+            int originTileY = chunkY * chunkTilesY;
+            int rowEnd = isHorizontalInfinite ? endTileY : Math.min(endTileY, originTileY + chunkTilesY);
+
+            int tileX = startTileX;
+            while (tileX < endTileX) {
+                int chunkX = worldToChunkX(tileX * tileSize);
+                int originTileX = chunkX * chunkTilesX;
+                int columnEnd = Math.min(endTileX, originTileX + chunkTilesX);
+
+                MapChunk chunk = loadedChunks.get(chunkToKey(chunkX, chunkY));
+                int offset = (tileY - startTileY) * width + tileX - startTileX;
+                if (chunk != null) {
+                    chunk.fillTilePassability(tileX - originTileX, tileY - originTileY,
+                                              columnEnd - 1 - originTileX, rowEnd - 1 - originTileY, out, offset, width);
+                } else {
+                    for (int y = tileY; y < rowEnd; y++, offset += width) {
+                        java.util.Arrays.fill(out, offset, offset + columnEnd - tileX, false);
+                    }
+                }
+                tileX = columnEnd;
+            }
+            tileY = rowEnd;
+        }
+    }
+
     /**
      * 检查指定世界坐标是否不可通行
      */
@@ -894,6 +1035,14 @@ public class InfiniteMapManager {
         return loadedChunks.size();
     }
     
+    /**
+     * 已加载区块集合的修订号（只增不减）：同一步内加载一个、卸载另一个时区块数不变，但修订号会变化，
+     * 用于判断按已加载区块读取的通行性是否过期
+     */
+    public long getChunkRevision() {
+        return chunkRevision.get();
+    }
+    
     /**
      * 获取当前加载的区块坐标列表
      */
@@ -939,6 +1088,9 @@ public class InfiniteMapManager {
         
         // 卸载所有区块
         for (MapChunk chunk : loadedChunks.values()) {
+            for (ChunkLifecycleListener listener : chunkListeners) {
+                listener.onChunkUnloaded(chunk);
+            }
             chunk.unload();
         }
         loadedChunks.clear();
@@ -982,6 +1134,27 @@ public class InfiniteMapManager {
         return MapChunkFactory.getChunkHeightPixels(mapName);
     }
     
+    /**
+     * 获取区块宽度（瓦片）
+     */
+    public int getChunkWidthTiles() {
+        return MapChunkFactory.getChunkWidth(mapName);
+    }
+    
+    /**
+     * 获取区块高度（瓦片）
+     */
+    public int getChunkHeightTiles() {
+        return MapChunkFactory.getChunkHeight(mapName);
+    }
+    
+    /**
+     * 获取瓦片尺寸（像素）
+     */
+    public int getTileSize() {
+        return MapChunkFactory.getTileSize();
+    }
+    
     /**
      * 获取上次预加载的区块列表
      */
@@ -32,6 +32,7 @@ public class MapChunk {
     private boolean isLoaded;              // 是否已加载
     private double worldOffsetX;           // 世界坐标X偏移
     private double worldOffsetY;           // 世界坐标Y偏移
+    private int passabilityRevision = 0;   // 瓦片通行性修订号（每次 makeTilePassable/makeTileUnpassable 递增）
     private Map<String, Image> tilesetImages = new HashMap<>(); // 瓦片集图像缓存
     // 新增：Provider（双实现开关）
     private TileMapProvider tileMapProvider;
@@ -647,6 +648,61 @@ public class MapChunk {
         return collisionMap != null && collisionMap.isPassable(localX, localY);
     }
     
+    /**
+     * 检查区块内瓦片矩形是否全部可通行（区块内瓦片坐标，闭区间）
+     * 超出区块范围的部分视为不可通行，与单点查询保持一致
+     */
+    public boolean isTileAreaPassable(int minTileX, int minTileY, int maxTileX, int maxTileY) {
+        if (!isLoaded) {
+            return false;
+        }
+        CollisionMap activeMap = tileMapProvider != null ? tileMapProvider.getCollisionMap() : collisionMap;
+        if (activeMap != null) {
+            return activeMap.isAreaPassable(minTileX, minTileY, maxTileX, maxTileY);
+        }
+        if (tileMapProvider == null) {
+            return false;
+        }
+        // Provider 未提供碰撞数据时逐瓦片回退
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                if (!tileMapProvider.isPassable(worldOffsetX + tileX * TILE_SIZE, worldOffsetY + tileY * TILE_SIZE)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 批量读取区块内瓦片矩形的可通行性（区块内瓦片坐标，闭区间）
+     * 第 tileY 行写入 out 中从 offset + (tileY - minTileY) * stride 开始的位置；直接按行读取碰撞位集，
+     * 超出区块范围的部分视为不可通行，与 isTileAreaPassable 保持一致
+     */
+    public void fillTilePassability(int minTileX, int minTileY, int maxTileX, int maxTileY,
+                                    boolean[] out, int offset, int stride) {
+        int span = maxTileX - minTileX + 1;
+        if (span <= 0) {
+            return;
+        }
+        CollisionMap activeMap = !isLoaded ? null
+            : tileMapProvider != null ? tileMapProvider.getCollisionMap() : collisionMap;
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            int rowOffset = offset + (tileY - minTileY) * stride;
+            if (activeMap != null) {
+                activeMap.fillRowPassability(tileY, minTileX, maxTileX, out, rowOffset);
+            } else if (isLoaded && tileMapProvider != null) {
+                // Provider 未提供碰撞数据时逐瓦片回退
+                for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                    out[rowOffset + tileX - minTileX] =
+                        tileMapProvider.isPassable(worldOffsetX + tileX * TILE_SIZE, worldOffsetY + tileY * TILE_SIZE);
+                }
+            } else {
+                java.util.Arrays.fill(out, rowOffset, rowOffset + span, false);
+            }
+        }
+    }
+    
     /**
      * 检查指定位置是否可通行（支持跨区块检测）
      * 用于无限地图的跨区块寻路
@@ -684,6 +740,7 @@ public class MapChunk {
     public void makeTilePassable(int tileX, int tileY) {
         if (tileMapProvider != null) {
             tileMapProvider.setTilePassable(tileX, tileY, true);
+            notifyTileChanged(tileX, tileY, true);
             System.out.println("✅ 瓦片位置(" + tileX + "," + tileY + ") 已变为可通行 (provider)");
             return;
         }
@@ -691,6 +748,7 @@ public class MapChunk {
             tileX >= 0 && tileX < collisionMap.getWidth() && 
             tileY >= 0 && tileY < collisionMap.getHeight()) {
             collisionMap.setCollision(tileX, tileY, false);
+            notifyTileChanged(tileX, tileY, true);
             System.out.println("✅ 瓦片位置(" + tileX + "," + tileY + ") 已变为可通行");
         }
     }
@@ -703,6 +761,7 @@ public class MapChunk {
     public void makeTileUnpassable(int tileX, int tileY) {
         if (tileMapProvider != null) {
             tileMapProvider.setTilePassable(tileX, tileY, false);
+            notifyTileChanged(tileX, tileY, false);
             System.out.println("🚫 瓦片位置(" + tileX + "," + tileY + ") 已变为不可通行 (provider)");
             return;
         }
@@ -710,10 +769,22 @@ public class MapChunk {
             tileX >= 0 && tileX < collisionMap.getWidth() && 
             tileY >= 0 && tileY < collisionMap.getHeight()) {
             collisionMap.setCollision(tileX, tileY, true);
+            notifyTileChanged(tileX, tileY, false);
             System.out.println("🚫 瓦片位置(" + tileX + "," + tileY + ") 已变为不可通行");
         }
     }
     
+    /**
+     * 通知共享路径缓存：区块内瓦片坐标换算为世界瓦片坐标后失效相关路径；
+     * 同时递增通行性修订号，区块入口图据此发现需要重建的区块
+     */
+    private void notifyTileChanged(int tileX, int tileY, boolean passable) {
+        passabilityRevision++;
+        int worldTileX = (int) Math.floor(worldOffsetX / TILE_SIZE) + tileX;
+        int worldTileY = (int) Math.floor(worldOffsetY / TILE_SIZE) + tileY;
+        com.roguelike.utils.PathCache.shared().invalidateTile(worldTileX, worldTileY, passable);
+    }
+    
     /**
      * 检查指定瓦片位置是否可通行
      * @param tileX 瓦片X坐标
@@ -733,6 +804,7 @@ public class MapChunk {
     
     // Getter方法
     public int getChunkX() { return chunkX; }
+    public int getPassabilityRevision() { return passabilityRevision; }
     public int getChunkY() { return chunkY; }
     public int getChunkWidth() { return chunkWidth; }
     public int getChunkHeight() { return chunkHeight; }
@@ -15,7 +15,7 @@ public class MapChunkFactory {
     private static java.util.Map<String, int[]> tmxDimensionsCache = new java.util.HashMap<>(); // mapName -> [w,h]
     private static java.util.Map<String, Integer> tmxTileSizeCache = new java.util.HashMap<>(); // mapName -> tileSize
     
-    private static int getTileSize() {
+    public static int getTileSize() {
         // 以 TMX 为准：若已缓存任何一张 TMX 的 tileSize 且一致，则返回；否则回退配置；最终默认32。
         try {
             synchronized (tmxTileSizeCache) {
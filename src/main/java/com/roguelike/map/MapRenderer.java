@@ -639,6 +639,17 @@ public class MapRenderer {
         return true;
     }
     
+    /**
+     * 检查瓦片矩形是否全部可通行（结束坐标不包含）
+     */
+    public boolean isTileAreaPassable(int startTileX, int startTileY, int endTileX, int endTileY) {
+        if (collisionMap != null) {
+            return collisionMap.isAreaPassable(startTileX, startTileY, endTileX - 1, endTileY - 1);
+        }
+        // 如果没有碰撞地图，默认返回true（可通行）
+        return true;
+    }
+    
     /**
      * 检查指定位置是否不可通行
      */
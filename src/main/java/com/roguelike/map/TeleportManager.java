@@ -1,6 +1,5 @@
 package com.roguelike.map;
 
-import com.almasb.fxgl.dsl.FXGL;
 import com.roguelike.entities.Player;
 import com.roguelike.map.config.MapConfig;
 import com.roguelike.map.config.MapConfigLoader;
@@ -202,9 +201,7 @@ public class TeleportManager {
         // 更新无限地图管理器的玩家位置
         infiniteMapManager.updateChunks(targetChunkX, targetChunkY);
         
-        // 更新摄像机跟随
-        FXGL.getGameScene().getViewport().bindToEntity(player, 
-            FXGL.getAppWidth() / 2.0, FXGL.getAppHeight() / 2.0);
+        // 摄像机由 GameApp 每个渲染帧跟随玩家位置，传送后下一帧自动居中
         
         System.out.println("✅ 传送完成！");
         
@@ -46,6 +46,9 @@ public interface TileMapProvider {
 
     /** 可选：设置某瓦片通行性（用于定时器瓦片等动态变更） */
     default void setTilePassable(int tileX, int tileY, boolean passable) { }
+
+    /** 可选：返回区块内坐标的碰撞数据（用于区域查询），允许返回 null */
+    default CollisionMap getCollisionMap() { return null; }
 }
 
 
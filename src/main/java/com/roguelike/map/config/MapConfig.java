@@ -25,6 +25,12 @@ public class MapConfig {
         public Integer loadRadius;
         public Integer preloadRadius;
 
+        // 实体碰撞宽相位（可选）：grid 或 sweep_and_prune，缺省为 grid
+        public String broadPhase;
+
+        // 敌人较少时的单体寻路算法（可选）：astar 或 jump_point，缺省为 astar
+        public String gridPathfinding;
+
         // 特殊区块配置：door / boss -> 列表
         public Map<String, List<SpecialChunk>> specialChunks;
 
@@ -7,6 +7,7 @@ import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
 
 /**
  * 地图配置加载器：从 resources/configs/maps/map_config.json 加载。
@@ -37,6 +38,28 @@ public class MapConfigLoader {
             throw new RuntimeException("加载地图配置失败: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 读取指定地图条目中的可选项；地图未配置、读取结果为空或配置加载失败时返回默认值
+     * @param reader 从地图条目中取出并解析该项
+     */
+    public static <T> T resolveMapOption(String mapName, Function<MapConfig.SingleMapConfig, T> reader, T defaultValue) {
+        try {
+            MapConfig cfg = load();
+            if (cfg != null && cfg.maps != null && mapName != null) {
+                MapConfig.SingleMapConfig m = cfg.maps.get(mapName);
+                if (m != null) {
+                    T value = reader.apply(m);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("读取地图 " + mapName + " 的配置项失败，使用默认值 " + defaultValue + ": " + e.getMessage());
+        }
+        return defaultValue;
+    }
 }
 
 
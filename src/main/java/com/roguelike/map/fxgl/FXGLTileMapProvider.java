@@ -202,6 +202,11 @@ public class FXGLTileMapProvider implements TileMapProvider {
         // 暂留：由上层 TimerTileManager/TeleportManager 继续调用 MapChunk 扫描，或未来迁移至此
     }
 
+    @Override
+    public CollisionMap getCollisionMap() {
+        return collisionMapOr;
+    }
+
     @Override
     public void setTilePassable(int tileX, int tileY, boolean passable) {
         if (tileX < 0 || tileX >= chunkWidthTiles || tileY < 0 || tileY >= chunkHeightTiles) return;
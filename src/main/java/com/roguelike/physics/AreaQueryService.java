@@ -0,0 +1,411 @@
+package com.roguelike.physics;
+
+import com.almasb.fxgl.entity.Entity;
+import com.roguelike.entities.Enemy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 范围查询服务
+ * 维护全局共享的敌人空间索引（网格），为移动验证的邻域查询与光环、闪电、爆炸等范围伤害提供
+ * 圆形、矩形、扇形查询与 k 近邻查询，避免每次查询遍历整个游戏世界。
+ *
+ * 存活敌人由游戏世界的生成/销毁事件登记：生成时立即加入索引，销毁后查询按 isActive 过滤、下次重建时移出。
+ * 索引每个游戏时刻最多从登记表重建一次（时间停止时按缓存间隔重建）；移动验证器推动敌人后立即更新被推动者。
+ * 索引中的位置可能落后于实时位置，查询框额外扩展 INDEX_DRIFT_MARGIN，最终判定使用实体的实时中心。
+ * 只在游戏线程中使用。
+ */
+public class AreaQueryService {
+
+    private static final AreaQueryService SHARED = new AreaQueryService();
+
+    // 同一时刻内实体仍可能继续移动，查询框额外扩展该距离
+    static final double INDEX_DRIFT_MARGIN = 16.0;
+    // 时间停止（或同一时刻）时的索引重建间隔
+    private static final long REFRESH_INTERVAL_MILLIS = 50;
+
+    /**
+     * 查询形状（用于分类统计）
+     */
+    public enum Shape {
+        CIRCLE, RECTANGLE, CONE, NEAREST, NEIGHBOUR
+    }
+
+    private final SpatialPartitionSystem enemyIndex = new SpatialPartitionSystem();
+    // 存活敌人登记表（销毁只做标记，重建索引时原地压缩）
+    private final List<Entity> liveEnemies = new ArrayList<>();
+    private boolean liveEnemiesDirty = false;
+    private double lastRefreshTime = -1;
+    private long lastRefreshMillis = 0;
+
+    // 候选缓冲（只在单次查询内部使用）
+    private final List<Entity> candidateBuffer = new ArrayList<>();
+
+    // k 近邻查询的有序结果（按距离平方升序，容量按需增长）
+    private Enemy[] nearestEnemies = new Enemy[16];
+    private double[] nearestDistancesSq = new double[16];
+    private final List<Enemy> singleNearest = new ArrayList<>(1);
+
+    // 按形状统计：查询次数、检查过的索引记录、通过包围盒的候选、最终命中、耗时
+    private final long[] queryCounts = new long[Shape.values().length];
+    private final long[] examinedCounts = new long[Shape.values().length];
+    private final long[] candidateCounts = new long[Shape.values().length];
+    private final long[] hitCounts = new long[Shape.values().length];
+    private final long[] queryNanos = new long[Shape.values().length];
+    private long indexRebuilds = 0;
+
+    /**
+     * 获取共享实例
+     */
+    public static AreaQueryService shared() {
+        return SHARED;
+    }
+
+    // ---------------- 索引维护 ----------------
+
+    /**
+     * 敌人加入游戏世界：登记并立即加入索引，本时刻内的查询即可命中
+     */
+    public void onEnemySpawned(Entity enemy) {
+        if (enemy == null) return;
+        liveEnemies.add(enemy);
+        enemyIndex.updateEntity(enemy);
+    }
+
+    /**
+     * 敌人离开游戏世界：查询按 isActive 过滤，下次重建时从登记表与索引中移出
+     */
+    public void onEnemyRemoved(Entity enemy) {
+        liveEnemiesDirty = true;
+    }
+
+    /**
+     * 新局开始时清空登记表与索引
+     */
+    public void reset() {
+        liveEnemies.clear();
+        liveEnemiesDirty = false;
+        enemyIndex.clear();
+        lastRefreshTime = -1;
+        lastRefreshMillis = 0;
+    }
+
+    /**
+     * 按需重建索引（每个游戏时刻最多一次）
+     */
+    public void refreshEnemyIndex() {
+        ensureFresh();
+    }
+
+    /**
+     * 敌人位置在本时刻内被改变（例如被推动）后立即更新其索引位置
+     */
+    public void updateEnemy(Entity enemy) {
+        enemyIndex.updateEntity(enemy);
+    }
+
+    /**
+     * 从存活敌人登记表重建索引
+     */
+    private void ensureFresh() {
+        if (!isRefreshDue()) {
+            return;
+        }
+        markRefreshed();
+        if (liveEnemiesDirty) {
+            compactLiveEnemies();
+        }
+
+        enemyIndex.beginUpdate();
+        for (int i = 0; i < liveEnemies.size(); i++) {
+            enemyIndex.updateEntity(liveEnemies.get(i));
+        }
+        enemyIndex.endUpdate();
+    }
+
+    /**
+     * 原地移除已离开世界的敌人
+     */
+    private void compactLiveEnemies() {
+        int live = 0;
+        for (int i = 0, n = liveEnemies.size(); i < n; i++) {
+            Entity enemy = liveEnemies.get(i);
+            if (enemy.isActive()) {
+                liveEnemies.set(live++, enemy);
+            }
+        }
+        for (int i = liveEnemies.size() - 1; i >= live; i--) {
+            liveEnemies.remove(i);
+        }
+        liveEnemiesDirty = false;
+    }
+
+    private boolean isRefreshDue() {
+        double now = com.roguelike.core.TimeService.getSeconds();
+        return now != lastRefreshTime || System.currentTimeMillis() - lastRefreshMillis >= REFRESH_INTERVAL_MILLIS;
+    }
+
+    private void markRefreshed() {
+        lastRefreshTime = com.roguelike.core.TimeService.getSeconds();
+        lastRefreshMillis = System.currentTimeMillis();
+        indexRebuilds++;
+    }
+
+    // ---------------- 查询 ----------------
+
+    /**
+     * 收集碰撞箱可能与指定矩形重叠的敌人（追加到 out，调用方仍需用实时位置精确判定）
+     * 供移动验证器使用，不重建索引
+     */
+    public void collectEnemyCandidates(double minX, double minY, double maxX, double maxY, List<Entity> out) {
+        long start = System.nanoTime();
+        int before = out.size();
+        int examined = enemyIndex.collectInBox(
+            minX - INDEX_DRIFT_MARGIN, minY - INDEX_DRIFT_MARGIN,
+            maxX + INDEX_DRIFT_MARGIN, maxY + INDEX_DRIFT_MARGIN, out);
+        int candidates = out.size() - before;
+        // 本时刻内已销毁的敌人仍在索引中，直接剔除
+        int live = before;
+        for (int i = before; i < out.size(); i++) {
+            Entity enemy = out.get(i);
+            if (enemy.isActive()) {
+                out.set(live++, enemy);
+            }
+        }
+        for (int i = out.size() - 1; i >= live; i--) {
+            out.remove(i);
+        }
+        record(Shape.NEIGHBOUR, examined, candidates, live - before, System.nanoTime() - start);
+    }
+
+    /**
+     * 圆形查询：中心在圆内（含边界）的存活敌人，结果写入 out（先清空）
+     */
+    public List<Enemy> queryCircle(double centerX, double centerY, double radius, List<Enemy> out) {
+        out.clear();
+        if (radius < 0) return out;
+        long start = System.nanoTime();
+        int examined = collectCandidates(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+
+        double radiusSq = radius * radius;
+        for (int i = 0; i < candidateBuffer.size(); i++) {
+            Enemy enemy = (Enemy) candidateBuffer.get(i);
+            double dx = SpatialPartitionSystem.centerX(enemy) - centerX;
+            double dy = SpatialPartitionSystem.centerY(enemy) - centerY;
+            if (dx * dx + dy * dy <= radiusSq && enemy.isActive()) {
+                out.add(enemy);
+            }
+        }
+        finish(Shape.CIRCLE, examined, out.size(), start);
+        return out;
+    }
+
+    /**
+     * 矩形查询：中心在矩形内（含边界）的存活敌人，结果写入 out（先清空）
+     */
+    public List<Enemy> queryRectangle(double minX, double minY, double maxX, double maxY, List<Enemy> out) {
+        out.clear();
+        if (minX > maxX || minY > maxY) return out;
+        long start = System.nanoTime();
+        int examined = collectCandidates(minX, minY, maxX, maxY);
+
+        for (int i = 0; i < candidateBuffer.size(); i++) {
+            Enemy enemy = (Enemy) candidateBuffer.get(i);
+            double x = SpatialPartitionSystem.centerX(enemy);
+            double y = SpatialPartitionSystem.centerY(enemy);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY && enemy.isActive()) {
+                out.add(enemy);
+            }
+        }
+        finish(Shape.RECTANGLE, examined, out.size(), start);
+        return out;
+    }
+
+    /**
+     * 扇形查询：以 (apexX, apexY) 为顶点、沿方向 (directionX, directionY)、半张角 halfAngleRadians、
+     * 半径 range 的扇形内（中心判定）的存活敌人，结果写入 out（先清空）
+     */
+    public List<Enemy> queryCone(double apexX, double apexY, double directionX, double directionY,
+                                 double halfAngleRadians, double range, List<Enemy> out) {
+        out.clear();
+        double length = Math.sqrt(directionX * directionX + directionY * directionY);
+        if (range < 0 || length == 0) return out;
+        long start = System.nanoTime();
+        directionX /= length;
+        directionY /= length;
+        double cosHalfAngle = Math.cos(Math.min(Math.PI, Math.max(0, halfAngleRadians)));
+        int examined = collectCandidates(apexX - range, apexY - range, apexX + range, apexY + range);
+
+        double rangeSq = range * range;
+        for (int i = 0; i < candidateBuffer.size(); i++) {
+            Enemy enemy = (Enemy) candidateBuffer.get(i);
+            double dx = SpatialPartitionSystem.centerX(enemy) - apexX;
+            double dy = SpatialPartitionSystem.centerY(enemy) - apexY;
+            double distanceSq = dx * dx + dy * dy;
+            if (distanceSq > rangeSq || !enemy.isActive()) continue;
+            // 顶点处的敌人视为在扇形内；否则比较夹角余弦（不使用反三角函数）
+            double dot = dx * directionX + dy * directionY;
+            if (distanceSq == 0 || dot >= cosHalfAngle * Math.sqrt(distanceSq)) {
+                out.add(enemy);
+            }
+        }
+        finish(Shape.CONE, examined, out.size(), start);
+        return out;
+    }
+
+    /**
+     * k 近邻查询：与 (x, y) 中心距离不超过 maxRadius 的最近 k 个存活敌人，按距离升序写入 out（先清空）
+     * 从查询点所在网格开始逐步向外扩展，已找到 k 个且下一步的距离下界不小于第 k 近的距离时停止，
+     * 不会像全表扫描那样随敌人总数增长。maxRadius 可以为 Double.POSITIVE_INFINITY。
+     */
+    public List<Enemy> queryNearest(double x, double y, int k, double maxRadius, List<Enemy> out) {
+        out.clear();
+        if (k <= 0 || maxRadius < 0) return out;
+        long start = System.nanoTime();
+        ensureFresh();
+        if (nearestEnemies.length < k) {
+            nearestEnemies = new Enemy[Math.max(k, nearestEnemies.length * 2)];
+            nearestDistancesSq = new double[nearestEnemies.length];
+        }
+
+        int gridSize = SpatialPartitionSystem.getGridSize();
+        int indexed = enemyIndex.getProxyCount();
+        double maxRadiusSq = maxRadius * maxRadius;
+        int found = 0;
+        int examined = 0;
+        int candidates = 0;
+
+        for (int step = 0; examined < indexed; step++) {
+            // 第 step 步及之后收集的索引位置与查询点的距离至少为 (step - 1) 个基准网格，再扣除索引漂移
+            double lowerBound = Math.max(0, (step - 1) * (double) gridSize - INDEX_DRIFT_MARGIN);
+            if (lowerBound > maxRadius) break;
+            if (found == k && lowerBound * lowerBound >= nearestDistancesSq[k - 1]) break;
+
+            candidateBuffer.clear();
+            examined += enemyIndex.collectRing(x, y, step, candidateBuffer);
+            candidates += candidateBuffer.size();
+            for (int i = 0; i < candidateBuffer.size(); i++) {
+                Enemy enemy = (Enemy) candidateBuffer.get(i);
+                double dx = SpatialPartitionSystem.centerX(enemy) - x;
+                double dy = SpatialPartitionSystem.centerY(enemy) - y;
+                double distanceSq = dx * dx + dy * dy;
+                if (distanceSq > maxRadiusSq) continue;
+                if (found == k && distanceSq >= nearestDistancesSq[k - 1]) continue;
+                if (!enemy.isActive() || !enemy.isAlive()) continue;
+                found = insertNearest(enemy, distanceSq, found, k);
+            }
+        }
+
+        for (int i = 0; i < found; i++) {
+            out.add(nearestEnemies[i]);
+            nearestEnemies[i] = null;
+        }
+        candidateBuffer.clear();
+        record(Shape.NEAREST, examined, candidates, found, System.nanoTime() - start);
+        return out;
+    }
+
+    /**
+     * 最近的一个存活敌人，maxRadius 内没有时返回 null
+     */
+    public Enemy findNearest(double x, double y, double maxRadius) {
+        queryNearest(x, y, 1, maxRadius, singleNearest);
+        Enemy nearest = singleNearest.isEmpty() ? null : singleNearest.get(0);
+        singleNearest.clear();
+        return nearest;
+    }
+
+    /**
+     * 插入有序结果（插入排序，k 通常很小）
+     * @return 插入后的结果数量
+     */
+    private int insertNearest(Enemy enemy, double distanceSq, int found, int k) {
+        int index = found < k ? found : k - 1;
+        while (index > 0 && nearestDistancesSq[index - 1] > distanceSq) {
+            nearestEnemies[index] = nearestEnemies[index - 1];
+            nearestDistancesSq[index] = nearestDistancesSq[index - 1];
+            index--;
+        }
+        nearestEnemies[index] = enemy;
+        nearestDistancesSq[index] = distanceSq;
+        return found < k ? found + 1 : found;
+    }
+
+    /**
+     * 确保索引新鲜后收集包围盒内的候选（写入内部缓冲）
+     * @return 检查过的索引记录数量
+     */
+    private int collectCandidates(double minX, double minY, double maxX, double maxY) {
+        ensureFresh();
+        candidateBuffer.clear();
+        return enemyIndex.collectInBox(
+            minX - INDEX_DRIFT_MARGIN, minY - INDEX_DRIFT_MARGIN,
+            maxX + INDEX_DRIFT_MARGIN, maxY + INDEX_DRIFT_MARGIN, candidateBuffer);
+    }
+
+    private void finish(Shape shape, int examined, int hits, long start) {
+        record(shape, examined, candidateBuffer.size(), hits, System.nanoTime() - start);
+        candidateBuffer.clear();
+    }
+
+    private void record(Shape shape, int examined, int candidates, int hits, long nanos) {
+        int index = shape.ordinal();
+        queryCounts[index]++;
+        examinedCounts[index] += examined;
+        candidateCounts[index] += candidates;
+        hitCounts[index] += hits;
+        queryNanos[index] += nanos;
+    }
+
+    // ---------------- 统计 ----------------
+
+    public long getQueryCount(Shape shape) {
+        return queryCounts[shape.ordinal()];
+    }
+
+    /**
+     * 平均每次查询检查过的索引记录数量
+     */
+    public double getAverageExamined(Shape shape) {
+        long queries = queryCounts[shape.ordinal()];
+        return queries > 0 ? (double) examinedCounts[shape.ordinal()] / queries : 0.0;
+    }
+
+    public int getIndexedEnemyCount() {
+        return enemyIndex.getProxyCount();
+    }
+
+    /**
+     * 重置统计信息
+     */
+    public void resetStats() {
+        java.util.Arrays.fill(queryCounts, 0);
+        java.util.Arrays.fill(examinedCounts, 0);
+        java.util.Arrays.fill(candidateCounts, 0);
+        java.util.Arrays.fill(hitCounts, 0);
+        java.util.Arrays.fill(queryNanos, 0);
+        indexRebuilds = 0;
+    }
+
+    /**
+     * 获取调试信息
+     */
+    public String getDebugInfo() {
+        StringBuilder info = new StringBuilder();
+        info.append("范围查询统计:\n");
+        info.append(String.format("  - 索引敌人数: %d, 重建次数: %d\n", getIndexedEnemyCount(), indexRebuilds));
+        for (Shape shape : Shape.values()) {
+            int index = shape.ordinal();
+            long queries = queryCounts[index];
+            if (queries == 0) continue;
+            info.append(String.format("  - %s: 查询 %d 次, 平均检查 %.1f / 候选 %.1f / 命中 %.1f, 平均耗时 %.3fms\n",
+                shape, queries,
+                (double) examinedCounts[index] / queries,
+                (double) candidateCounts[index] / queries,
+                (double) hitCounts[index] / queries,
+                queryNanos[index] / 1_000_000.0 / queries));
+        }
+        return info.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.roguelike.physics;
+
+import com.almasb.fxgl.entity.Entity;
+
+/**
+ * 宽相位接口
+ * 负责维护实体的碰撞代理并产生可能重叠的候选（实体或实体对），精确判定交给窄相位。
+ *
+ * 使用方式：每次检测先 beginUpdate()，对所有参与碰撞的实体调用 updateEntity()，再 endUpdate()；
+ * 之后到下一次 beginUpdate() 之前，所有查询方法都是只读的，可以被多个工作线程同时调用。
+ */
+public interface BroadPhase {
+
+    /**
+     * 宽相位实现类型（可在地图配置中按地图选择）
+     */
+    enum Type {
+        GRID("grid"),                       // 均匀网格：适合密集、尺寸相近的实体群
+        SWEEP_AND_PRUNE("sweep_and_prune"); // 排序扫描：利用帧间连贯性，适合稀疏、分布不均的场景
+
+        private final String configName;
+
+        Type(String configName) {
+            this.configName = configName;
+        }
+
+        public String getConfigName() {
+            return configName;
+        }
+
+        /**
+         * 解析配置值，未配置或无法识别时使用网格
+         */
+        public static Type fromConfig(String value) {
+            if (value != null) {
+                for (Type type : values()) {
+                    if (type.configName.equalsIgnoreCase(value.trim()) || type.name().equalsIgnoreCase(value.trim())) {
+                        return type;
+                    }
+                }
+            }
+            return GRID;
+        }
+    }
+
+    /**
+     * 创建指定类型的宽相位
+     */
+    static BroadPhase create(Type type) {
+        switch (type) {
+            case SWEEP_AND_PRUNE:
+                return new SweepAndPruneBroadPhase();
+            case GRID:
+            default:
+                return new SpatialPartitionSystem();
+        }
+    }
+
+    /**
+     * 代理访问器
+     */
+    @FunctionalInterface
+    interface ProxyVisitor {
+        void visit(CollisionProxy proxy);
+    }
+
+    /**
+     * 代理对访问器（每对只回调一次）
+     */
+    @FunctionalInterface
+    interface ProxyPairVisitor {
+        void visit(CollisionProxy first, CollisionProxy second);
+    }
+
+    /**
+     * 获取实现类型
+     */
+    Type getType();
+
+    /**
+     * 开始一轮增量更新
+     */
+    void beginUpdate();
+
+    /**
+     * 插入或刷新实体的碰撞代理
+     */
+    void updateEntity(Entity entity);
+
+    /**
+     * 结束一轮增量更新，移除本轮未更新的实体
+     */
+    void endUpdate();
+
+    /**
+     * 立即移除实体
+     */
+    void removeEntity(Entity entity);
+
+    /**
+     * 清空所有代理
+     */
+    void clear();
+
+    /**
+     * 当前代理数量
+     */
+    int getProxyCount();
+
+    /**
+     * 按下标获取代理（0 <= index < getProxyCount()）
+     */
+    CollisionProxy getProxy(int index);
+
+    /**
+     * 获取实体的代理（不存在返回 null）
+     */
+    CollisionProxy proxyOf(Entity entity);
+
+    /**
+     * 遍历可能与指定代理重叠的其他代理（只包含指定代理掩码接受的层）
+     */
+    void forEachCandidate(CollisionProxy proxy, ProxyVisitor visitor);
+
+    /**
+     * 候选对生成被划分成的工作单元数量（各单元互不重叠，可并行处理）
+     */
+    int getPairUnitCount();
+
+    /**
+     * 遍历指定工作单元产生的候选对（层矩阵中不碰撞的对在读取碰撞箱之前剔除）
+     */
+    void forEachCandidatePairInUnit(int unit, ProxyPairVisitor visitor);
+
+    /**
+     * 遍历全部候选对
+     */
+    default void forEachCandidatePair(ProxyPairVisitor visitor) {
+        int units = getPairUnitCount();
+        for (int unit = 0; unit < units; unit++) {
+            forEachCandidatePairInUnit(unit, visitor);
+        }
+    }
+
+    /**
+     * 获取调试信息
+     */
+    String getDebugInfo();
+}
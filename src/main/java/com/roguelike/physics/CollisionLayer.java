@@ -0,0 +1,168 @@
+package com.roguelike.physics;
+
+import com.almasb.fxgl.entity.Entity;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.roguelike.entities.EntityBase;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 碰撞层
+ * 每个实体属于一个层（一个位），并带有一个掩码（可与之碰撞的层的位集合）。
+ * 两个实体是否需要检测只看 (掩码A & 层B) 是否为0，宽相位在读取碰撞箱之前就用这一次与运算剔除无关的对。
+ *
+ * 层矩阵是对称的，默认值见 {@link #resetDefaults()}，可由 resources/configs/collision/collision_layers.json 覆盖。
+ * 矩阵修改只影响之后设置层的实体。
+ */
+public enum CollisionLayer {
+    PLAYER("player"),
+    ENEMY("enemy"),
+    PLAYER_BULLET("player_bullet"),
+    ENEMY_BULLET("enemy_bullet"),
+    AURA("aura");
+
+    private static final String CONFIG_PATH = "/configs/collision/collision_layers.json";
+    private static final CollisionLayer[] LAYERS = values();
+
+    // 层矩阵：每个层可碰撞的层位集合
+    private static final int[] MASKS = new int[LAYERS.length];
+
+    static {
+        resetDefaults();
+        loadConfig();
+    }
+
+    private final String configName;
+
+    CollisionLayer(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * 层位
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * 当前矩阵下该层的掩码
+     */
+    public int getMask() {
+        return MASKS[ordinal()];
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * 两个层之间是否需要碰撞检测
+     */
+    public boolean collidesWith(CollisionLayer other) {
+        return (MASKS[ordinal()] & other.bit()) != 0;
+    }
+
+    /**
+     * 根据配置名称解析层，无法识别时返回 null
+     */
+    public static CollisionLayer fromConfig(String name) {
+        if (name == null) return null;
+        for (CollisionLayer layer : LAYERS) {
+            if (layer.configName.equalsIgnoreCase(name.trim())) {
+                return layer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据层位取层（单个位），无法识别时返回 null
+     */
+    public static CollisionLayer fromBit(int bit) {
+        if (bit == 0 || (bit & (bit - 1)) != 0) return null;
+        int index = Integer.numberOfTrailingZeros(bit);
+        return index < LAYERS.length ? LAYERS[index] : null;
+    }
+
+    /**
+     * 实体的层位（非 EntityBase 实体不参与分层，返回0）
+     */
+    public static int layerBitsOf(Entity entity) {
+        return entity instanceof EntityBase ? ((EntityBase) entity).getCollisionLayer() : 0;
+    }
+
+    /**
+     * 实体的掩码（非 EntityBase 实体返回0）
+     */
+    public static int maskOf(Entity entity) {
+        return entity instanceof EntityBase ? ((EntityBase) entity).getCollisionMask() : 0;
+    }
+
+    /**
+     * 设置两个层之间是否碰撞（对称修改）
+     */
+    public static synchronized void setCollides(CollisionLayer a, CollisionLayer b, boolean collides) {
+        if (collides) {
+            MASKS[a.ordinal()] |= b.bit();
+            MASKS[b.ordinal()] |= a.bit();
+        } else {
+            MASKS[a.ordinal()] &= ~b.bit();
+            MASKS[b.ordinal()] &= ~a.bit();
+        }
+    }
+
+    /**
+     * 恢复默认矩阵
+     */
+    public static synchronized void resetDefaults() {
+        java.util.Arrays.fill(MASKS, 0);
+        setCollides(PLAYER, ENEMY, true);
+        setCollides(PLAYER, ENEMY_BULLET, true);
+        setCollides(ENEMY, ENEMY, true);
+        setCollides(ENEMY, PLAYER_BULLET, true);
+        setCollides(ENEMY, AURA, true);
+    }
+
+    /**
+     * 从配置文件加载矩阵；文件不存在时保留默认矩阵
+     */
+    private static void loadConfig() {
+        InputStream in = CollisionLayer.class.getResourceAsStream(CONFIG_PATH);
+        if (in == null) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            Gson gson = new GsonBuilder().create();
+            LayerMatrixConfig config = gson.fromJson(reader, LayerMatrixConfig.class);
+            if (config == null || config.pairs == null) {
+                return;
+            }
+            java.util.Arrays.fill(MASKS, 0);
+            for (List<String> pair : config.pairs) {
+                CollisionLayer a = pair != null && pair.size() == 2 ? fromConfig(pair.get(0)) : null;
+                CollisionLayer b = pair != null && pair.size() == 2 ? fromConfig(pair.get(1)) : null;
+                if (a == null || b == null) {
+                    System.err.println("⚠️ 无法识别的碰撞层配置: " + pair);
+                    continue;
+                }
+                setCollides(a, b, true);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ 加载碰撞层配置失败，使用默认矩阵: " + e.getMessage());
+            resetDefaults();
+        }
+    }
+
+    /**
+     * 配置文件结构：pairs 中每一项为需要碰撞的一对层
+     */
+    private static class LayerMatrixConfig {
+        List<List<String>> pairs;
+    }
+}
@@ -20,9 +20,13 @@ public class CollisionManager {
     private boolean enableBulletPlayerCollision = true;
     private boolean enableEnemyEnemyCollision = true;
     
-    // 碰撞检测频率控制
-    private double lastCollisionCheckTime = 0;
-    private static final double COLLISION_CHECK_INTERVAL = 1.0 / 30.0; // 30 FPS
+    // 碰撞检测频率控制（子弹使用扫掠检测，低配机器可以降到 15Hz 而不漏判）
+    // 按模拟步长累加时间：固定步长下检测间隔是确定的步数（60Hz 模拟、30Hz 检测即每两步一次）
+    private double timeSinceCollisionCheck = Double.MAX_VALUE;
+    private static final double DEFAULT_COLLISION_CHECK_RATE = 30.0; // 30 FPS
+    private static final double MIN_COLLISION_CHECK_RATE = 10.0;
+    private static final double MAX_COLLISION_CHECK_RATE = 120.0;
+    private double collisionCheckInterval = 1.0 / DEFAULT_COLLISION_CHECK_RATE;
     
     // 调试模式
     private boolean debugMode = false;
@@ -45,7 +49,8 @@ public class CollisionManager {
         }
         
         // 吸血鬼幸存者风格：不再需要为实体碰撞检测器设置地图碰撞检测器
-        // 移除了复杂的推离逻辑
+        // 移除了复杂的推离逻辑；刚性推挤的位移仍按地图裁剪，避免把实体挤进墙里
+        entityCollisionDetector.getRigidCollisionSystem().setMapCollisionDetector(detector);
     }
     
     /**
@@ -59,18 +64,17 @@ public class CollisionManager {
      * 更新碰撞检测（由游戏主循环调用）
      */
     public void update(double tpf) {
-        double currentTime = com.roguelike.core.TimeService.getSeconds();
-        
-        // 控制碰撞检测频率
-        if (currentTime - lastCollisionCheckTime < COLLISION_CHECK_INTERVAL) {
+        // 控制碰撞检测频率（容忍浮点误差，避免恰好一个间隔时被推迟一步）
+        timeSinceCollisionCheck += tpf;
+        if (timeSinceCollisionCheck < collisionCheckInterval - 1e-9) {
             return;
         }
+        double elapsed = Math.min(timeSinceCollisionCheck, collisionCheckInterval * 4);
+        timeSinceCollisionCheck = 0;
         
-        lastCollisionCheckTime = currentTime;
-        
-        // 使用新的碰撞检测系统
+        // 使用新的碰撞检测系统（传入自上次检测以来的模拟时间）
         if (entityCollisionDetector != null) {
-            entityCollisionDetector.update(tpf);
+            entityCollisionDetector.update(elapsed);
         }
     }
     
@@ -166,6 +170,40 @@ public class CollisionManager {
         return enableEnemyEnemyCollision;
     }
     
+    /**
+     * 设置碰撞检测频率（次/秒）
+     */
+    public void setCollisionCheckRate(double checksPerSecond) {
+        double rate = Math.max(MIN_COLLISION_CHECK_RATE, Math.min(MAX_COLLISION_CHECK_RATE, checksPerSecond));
+        this.collisionCheckInterval = 1.0 / rate;
+    }
+    
+    /**
+     * 获取碰撞检测频率（次/秒）
+     */
+    public double getCollisionCheckRate() {
+        return 1.0 / collisionCheckInterval;
+    }
+    
+    /**
+     * 设置实体碰撞使用的宽相位实现
+     */
+    public void setBroadPhaseType(BroadPhase.Type type) {
+        if (entityCollisionDetector != null) {
+            entityCollisionDetector.setBroadPhaseType(type);
+        }
+    }
+    
+    /**
+     * 获取实体碰撞使用的宽相位实现
+     */
+    public BroadPhase.Type getBroadPhaseType() {
+        if (entityCollisionDetector != null) {
+            return entityCollisionDetector.getBroadPhase().getType();
+        }
+        return BroadPhase.Type.GRID;
+    }
+    
     /**
      * 获取实体碰撞检测器
      */
@@ -0,0 +1,137 @@
+package com.roguelike.physics;
+
+import com.almasb.fxgl.entity.Entity;
+
+/**
+ * 碰撞代理
+ * 宽相位在更新批次中为每个实体缓存一份碰撞箱（中心与半尺寸），
+ * 之后的候选查询与窄相位判定只读取代理，不再访问实体组件，因此可以在工作线程中使用。
+ * 代理同时保留上一批次的中心，用于快速子弹的扫掠（连续）碰撞检测。
+ */
+public class CollisionProxy {
+
+    // 单批次位移超过该距离视为瞬移（传送、重新定位），不做扫掠
+    static final double MAX_SWEEP_DISTANCE = 512.0;
+
+    Entity entity;
+    int stamp;
+    double centerX;
+    double centerY;
+    double halfWidth;
+    double halfHeight;
+
+    // 碰撞层位与掩码（宽相位用一次与运算剔除无关的对）
+    int layer;
+    int mask;
+
+    // 上一批次的中心；新建代理时与当前中心相同
+    double prevCenterX;
+    double prevCenterY;
+    boolean tracked;
+
+    /**
+     * 从实体当前的碰撞箱刷新缓存
+     */
+    void capture(Entity entity) {
+        double newCenterX = SpatialPartitionSystem.centerX(entity);
+        double newCenterY = SpatialPartitionSystem.centerY(entity);
+        double dx = newCenterX - centerX;
+        double dy = newCenterY - centerY;
+        boolean continuous = tracked && dx * dx + dy * dy <= MAX_SWEEP_DISTANCE * MAX_SWEEP_DISTANCE;
+        prevCenterX = continuous ? centerX : newCenterX;
+        prevCenterY = continuous ? centerY : newCenterY;
+        tracked = true;
+
+        this.entity = entity;
+        this.centerX = newCenterX;
+        this.centerY = newCenterY;
+        this.halfWidth = SpatialPartitionSystem.halfWidth(entity);
+        this.halfHeight = SpatialPartitionSystem.halfHeight(entity);
+        this.layer = CollisionLayer.layerBitsOf(entity);
+        this.mask = CollisionLayer.maskOf(entity);
+    }
+
+    /**
+     * 按碰撞层矩阵，本代理是否需要与另一代理检测
+     */
+    boolean accepts(CollisionProxy other) {
+        return (mask & other.layer) != 0;
+    }
+
+    /**
+     * 代理被归还对象池或重新分配时调用，丢弃上一批次的位置
+     */
+    void reset() {
+        entity = null;
+        tracked = false;
+    }
+
+    /**
+     * 本批次是否发生了位移
+     */
+    boolean hasMoved() {
+        return prevCenterX != centerX || prevCenterY != centerY;
+    }
+
+    // 扫掠包围盒：上一批次与当前碰撞箱的并集（宽相位查询使用）
+
+    double sweptMinX() {
+        return Math.min(prevCenterX, centerX) - halfWidth;
+    }
+
+    double sweptMaxX() {
+        return Math.max(prevCenterX, centerX) + halfWidth;
+    }
+
+    double sweptMinY() {
+        return Math.min(prevCenterY, centerY) - halfHeight;
+    }
+
+    double sweptMaxY() {
+        return Math.max(prevCenterY, centerY) + halfHeight;
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    public double getHalfWidth() {
+        return halfWidth;
+    }
+
+    public double getHalfHeight() {
+        return halfHeight;
+    }
+
+    public double getMinX() {
+        return centerX - halfWidth;
+    }
+
+    public double getMaxX() {
+        return centerX + halfWidth;
+    }
+
+    public double getMinY() {
+        return centerY - halfHeight;
+    }
+
+    public double getMaxY() {
+        return centerY + halfHeight;
+    }
+
+    public int getLayer() {
+        return layer;
+    }
+
+    public int getMask() {
+        return mask;
+    }
+}
@@ -0,0 +1,207 @@
+package com.roguelike.physics;
+
+import com.almasb.fxgl.entity.Entity;
+
+/**
+ * 接触缓冲区
+ * 以并行数组保存窄相位产生的接触（类型、实体对、重叠量），可重复使用，不为每个接触分配对象。
+ * 按 (碰撞类型, 实体ID, 实体ID) 排序后得到与执行线程无关的确定性结算顺序。
+ */
+public class ContactBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    // values() 每次调用都会复制数组，缓存一份供按序号取类型
+    private static final EntityCollisionDetector.CollisionType[] TYPES = EntityCollisionDetector.CollisionType.values();
+
+    private int[] types = new int[INITIAL_CAPACITY];
+    private Entity[] firsts = new Entity[INITIAL_CAPACITY];
+    private Entity[] seconds = new Entity[INITIAL_CAPACITY];
+    private double[] overlapXs = new double[INITIAL_CAPACITY];
+    private double[] overlapYs = new double[INITIAL_CAPACITY];
+    private long[] sortKeys = new long[INITIAL_CAPACITY];
+    // 结算时标记需要产生碰撞事件的接触，由事件批处理器直接读取
+    private boolean[] eventMarks = new boolean[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // 生成接触时检查过的候选对数量
+    private long candidateCount = 0;
+
+    /**
+     * 添加一个接触
+     */
+    public void add(EntityCollisionDetector.CollisionType type, Entity first, Entity second,
+                    double overlapX, double overlapY) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = type.ordinal();
+        firsts[size] = first;
+        seconds[size] = second;
+        overlapXs[size] = overlapX;
+        overlapYs[size] = overlapY;
+        sortKeys[size] = sortKey(type.ordinal(), CooldownStore.idOf(first), CooldownStore.idOf(second));
+        eventMarks[size] = false;
+        size++;
+    }
+
+    /**
+     * 追加另一个缓冲区的全部接触与候选计数
+     */
+    public void addAll(ContactBuffer other) {
+        while (size + other.size > types.length) {
+            grow();
+        }
+        System.arraycopy(other.types, 0, types, size, other.size);
+        System.arraycopy(other.firsts, 0, firsts, size, other.size);
+        System.arraycopy(other.seconds, 0, seconds, size, other.size);
+        System.arraycopy(other.overlapXs, 0, overlapXs, size, other.size);
+        System.arraycopy(other.overlapYs, 0, overlapYs, size, other.size);
+        System.arraycopy(other.sortKeys, 0, sortKeys, size, other.size);
+        System.arraycopy(other.eventMarks, 0, eventMarks, size, other.size);
+        size += other.size;
+        candidateCount += other.candidateCount;
+    }
+
+    /**
+     * 记录检查过的候选对
+     */
+    public void countCandidate() {
+        candidateCount++;
+    }
+
+    /**
+     * 清空缓冲区（释放实体引用，保留容量）
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            firsts[i] = null;
+            seconds[i] = null;
+            eventMarks[i] = false;
+        }
+        size = 0;
+        candidateCount = 0;
+    }
+
+    /**
+     * 按确定性顺序排序
+     */
+    public void sort() {
+        quickSort(0, size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getCandidateCount() {
+        return candidateCount;
+    }
+
+    public EntityCollisionDetector.CollisionType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int getTypeOrdinal(int index) {
+        return types[index];
+    }
+
+    public Entity getFirst(int index) {
+        return firsts[index];
+    }
+
+    public Entity getSecond(int index) {
+        return seconds[index];
+    }
+
+    public double getOverlapX(int index) {
+        return overlapXs[index];
+    }
+
+    public double getOverlapY(int index) {
+        return overlapYs[index];
+    }
+
+    /**
+     * 标记该接触需要产生碰撞事件
+     */
+    public void markEvent(int index) {
+        eventMarks[index] = true;
+    }
+
+    public boolean isEventMarked(int index) {
+        return eventMarks[index];
+    }
+
+    /**
+     * 打包排序键：类型占高3位，两个实体ID各占30位
+     */
+    private static long sortKey(int typeOrdinal, int firstId, int secondId) {
+        return ((long) typeOrdinal << 60)
+             | ((long) (firstId & 0x3FFFFFFF) << 30)
+             | (secondId & 0x3FFFFFFF);
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = java.util.Arrays.copyOf(types, capacity);
+        firsts = java.util.Arrays.copyOf(firsts, capacity);
+        seconds = java.util.Arrays.copyOf(seconds, capacity);
+        overlapXs = java.util.Arrays.copyOf(overlapXs, capacity);
+        overlapYs = java.util.Arrays.copyOf(overlapYs, capacity);
+        sortKeys = java.util.Arrays.copyOf(sortKeys, capacity);
+        eventMarks = java.util.Arrays.copyOf(eventMarks, capacity);
+    }
+
+    // ---------------- 原地排序（同时交换所有并行数组） ----------------
+
+    private void quickSort(int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            int mid = (low + high) >>> 1;
+            // 三数取中
+            if (sortKeys[mid] < sortKeys[low]) swap(mid, low);
+            if (sortKeys[high] < sortKeys[low]) swap(high, low);
+            if (sortKeys[high] < sortKeys[mid]) swap(high, mid);
+            long pivot = sortKeys[mid];
+
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (sortKeys[i] < pivot) i++;
+                while (sortKeys[j] > pivot) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // 先递归较小的一侧，较大的一侧循环处理，限制栈深度
+            if (j - low < high - i) {
+                quickSort(low, j);
+                low = i;
+            } else {
+                quickSort(i, high);
+                high = j;
+            }
+        }
+        insertionSort(low, high);
+    }
+
+    private void insertionSort(int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && sortKeys[j] < sortKeys[j - 1]; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int type = types[a]; types[a] = types[b]; types[b] = type;
+        Entity first = firsts[a]; firsts[a] = firsts[b]; firsts[b] = first;
+        Entity second = seconds[a]; seconds[a] = seconds[b]; seconds[b] = second;
+        double ox = overlapXs[a]; overlapXs[a] = overlapXs[b]; overlapXs[b] = ox;
+        double oy = overlapYs[a]; overlapYs[a] = overlapYs[b]; overlapYs[b] = oy;
+        long key = sortKeys[a]; sortKeys[a] = sortKeys[b]; sortKeys[b] = key;
+        boolean mark = eventMarks[a]; eventMarks[a] = eventMarks[b]; eventMarks[b] = mark;
+    }
+}
@@ -0,0 +1,309 @@
+package com.roguelike.physics;
+
+import com.almasb.fxgl.entity.Entity;
+import com.roguelike.entities.EntityBase;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 冷却记录存储
+ * 以实体ID对打包成的 long 为键，使用开放寻址哈希表保存到期时间（无装箱），
+ * 并用时间轮按到期时间分槽回收过期记录，查询、写入与清理均为 O(1) 且稳定状态下不产生垃圾。
+ */
+public class CooldownStore {
+
+    /**
+     * 冷却通道：每个通道一个独立存储，冷却时长固定
+     */
+    public enum Channel {
+        COLLISION(0.1),              // 碰撞效果冷却
+        ATTACK(0.2),                 // 攻击间隔
+        PLAYER_CONTACT_DAMAGE(0.4);  // 玩家与敌人接触伤害（每个敌人独立）
+
+        private final double durationSeconds;
+
+        Channel(double durationSeconds) {
+            this.durationSeconds = durationSeconds;
+        }
+
+        public double getDurationSeconds() {
+            return durationSeconds;
+        }
+    }
+
+    // 共享实例：碰撞检测器、移动验证器与刚性碰撞系统使用同一份冷却记录
+    private static final Map<Channel, CooldownStore> SHARED = new EnumMap<>(Channel.class);
+
+    // 回退ID（非 EntityBase 实体）的标记位
+    private static final int FALLBACK_ID_TAG = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64; // 必须为2的幂
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    // 时间轮：槽宽为冷却时长的1/4，8个槽覆盖两倍冷却时长，保证未到期记录不会与当前槽混叠
+    private static final int WHEEL_SLOTS = 8;
+    private static final int SLOTS_PER_DURATION = 4;
+
+    private final double duration;
+    private final double slotWidth;
+
+    // 开放寻址哈希表（线性探测）
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private double[] expiries = new double[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // 时间轮槽：记录在该槽到期的键（可能包含已刷新的过期副本，回收时会校验）
+    private final long[][] wheelKeys = new long[WHEEL_SLOTS][16];
+    private final int[] wheelCounts = new int[WHEEL_SLOTS];
+    private long lastExpiredSlot = Long.MIN_VALUE;
+    private double lastExpireTime = 0;
+
+    public CooldownStore(double durationSeconds) {
+        this.duration = durationSeconds;
+        this.slotWidth = durationSeconds / SLOTS_PER_DURATION;
+    }
+
+    /**
+     * 获取共享的冷却存储
+     */
+    public static synchronized CooldownStore shared(Channel channel) {
+        return SHARED.computeIfAbsent(channel, c -> new CooldownStore(c.getDurationSeconds()));
+    }
+
+    /**
+     * 回收所有共享存储中的过期记录
+     */
+    public static synchronized void expireAllShared(double now) {
+        for (CooldownStore store : SHARED.values()) {
+            store.expire(now);
+        }
+    }
+
+    /**
+     * 获取实体的整数ID
+     * EntityBase 使用从 1 递增的实体ID（正数）；其他实体回退到身份哈希并置最高位，两类ID不会落入同一冷却记录
+     */
+    public static int idOf(Entity entity) {
+        if (entity instanceof EntityBase) {
+            return ((EntityBase) entity).getEntityId();
+        }
+        return System.identityHashCode(entity) | FALLBACK_ID_TAG;
+    }
+
+    /**
+     * 生成实体对键值（顺序无关）
+     */
+    public static long pairKey(Entity entity1, Entity entity2) {
+        int id1 = idOf(entity1);
+        int id2 = idOf(entity2);
+        if (id1 > id2) {
+            int tmp = id1;
+            id1 = id2;
+            id2 = tmp;
+        }
+        return ((long) id1 << 32) | (id2 & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 生成单个实体键值
+     */
+    public static long entityKey(Entity entity) {
+        return idOf(entity) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 检查冷却；若不在冷却中则立即开始新的冷却
+     * @return true 表示可以执行（本次开始冷却），false 表示仍在冷却中
+     */
+    public boolean tryAcquire(long key, double now) {
+        if (isOnCooldown(key, now)) {
+            return false;
+        }
+        start(key, now);
+        return true;
+    }
+
+    /**
+     * 检查实体对的冷却；若不在冷却中则立即开始新的冷却
+     */
+    public boolean tryAcquire(Entity entity1, Entity entity2, double now) {
+        return tryAcquire(pairKey(entity1, entity2), now);
+    }
+
+    /**
+     * 检查是否仍在冷却中
+     */
+    public boolean isOnCooldown(long key, double now) {
+        int slot = findSlot(key);
+        return slot >= 0 && now < expiries[slot];
+    }
+
+    /**
+     * 开始（或刷新）冷却
+     */
+    public void start(long key, double now) {
+        double expiry = now + duration;
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            expiries[slot] = expiry;
+        } else {
+            insert(key, expiry);
+        }
+        scheduleExpiry(key, expiry);
+    }
+
+    /**
+     * 推进时间轮，回收已到期的记录
+     */
+    public void expire(double now) {
+        if (now < lastExpireTime) {
+            // 时间回退（新一局重置了 TimeService），旧记录全部作废
+            clear();
+        }
+        lastExpireTime = now;
+
+        long currentSlot = (long) Math.floor(now / slotWidth);
+        if (lastExpiredSlot == Long.MIN_VALUE || currentSlot - lastExpiredSlot > WHEEL_SLOTS) {
+            lastExpiredSlot = currentSlot - WHEEL_SLOTS;
+        }
+        // 只回收整槽都已过期的槽（槽内到期时间 < currentSlot * slotWidth <= now）
+        while (lastExpiredSlot < currentSlot - 1) {
+            lastExpiredSlot++;
+            drainWheelSlot((int) Math.floorMod(lastExpiredSlot, (long) WHEEL_SLOTS), now);
+        }
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+        Arrays.fill(wheelCounts, 0);
+        lastExpiredSlot = Long.MIN_VALUE;
+        lastExpireTime = 0;
+    }
+
+    /**
+     * 获取记录数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取冷却时长（秒）
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+    // ---------------- 时间轮 ----------------
+
+    private int wheelSlotOf(double expiry) {
+        return (int) Math.floorMod((long) Math.floor(expiry / slotWidth), (long) WHEEL_SLOTS);
+    }
+
+    private void scheduleExpiry(long key, double expiry) {
+        int wheelSlot = wheelSlotOf(expiry);
+        long[] bucket = wheelKeys[wheelSlot];
+        int count = wheelCounts[wheelSlot];
+        if (count == bucket.length) {
+            long[] grown = new long[bucket.length * 2];
+            System.arraycopy(bucket, 0, grown, 0, count);
+            wheelKeys[wheelSlot] = grown;
+            bucket = grown;
+        }
+        bucket[count] = key;
+        wheelCounts[wheelSlot] = count + 1;
+    }
+
+    private void drainWheelSlot(int wheelSlot, double now) {
+        long[] bucket = wheelKeys[wheelSlot];
+        int count = wheelCounts[wheelSlot];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = findSlot(bucket[i]);
+            if (slot < 0) continue;
+            if (expiries[slot] <= now) {
+                deleteAt(slot);
+            } else if (wheelSlotOf(expiries[slot]) == wheelSlot) {
+                // 长时间未推进导致槽混叠：记录仍属于本槽，保留到下一圈再检查
+                bucket[kept++] = bucket[i];
+            }
+            // 其余为已刷新记录的旧副本，新副本已排入更晚的槽
+        }
+        wheelCounts[wheelSlot] = kept;
+    }
+
+    // ---------------- 开放寻址哈希表 ----------------
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long key, double expiry) {
+        if (size + 1 > keys.length * MAX_LOAD_FACTOR) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        expiries[slot] = expiry;
+        used[slot] = true;
+        size++;
+    }
+
+    private void deleteAt(int slot) {
+        int mask = keys.length - 1;
+        // 向后移位删除，保持探测链连续
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = hash(keys[next]) & mask;
+            boolean shouldMove = (hole <= next) ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (shouldMove) {
+                keys[hole] = keys[next];
+                expiries[hole] = expiries[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        size--;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        double[] oldExpiries = expiries;
+        boolean[] oldUsed = used;
+        keys = new long[newCapacity];
+        expiries = new double[newCapacity];
+        used = new boolean[newCapacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                insert(oldKeys[i], oldExpiries[i]);
+            }
+        }
+    }
+}
@@ -5,13 +5,9 @@ import com.roguelike.entities.Player;
 import com.roguelike.entities.Enemy;
 import com.roguelike.entities.Bullet;
 import com.roguelike.core.CollisionEventBatcher;
-import javafx.geometry.Rectangle2D;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 实体碰撞检测器 - 重新设计
@@ -20,55 +16,50 @@ import java.util.stream.Collectors;
  */
 public class EntityCollisionDetector {
     
-    // 空间分割系统
-    private SpatialPartitionSystem spatialSystem;
+    // 宽相位（默认使用空间网格，可按地图配置切换为排序扫描）
+    private BroadPhase broadPhase;
     
     // 刚性碰撞系统
     private RigidCollisionSystem rigidCollisionSystem;
     
-    // 碰撞冷却时间记录
-    private Map<String, Double> collisionCooldowns = new HashMap<>();
-    private static final double COLLISION_COOLDOWN = 0.1; // 0.1秒冷却时间
+    // 碰撞冷却时间记录（0.1秒）
+    private final CooldownStore collisionCooldowns = CooldownStore.shared(CooldownStore.Channel.COLLISION);
     
-    // 攻击间隔记录
-    private Map<String, Double> attackCooldowns = new HashMap<>();
-    private static final double ATTACK_COOLDOWN = 0.2; // 0.2秒攻击间隔
+    // 攻击间隔记录（0.2秒）
+    private final CooldownStore attackCooldowns = CooldownStore.shared(CooldownStore.Channel.ATTACK);
     
-    // 玩家与敌人碰撞伤害间隔记录（每个敌人独立）
-    private Map<String, Double> playerEnemyDamageCooldowns = new HashMap<>();
-    private static final double PLAYER_DAMAGE_COOLDOWN = 0.4; // 0.4秒伤害间隔
+    // 玩家与敌人碰撞伤害间隔记录（每个敌人独立，0.4秒，与移动验证器共享）
+    private final CooldownStore playerEnemyDamageCooldowns = CooldownStore.shared(CooldownStore.Channel.PLAYER_CONTACT_DAMAGE);
     private static final int PLAYER_DAMAGE_AMOUNT = 10; // 每次扣血10点
     
-    // 更新间隔控制
-    private double lastUpdateTime = 0;
-    private static final double DEFAULT_UPDATE_INTERVAL = 0.016; // 默认16ms更新间隔（约60FPS）
-    
     // 调试模式
     private boolean debugMode = false;
     
     // 碰撞事件批处理器
     private CollisionEventBatcher collisionEventBatcher;
     
+    // 宽相位统计（候选对 vs 实际命中 vs 暴力两两检测的对数）
+    private long lastCandidatePairs = 0;
+    private long lastCollisionHits = 0;
+    private long lastBruteForcePairs = 0;
+    private long totalCandidatePairs = 0;
+    private long totalCollisionHits = 0;
+    private long totalBruteForcePairs = 0;
+    
+    // 窄相位接触生成器与接触缓冲区（跨帧复用）
+    private final ParallelNarrowPhase narrowPhase = new ParallelNarrowPhase();
+    private final ContactBuffer contacts = new ContactBuffer();
+    
     public EntityCollisionDetector() {
-        this.spatialSystem = new SpatialPartitionSystem();
+        this.broadPhase = BroadPhase.create(BroadPhase.Type.GRID);
         this.rigidCollisionSystem = new RigidCollisionSystem();
         this.collisionEventBatcher = new CollisionEventBatcher();
     }
     
     /**
-     * 更新碰撞检测系统
+     * 更新碰撞检测系统（检测频率由碰撞管理器控制）
      */
     public void update(double tpf) {
-        double currentTime = com.roguelike.core.TimeService.getSeconds();
-        
-        // 控制更新频率（使用调试参数）
-        double updateInterval = com.roguelike.core.GameApp.COLLISION_UPDATE_INTERVAL;
-        if (currentTime - lastUpdateTime < updateInterval) {
-            return;
-        }
-        
-        lastUpdateTime = currentTime;
-        
         // 更新空间分割系统
         updateSpatialPartitions();
         
@@ -86,228 +77,167 @@ public class EntityCollisionDetector {
      * 更新空间分割
      */
     private void updateSpatialPartitions() {
-        spatialSystem.clear();
+        // 增量更新：刷新碰撞代理，本轮未出现的实体在 endUpdate 中移除
+        broadPhase.beginUpdate();
         
         // 更新玩家位置
         Player player = getPlayer();
         if (player != null) {
-            spatialSystem.updateEntity(player);
+            broadPhase.updateEntity(player);
         }
         
-        // 更新敌人位置
-        List<Enemy> enemies = getEnemies();
-        for (Enemy enemy : enemies) {
-            spatialSystem.updateEntity(enemy);
+        // 更新敌人位置（直接遍历缓存列表，不创建过滤后的副本）
+        for (int i = 0; i < cachedEnemies.size(); i++) {
+            Enemy enemy = cachedEnemies.get(i);
+            if (enemy != null && enemy.isAlive()) {
+                broadPhase.updateEntity(enemy);
+            }
         }
         
         // 更新子弹位置
-        List<Bullet> bullets = getBullets();
-        for (Bullet bullet : bullets) {
-            spatialSystem.updateEntity(bullet);
+        for (int i = 0; i < cachedBullets.size(); i++) {
+            Bullet bullet = cachedBullets.get(i);
+            if (bullet != null && bullet.isActive()) {
+                broadPhase.updateEntity(bullet);
+            }
         }
+        
+        broadPhase.endUpdate();
     }
     
     /**
      * 执行碰撞检测
+     * 先由窄相位生成器根据宽相位中的碰撞代理生成全部接触（可并行），再在当前线程按排序后的确定性顺序逐个结算
      */
     private void performCollisionChecks() {
-        // 获取所有实体
         Player player = getPlayer();
-        List<Enemy> enemies = getEnemies();
-        List<Bullet> bullets = getBullets();
         
-        // 检测玩家与敌人碰撞
-        if (player != null && !enemies.isEmpty()) {
-            checkPlayerEnemyCollisions(player, enemies);
-        }
+        boolean parallel = com.roguelike.core.GameApp.COLLISION_PARALLEL_ENABLED;
+        narrowPhase.generate(broadPhase, player, parallel, contacts);
         
-        // 检测子弹与敌人碰撞
-        if (!bullets.isEmpty() && !enemies.isEmpty()) {
-            checkBulletEnemyCollisions(bullets, enemies);
-        }
+        lastCandidatePairs = contacts.getCandidateCount();
+        lastCollisionHits = 0;
+        long bulletCount = narrowPhase.getBulletCount();
+        long enemyCount = narrowPhase.getEnemyCount();
+        lastBruteForcePairs = bulletCount * enemyCount + enemyCount * (enemyCount - 1) / 2;
         
-        // 检测子弹与玩家碰撞
-        if (!bullets.isEmpty() && player != null) {
-            checkBulletPlayerCollisions(bullets, player);
-        }
+        // 推挤只收集重叠对，全部接触结算完后由刚性碰撞系统统一迭代求解、一次写回
+        rigidCollisionSystem.beginBatch();
+        resolveContacts();
+        rigidCollisionSystem.solveBatch();
         
-        // 检测敌人与敌人碰撞
-        if (enemies.size() > 1) {
-            checkEnemyEnemyCollisions(enemies);
-        }
-    }
-    
-    /**
-     * 检测玩家与敌人的碰撞
-     */
-    private void checkPlayerEnemyCollisions(Player player, List<Enemy> enemies) {
-        for (Enemy enemy : enemies) {
-            if (enemy != null && enemy.isAlive()) {
-                CollisionResult result = checkCollision(player, enemy);
-                if (result.hasCollision()) {
-                    handleCollisionWithLevels(result);
-                }
-            }
-        }
+        totalCandidatePairs += lastCandidatePairs;
+        totalCollisionHits += lastCollisionHits;
+        totalBruteForcePairs += lastBruteForcePairs;
     }
     
     /**
-     * 检测子弹与敌人的碰撞
+     * 按顺序结算接触（单线程：伤害、推挤与事件都在这里发生）
+     * 前面的结算可能已经杀死敌人或移除子弹，因此每个接触结算前重新检查有效性
+     * 结算直接读取接触缓冲区，需要产生事件的接触只做标记，结算完后由事件批处理器整体读取
      */
-    private void checkBulletEnemyCollisions(List<Bullet> bullets, List<Enemy> enemies) {
-        for (Bullet bullet : bullets) {
-            if (bullet == null || !bullet.isActive()) {
-                continue;
-            }
+    private void resolveContacts() {
+        for (int i = 0; i < contacts.size(); i++) {
+            CollisionType type = contacts.getType(i);
+            Entity first = contacts.getFirst(i);
+            Entity second = contacts.getSecond(i);
             
-            for (Enemy enemy : enemies) {
-                if (enemy != null && enemy.isAlive()) {
-                    CollisionResult result = checkCollision(bullet, enemy);
-                    if (result.hasCollision()) {
-                        handleBulletCollision(result);
-                    }
-                }
-            }
-        }
-    }
-    
-    /**
-     * 检测子弹与玩家的碰撞
-     */
-    private void checkBulletPlayerCollisions(List<Bullet> bullets, Player player) {
-        for (Bullet bullet : bullets) {
-            if (bullet == null || !bullet.isActive()) {
-                continue;
+            switch (type) {
+                case PLAYER_ENEMY:
+                    if (!((Enemy) second).isAlive()) continue;
+                    break;
+                case BULLET_ENEMY:
+                    if (!first.isActive() || !((Enemy) second).isAlive()) continue;
+                    break;
+                case BULLET_PLAYER:
+                    if (!first.isActive()) continue;
+                    break;
+                case ENEMY_ENEMY:
+                    if (!((Enemy) first).isAlive() || !((Enemy) second).isAlive()) continue;
+                    break;
+                default:
+                    continue;
             }
             
-            CollisionResult result = checkCollision(bullet, player);
-            if (result.hasCollision()) {
-                handleBulletCollision(result);
+            lastCollisionHits++;
+            if (type == CollisionType.BULLET_ENEMY || type == CollisionType.BULLET_PLAYER) {
+                handleBulletCollision(i);
+            } else {
+                handleCollisionWithLevels(i);
             }
         }
-    }
-    
-    /**
-     * 检测敌人与敌人的碰撞
-     */
-    private void checkEnemyEnemyCollisions(List<Enemy> enemies) {
-        for (int i = 0; i < enemies.size(); i++) {
-            for (int j = i + 1; j < enemies.size(); j++) {
-                Enemy enemy1 = enemies.get(i);
-                Enemy enemy2 = enemies.get(j);
-                
-                if (enemy1.isAlive() && enemy2.isAlive()) {
-                    CollisionResult result = checkCollision(enemy1, enemy2);
-                    if (result.hasCollision()) {
-                        handleCollisionWithLevels(result);
-                    }
-                }
-            }
-        }
-    }
-    
-    /**
-     * 检测两个实体是否发生碰撞
-     */
-    public CollisionResult checkCollision(Entity entity1, Entity entity2) {
-        if (entity1 == null || entity2 == null || entity1 == entity2) {
-            return new CollisionResult(false, entity1, entity2, null, 0, 0);
-        }
-        
-        // 获取实体的边界框
-        Rectangle2D bounds1 = getEntityBounds(entity1);
-        Rectangle2D bounds2 = getEntityBounds(entity2);
-        
-        // 检查是否重叠
-        if (!bounds1.intersects(bounds2)) {
-            return new CollisionResult(false, entity1, entity2, null, 0, 0);
-        }
-        
-        // 计算重叠区域
-        double overlapX = Math.min(bounds1.getMaxX(), bounds2.getMaxX()) - 
-                         Math.max(bounds1.getMinX(), bounds2.getMinX());
-        double overlapY = Math.min(bounds1.getMaxY(), bounds2.getMaxY()) - 
-                         Math.max(bounds1.getMinY(), bounds2.getMinY());
-        
-        // 确定碰撞类型
-        CollisionType type = determineCollisionType(entity1, entity2);
-        
-        return new CollisionResult(true, entity1, entity2, type, overlapX, overlapY);
+        collisionEventBatcher.addContacts(contacts);
+        contacts.clear();
     }
     
     /**
      * 处理带级别的碰撞
      */
-    private void handleCollisionWithLevels(CollisionResult result) {
-        Entity entity1 = result.getEntity1();
-        Entity entity2 = result.getEntity2();
+    private void handleCollisionWithLevels(int index) {
+        Entity entity1 = contacts.getFirst(index);
+        Entity entity2 = contacts.getSecond(index);
         
         CollisionBoxLevel level1 = getCollisionLevel(entity1);
         CollisionBoxLevel level2 = getCollisionLevel(entity2);
         
         // 只有当两个实体都有有效的碰撞箱级别时才进行刚性碰撞
         if (level1 != null && level2 != null) {
-            // 使用刚性碰撞系统
-            rigidCollisionSystem.handleRigidCollision(entity1, entity2, level1, level2);
+            // 加入刚性碰撞系统的本轮批次
+            rigidCollisionSystem.addContact(entity1, entity2, level1, level2);
         }
         
         // 处理其他碰撞逻辑（伤害等）
-        handleCollisionEffects(result);
+        handleCollisionEffects(index);
     }
     
     /**
-     * 处理子弹碰撞（子弹击中后消失）
+     * 处理子弹碰撞
+     * 这是子弹命中的唯一结算入口：伤害、穿透判定与子弹移除统一交给 Bullet.onCollisionBegin，
+     * 每个接触对每次检测只回调一次
      */
-    private void handleBulletCollision(CollisionResult result) {
+    private void handleBulletCollision(int index) {
+        Entity first = contacts.getFirst(index);
+        Entity second = contacts.getSecond(index);
         Bullet bullet = null;
         Entity target = null;
         
-        if (result.getEntity1() instanceof Bullet) {
-            bullet = (Bullet) result.getEntity1();
-            target = result.getEntity2();
-        } else if (result.getEntity2() instanceof Bullet) {
-            bullet = (Bullet) result.getEntity2();
-            target = result.getEntity1();
+        if (first instanceof Bullet) {
+            bullet = (Bullet) first;
+            target = second;
+        } else if (second instanceof Bullet) {
+            bullet = (Bullet) second;
+            target = first;
         }
         
-        if (bullet != null && target != null) {
-            // 子弹击中后消失
-            bullet.setActive(false);
-            
-            // 触发后续效果（伤害等）
-            if (bullet.getFaction() == Bullet.Faction.PLAYER && target instanceof Enemy) {
-                ((Enemy) target).takeDamage(bullet.getDamage());
-                // 使用批处理系统处理碰撞事件
-                collisionEventBatcher.addCollisionEvent(
-                    CollisionEventBatcher.CollisionEventType.BULLET_ENEMY_COLLISION,
-                    bullet, target, result
-                );
-            } else if (bullet.getFaction() == Bullet.Faction.ENEMY && target instanceof Player) {
-                ((Player) target).takeDamage(bullet.getDamage());
-                // 使用批处理系统处理碰撞事件
-                collisionEventBatcher.addCollisionEvent(
-                    CollisionEventBatcher.CollisionEventType.BULLET_PLAYER_COLLISION,
-                    bullet, target, result
-                );
-            }
+        if (bullet == null || target == null || !bullet.isActive()) {
+            return;
+        }
+        
+        bullet.onCollisionBegin(target);
+        
+        // 标记为事件接触，由批处理系统处理
+        if ((bullet.getFaction() == Bullet.Faction.PLAYER && target instanceof Enemy)
+            || (bullet.getFaction() == Bullet.Faction.ENEMY && target instanceof Player)) {
+            contacts.markEvent(index);
         }
     }
     
     /**
      * 处理碰撞效果（伤害等）
      */
-    private void handleCollisionEffects(CollisionResult result) {
+    private void handleCollisionEffects(int index) {
         // 检查碰撞冷却
-        if (isCollisionOnCooldown(result.getEntity1(), result.getEntity2())) {
+        if (isCollisionOnCooldown(contacts.getFirst(index), contacts.getSecond(index))) {
             return;
         }
         
-        switch (result.getType()) {
+        switch (contacts.getType(index)) {
             case PLAYER_ENEMY:
-                handlePlayerEnemyCollision(result);
+                handlePlayerEnemyCollision(index);
                 break;
             case ENEMY_ENEMY:
-                handleEnemyEnemyCollision(result);
+                // 使用批处理系统处理碰撞事件
+                contacts.markEvent(index);
                 break;
             default:
                 break;
@@ -317,14 +247,19 @@ public class EntityCollisionDetector {
     /**
      * 处理玩家与敌人的碰撞
      */
-    private void handlePlayerEnemyCollision(CollisionResult result) {
-        Player player = (Player) result.getEntity1();
-        Enemy enemy = (Enemy) result.getEntity2();
+    private void handlePlayerEnemyCollision(int index) {
+        Entity first = contacts.getFirst(index);
+        Entity second = contacts.getSecond(index);
+        Player player;
+        Enemy enemy;
         
         // 确保玩家是第一个实体
-        if (!(result.getEntity1() instanceof Player)) {
-            player = (Player) result.getEntity2();
-            enemy = (Enemy) result.getEntity1();
+        if (first instanceof Player) {
+            player = (Player) first;
+            enemy = (Enemy) second;
+        } else {
+            player = (Player) second;
+            enemy = (Enemy) first;
         }
         
         // 检查实体是否仍然有效
@@ -342,180 +277,58 @@ public class EntityCollisionDetector {
         player.takeDamage(PLAYER_DAMAGE_AMOUNT);
         
         // 使用批处理系统处理碰撞事件
-        collisionEventBatcher.addCollisionEvent(
-            CollisionEventBatcher.CollisionEventType.PLAYER_ENEMY_COLLISION,
-            player, enemy, result
-        );
-    }
-    
-    /**
-     * 处理敌人与敌人的碰撞
-     */
-    private void handleEnemyEnemyCollision(CollisionResult result) {
-        // 使用批处理系统处理碰撞事件
-        collisionEventBatcher.addCollisionEvent(
-            CollisionEventBatcher.CollisionEventType.ENEMY_ENEMY_COLLISION,
-            result.getEntity1(), result.getEntity2(), result
-        );
+        contacts.markEvent(index);
     }
     
     /**
-     * 获取实体的碰撞箱级别
+     * 获取实体的碰撞箱级别（按碰撞层）
      */
     private CollisionBoxLevel getCollisionLevel(Entity entity) {
-        if (entity instanceof Player) {
-            return CollisionBoxLevel.PLAYER;
-        } else if (entity instanceof Enemy) {
-            return CollisionBoxLevel.ENEMY;
-        } else if (entity instanceof Bullet) {
-            // 子弹不参与推挤系统，返回null
-            return null;
-        }
-        return CollisionBoxLevel.ENEMY; // 默认级别
-    }
-    
-    /**
-     * 获取实体的边界框
-     */
-    private Rectangle2D getEntityBounds(Entity entity) {
-        if (entity.getBoundingBoxComponent() != null) {
-            return new Rectangle2D(
-                entity.getX() + entity.getBoundingBoxComponent().getMinXLocal(),
-                entity.getY() + entity.getBoundingBoxComponent().getMinYLocal(),
-                entity.getBoundingBoxComponent().getWidth(),
-                entity.getBoundingBoxComponent().getHeight()
-            );
-        } else {
-            return new Rectangle2D(entity.getX(), entity.getY(), entity.getWidth(), entity.getHeight());
-        }
-    }
-    
-    /**
-     * 确定碰撞类型
-     */
-    private CollisionType determineCollisionType(Entity entity1, Entity entity2) {
-        boolean isPlayer1 = entity1 instanceof Player;
-        boolean isPlayer2 = entity2 instanceof Player;
-        boolean isEnemy1 = entity1 instanceof Enemy;
-        boolean isEnemy2 = entity2 instanceof Enemy;
-        boolean isBullet1 = entity1 instanceof Bullet;
-        boolean isBullet2 = entity2 instanceof Bullet;
-        
-        if (isPlayer1 && isEnemy2) {
-            return CollisionType.PLAYER_ENEMY;
-        } else if (isEnemy1 && isPlayer2) {
-            return CollisionType.PLAYER_ENEMY;
-        } else if (isBullet1 && isEnemy2) {
-            return CollisionType.BULLET_ENEMY;
-        } else if (isEnemy1 && isBullet2) {
-            return CollisionType.BULLET_ENEMY;
-        } else if (isBullet1 && isPlayer2) {
-            return CollisionType.BULLET_PLAYER;
-        } else if (isPlayer1 && isBullet2) {
-            return CollisionType.BULLET_PLAYER;
-        } else if (isEnemy1 && isEnemy2) {
-            return CollisionType.ENEMY_ENEMY;
-        } else if (isPlayer1 && isPlayer2) {
-            return CollisionType.PLAYER_PLAYER;
+        CollisionLayer layer = CollisionLayer.fromBit(CollisionLayer.layerBitsOf(entity));
+        if (layer == null) {
+            return CollisionBoxLevel.ENEMY; // 默认级别
+        }
+        switch (layer) {
+            case PLAYER:
+                return CollisionBoxLevel.PLAYER;
+            case ENEMY:
+                return CollisionBoxLevel.ENEMY;
+            default:
+                // 子弹、光环不参与推挤系统，返回null
+                return null;
         }
-        
-        return null;
     }
     
     /**
      * 检查碰撞是否在冷却时间内
      */
     private boolean isCollisionOnCooldown(Entity entity1, Entity entity2) {
-        String key = generateCollisionKey(entity1, entity2);
         double currentTime = com.roguelike.core.TimeService.getSeconds();
-        
-        if (collisionCooldowns.containsKey(key)) {
-            double lastCollisionTime = collisionCooldowns.get(key);
-            if (currentTime - lastCollisionTime < COLLISION_COOLDOWN) {
-                return true; // 仍在冷却时间内
-            }
-        }
-        
-        // 记录碰撞时间
-        collisionCooldowns.put(key, currentTime);
-        return false;
+        return !collisionCooldowns.tryAcquire(entity1, entity2, currentTime);
     }
     
     /**
      * 检查攻击是否在冷却时间内
      */
     private boolean isAttackOnCooldown(Entity attacker, Entity target) {
-        String key = generateCollisionKey(attacker, target);
         double currentTime = com.roguelike.core.TimeService.getSeconds();
-        
-        if (attackCooldowns.containsKey(key)) {
-            double lastAttackTime = attackCooldowns.get(key);
-            if (currentTime - lastAttackTime < ATTACK_COOLDOWN) {
-                return true; // 仍在攻击冷却时间内
-            }
-        }
-        
-        // 记录攻击时间
-        attackCooldowns.put(key, currentTime);
-        return false;
+        return !attackCooldowns.tryAcquire(attacker, target, currentTime);
     }
     
     /**
      * 检查玩家伤害是否在冷却时间内（每个敌人独立）
      */
     private boolean isPlayerDamageOnCooldown(Entity enemy, Entity player) {
-        String key = generateCollisionKey(enemy, player);
         double currentTime = com.roguelike.core.TimeService.getSeconds();
-        
-        if (playerEnemyDamageCooldowns.containsKey(key)) {
-            double lastDamageTime = playerEnemyDamageCooldowns.get(key);
-            if (currentTime - lastDamageTime < PLAYER_DAMAGE_COOLDOWN) {
-                return true; // 仍在伤害冷却时间内
-            }
-        }
-        
-        // 记录伤害时间
-        playerEnemyDamageCooldowns.put(key, currentTime);
-        return false;
-    }
-    
-    /**
-     * 生成碰撞键值（确保顺序无关）
-     */
-    private String generateCollisionKey(Entity entity1, Entity entity2) {
-        // 使用实体ID确保唯一性，并排序确保顺序无关
-        int id1 = entity1.hashCode();
-        int id2 = entity2.hashCode();
-        
-        if (id1 < id2) {
-            return id1 + "_" + id2;
-        } else {
-            return id2 + "_" + id1;
-        }
+        return !playerEnemyDamageCooldowns.tryAcquire(enemy, player, currentTime);
     }
     
     /**
-     * 清理过期的冷却记录
+     * 清理过期的冷却记录（时间轮推进，包含移动验证器与刚性碰撞系统共享的记录）
      */
     private void cleanupExpiredCooldowns() {
-        double currentTime = com.roguelike.core.TimeService.getSeconds();
-        
-        // 清理碰撞冷却
-        collisionCooldowns.entrySet().removeIf(entry -> 
-            (currentTime - entry.getValue()) > COLLISION_COOLDOWN * 2
-        );
-        
-        // 清理攻击冷却
-        attackCooldowns.entrySet().removeIf(entry -> 
-            (currentTime - entry.getValue()) > ATTACK_COOLDOWN * 2
-        );
-        
-        // 清理玩家伤害冷却
-        playerEnemyDamageCooldowns.entrySet().removeIf(entry -> 
-            (currentTime - entry.getValue()) > PLAYER_DAMAGE_COOLDOWN * 2
-        );
-        
-        // 刚性碰撞系统不需要清理冷却记录
+        CooldownStore.expireAllShared(com.roguelike.core.TimeService.getSeconds());
+        collisionEventBatcher.cleanupExpiredDeduplicationRecords();
     }
     
     // 实体缓存引用 - 避免每帧查找
@@ -553,37 +366,24 @@ public class EntityCollisionDetector {
         return cachedPlayer;
     }
     
-    /**
-     * 获取所有敌人实体（使用缓存）
-     */
-    private List<Enemy> getEnemies() {
-        return cachedEnemies.stream()
-                .filter(enemy -> enemy != null && enemy.isAlive())
-                .collect(Collectors.toList());
-    }
-    
-    /**
-     * 获取所有子弹实体（使用缓存）
-     */
-    private List<Bullet> getBullets() {
-        return cachedBullets.stream()
-                .filter(bullet -> bullet != null && bullet.isActive())
-                .collect(Collectors.toList());
-    }
-    
     /**
      * 设置调试模式
      */
     public void setDebugMode(boolean debugMode) {
         this.debugMode = debugMode;
-        spatialSystem.setDebugMode(debugMode);
+        if (broadPhase instanceof SpatialPartitionSystem) {
+            ((SpatialPartitionSystem) broadPhase).setDebugMode(debugMode);
+        }
     }
     
     /**
      * 获取调试网格
      */
     public List<javafx.scene.shape.Rectangle> getDebugGrid() {
-        return spatialSystem.getDebugGrid();
+        if (broadPhase instanceof SpatialPartitionSystem) {
+            return ((SpatialPartitionSystem) broadPhase).getDebugGrid();
+        }
+        return new ArrayList<>();
     }
     
     /**
@@ -593,22 +393,74 @@ public class EntityCollisionDetector {
         StringBuilder info = new StringBuilder();
         info.append("碰撞检测系统调试信息:\n");
         info.append("  - 调试模式: ").append(debugMode ? "开启" : "关闭").append("\n");
-        info.append("  - 更新间隔: ").append(com.roguelike.core.GameApp.COLLISION_UPDATE_INTERVAL).append("秒\n");
+        info.append("  - 宽相位: ").append(broadPhase.getType().getConfigName()).append("\n");
         info.append("  - 推挤力度倍数: ").append(com.roguelike.core.GameApp.COLLISION_PUSH_FORCE_MULTIPLIER).append("\n");
         info.append("  - 速度推挤: ").append(com.roguelike.core.GameApp.COLLISION_VELOCITY_PUSH_ENABLED ? "开启" : "关闭").append("\n");
         info.append("  - 位置推挤: ").append(com.roguelike.core.GameApp.COLLISION_POSITION_PUSH_ENABLED ? "开启" : "关闭").append("\n");
         info.append("  - 碰撞冷却记录数: ").append(collisionCooldowns.size()).append("\n");
         info.append("  - 攻击冷却记录数: ").append(attackCooldowns.size()).append("\n");
-        info.append(spatialSystem.getDebugInfo()).append("\n");
+        info.append(getBroadPhaseStats()).append("\n");
+        info.append(narrowPhase.getDebugInfo()).append("\n");
+        info.append(broadPhase.getDebugInfo()).append("\n");
         info.append(rigidCollisionSystem.getConfigInfo());
         return info.toString();
     }
     
     /**
-     * 获取空间分割系统
+     * 获取宽相位统计信息
+     */
+    public String getBroadPhaseStats() {
+        double reduction = totalBruteForcePairs > 0
+            ? 100.0 * (1.0 - (double) totalCandidatePairs / totalBruteForcePairs) : 0.0;
+        return String.format("宽相位统计:\n" +
+                           "  - 本次候选对/命中: %d / %d (暴力检测需 %d 对)\n" +
+                           "  - 累计候选对/命中: %d / %d\n" +
+                           "  - 累计剔除率: %.1f%%",
+                           lastCandidatePairs, lastCollisionHits, lastBruteForcePairs,
+                           totalCandidatePairs, totalCollisionHits, reduction);
+    }
+    
+    /**
+     * 获取最近一次检测的候选对数量
+     */
+    public long getLastCandidatePairs() {
+        return lastCandidatePairs;
+    }
+    
+    /**
+     * 获取最近一次检测的实际命中数量
+     */
+    public long getLastCollisionHits() {
+        return lastCollisionHits;
+    }
+    
+    /**
+     * 获取空间分割系统（当前宽相位不是网格时返回 null）
      */
     public SpatialPartitionSystem getSpatialSystem() {
-        return spatialSystem;
+        return broadPhase instanceof SpatialPartitionSystem ? (SpatialPartitionSystem) broadPhase : null;
+    }
+    
+    /**
+     * 获取当前宽相位
+     */
+    public BroadPhase getBroadPhase() {
+        return broadPhase;
+    }
+    
+    /**
+     * 切换宽相位实现（下一次检测时重新插入所有实体）
+     */
+    public void setBroadPhaseType(BroadPhase.Type type) {
+        if (type == null || broadPhase.getType() == type) {
+            return;
+        }
+        broadPhase.clear();
+        broadPhase = BroadPhase.create(type);
+        if (broadPhase instanceof SpatialPartitionSystem) {
+            ((SpatialPartitionSystem) broadPhase).setDebugMode(debugMode);
+        }
+        System.out.println("🧱 碰撞宽相位切换为: " + type.getConfigName());
     }
     
     /**
@@ -648,52 +500,6 @@ public class EntityCollisionDetector {
         return 1.0;
     }
     
-    /**
-     * 碰撞结果类
-     */
-    public static class CollisionResult {
-        private final boolean hasCollision;
-        private final Entity entity1;
-        private final Entity entity2;
-        private final CollisionType type;
-        private final double overlapX;
-        private final double overlapY;
-        
-        public CollisionResult(boolean hasCollision, Entity entity1, Entity entity2, 
-                             CollisionType type, double overlapX, double overlapY) {
-            this.hasCollision = hasCollision;
-            this.entity1 = entity1;
-            this.entity2 = entity2;
-            this.type = type;
-            this.overlapX = overlapX;
-            this.overlapY = overlapY;
-        }
-        
-        public boolean hasCollision() {
-            return hasCollision;
-        }
-        
-        public Entity getEntity1() {
-            return entity1;
-        }
-        
-        public Entity getEntity2() {
-            return entity2;
-        }
-        
-        public CollisionType getType() {
-            return type;
-        }
-        
-        public double getOverlapX() {
-            return overlapX;
-        }
-        
-        public double getOverlapY() {
-            return overlapY;
-        }
-    }
-    
     /**
      * 碰撞类型枚举
      */
@@ -15,6 +15,13 @@ public class MapCollisionDetector {
     private MapRenderer mapRenderer;
     private InfiniteMapManager infiniteMapManager;
     
+    // 扫掠停在障碍物前的间隙，避免浮点误差导致停止位置与障碍物重叠
+    private static final double CONTACT_SKIN = 0.01;
+    // 计算跨入边界后碰撞框跨度时的微小前移量
+    private static final double SWEEP_EPSILON = 1e-6;
+    // getMaxMoveDistance 复用的结果对象
+    private final SweepHit scratchHit = new SweepHit();
+    
     public MapCollisionDetector(MapRenderer mapRenderer) {
         this.mapRenderer = mapRenderer;
         this.infiniteMapManager = null;
@@ -55,29 +62,35 @@ public class MapCollisionDetector {
      * 检查无限地图碰撞
      */
     private boolean checkInfiniteMapCollision(Entity entity, double newX, double newY) {
-        // 获取实体的碰撞框
-        Rectangle2D entityBounds = getEntityBounds(entity, newX, newY);
-        
-        // 计算实体碰撞框覆盖的瓦片范围
-        int startTileX = (int) Math.floor(entityBounds.getMinX() / 32); // 瓦片尺寸32
-        int startTileY = (int) Math.floor(entityBounds.getMinY() / 32);
-        int endTileX = (int) Math.ceil(entityBounds.getMaxX() / 32);
-        int endTileY = (int) Math.ceil(entityBounds.getMaxY() / 32);
+        // 计算实体碰撞框覆盖的瓦片范围（瓦片尺寸与区块划分一致，取自当前地图）
+        double tileSize = infiniteMapManager.getTileSize();
+        double minX = newX + boundsOffsetX(entity);
+        double minY = newY + boundsOffsetY(entity);
+        int startTileX = (int) Math.floor(minX / tileSize);
+        int startTileY = (int) Math.floor(minY / tileSize);
+        int endTileX = (int) Math.ceil((minX + boundsWidth(entity)) / tileSize);
+        int endTileY = (int) Math.ceil((minY + boundsHeight(entity)) / tileSize);
         
-        // 检查所有覆盖的瓦片
-        for (int tileY = startTileY; tileY < endTileY; tileY++) {
-            for (int tileX = startTileX; tileX < endTileX; tileX++) {
-                double worldX = tileX * 32.0;
-                double worldY = tileY * 32.0;
-                
-                // 使用isPassable方法进行碰撞检测，它正确处理世界坐标
-                if (!infiniteMapManager.isPassable(worldX, worldY)) {
-                    return false; // 发现不可通行的瓦片
-                }
-            }
-        }
-        
-        return true; // 所有瓦片都可通行
+        // 按区块做位集区域查询，每个区块只查找一次
+        return infiniteMapManager.isTileAreaPassable(startTileX, startTileY, endTileX, endTileY);
+    }
+    
+    // 碰撞框相对实体位置的偏移与尺寸（避免为每次查询创建 Rectangle2D）
+    
+    private static double boundsOffsetX(Entity entity) {
+        return entity.getBoundingBoxComponent() != null ? entity.getBoundingBoxComponent().getMinXLocal() : 0;
+    }
+    
+    private static double boundsOffsetY(Entity entity) {
+        return entity.getBoundingBoxComponent() != null ? entity.getBoundingBoxComponent().getMinYLocal() : 0;
+    }
+    
+    private static double boundsWidth(Entity entity) {
+        return entity.getBoundingBoxComponent() != null ? entity.getBoundingBoxComponent().getWidth() : entity.getWidth();
+    }
+    
+    private static double boundsHeight(Entity entity) {
+        return entity.getBoundingBoxComponent() != null ? entity.getBoundingBoxComponent().getHeight() : entity.getHeight();
     }
     
     /**
@@ -108,24 +121,29 @@ public class MapCollisionDetector {
         int endTileX = (int) Math.ceil(entityBounds.getMaxX() / mapRenderer.getTileWidth());
         int endTileY = (int) Math.ceil(entityBounds.getMaxY() / mapRenderer.getTileHeight());
         
-        // 检查所有覆盖的瓦片
-        for (int tileY = startTileY; tileY < endTileY; tileY++) {
-            for (int tileX = startTileX; tileX < endTileX; tileX++) {
-                if (!mapRenderer.isPassable(tileX, tileY)) {
-                    return false; // 发现不可通行的瓦片
-                }
-            }
-        }
-        
-        return true; // 所有瓦片都可通行
+        // 位集区域查询：每行只检查少量字
+        return mapRenderer.isTileAreaPassable(startTileX, startTileY, endTileX, endTileY);
     }
     
     /**
      * 获取实体可以移动的最大距离（在指定方向上）
      */
     public double getMaxMoveDistance(Entity entity, double directionX, double directionY, double maxDistance) {
+        return sweep(entity, directionX, directionY, maxDistance, scratchHit).getDistance();
+    }
+    
+    /**
+     * 沿方向扫掠实体碰撞框，一次遍历得到可移动距离与碰到的障碍面法线
+     * 网格遍历（DDA）：按碰撞框前缘依次跨过的列/行推进，每跨入一列（行）只对新进入的瓦片带做一次区域查询
+     * @param out 结果对象（复用，避免每次查询分配）
+     * @return out
+     */
+    public SweepHit sweep(Entity entity, double directionX, double directionY, double maxDistance, SweepHit out) {
         if (directionX == 0 && directionY == 0) {
-            return 0;
+            return out.set(0, 0, 0, false);
+        }
+        if (infiniteMapManager == null && mapRenderer == null) {
+            return out.set(maxDistance, 0, 0, false); // 没有地图时允许移动
         }
         
         // 归一化方向向量
@@ -133,22 +151,93 @@ public class MapCollisionDetector {
         directionX /= length;
         directionY /= length;
         
-        // 使用步进方式检查
-        double step = maxDistance / 20.0; // 分成20步检查，提高精度
-        double maxDistanceFound = 0;
+        double tileWidth = infiniteMapManager != null ? infiniteMapManager.getTileSize() : mapRenderer.getTileWidth();
+        double tileHeight = infiniteMapManager != null ? infiniteMapManager.getTileSize() : mapRenderer.getTileHeight();
+        double minX = entity.getX() + boundsOffsetX(entity);
+        double minY = entity.getY() + boundsOffsetY(entity);
+        double maxX = minX + boundsWidth(entity);
+        double maxY = minY + boundsHeight(entity);
+        
+        int startTileX = (int) Math.floor(minX / tileWidth);
+        int startTileY = (int) Math.floor(minY / tileHeight);
+        int endTileX = (int) Math.ceil(maxX / tileWidth);
+        int endTileY = (int) Math.ceil(maxY / tileHeight);
         
-        for (double distance = 0; distance <= maxDistance; distance += step) {
-            double testX = entity.getX() + directionX * distance;
-            double testY = entity.getY() + directionY * distance;
+        // 起点已经嵌入障碍物
+        if (!isTileAreaPassable(startTileX, startTileY, endTileX, endTileY)) {
+            return out.set(0, 0, 0, true);
+        }
+        
+        // 下一个将进入的列/行（前缘越过其边界时进入）
+        int stepX = directionX > 0 ? 1 : (directionX < 0 ? -1 : 0);
+        int stepY = directionY > 0 ? 1 : (directionY < 0 ? -1 : 0);
+        int nextColumn = stepX > 0 ? endTileX : startTileX - 1;
+        int nextRow = stepY > 0 ? endTileY : startTileY - 1;
+        
+        while (true) {
+            double columnDistance = stepX > 0 ? (nextColumn * tileWidth - maxX) / directionX
+                                  : stepX < 0 ? ((nextColumn + 1) * tileWidth - minX) / directionX
+                                  : Double.POSITIVE_INFINITY;
+            double rowDistance = stepY > 0 ? (nextRow * tileHeight - maxY) / directionY
+                               : stepY < 0 ? ((nextRow + 1) * tileHeight - minY) / directionY
+                               : Double.POSITIVE_INFINITY;
+            
+            double distance = Math.min(columnDistance, rowDistance);
+            if (distance >= maxDistance) {
+                return out.set(maxDistance, 0, 0, false);
+            }
             
-            if (canMoveTo(entity, testX, testY)) {
-                maxDistanceFound = distance;
+            // 以刚越过边界时的碰撞框计算跨度，同一时刻进入的行/列（对角）一并检查
+            double probe = distance + SWEEP_EPSILON;
+            if (columnDistance <= rowDistance) {
+                int rowStart = (int) Math.floor((minY + directionY * probe) / tileHeight);
+                int rowEnd = (int) Math.ceil((maxY + directionY * probe) / tileHeight);
+                if (!isTileAreaPassable(nextColumn, rowStart, nextColumn + 1, rowEnd)) {
+                    return out.set(Math.max(0, distance - CONTACT_SKIN), -stepX, 0, true);
+                }
+                nextColumn += stepX;
             } else {
-                break; // 遇到障碍物，停止
+                int columnStart = (int) Math.floor((minX + directionX * probe) / tileWidth);
+                int columnEnd = (int) Math.ceil((maxX + directionX * probe) / tileWidth);
+                if (!isTileAreaPassable(columnStart, nextRow, columnEnd, nextRow + 1)) {
+                    return out.set(Math.max(0, distance - CONTACT_SKIN), 0, -stepY, true);
+                }
+                nextRow += stepY;
             }
         }
+    }
+    
+    /**
+     * 瓦片矩形是否全部可通行（结束坐标不包含）
+     */
+    private boolean isTileAreaPassable(int startTileX, int startTileY, int endTileX, int endTileY) {
+        if (infiniteMapManager != null) {
+            return infiniteMapManager.isTileAreaPassable(startTileX, startTileY, endTileX, endTileY);
+        }
+        return mapRenderer.isTileAreaPassable(startTileX, startTileY, endTileX, endTileY);
+    }
+    
+    /**
+     * 扫掠结果：可移动距离与碰到的障碍面法线（未碰到时法线为0）
+     */
+    public static final class SweepHit {
+        private double distance;
+        private double normalX;
+        private double normalY;
+        private boolean hit;
+        
+        SweepHit set(double distance, double normalX, double normalY, boolean hit) {
+            this.distance = distance;
+            this.normalX = normalX;
+            this.normalY = normalY;
+            this.hit = hit;
+            return this;
+        }
         
-        return maxDistanceFound;
+        public double getDistance() { return distance; }
+        public double getNormalX() { return normalX; }
+        public double getNormalY() { return normalY; }
+        public boolean isHit() { return hit; }
     }
     
     /**
@@ -8,8 +8,6 @@ import javafx.geometry.Rectangle2D;
 import com.almasb.fxgl.dsl.FXGL;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -26,9 +24,23 @@ public class OptimizedMovementValidator {
     private long lastCacheUpdate = 0;
     private static final long CACHE_UPDATE_INTERVAL = 50; // 50ms更新一次缓存
     
-    // 玩家伤害冷却系统
-    private Map<String, Double> playerEnemyDamageCooldowns = new HashMap<>();
-    private static final double PLAYER_DAMAGE_COOLDOWN = 0.4; // 0.4秒伤害间隔
+    // 玩家伤害冷却系统（0.4秒，与实体碰撞检测器共享，同一敌人不会在两条路径上重复造成伤害）
+    private final CooldownStore playerEnemyDamageCooldowns = CooldownStore.shared(CooldownStore.Channel.PLAYER_CONTACT_DAMAGE);
+    
+    // 敌人邻域索引：由范围查询服务统一维护，所有验证器与范围伤害共享
+    private final AreaQueryService areaQuery = AreaQueryService.shared();
+    
+    // 邻域查询结果缓冲（外层遍历与内层探测分开，避免嵌套查询互相覆盖）
+    private final List<Entity> neighbourBuffer = new ArrayList<>();
+    private final List<Entity> probeBuffer = new ArrayList<>();
+    
+    // 滑动时的地图扫掠结果（复用）
+    private final MapCollisionDetector.SweepHit slideHit = new MapCollisionDetector.SweepHit();
+    
+    // 邻域统计：每次移动验证检查过的敌人数量
+    private long movesValidated = 0;
+    private long neighboursExamined = 0;
+    private long fullScanEquivalent = 0;
     
     public OptimizedMovementValidator(MapCollisionDetector collisionDetector) {
         this.collisionDetector = collisionDetector;
@@ -38,8 +50,11 @@ public class OptimizedMovementValidator {
      * 验证并执行移动 - 玩家可推动敌人版本
      */
     public MovementResult validateAndMove(Entity entity, double deltaX, double deltaY) {
-        // 更新实体缓存
+        // 更新实体缓存与邻域索引
         updateEntityCache();
+        refreshNeighbourIndex();
+        movesValidated++;
+        fullScanEquivalent += cachedEnemies.size();
         
         // 检查地图碰撞
         if (collisionDetector.checkMovementCollision(entity, deltaX, deltaY)) {
@@ -102,9 +117,12 @@ public class OptimizedMovementValidator {
                 }
             }
             
-            // 检查与其他敌人的碰撞 - 敌人之间保持刚性碰撞
-            for (Enemy enemy : cachedEnemies) {
-                if (!enemy.equals(entity)) {
+            // 检查与附近敌人的碰撞 - 敌人之间保持刚性碰撞
+            List<Entity> neighbours = collectNearbyEnemies(entityBounds, probeBuffer);
+            for (int i = 0; i < neighbours.size(); i++) {
+                Entity enemy = neighbours.get(i);
+                if (enemy != entity) {
+                    neighboursExamined++;
                     Rectangle2D enemyBounds = getEntityBounds(enemy, enemy.getX(), enemy.getY());
                     if (entityBounds.intersects(enemyBounds)) {
                         return true;
@@ -126,8 +144,11 @@ public class OptimizedMovementValidator {
         // 获取玩家移动后的边界
         Rectangle2D playerBounds = getEntityBounds(player, newX, newY);
         
-        // 检查与所有敌人的碰撞，推动它们
-        for (Enemy enemy : cachedEnemies) {
+        // 检查与附近敌人的碰撞，推动它们
+        List<Entity> neighbours = collectNearbyEnemies(playerBounds, neighbourBuffer);
+        for (int i = 0; i < neighbours.size(); i++) {
+            Enemy enemy = (Enemy) neighbours.get(i);
+            neighboursExamined++;
             Rectangle2D enemyBounds = getEntityBounds(enemy, enemy.getX(), enemy.getY());
             if (playerBounds.intersects(enemyBounds)) {
                 // 计算推动距离（与玩家移动距离相同）
@@ -233,6 +254,7 @@ public class OptimizedMovementValidator {
                 if (!hasEnemyCollisionWithOthers(enemy, finalPushX, finalPushY)) {
                     // 推动敌人
                     enemy.translate(finalPushX, finalPushY);
+                    areaQuery.updateEnemy(enemy);
                     
                     // 检查推动后是否与不可通行方块重合，如果是则扣血
                     checkEnemyWallCollisionDamage(enemy);
@@ -261,9 +283,12 @@ public class OptimizedMovementValidator {
         // 获取移动后的敌人边界
         Rectangle2D enemyBounds = getEntityBounds(movingEnemy, newX, newY);
         
-        // 检查与其他敌人的碰撞
-        for (Enemy enemy : cachedEnemies) {
-            if (!enemy.equals(movingEnemy) && !enemy.equals(excludeEnemy)) {
+        // 检查与附近其他敌人的碰撞
+        List<Entity> neighbours = collectNearbyEnemies(enemyBounds, probeBuffer);
+        for (int i = 0; i < neighbours.size(); i++) {
+            Entity enemy = neighbours.get(i);
+            if (enemy != movingEnemy && enemy != excludeEnemy) {
+                neighboursExamined++;
                 Rectangle2D otherEnemyBounds = getEntityBounds(enemy, enemy.getX(), enemy.getY());
                 if (enemyBounds.intersects(otherEnemyBounds)) {
                     return true;
@@ -284,9 +309,12 @@ public class OptimizedMovementValidator {
         // 获取移动敌人移动后的边界
         Rectangle2D movingEnemyBounds = getEntityBounds(movingEnemy, newX, newY);
         
-        // 检查与所有其他敌人的碰撞，推动它们
-        for (Enemy enemy : cachedEnemies) {
-            if (!enemy.equals(movingEnemy)) {
+        // 检查与附近其他敌人的碰撞，推动它们
+        List<Entity> neighbours = collectNearbyEnemies(movingEnemyBounds, neighbourBuffer);
+        for (int i = 0; i < neighbours.size(); i++) {
+            Enemy enemy = (Enemy) neighbours.get(i);
+            if (enemy != movingEnemy) {
+                neighboursExamined++;
                 Rectangle2D enemyBounds = getEntityBounds(enemy, enemy.getX(), enemy.getY());
                 if (movingEnemyBounds.intersects(enemyBounds)) {
                     // 计算推动方向（移动敌人的移动方向）
@@ -320,6 +348,7 @@ public class OptimizedMovementValidator {
                     if (!hasEnemyCollisionWithOthers(enemy, safePushX, safePushY, movingEnemy)) {
                         // 推动敌人
                         enemy.translate(safePushX, safePushY);
+                        areaQuery.updateEnemy(enemy);
                     }
                 }
             }
@@ -349,16 +378,35 @@ public class OptimizedMovementValidator {
     
     /**
      * 尝试滑动移动（沿着障碍物表面滑动） - 刚性碰撞版本
+     * 沿原方向扫掠一次得到碰到的障碍面法线，去掉法线分量即为滑动方向
      */
     private MovementResult trySlidingMovement(Entity entity, double deltaX, double deltaY) {
-        // 计算滑动方向
-        Point2D slideDirection = calculateSlideDirection(entity, deltaX, deltaY);
+        double length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+        if (length == 0) {
+            return new MovementResult(false, 0, 0, MovementType.NONE);
+        }
+        double directionX = deltaX / length;
+        double directionY = deltaY / length;
+        
+        collisionDetector.sweep(entity, directionX, directionY, length, slideHit);
         
-        if (slideDirection.getX() != 0 || slideDirection.getY() != 0) {
+        double slideDirectionX = directionX;
+        double slideDirectionY = directionY;
+        if (slideHit.isHit()) {
+            if (slideHit.getNormalX() == 0 && slideHit.getNormalY() == 0) {
+                // 已嵌入障碍物，无法确定滑动面
+                return new MovementResult(false, 0, 0, MovementType.NONE);
+            }
+            // 法线沿坐标轴，滑动方向为另一轴上的分量
+            slideDirectionX = slideHit.getNormalX() != 0 ? 0 : Math.signum(deltaX);
+            slideDirectionY = slideHit.getNormalY() != 0 ? 0 : Math.signum(deltaY);
+        }
+        
+        if (slideDirectionX != 0 || slideDirectionY != 0) {
             // 计算滑动距离，使用原始距离
             double slideDistance = Math.min(Math.abs(deltaX), Math.abs(deltaY));
-            double slideX = slideDirection.getX() * slideDistance;
-            double slideY = slideDirection.getY() * slideDistance;
+            double slideX = slideDirectionX * slideDistance;
+            double slideY = slideDirectionY * slideDistance;
             
             if (collisionDetector.checkMovementCollision(entity, slideX, slideY) && 
                 !hasEntityCollision(entity, slideX, slideY)) {
@@ -369,30 +417,6 @@ public class OptimizedMovementValidator {
         return new MovementResult(false, 0, 0, MovementType.NONE);
     }
     
-    /**
-     * 计算滑动方向 - 保持原有逻辑
-     */
-    private Point2D calculateSlideDirection(Entity entity, double deltaX, double deltaY) {
-        // 检查X轴方向是否可以移动
-        boolean canMoveX = collisionDetector.checkMovementCollision(entity, deltaX, 0);
-        // 检查Y轴方向是否可以移动
-        boolean canMoveY = collisionDetector.checkMovementCollision(entity, 0, deltaY);
-        
-        if (canMoveX && !canMoveY) {
-            // 只能沿X轴移动
-            return new Point2D(deltaX > 0 ? 1 : -1, 0);
-        } else if (!canMoveX && canMoveY) {
-            // 只能沿Y轴移动
-            return new Point2D(0, deltaY > 0 ? 1 : -1);
-        } else if (canMoveX && canMoveY) {
-            // 两个方向都可以移动，返回原始方向
-            return new Point2D(deltaX, deltaY).normalize();
-        } else {
-            // 两个方向都不能移动
-            return new Point2D(0, 0);
-        }
-    }
-    
     
     /**
      * 更新实体缓存 - 性能优化
@@ -412,6 +436,49 @@ public class OptimizedMovementValidator {
         lastCacheUpdate = currentTime;
     }
     
+    /**
+     * 刷新敌人邻域索引（从存活敌人登记表重建，每个游戏时刻一次；时间停止时按缓存间隔刷新）
+     */
+    private void refreshNeighbourIndex() {
+        areaQuery.refreshEnemyIndex();
+    }
+    
+    /**
+     * 收集碰撞箱可能与指定范围重叠的敌人（结果写入 out，之后仍需用实时位置精确判定）
+     */
+    private List<Entity> collectNearbyEnemies(Rectangle2D bounds, List<Entity> out) {
+        out.clear();
+        areaQuery.collectEnemyCandidates(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), out);
+        return out;
+    }
+    
+    /**
+     * 获取平均每次移动验证检查的敌人数量
+     */
+    public double getAverageNeighboursPerMove() {
+        return movesValidated > 0 ? (double) neighboursExamined / movesValidated : 0.0;
+    }
+    
+    /**
+     * 重置邻域统计
+     */
+    public void resetNeighbourStats() {
+        movesValidated = 0;
+        neighboursExamined = 0;
+        fullScanEquivalent = 0;
+    }
+    
+    /**
+     * 获取调试信息
+     */
+    public String getDebugInfo() {
+        double fullScanAverage = movesValidated > 0 ? (double) fullScanEquivalent / movesValidated : 0.0;
+        return String.format("移动验证统计:\n" +
+                           "  - 验证次数: %d\n" +
+                           "  - 平均每次移动检查邻居数: %.2f (全量遍历需 %.2f)",
+                           movesValidated, getAverageNeighboursPerMove(), fullScanAverage);
+    }
+    
     /**
      * 获取实体在指定位置的边界框
      */
@@ -520,8 +587,9 @@ public class OptimizedMovementValidator {
      * 处理玩家冲撞敌人时的扣血逻辑
      */
     private void handlePlayerCollisionDamage(Player player, Enemy enemy) {
-        // 检查伤害冷却（每个敌人独立）
-        if (isPlayerDamageOnCooldown(enemy, player)) {
+        // 检查伤害冷却（每个敌人独立），不在冷却中则立即开始冷却
+        double currentTime = com.roguelike.core.TimeService.getSeconds();
+        if (!playerEnemyDamageCooldowns.tryAcquire(enemy, player, currentTime)) {
             return; // 伤害仍在冷却时间内
         }
         
@@ -529,29 +597,6 @@ public class OptimizedMovementValidator {
         int damage = 10; // 每次扣10点血
         //System.out.println("💥 玩家冲撞敌人，玩家扣血 " + damage + " 点，当前血量: " + player.getGameState().getPlayerHP());
         player.takeDamage(damage);
-        
-        // 设置伤害冷却
-        setPlayerDamageCooldown(enemy, player);
-    }
-    
-    /**
-     * 检查玩家伤害是否在冷却时间内
-     */
-    private boolean isPlayerDamageOnCooldown(Enemy enemy, Player player) {
-        String key = enemy.hashCode() + "_" + player.hashCode();
-        Double lastDamageTime = playerEnemyDamageCooldowns.get(key);
-        if (lastDamageTime == null) {
-            return false;
-        }
-        return (System.currentTimeMillis() / 1000.0) - lastDamageTime < PLAYER_DAMAGE_COOLDOWN;
-    }
-    
-    /**
-     * 设置玩家伤害冷却时间
-     */
-    private void setPlayerDamageCooldown(Enemy enemy, Player player) {
-        String key = enemy.hashCode() + "_" + player.hashCode();
-        playerEnemyDamageCooldowns.put(key, System.currentTimeMillis() / 1000.0);
     }
     
     /**
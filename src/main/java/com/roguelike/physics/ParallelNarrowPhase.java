@@ -0,0 +1,414 @@
+package com.roguelike.physics;
+
+import com.roguelike.entities.Bullet;
+import com.roguelike.entities.Player;
+import com.roguelike.entities.bullets.OrbitingBullet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 窄相位接触生成器（可并行）
+ * 只读取宽相位中缓存的碰撞代理生成接触，不修改任何实体状态，因此可以安全地分块交给工作线程；
+ * 每个分块写入独立的接触缓冲区，最后按分块顺序合并并排序，串行与并行两种模式得到完全相同的接触序列。
+ *
+ * 工作单元编号：[玩家] [每颗子弹] [宽相位的每个候选对单元]
+ * - 玩家单元：玩家与候选敌人
+ * - 子弹单元：子弹与候选敌人、子弹与玩家（按阵营过滤）；直线/曲线子弹使用扫掠检测，
+ *   以上一批次中心到当前中心的线段对目标碰撞箱（按子弹半尺寸扩展）求交，降低检测频率也不会穿透
+ * - 候选对单元：敌人对（网格宽相位为一个网格桶，排序扫描宽相位为一个代理）
+ */
+public class ParallelNarrowPhase {
+
+    // 工作单元少于该值时直接串行生成（任务调度开销大于收益）
+    private static final int MIN_PARALLEL_UNITS = 64;
+    // 每个工作线程分到的分块数（分块越多负载越均衡）
+    private static final int CHUNKS_PER_WORKER = 4;
+    // 每个分块至少包含的工作单元数
+    private static final int MIN_UNITS_PER_CHUNK = 8;
+    // 耗时滑动平均系数
+    private static final double EMA_ALPHA = 0.1;
+
+    // 窄相位按层分派：子弹单元、敌人对
+    private static final int ENEMY_LAYER = CollisionLayer.ENEMY.bit();
+    private static final int BULLET_LAYERS = CollisionLayer.PLAYER_BULLET.bit() | CollisionLayer.ENEMY_BULLET.bit();
+
+    // 共享工作线程池（守护线程，首次使用并行模式时创建）
+    private static ForkJoinPool workerPool;
+
+    private BroadPhase broadPhase;
+
+    // 本次生成的工作单元
+    private CollisionProxy playerProxy;
+    private CollisionProxy[] bulletProxies = new CollisionProxy[64];
+    private int bulletCount;
+    private int enemyCount;
+    private int playerUnits;
+    private int pairUnits;
+    private int unitCount;
+
+    // 串行模式使用的工作者，并行模式的分块任务各自持有一个
+    private final Worker serialWorker = new Worker();
+
+    // 分块任务与各自的接触缓冲区（跨帧复用）
+    private ChunkTask[] chunkTasks = new ChunkTask[0];
+    private final RootTask rootTask = new RootTask();
+    private int chunkCount;
+
+    // 统计信息
+    private boolean lastRunParallel = false;
+    private int lastChunkCount = 0;
+    private long lastWallNanos = 0;
+    private long lastWorkNanos = 0;
+    private double serialAvgNanos = 0;
+    private double parallelAvgNanos = 0;
+
+    /**
+     * 生成本次检测的全部接触，结果写入 out（先清空，生成后已按确定性顺序排序）
+     * @param broadPhase 已完成本轮增量更新的宽相位
+     * @param player 玩家实体（可为 null）
+     * @param parallel 是否允许使用工作线程
+     */
+    public void generate(BroadPhase broadPhase, Player player, boolean parallel, ContactBuffer out) {
+        long start = System.nanoTime();
+        out.clear();
+        prepare(broadPhase, player);
+
+        boolean runParallel = parallel && unitCount >= MIN_PARALLEL_UNITS && getParallelism() > 1;
+        if (runParallel) {
+            runParallel(out);
+        } else {
+            lastChunkCount = 1;
+            serialWorker.buffer = out;
+            serialWorker.processUnits(0, unitCount);
+            serialWorker.buffer = null;
+            lastWorkNanos = System.nanoTime() - start;
+        }
+        out.sort();
+
+        lastWallNanos = System.nanoTime() - start;
+        lastRunParallel = runParallel;
+        if (runParallel) {
+            parallelAvgNanos = parallelAvgNanos == 0 ? lastWallNanos
+                : parallelAvgNanos + EMA_ALPHA * (lastWallNanos - parallelAvgNanos);
+        } else if (unitCount >= MIN_PARALLEL_UNITS) {
+            // 只统计规模足以触发并行的串行运行，保证两种模式的平均值可比
+            serialAvgNanos = serialAvgNanos == 0 ? lastWallNanos
+                : serialAvgNanos + EMA_ALPHA * (lastWallNanos - serialAvgNanos);
+        }
+        this.broadPhase = null;
+        playerProxy = null;
+    }
+
+    /**
+     * 收集工作单元
+     */
+    private void prepare(BroadPhase broadPhase, Player player) {
+        this.broadPhase = broadPhase;
+        playerProxy = player != null ? broadPhase.proxyOf(player) : null;
+        bulletCount = 0;
+        enemyCount = 0;
+
+        int proxyCount = broadPhase.getProxyCount();
+        for (int i = 0; i < proxyCount; i++) {
+            CollisionProxy proxy = broadPhase.getProxy(i);
+            if ((proxy.layer & BULLET_LAYERS) != 0) {
+                if (bulletCount == bulletProxies.length) {
+                    CollisionProxy[] grown = new CollisionProxy[bulletProxies.length * 2];
+                    System.arraycopy(bulletProxies, 0, grown, 0, bulletCount);
+                    bulletProxies = grown;
+                }
+                bulletProxies[bulletCount++] = proxy;
+            } else if ((proxy.layer & ENEMY_LAYER) != 0) {
+                enemyCount++;
+            }
+        }
+
+        playerUnits = playerProxy != null ? 1 : 0;
+        pairUnits = broadPhase.getPairUnitCount();
+        unitCount = playerUnits + bulletCount + pairUnits;
+    }
+
+    /**
+     * 分块并行生成
+     */
+    private void runParallel(ContactBuffer out) {
+        ForkJoinPool pool = getWorkerPool();
+        int maxChunks = pool.getParallelism() * CHUNKS_PER_WORKER;
+        chunkCount = Math.max(1, Math.min(maxChunks, unitCount / MIN_UNITS_PER_CHUNK));
+        ensureChunkTasks(chunkCount);
+
+        for (int i = 0; i < chunkCount; i++) {
+            ChunkTask task = chunkTasks[i];
+            task.begin = (int) ((long) unitCount * i / chunkCount);
+            task.end = (int) ((long) unitCount * (i + 1) / chunkCount);
+            task.reinitialize();
+        }
+        rootTask.reinitialize();
+        pool.invoke(rootTask);
+
+        // 按分块顺序合并
+        long workNanos = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            ChunkTask task = chunkTasks[i];
+            out.addAll(task.worker.buffer);
+            task.worker.buffer.clear();
+            workNanos += task.elapsedNanos;
+        }
+        lastChunkCount = chunkCount;
+        lastWorkNanos = workNanos;
+    }
+
+    private void ensureChunkTasks(int count) {
+        if (chunkTasks.length >= count) {
+            return;
+        }
+        ChunkTask[] grown = new ChunkTask[count];
+        System.arraycopy(chunkTasks, 0, grown, 0, chunkTasks.length);
+        for (int i = chunkTasks.length; i < count; i++) {
+            grown[i] = new ChunkTask();
+        }
+        chunkTasks = grown;
+    }
+
+    /**
+     * AABB 重叠判定（与 Rectangle2D.intersects 一致：边界相接不算重叠）
+     */
+    private static void testPair(EntityCollisionDetector.CollisionType type,
+                                 CollisionProxy a, CollisionProxy b, ContactBuffer out) {
+        double minX = Math.max(a.centerX - a.halfWidth, b.centerX - b.halfWidth);
+        double maxX = Math.min(a.centerX + a.halfWidth, b.centerX + b.halfWidth);
+        if (maxX <= minX) return;
+        double minY = Math.max(a.centerY - a.halfHeight, b.centerY - b.halfHeight);
+        double maxY = Math.min(a.centerY + a.halfHeight, b.centerY + b.halfHeight);
+        if (maxY <= minY) return;
+        out.add(type, a.entity, b.entity, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * 扫掠判定：子弹中心从上一批次位置沿线段移动到当前位置的过程中是否与目标碰撞箱重叠
+     * 等价于线段与按子弹半尺寸扩展后的目标框求交（slab 法），重叠量取首次接触时刻的值
+     */
+    private static void testSweptPair(EntityCollisionDetector.CollisionType type,
+                                      CollisionProxy bullet, CollisionProxy target, ContactBuffer out) {
+        double extentX = target.halfWidth + bullet.halfWidth;
+        double extentY = target.halfHeight + bullet.halfHeight;
+        double startX = bullet.prevCenterX - target.centerX;
+        double startY = bullet.prevCenterY - target.centerY;
+        double deltaX = bullet.centerX - bullet.prevCenterX;
+        double deltaY = bullet.centerY - bullet.prevCenterY;
+
+        double tEnter = 0.0;
+        double tExit = 1.0;
+
+        if (deltaX == 0) {
+            if (Math.abs(startX) >= extentX) return;
+        } else {
+            double t1 = (-extentX - startX) / deltaX;
+            double t2 = (extentX - startX) / deltaX;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+        if (deltaY == 0) {
+            if (Math.abs(startY) >= extentY) return;
+        } else {
+            double t1 = (-extentY - startY) / deltaY;
+            double t2 = (extentY - startY) / deltaY;
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+        if (tEnter >= tExit) return;
+
+        // 首次接触时刻子弹中心相对目标中心的位置
+        double hitX = Math.abs(startX + deltaX * tEnter);
+        double hitY = Math.abs(startY + deltaY * tEnter);
+        double overlapX = Math.min(extentX - hitX, 2 * Math.min(bullet.halfWidth, target.halfWidth));
+        double overlapY = Math.min(extentY - hitY, 2 * Math.min(bullet.halfHeight, target.halfHeight));
+        out.add(type, bullet.entity, target.entity, Math.max(0, overlapX), Math.max(0, overlapY));
+    }
+
+    /**
+     * 工作者：处理一段工作单元，把接触写入自己的缓冲区
+     * 同时充当宽相位的访问器，避免每次查询创建 lambda
+     */
+    private final class Worker implements BroadPhase.ProxyVisitor, BroadPhase.ProxyPairVisitor {
+        ContactBuffer buffer;
+        private CollisionProxy source;
+        private EntityCollisionDetector.CollisionType sourceType;
+        private boolean sourceSwept;
+
+        /**
+         * 处理 [begin, end) 范围内的工作单元
+         */
+        void processUnits(int begin, int end) {
+            for (int unit = begin; unit < end; unit++) {
+                if (unit < playerUnits) {
+                    source = playerProxy;
+                    sourceType = EntityCollisionDetector.CollisionType.PLAYER_ENEMY;
+                    sourceSwept = false;
+                    broadPhase.forEachCandidate(playerProxy, this);
+                } else if (unit < playerUnits + bulletCount) {
+                    processBullet(bulletProxies[unit - playerUnits]);
+                } else {
+                    broadPhase.forEachCandidatePairInUnit(unit - playerUnits - bulletCount, this);
+                }
+            }
+            source = null;
+        }
+
+        /**
+         * 子弹与候选敌人、子弹与玩家
+         */
+        private void processBullet(CollisionProxy bulletProxy) {
+            Bullet bullet = (Bullet) bulletProxy.entity;
+            if (!bullet.isActive()) {
+                return;
+            }
+            source = bulletProxy;
+            sourceType = EntityCollisionDetector.CollisionType.BULLET_ENEMY;
+            // 环绕子弹沿圆弧运动，弦线近似会误伤圆内目标，仍使用离散检测
+            sourceSwept = bulletProxy.hasMoved() && !(bullet instanceof OrbitingBullet);
+            // 掩码不含敌人层的子弹（敌方子弹）无需查询宽相位
+            if ((bulletProxy.mask & ENEMY_LAYER) != 0) {
+                broadPhase.forEachCandidate(bulletProxy, this);
+            }
+
+            if (playerProxy != null && bulletProxy.accepts(playerProxy)) {
+                if (sourceSwept) {
+                    testSweptPair(EntityCollisionDetector.CollisionType.BULLET_PLAYER, bulletProxy, playerProxy, buffer);
+                } else {
+                    testPair(EntityCollisionDetector.CollisionType.BULLET_PLAYER, bulletProxy, playerProxy, buffer);
+                }
+            }
+        }
+
+        /**
+         * 单体候选：玩家/子弹与敌人
+         */
+        @Override
+        public void visit(CollisionProxy other) {
+            // 宽相位已按源的掩码过滤，这里只保留敌人层
+            if ((other.layer & ENEMY_LAYER) == 0) {
+                return;
+            }
+            buffer.countCandidate();
+            if (sourceSwept) {
+                testSweptPair(sourceType, source, other, buffer);
+            } else {
+                testPair(sourceType, source, other, buffer);
+            }
+        }
+
+        /**
+         * 候选对：只处理敌人对
+         */
+        @Override
+        public void visit(CollisionProxy first, CollisionProxy second) {
+            if ((first.layer & second.layer & ENEMY_LAYER) == 0) {
+                return;
+            }
+            buffer.countCandidate();
+            // ID较小的敌人在前，保证同一对敌人的接触顺序与遍历顺序无关
+            if (CooldownStore.idOf(first.entity) <= CooldownStore.idOf(second.entity)) {
+                testPair(EntityCollisionDetector.CollisionType.ENEMY_ENEMY, first, second, buffer);
+            } else {
+                testPair(EntityCollisionDetector.CollisionType.ENEMY_ENEMY, second, first, buffer);
+            }
+        }
+    }
+
+    // ---------------- 工作线程池 ----------------
+
+    private static synchronized ForkJoinPool getWorkerPool() {
+        if (workerPool == null) {
+            ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("CollisionWorker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            };
+            workerPool = new ForkJoinPool(getParallelism(), factory, null, false);
+        }
+        return workerPool;
+    }
+
+    /**
+     * 工作线程数：保留一个核心给渲染/主循环
+     */
+    private static int getParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * 根任务：一次性派发所有分块
+     */
+    @SuppressWarnings("serial")
+    private final class RootTask extends RecursiveAction {
+        @Override
+        protected void compute() {
+            for (int i = 1; i < chunkCount; i++) {
+                chunkTasks[i].fork();
+            }
+            chunkTasks[0].invoke();
+            for (int i = 1; i < chunkCount; i++) {
+                chunkTasks[i].join();
+            }
+        }
+    }
+
+    /**
+     * 分块任务：处理一段连续的工作单元，写入自己的缓冲区
+     */
+    @SuppressWarnings("serial")
+    private final class ChunkTask extends RecursiveAction {
+        final Worker worker = new Worker();
+        int begin;
+        int end;
+        long elapsedNanos;
+
+        ChunkTask() {
+            worker.buffer = new ContactBuffer();
+        }
+
+        @Override
+        protected void compute() {
+            long start = System.nanoTime();
+            worker.processUnits(begin, end);
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    // ---------------- 统计 ----------------
+
+    public int getBulletCount() {
+        return bulletCount;
+    }
+
+    public int getEnemyCount() {
+        return enemyCount;
+    }
+
+    public boolean wasLastRunParallel() {
+        return lastRunParallel;
+    }
+
+    /**
+     * 获取调试信息
+     */
+    public String getDebugInfo() {
+        double wallMs = lastWallNanos / 1_000_000.0;
+        double workMs = lastWorkNanos / 1_000_000.0;
+        double estimatedSpeedup = lastRunParallel && lastWallNanos > 0 ? (double) lastWorkNanos / lastWallNanos : 1.0;
+        String measured = serialAvgNanos > 0 && parallelAvgNanos > 0
+            ? String.format("%.2fx", serialAvgNanos / parallelAvgNanos) : "样本不足";
+        return String.format("窄相位统计:\n" +
+                           "  - 本次模式: %s (工作单元 %d, 分块 %d, 工作线程 %d)\n" +
+                           "  - 本次耗时: %.3fms (分块累计 %.3fms, 估算加速比 %.2fx)\n" +
+                           "  - 平均耗时 串行/并行: %.3fms / %.3fms (实测加速比 %s)",
+                           lastRunParallel ? "并行" : "串行", unitCount, lastChunkCount,
+                           workerPool != null ? workerPool.getParallelism() : 0,
+                           wallMs, workMs, estimatedSpeedup,
+                           serialAvgNanos / 1_000_000.0, parallelAvgNanos / 1_000_000.0, measured);
+    }
+}
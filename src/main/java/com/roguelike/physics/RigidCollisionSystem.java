@@ -2,304 +2,356 @@ package com.roguelike.physics;
 
 import com.almasb.fxgl.entity.Entity;
 import com.almasb.fxgl.physics.PhysicsComponent;
-import javafx.geometry.Point2D;
-import javafx.geometry.Rectangle2D;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 刚性碰撞系统
  * 实现物理上的物块碰撞，实体之间不能重叠
+ *
+ * 分离采用批量迭代求解：一次碰撞检测中收集所有重叠对，实体中心与半尺寸读入基本类型数组，
+ * 以位置约束迭代松弛固定次数，最后每个实体只写回一次位移。
+ * 相比逐对推挤，密集人群中各对之间的修正可以相互抵消，不会来回抖动，也不为每对分配几何对象。
+ * 写回前每个实体的位移沿地图扫掠裁剪，推挤不会把实体（包括玩家）挤进墙里。
  */
 public class RigidCollisionSystem {
-    
-    // 碰撞检测精度
+
+    // 碰撞检测精度（允许的残余重叠，避免贴合的实体反复被推开）
     private static final double COLLISION_PRECISION = 0.1;
-    
-    // 最大分离距离
+
+    // 最大分离距离（单次求解中每个实体的最大位移）
     private static final double MAX_SEPARATION_DISTANCE = 10.0;
-    
+
     // 推挤力度系数（可配置）
     private double pushForceMultiplier = 1.0;
-    
-    // 推挤冷却机制
-    private Map<String, Long> pushCooldowns = new HashMap<>();
-    private static final long PUSH_COOLDOWN_MS = 50; // 50ms推挤冷却
-    
+
     // 速度推挤参数
     private static final double VELOCITY_PUSH_FORCE = 80.0;  // 速度推挤力度（降低）
     private static final double MAX_VELOCITY = 150.0;        // 最大速度限制（降低）
-    private static final double VELOCITY_DAMPING = 0.9;      // 速度阻尼
     private static final double POSITION_PUSH_FACTOR = 0.3;  // 位置推挤系数（降低）
     private static final double MIN_PUSH_DISTANCE = 0.15;    // 最小推挤距离（降低）
-    
+
+    // 迭代求解参数
+    private static final int SOLVER_ITERATIONS = 4;          // 松弛迭代次数
+    private static final double BASE_RELAXATION = POSITION_PUSH_FACTOR / 0.6; // 每次迭代修正的重叠比例（力度系数为1时为0.5）
+    private static final double PUSHER_SHARE = 0.15;         // 高级别实体承担的修正比例（防止"渗透"的反向推挤）
+
+    // 批次中的实体（基本类型并行数组）
+    private Entity[] bodies = new Entity[64];
+    private int[] bodyIds = new int[64];
+    private int[] bodyPriorities = new int[64];
+    private double[] posX = new double[64];
+    private double[] posY = new double[64];
+    private double[] startX = new double[64];
+    private double[] startY = new double[64];
+    private double[] halfWidths = new double[64];
+    private double[] halfHeights = new double[64];
+    private int bodyCount = 0;
+
+    // 批次中的重叠对
+    private int[] pairA = new int[128];
+    private int[] pairB = new int[128];
+    private int pairCount = 0;
+
+    // 实体ID -> 批次内下标（开放寻址，按批次戳失效，无需清空）
+    private int[] slotIds = new int[128];
+    private int[] slotBodies = new int[128];
+    private int[] slotStamps = new int[128];
+    private int batchStamp = 1;
+    private boolean batchOpen = false;
+
+    // 地图碰撞检测（为 null 时不裁剪位移）
+    private MapCollisionDetector mapCollisionDetector;
+    private final MapCollisionDetector.SweepHit sweepHit = new MapCollisionDetector.SweepHit();
+
+    // 统计信息
+    private int lastBodyCount = 0;
+    private int lastPairCount = 0;
+    private int lastMovedBodies = 0;
+    private int lastClippedBodies = 0;
+    private long lastSolveNanos = 0;
+
     /**
-     * 处理两个实体之间的刚性碰撞
+     * 设置地图碰撞检测器，推挤位移在写回前按地图裁剪
+     */
+    public void setMapCollisionDetector(MapCollisionDetector detector) {
+        this.mapCollisionDetector = detector;
+    }
+
+    /**
+     * 处理两个实体之间的刚性碰撞（单独调用时立即求解；批次进行中则并入批次）
      * @param entity1 实体1
      * @param entity2 实体2
      * @param level1 实体1的碰撞箱级别
      * @param level2 实体2的碰撞箱级别
      */
-    public void handleRigidCollision(Entity entity1, Entity entity2, 
+    public void handleRigidCollision(Entity entity1, Entity entity2,
                                    CollisionBoxLevel level1, CollisionBoxLevel level2) {
-        if (entity1 == null || entity2 == null) return;
-        
-        // 检查是否发生碰撞
-        Rectangle2D bounds1 = getEntityBounds(entity1);
-        Rectangle2D bounds2 = getEntityBounds(entity2);
-        
-        if (!bounds1.intersects(bounds2)) {
-            return; // 没有碰撞
+        if (batchOpen) {
+            addContact(entity1, entity2, level1, level2);
+            return;
         }
-        
-        // 处理刚性碰撞
-        handleRigidCollisionMode(entity1, entity2, bounds1, bounds2, level1, level2);
+        beginBatch();
+        addContact(entity1, entity2, level1, level2);
+        solveBatch();
     }
-    
+
     /**
-     * 处理刚性碰撞模式
+     * 开始收集一批重叠对
      */
-    private void handleRigidCollisionMode(Entity entity1, Entity entity2,
-                                        Rectangle2D bounds1, Rectangle2D bounds2,
-                                        CollisionBoxLevel level1, CollisionBoxLevel level2) {
-        // 根据级别决定分离方向
-        if (level1.canPush(level2)) {
-            // entity1 推挤 entity2（主要推挤）
-            separateEntities(entity1, entity2, bounds1, bounds2);
-            // 同时给entity2一个反向推挤，防止"渗透"（降低强度）
-            separateEntitiesReverse(entity2, entity1, bounds2, bounds1, 0.15);
-        } else if (level2.canPush(level1)) {
-            // entity2 推挤 entity1（主要推挤）
-            separateEntities(entity2, entity1, bounds2, bounds1);
-            // 同时给entity1一个反向推挤，防止"渗透"（降低强度）
-            separateEntitiesReverse(entity1, entity2, bounds1, bounds2, 0.15);
-        } else {
-            // 级别相同，相互分离
-            separateEntitiesMutually(entity1, entity2, bounds1, bounds2);
+    public void beginBatch() {
+        batchStamp++;
+        if (batchStamp == 0) {
+            // 戳回绕：清空槽位后从1开始
+            java.util.Arrays.fill(slotStamps, 0);
+            batchStamp = 1;
+        }
+        for (int i = 0; i < bodyCount; i++) {
+            bodies[i] = null;
         }
+        bodyCount = 0;
+        pairCount = 0;
+        batchOpen = true;
     }
-    
-    
+
     /**
-     * 分离两个实体，让pusher推挤target
-     * @param pusher 推挤者
-     * @param target 被推挤者
-     * @param pusherBounds 推挤者边界
-     * @param targetBounds 被推挤者边界
+     * 加入一个重叠对（实体位置在加入时读取）
      */
-    private void separateEntities(Entity pusher, Entity target, 
-                                Rectangle2D pusherBounds, Rectangle2D targetBounds) {
-        // 计算重叠区域
-        double overlapX = Math.min(pusherBounds.getMaxX(), targetBounds.getMaxX()) - 
-                         Math.max(pusherBounds.getMinX(), targetBounds.getMinX());
-        double overlapY = Math.min(pusherBounds.getMaxY(), targetBounds.getMaxY()) - 
-                         Math.max(pusherBounds.getMinY(), targetBounds.getMinY());
-        
-        // 计算推挤方向
-        Point2D pusherCenter = new Point2D(
-            pusherBounds.getMinX() + pusherBounds.getWidth() / 2,
-            pusherBounds.getMinY() + pusherBounds.getHeight() / 2
-        );
-        Point2D targetCenter = new Point2D(
-            targetBounds.getMinX() + targetBounds.getWidth() / 2,
-            targetBounds.getMinY() + targetBounds.getHeight() / 2
-        );
-        Point2D direction = targetCenter.subtract(pusherCenter).normalize();
-        
-        // 计算推挤强度（基于重叠程度）
-        double overlapAmount = Math.max(overlapX, overlapY);
-        double pushStrength = (overlapAmount + COLLISION_PRECISION) * pushForceMultiplier;
-        pushStrength = Math.max(pushStrength, MIN_PUSH_DISTANCE); // 最小推挤强度
-        
-        // 应用速度推挤
-        applyVelocityPush(target, direction, pushStrength);
+    public void addContact(Entity entity1, Entity entity2,
+                           CollisionBoxLevel level1, CollisionBoxLevel level2) {
+        if (entity1 == null || entity2 == null || entity1 == entity2 || level1 == null || level2 == null) return;
+
+        int a = bodyIndexOf(entity1, level1);
+        int b = bodyIndexOf(entity2, level2);
+        if (pairCount == pairA.length) {
+            pairA = java.util.Arrays.copyOf(pairA, pairCount * 2);
+            pairB = java.util.Arrays.copyOf(pairB, pairCount * 2);
+        }
+        pairA[pairCount] = a;
+        pairB[pairCount] = b;
+        pairCount++;
     }
-    
+
     /**
-     * 反向推挤（防止渗透）
-     * @param target 被推挤的实体
-     * @param pusher 推挤者
-     * @param targetBounds 被推挤者边界
-     * @param pusherBounds 推挤者边界
-     * @param strength 推挤强度系数
+     * 迭代求解本批次并把位移写回实体
      */
-    private void separateEntitiesReverse(Entity target, Entity pusher,
-                                       Rectangle2D targetBounds, Rectangle2D pusherBounds,
-                                       double strength) {
-        // 计算重叠区域
-        double overlapX = Math.min(pusherBounds.getMaxX(), targetBounds.getMaxX()) - 
-                         Math.max(pusherBounds.getMinX(), targetBounds.getMinX());
-        double overlapY = Math.min(pusherBounds.getMaxY(), targetBounds.getMaxY()) - 
-                         Math.max(pusherBounds.getMinY(), targetBounds.getMinY());
-        
-        // 计算推挤方向（从pusher指向target）
-        Point2D pusherCenter = new Point2D(
-            pusherBounds.getMinX() + pusherBounds.getWidth() / 2,
-            pusherBounds.getMinY() + pusherBounds.getHeight() / 2
-        );
-        Point2D targetCenter = new Point2D(
-            targetBounds.getMinX() + targetBounds.getWidth() / 2,
-            targetBounds.getMinY() + targetBounds.getHeight() / 2
-        );
-        Point2D direction = targetCenter.subtract(pusherCenter).normalize();
-        
-        // 计算推挤强度（基于重叠程度，使用较小的强度和平滑算法）
-        double overlapAmount = Math.max(overlapX, overlapY);
-        double pushStrength = (overlapAmount + COLLISION_PRECISION) * pushForceMultiplier * strength;
-        
-        // 使用平方根函数让反向推挤更平滑
-        pushStrength = Math.sqrt(pushStrength) * 0.4;
-        
-        pushStrength = Math.max(pushStrength, MIN_PUSH_DISTANCE * 0.3);
-        
-        // 应用反向推挤
-        applyVelocityPush(target, direction, pushStrength);
+    public void solveBatch() {
+        if (!batchOpen) return;
+        batchOpen = false;
+        long start = System.nanoTime();
+
+        double relaxation = Math.min(1.0, BASE_RELAXATION * pushForceMultiplier);
+        for (int iteration = 0; iteration < SOLVER_ITERATIONS; iteration++) {
+            for (int p = 0; p < pairCount; p++) {
+                relaxPair(pairA[p], pairB[p], relaxation);
+            }
+        }
+
+        lastMovedBodies = writeBack();
+        lastBodyCount = bodyCount;
+        lastPairCount = pairCount;
+        lastSolveNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < bodyCount; i++) {
+            bodies[i] = null;
+        }
+        bodyCount = 0;
+        pairCount = 0;
     }
-    
+
     /**
-     * 相互分离两个实体
-     * @param entity1 实体1
-     * @param entity2 实体2
-     * @param bounds1 实体1边界
-     * @param bounds2 实体2边界
+     * 沿最小穿透轴修正一对实体的重叠，按级别分配修正量
      */
-    private void separateEntitiesMutually(Entity entity1, Entity entity2,
-                                        Rectangle2D bounds1, Rectangle2D bounds2) {
-        // 计算重叠区域
-        double overlapX = Math.min(bounds1.getMaxX(), bounds2.getMaxX()) - 
-                         Math.max(bounds1.getMinX(), bounds2.getMinX());
-        double overlapY = Math.min(bounds1.getMaxY(), bounds2.getMaxY()) - 
-                         Math.max(bounds1.getMinY(), bounds2.getMinY());
-        
-        // 计算分离方向
-        Point2D center1 = new Point2D(
-            bounds1.getMinX() + bounds1.getWidth() / 2,
-            bounds1.getMinY() + bounds1.getHeight() / 2
-        );
-        Point2D center2 = new Point2D(
-            bounds2.getMinX() + bounds2.getWidth() / 2,
-            bounds2.getMinY() + bounds2.getHeight() / 2
-        );
-        Point2D direction = center2.subtract(center1).normalize();
-        
-        // 计算推挤强度（各推挤一半，使用平滑算法）
-        double overlapAmount = Math.max(overlapX, overlapY);
-        double pushStrength = (overlapAmount / 2.0 + COLLISION_PRECISION) * pushForceMultiplier;
-        
-        // 使用平方根函数让推挤更平滑
-        pushStrength = Math.sqrt(pushStrength) * 0.6;
-        
-        pushStrength = Math.max(pushStrength, MIN_PUSH_DISTANCE / 2.0); // 最小推挤强度
-        
-        // 应用速度推挤
-        applyVelocityPush(entity1, direction.multiply(-1), pushStrength);
-        applyVelocityPush(entity2, direction, pushStrength);
+    private void relaxPair(int a, int b, double relaxation) {
+        double dx = posX[b] - posX[a];
+        double dy = posY[b] - posY[a];
+        double overlapX = halfWidths[a] + halfWidths[b] - Math.abs(dx);
+        if (overlapX <= COLLISION_PRECISION) return;
+        double overlapY = halfHeights[a] + halfHeights[b] - Math.abs(dy);
+        if (overlapY <= COLLISION_PRECISION) return;
+
+        double shareA;
+        double shareB;
+        if (bodyPriorities[a] > bodyPriorities[b]) {
+            shareA = PUSHER_SHARE;
+            shareB = 1.0 - PUSHER_SHARE;
+        } else if (bodyPriorities[b] > bodyPriorities[a]) {
+            shareA = 1.0 - PUSHER_SHARE;
+            shareB = PUSHER_SHARE;
+        } else {
+            shareA = 0.5;
+            shareB = 0.5;
+        }
+
+        if (overlapX < overlapY) {
+            double correction = (overlapX - COLLISION_PRECISION) * relaxation;
+            // 中心重合时按实体ID决定方向，保证结果确定
+            double sign = dx > 0 || (dx == 0 && bodyIds[a] < bodyIds[b]) ? 1.0 : -1.0;
+            posX[a] -= sign * correction * shareA;
+            posX[b] += sign * correction * shareB;
+        } else {
+            double correction = (overlapY - COLLISION_PRECISION) * relaxation;
+            double sign = dy > 0 || (dy == 0 && bodyIds[a] < bodyIds[b]) ? 1.0 : -1.0;
+            posY[a] -= sign * correction * shareA;
+            posY[b] += sign * correction * shareB;
+        }
     }
-    
+
     /**
-     * 检查两个实体是否发生碰撞
-     * @param entity1 实体1
-     * @param entity2 实体2
-     * @return 是否发生碰撞
+     * 写回位移：先沿地图扫掠裁剪（撞墙时停在墙前），有物理组件且启用速度推挤时转换为速度，否则直接平移
+     * @return 实际移动的实体数量
      */
-    public boolean checkCollision(Entity entity1, Entity entity2) {
-        if (entity1 == null || entity2 == null) return false;
-        
-        Rectangle2D bounds1 = getEntityBounds(entity1);
-        Rectangle2D bounds2 = getEntityBounds(entity2);
-        
-        return bounds1.intersects(bounds2);
+    private int writeBack() {
+        boolean velocityPush = com.roguelike.core.GameApp.COLLISION_VELOCITY_PUSH_ENABLED;
+        boolean positionPush = com.roguelike.core.GameApp.COLLISION_POSITION_PUSH_ENABLED;
+        int moved = 0;
+        lastClippedBodies = 0;
+
+        for (int i = 0; i < bodyCount; i++) {
+            double moveX = posX[i] - startX[i];
+            double moveY = posY[i] - startY[i];
+            double distanceSq = moveX * moveX + moveY * moveY;
+            if (distanceSq < MIN_PUSH_DISTANCE * MIN_PUSH_DISTANCE * 0.25) {
+                continue;
+            }
+            if (distanceSq > MAX_SEPARATION_DISTANCE * MAX_SEPARATION_DISTANCE) {
+                double scale = MAX_SEPARATION_DISTANCE / Math.sqrt(distanceSq);
+                moveX *= scale;
+                moveY *= scale;
+            }
+
+            Entity entity = bodies[i];
+            if (mapCollisionDetector != null) {
+                double distance = Math.sqrt(moveX * moveX + moveY * moveY);
+                mapCollisionDetector.sweep(entity, moveX, moveY, distance, sweepHit);
+                if (sweepHit.isHit()) {
+                    lastClippedBodies++;
+                    double allowed = sweepHit.getDistance();
+                    if (allowed < MIN_PUSH_DISTANCE * 0.5) {
+                        continue;
+                    }
+                    moveX *= allowed / distance;
+                    moveY *= allowed / distance;
+                }
+            }
+
+            if (velocityPush && entity.hasComponent(PhysicsComponent.class)) {
+                applyVelocityPush(entity.getComponent(PhysicsComponent.class), moveX, moveY);
+                moved++;
+                continue;
+            }
+            if (positionPush) {
+                entity.translate(moveX, moveY);
+                moved++;
+            }
+        }
+        return moved;
     }
-    
+
     /**
      * 应用速度推挤
-     * @param entity 目标实体
-     * @param direction 推挤方向
-     * @param pushStrength 推挤强度
      */
-    private void applyVelocityPush(Entity entity, Point2D direction, double pushStrength) {
-        if (entity == null || direction == null) return;
-        
-        // 检查推挤冷却（使用实体位置作为唯一标识）
-        String entityId = String.format("%.1f,%.1f", entity.getX(), entity.getY());
-        long currentTime = System.currentTimeMillis();
-        Long lastPushTime = pushCooldowns.get(entityId);
-        
-        if (lastPushTime != null && (currentTime - lastPushTime) < PUSH_COOLDOWN_MS) {
-            return; // 还在冷却中，跳过此次推挤
+    private void applyVelocityPush(PhysicsComponent physics, double moveX, double moveY) {
+        // 累加到现有速度
+        physics.setVelocityX(physics.getVelocityX() + moveX * VELOCITY_PUSH_FORCE);
+        physics.setVelocityY(physics.getVelocityY() + moveY * VELOCITY_PUSH_FORCE);
+
+        // 限制总速度
+        double totalVelocity = Math.sqrt(physics.getVelocityX() * physics.getVelocityX() +
+                                       physics.getVelocityY() * physics.getVelocityY());
+        if (totalVelocity > MAX_VELOCITY) {
+            double scale = MAX_VELOCITY / totalVelocity;
+            physics.setVelocityX(physics.getVelocityX() * scale);
+            physics.setVelocityY(physics.getVelocityY() * scale);
         }
-        
-        // 记录推挤时间
-        pushCooldowns.put(entityId, currentTime);
-        
-        // 计算推挤距离（基于推挤强度，使用更平滑的算法）
-        double pushDistance = pushStrength * pushForceMultiplier * POSITION_PUSH_FACTOR;
-        
-        // 使用平方根函数让推挤更平滑，避免突然的大幅度移动
-        pushDistance = Math.sqrt(pushDistance) * 0.8;
-        
-        pushDistance = Math.min(pushDistance, 2.0); // 限制最大推挤距离
-        pushDistance = Math.max(pushDistance, MIN_PUSH_DISTANCE); // 最小推挤距离
-        
-        // 计算移动向量
-        double moveX = direction.getX() * pushDistance;
-        double moveY = direction.getY() * pushDistance;
-        
-        // 检查是否启用速度推挤
-        if (com.roguelike.core.GameApp.COLLISION_VELOCITY_PUSH_ENABLED) {
-            // 尝试获取物理组件
-            try {
-                PhysicsComponent physics = entity.getComponent(PhysicsComponent.class);
-                if (physics != null) {
-                    // 如果有物理组件，使用速度推挤
-                    double pushVelocity = pushDistance * VELOCITY_PUSH_FORCE;
-                    double velocityX = direction.getX() * pushVelocity;
-                    double velocityY = direction.getY() * pushVelocity;
-                    
-                    // 累加到现有速度
-                    physics.setVelocityX(physics.getVelocityX() + velocityX);
-                    physics.setVelocityY(physics.getVelocityY() + velocityY);
-                    
-                    // 限制总速度
-                    double totalVelocity = Math.sqrt(physics.getVelocityX() * physics.getVelocityX() + 
-                                                   physics.getVelocityY() * physics.getVelocityY());
-                    if (totalVelocity > MAX_VELOCITY) {
-                        double scale = MAX_VELOCITY / totalVelocity;
-                        physics.setVelocityX(physics.getVelocityX() * scale);
-                        physics.setVelocityY(physics.getVelocityY() * scale);
-                    }
-                    return;
-                }
-            } catch (Exception e) {
-                // 如果获取物理组件失败，继续使用位置推挤
+    }
+
+    /**
+     * 获取实体在批次中的下标，不存在则读入当前位置并加入
+     */
+    private int bodyIndexOf(Entity entity, CollisionBoxLevel level) {
+        int id = CooldownStore.idOf(entity);
+        int mask = slotIds.length - 1;
+        int slot = mixId(id) & mask;
+        while (slotStamps[slot] == batchStamp) {
+            if (slotIds[slot] == id) {
+                return slotBodies[slot];
             }
+            slot = (slot + 1) & mask;
         }
-        
-        // 如果启用位置推挤，使用直接位置变化
-        if (com.roguelike.core.GameApp.COLLISION_POSITION_PUSH_ENABLED) {
-            entity.translate(moveX, moveY);
+
+        if ((bodyCount + 1) * 2 > slotIds.length) {
+            growSlots();
+            return bodyIndexOf(entity, level);
+        }
+        if (bodyCount == bodies.length) {
+            growBodies();
         }
+
+        int index = bodyCount++;
+        bodies[index] = entity;
+        bodyIds[index] = id;
+        bodyPriorities[index] = level.getPriority();
+        posX[index] = startX[index] = SpatialPartitionSystem.centerX(entity);
+        posY[index] = startY[index] = SpatialPartitionSystem.centerY(entity);
+        halfWidths[index] = SpatialPartitionSystem.halfWidth(entity);
+        halfHeights[index] = SpatialPartitionSystem.halfHeight(entity);
+
+        slotStamps[slot] = batchStamp;
+        slotIds[slot] = id;
+        slotBodies[slot] = index;
+        return index;
     }
-    
+
+    private static int mixId(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void growSlots() {
+        int capacity = slotIds.length * 2;
+        slotIds = new int[capacity];
+        slotBodies = new int[capacity];
+        slotStamps = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < bodyCount; i++) {
+            int slot = mixId(bodyIds[i]) & mask;
+            while (slotStamps[slot] == batchStamp) {
+                slot = (slot + 1) & mask;
+            }
+            slotStamps[slot] = batchStamp;
+            slotIds[slot] = bodyIds[i];
+            slotBodies[slot] = i;
+        }
+    }
+
+    private void growBodies() {
+        int capacity = bodies.length * 2;
+        bodies = java.util.Arrays.copyOf(bodies, capacity);
+        bodyIds = java.util.Arrays.copyOf(bodyIds, capacity);
+        bodyPriorities = java.util.Arrays.copyOf(bodyPriorities, capacity);
+        posX = java.util.Arrays.copyOf(posX, capacity);
+        posY = java.util.Arrays.copyOf(posY, capacity);
+        startX = java.util.Arrays.copyOf(startX, capacity);
+        startY = java.util.Arrays.copyOf(startY, capacity);
+        halfWidths = java.util.Arrays.copyOf(halfWidths, capacity);
+        halfHeights = java.util.Arrays.copyOf(halfHeights, capacity);
+    }
+
     /**
-     * 获取实体的边界框
-     * @param entity 实体
-     * @return 边界框
+     * 检查两个实体是否发生碰撞
+     * @param entity1 实体1
+     * @param entity2 实体2
+     * @return 是否发生碰撞
      */
-    private Rectangle2D getEntityBounds(Entity entity) {
-        if (entity.getBoundingBoxComponent() != null) {
-            return new Rectangle2D(
-                entity.getX() + entity.getBoundingBoxComponent().getMinXLocal(),
-                entity.getY() + entity.getBoundingBoxComponent().getMinYLocal(),
-                entity.getBoundingBoxComponent().getWidth(),
-                entity.getBoundingBoxComponent().getHeight()
-            );
-        } else {
-            return new Rectangle2D(entity.getX(), entity.getY(), entity.getWidth(), entity.getHeight());
-        }
+    public boolean checkCollision(Entity entity1, Entity entity2) {
+        if (entity1 == null || entity2 == null) return false;
+
+        double dx = Math.abs(SpatialPartitionSystem.centerX(entity1) - SpatialPartitionSystem.centerX(entity2));
+        double dy = Math.abs(SpatialPartitionSystem.centerY(entity1) - SpatialPartitionSystem.centerY(entity2));
+        return dx < SpatialPartitionSystem.halfWidth(entity1) + SpatialPartitionSystem.halfWidth(entity2)
+            && dy < SpatialPartitionSystem.halfHeight(entity1) + SpatialPartitionSystem.halfHeight(entity2);
     }
-    
-    
+
+
     /**
      * 设置推挤力度系数
      * @param multiplier 力度系数 (0.1-2.0)
@@ -308,8 +360,8 @@ public class RigidCollisionSystem {
         this.pushForceMultiplier = Math.max(0.1, Math.min(2.0, multiplier));
         System.out.println("⚡ 推挤力度系数设置为: " + this.pushForceMultiplier);
     }
-    
-    
+
+
     /**
      * 获取当前推挤力度系数
      * @return 力度系数
@@ -317,7 +369,7 @@ public class RigidCollisionSystem {
     public double getPushForceMultiplier() {
         return pushForceMultiplier;
     }
-    
+
     /**
      * 获取系统配置信息
      * @return 配置信息字符串
@@ -329,8 +381,12 @@ public class RigidCollisionSystem {
                            "  - 推挤力度系数: %.2f\n" +
                            "  - 速度推挤力度: %.1f\n" +
                            "  - 最大速度限制: %.1f\n" +
-                           "  - 位置推挤系数: %.2f",
-                           COLLISION_PRECISION, MAX_SEPARATION_DISTANCE, pushForceMultiplier, 
-                           VELOCITY_PUSH_FORCE, MAX_VELOCITY, POSITION_PUSH_FACTOR);
+                           "  - 位置推挤系数: %.2f\n" +
+                           "  - 迭代次数: %d\n" +
+                           "  - 上次求解 实体/重叠对/移动: %d / %d / %d (%.3fms), 地图裁剪 %d",
+                           COLLISION_PRECISION, MAX_SEPARATION_DISTANCE, pushForceMultiplier,
+                           VELOCITY_PUSH_FORCE, MAX_VELOCITY, POSITION_PUSH_FACTOR,
+                           SOLVER_ITERATIONS, lastBodyCount, lastPairCount, lastMovedBodies,
+                           lastSolveNanos / 1_000_000.0, lastClippedBodies);
     }
 }
@@ -1,75 +1,445 @@
 package com.roguelike.physics;
 
 import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.components.BoundingBoxComponent;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 
-import java.util.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
 
 /**
  * 空间分割系统
- * 使用网格分割来优化碰撞检测性能
+ * 使用分层网格分割来优化碰撞检测性能
+ *
+ * 网格分为若干层级（边长由细到粗），每个实体按中心插入到能容纳其碰撞箱的最细层级的一个网格中：
+ * 子弹落在细网格里，不会与大量实体挤在同一个桶内；Boss 等大型实体落在粗网格里，
+ * 查询时也只需在该层级多看一圈，而不是让所有层级都按最大实体的尺寸扩大搜索范围。
+ *
+ * 每个层级的网格键为打包的 long（高32位为网格X，低32位为网格Y），存放在各自的开放寻址哈希表中；
+ * 网格桶与实体记录均来自对象池，实体按帧增量移动/插入/移除，稳定状态下不产生垃圾。
+ * 作为宽相位使用时，候选对按非空网格桶划分工作单元，跨层级的对由较细层级的网格负责。
  */
-public class SpatialPartitionSystem {
-    
-    // 网格大小（可配置）
+public class SpatialPartitionSystem implements BroadPhase {
+
+    // 基准网格大小（静态坐标换算、调试网格与逐步扩展查询的步长）
     private static final int GRID_SIZE = 100;
-    
-    // 空间网格存储
-    private Map<String, List<Entity>> spatialGrid = new HashMap<>();
-    
+
+    // 各层级网格边长（由细到粗）；碰撞箱较长边不超过边长的实体插入该层级，超出最粗层级的仍放在最粗层级
+    private static final int[] LEVEL_CELL_SIZES = {25, 50, 100, 200, 400, 800};
+
+    // 哈希表初始容量（必须为2的幂）与最大装载率
+    private static final int INITIAL_TABLE_CAPACITY = 256;
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    private final Level[] levels = new Level[LEVEL_CELL_SIZES.length];
+
+    // 网格桶与实体记录对象池
+    private final ArrayDeque<Cell> cellPool = new ArrayDeque<>();
+    private final ArrayDeque<EntityRecord> recordPool = new ArrayDeque<>();
+
+    // 实体 -> 记录（按引用比较，不依赖 equals/hashCode）
+    private final IdentityHashMap<Entity, EntityRecord> records = new IdentityHashMap<>();
+    private EntityRecord[] activeRecords = new EntityRecord[64];
+    private int activeRecordCount = 0;
+
+    // 增量更新批次戳：一个批次内未被 updateEntity 触及的实体视为已离开世界
+    private int updateStamp = 0;
+
+    // 本批次结束时的非空网格桶快照（候选对工作单元）
+    private Cell[] cellSnapshot = new Cell[64];
+    private int cellSnapshotCount = 0;
+
     // 调试模式
     private boolean debugMode = false;
     private List<Rectangle> debugGrid = new ArrayList<>();
-    
+
+    /**
+     * 实体访问器（查询时逐个回调，不分配结果列表）
+     */
+    @FunctionalInterface
+    public interface EntityVisitor {
+        void visit(Entity entity);
+    }
+
+    public SpatialPartitionSystem() {
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new Level(i, LEVEL_CELL_SIZES[i]);
+        }
+    }
+
+    @Override
+    public Type getType() {
+        return Type.GRID;
+    }
+
     /**
-     * 更新实体在空间网格中的位置
+     * 开始一轮增量更新
      */
+    @Override
+    public void beginUpdate() {
+        updateStamp++;
+        for (Level level : levels) {
+            level.maxHalfWidth = 0;
+            level.maxHalfHeight = 0;
+        }
+    }
+
+    /**
+     * 结束一轮增量更新，移除本轮未更新的实体
+     */
+    @Override
+    public void endUpdate() {
+        for (int i = activeRecordCount - 1; i >= 0; i--) {
+            EntityRecord record = activeRecords[i];
+            if (record.stamp != updateStamp) {
+                removeRecord(record);
+            }
+        }
+        snapshotCells();
+    }
+
+    /**
+     * 更新实体在空间网格中的位置（不存在则插入，跨网格或跨层级则移动）
+     */
+    @Override
     public void updateEntity(Entity entity) {
         if (entity == null) return;
-        
-        String gridKey = getGridKey(entity.getX(), entity.getY());
-        spatialGrid.computeIfAbsent(gridKey, k -> new ArrayList<>()).add(entity);
+
+        EntityRecord record = records.get(entity);
+        if (record == null) {
+            record = obtainRecord(entity);
+            records.put(entity, record);
+            addActiveRecord(record);
+        }
+        record.stamp = updateStamp;
+        record.capture(entity);
+
+        Level level = levels[levelFor(record.halfWidth, record.halfHeight)];
+        if (record.halfWidth > level.maxHalfWidth) level.maxHalfWidth = record.halfWidth;
+        if (record.halfHeight > level.maxHalfHeight) level.maxHalfHeight = record.halfHeight;
+
+        int gridX = level.toGrid(record.centerX);
+        int gridY = level.toGrid(record.centerY);
+        Cell current = record.cell;
+        if (current != null && current.level == level && current.gridX == gridX && current.gridY == gridY) {
+            return; // 仍在同一网格内
+        }
+        if (current != null) {
+            detachFromCell(record);
+        }
+        attachToCell(record, level, gridX, gridY);
     }
-    
+
     /**
-     * 获取指定实体附近的实体列表
-     * @param entity 中心实体
-     * @param radius 搜索半径
-     * @return 附近的实体列表
+     * 从空间网格中移除实体
      */
-    public List<Entity> getNearbyEntities(Entity entity, double radius) {
-        if (entity == null) return new ArrayList<>();
-        
-        List<Entity> nearby = new ArrayList<>();
-        int gridRadius = (int) Math.ceil(radius / GRID_SIZE);
-        
-        // 获取中心网格坐标
-        int centerGridX = (int) (entity.getX() / GRID_SIZE);
-        int centerGridY = (int) (entity.getY() / GRID_SIZE);
-        
-        // 搜索周围网格
-        for (int x = centerGridX - gridRadius; x <= centerGridX + gridRadius; x++) {
-            for (int y = centerGridY - gridRadius; y <= centerGridY + gridRadius; y++) {
-                String key = x + "," + y;
-                List<Entity> entities = spatialGrid.get(key);
-                if (entities != null) {
-                    // 过滤掉自身，并检查实际距离
-                    for (Entity nearbyEntity : entities) {
-                        if (!nearbyEntity.equals(entity)) {
-                            double distance = entity.getCenter().distance(nearbyEntity.getCenter());
-                            if (distance <= radius) {
-                                nearby.add(nearbyEntity);
+    @Override
+    public void removeEntity(Entity entity) {
+        if (entity == null) return;
+        EntityRecord record = records.get(entity);
+        if (record != null) {
+            removeRecord(record);
+            snapshotCells(); // 网格桶可能已归还对象池
+        }
+    }
+
+    /**
+     * 遍历指定位置半径内的实体（按中心距离判定）
+     */
+    public void forEachNearby(double x, double y, double radius, EntityVisitor visitor) {
+        forEachNearby(x, y, radius, null, visitor);
+    }
+
+    /**
+     * 遍历指定实体半径内的其他实体（按中心距离判定）
+     */
+    public void forEachNearby(Entity entity, double radius, EntityVisitor visitor) {
+        if (entity == null) return;
+        forEachNearby(centerX(entity), centerY(entity), radius, entity, visitor);
+    }
+
+    private void forEachNearby(double x, double y, double radius, Entity exclude, EntityVisitor visitor) {
+        double radiusSq = radius * radius;
+        for (Level level : levels) {
+            if (level.recordCount == 0) continue;
+            int minGridX = level.toGrid(x - radius);
+            int maxGridX = level.toGrid(x + radius);
+            int minGridY = level.toGrid(y - radius);
+            int maxGridY = level.toGrid(y + radius);
+
+            for (int gridX = minGridX; gridX <= maxGridX; gridX++) {
+                for (int gridY = minGridY; gridY <= maxGridY; gridY++) {
+                    Cell cell = level.find(gridX, gridY);
+                    if (cell == null) continue;
+                    for (int i = 0; i < cell.size; i++) {
+                        EntityRecord record = cell.members[i];
+                        if (record.entity == exclude) continue;
+                        double dx = record.centerX - x;
+                        double dy = record.centerY - y;
+                        if (dx * dx + dy * dy <= radiusSq) {
+                            visitor.visit(record.entity);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 遍历基准网格矩形范围内（按实体中心判定）的所有实体（不做距离过滤）
+     */
+    public void forEachInGridRange(int minGridX, int minGridY, int maxGridX, int maxGridY, EntityVisitor visitor) {
+        double minX = gridToWorld(minGridX);
+        double minY = gridToWorld(minGridY);
+        double maxX = gridToWorld(maxGridX + 1);
+        double maxY = gridToWorld(maxGridY + 1);
+
+        for (Level level : levels) {
+            if (level.recordCount == 0) continue;
+            int levelMinX = level.toGrid(minX);
+            int levelMaxX = level.toGrid(maxX - 1e-9);
+            int levelMinY = level.toGrid(minY);
+            int levelMaxY = level.toGrid(maxY - 1e-9);
+            for (int gridX = levelMinX; gridX <= levelMaxX; gridX++) {
+                for (int gridY = levelMinY; gridY <= levelMaxY; gridY++) {
+                    Cell cell = level.find(gridX, gridY);
+                    if (cell == null) continue;
+                    for (int i = 0; i < cell.size; i++) {
+                        EntityRecord record = cell.members[i];
+                        if (record.centerX < minX || record.centerX >= maxX) continue;
+                        if (record.centerY < minY || record.centerY >= maxY) continue;
+                        visitor.visit(record.entity);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 收集缓存碰撞箱与指定矩形重叠（含边界相接）的实体，追加到 out
+     * @return 检查过的实体数量
+     */
+    public int collectInBox(double minX, double minY, double maxX, double maxY, List<Entity> out) {
+        int examined = 0;
+        for (Level level : levels) {
+            if (level.recordCount == 0) continue;
+            int minGridX = level.toGrid(minX - level.maxHalfWidth);
+            int maxGridX = level.toGrid(maxX + level.maxHalfWidth);
+            int minGridY = level.toGrid(minY - level.maxHalfHeight);
+            int maxGridY = level.toGrid(maxY + level.maxHalfHeight);
+
+            for (int gridX = minGridX; gridX <= maxGridX; gridX++) {
+                for (int gridY = minGridY; gridY <= maxGridY; gridY++) {
+                    Cell cell = level.find(gridX, gridY);
+                    if (cell == null) continue;
+                    for (int i = 0; i < cell.size; i++) {
+                        EntityRecord record = cell.members[i];
+                        examined++;
+                        if (record.centerX + record.halfWidth < minX || record.centerX - record.halfWidth > maxX) continue;
+                        if (record.centerY + record.halfHeight < minY || record.centerY - record.halfHeight > maxY) continue;
+                        out.add(record.entity);
+                    }
+                }
+            }
+        }
+        return examined;
+    }
+
+    /**
+     * 由内向外逐步收集 (x, y) 周围的实体，追加到 out（最近邻查询）
+     * 第 step 步（从0开始）只追加之前各步没有收集过的实体；完成第 step 步后，
+     * 尚未收集的实体的索引中心与 (x, y) 在 X 或 Y 方向上的距离不小于 step * getGridSize()。
+     * 每个层级按自己的边长换算需要覆盖的网格圈数，细层级一步可能扫过多圈，粗层级可能多步才扫一圈。
+     * @return 检查过的实体数量
+     */
+    public int collectRing(double x, double y, int step, List<Entity> out) {
+        if (step < 0) return 0;
+        int examined = 0;
+        for (Level level : levels) {
+            if (level.recordCount == 0) continue;
+            int centerGridX = level.toGrid(x);
+            int centerGridY = level.toGrid(y);
+            int fromRing = step == 0 ? 0 : level.ringsFor(step - 1) + 1;
+            int toRing = level.ringsFor(step);
+            for (int ring = fromRing; ring <= toRing; ring++) {
+                examined += collectLevelRing(level, centerGridX, centerGridY, ring, out);
+            }
+        }
+        return examined;
+    }
+
+    /**
+     * 收集一个层级中以 (centerGridX, centerGridY) 为中心、切比雪夫距离恰为 ring 的一圈网格中的实体
+     */
+    private static int collectLevelRing(Level level, int centerGridX, int centerGridY, int ring, List<Entity> out) {
+        if (ring == 0) {
+            return appendCell(level.find(centerGridX, centerGridY), out);
+        }
+        int examined = 0;
+        int minGridX = centerGridX - ring;
+        int maxGridX = centerGridX + ring;
+        // 上下两行（含角）
+        for (int gridX = minGridX; gridX <= maxGridX; gridX++) {
+            examined += appendCell(level.find(gridX, centerGridY - ring), out);
+            examined += appendCell(level.find(gridX, centerGridY + ring), out);
+        }
+        // 左右两列（不含角）
+        for (int gridY = centerGridY - ring + 1; gridY <= centerGridY + ring - 1; gridY++) {
+            examined += appendCell(level.find(minGridX, gridY), out);
+            examined += appendCell(level.find(maxGridX, gridY), out);
+        }
+        return examined;
+    }
+
+    private static int appendCell(Cell cell, List<Entity> out) {
+        if (cell == null) return 0;
+        for (int i = 0; i < cell.size; i++) {
+            out.add(cell.members[i].entity);
+        }
+        return cell.size;
+    }
+
+    /**
+     * 遍历可能与指定代理碰撞箱重叠的其他代理（宽相位候选，不做几何判定）
+     * 实体按中心入格，每个层级的搜索范围为扫掠包围盒向外扩展该层级本批次的最大半尺寸
+     */
+    @Override
+    public void forEachCandidate(CollisionProxy proxy, ProxyVisitor visitor) {
+        if (proxy == null) return;
+        for (Level level : levels) {
+            if (level.recordCount == 0) continue;
+            int minGridX = level.toGrid(proxy.sweptMinX() - level.maxHalfWidth);
+            int maxGridX = level.toGrid(proxy.sweptMaxX() + level.maxHalfWidth);
+            int minGridY = level.toGrid(proxy.sweptMinY() - level.maxHalfHeight);
+            int maxGridY = level.toGrid(proxy.sweptMaxY() + level.maxHalfHeight);
+
+            for (int gridX = minGridX; gridX <= maxGridX; gridX++) {
+                for (int gridY = minGridY; gridY <= maxGridY; gridY++) {
+                    Cell cell = level.find(gridX, gridY);
+                    if (cell == null) continue;
+                    for (int i = 0; i < cell.size; i++) {
+                        EntityRecord other = cell.members[i];
+                        if (other != proxy && proxy.accepts(other)) {
+                            visitor.visit(other);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getPairUnitCount() {
+        return cellSnapshotCount;
+    }
+
+    /**
+     * 遍历一个网格桶产生的候选对
+     * 同一网格内取 i < j，同层级跨网格只访问"正向"偏移的邻居网格；
+     * 与更粗层级的对由本网格负责，并先用缓存碰撞箱剔除明显分离的对，保证每对只出现一次
+     */
+    @Override
+    public void forEachCandidatePairInUnit(int unit, ProxyPairVisitor visitor) {
+        Cell cell = cellSnapshot[unit];
+        Level level = cell.level;
+        int ringX = Math.max(1, (int) Math.ceil(2 * level.maxHalfWidth / level.cellSize));
+        int ringY = Math.max(1, (int) Math.ceil(2 * level.maxHalfHeight / level.cellSize));
+
+        // 网格内部
+        for (int i = 0; i < cell.size; i++) {
+            EntityRecord first = cell.members[i];
+            for (int j = i + 1; j < cell.size; j++) {
+                if (first.accepts(cell.members[j])) {
+                    visitor.visit(first, cell.members[j]);
+                }
+            }
+        }
+
+        // 正向邻居：dy > 0，或 dy == 0 且 dx > 0
+        for (int dy = 0; dy <= ringY; dy++) {
+            for (int dx = -ringX; dx <= ringX; dx++) {
+                if (dy == 0 && dx <= 0) continue;
+                Cell neighbour = level.find(cell.gridX + dx, cell.gridY + dy);
+                if (neighbour == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    EntityRecord first = cell.members[i];
+                    for (int j = 0; j < neighbour.size; j++) {
+                        if (first.accepts(neighbour.members[j])) {
+                            visitor.visit(first, neighbour.members[j]);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 更粗的层级：本网格成员碰撞箱的并集向外扩展粗层级的最大半尺寸
+        double cellMinX = (double) cell.gridX * level.cellSize - level.maxHalfWidth;
+        double cellMaxX = (double) (cell.gridX + 1) * level.cellSize + level.maxHalfWidth;
+        double cellMinY = (double) cell.gridY * level.cellSize - level.maxHalfHeight;
+        double cellMaxY = (double) (cell.gridY + 1) * level.cellSize + level.maxHalfHeight;
+        for (int l = level.index + 1; l < levels.length; l++) {
+            Level coarse = levels[l];
+            if (coarse.recordCount == 0) continue;
+            int minGridX = coarse.toGrid(cellMinX - coarse.maxHalfWidth);
+            int maxGridX = coarse.toGrid(cellMaxX + coarse.maxHalfWidth);
+            int minGridY = coarse.toGrid(cellMinY - coarse.maxHalfHeight);
+            int maxGridY = coarse.toGrid(cellMaxY + coarse.maxHalfHeight);
+            for (int gridX = minGridX; gridX <= maxGridX; gridX++) {
+                for (int gridY = minGridY; gridY <= maxGridY; gridY++) {
+                    Cell other = coarse.find(gridX, gridY);
+                    if (other == null) continue;
+                    for (int i = 0; i < cell.size; i++) {
+                        EntityRecord first = cell.members[i];
+                        for (int j = 0; j < other.size; j++) {
+                            EntityRecord second = other.members[j];
+                            if (first.accepts(second) && boxesTouch(first, second)) {
+                                visitor.visit(first, second);
                             }
                         }
                     }
                 }
             }
         }
-        
+    }
+
+    /**
+     * 两个代理的缓存碰撞箱是否重叠（含边界相接）
+     */
+    private static boolean boxesTouch(CollisionProxy a, CollisionProxy b) {
+        return Math.abs(a.centerX - b.centerX) <= a.halfWidth + b.halfWidth
+            && Math.abs(a.centerY - b.centerY) <= a.halfHeight + b.halfHeight;
+    }
+
+    @Override
+    public int getProxyCount() {
+        return activeRecordCount;
+    }
+
+    @Override
+    public CollisionProxy getProxy(int index) {
+        return activeRecords[index];
+    }
+
+    @Override
+    public CollisionProxy proxyOf(Entity entity) {
+        return records.get(entity);
+    }
+
+    /**
+     * 获取指定实体附近的实体列表
+     * @param entity 中心实体
+     * @param radius 搜索半径
+     * @return 附近的实体列表
+     */
+    public List<Entity> getNearbyEntities(Entity entity, double radius) {
+        List<Entity> nearby = new ArrayList<>();
+        forEachNearby(entity, radius, nearby::add);
         return nearby;
     }
-    
+
     /**
      * 获取指定位置附近的实体列表
      * @param x 中心X坐标
@@ -79,34 +449,10 @@ public class SpatialPartitionSystem {
      */
     public List<Entity> getNearbyEntities(double x, double y, double radius) {
         List<Entity> nearby = new ArrayList<>();
-        int gridRadius = (int) Math.ceil(radius / GRID_SIZE);
-        
-        // 获取中心网格坐标
-        int centerGridX = (int) (x / GRID_SIZE);
-        int centerGridY = (int) (y / GRID_SIZE);
-        
-        // 搜索周围网格
-        for (int gridX = centerGridX - gridRadius; gridX <= centerGridX + gridRadius; gridX++) {
-            for (int gridY = centerGridY - gridRadius; gridY <= centerGridY + gridRadius; gridY++) {
-                String key = gridX + "," + gridY;
-                List<Entity> entities = spatialGrid.get(key);
-                if (entities != null) {
-                    // 检查实际距离
-                    for (Entity entity : entities) {
-                        double distance = Math.sqrt(
-                            Math.pow(entity.getX() - x, 2) + Math.pow(entity.getY() - y, 2)
-                        );
-                        if (distance <= radius) {
-                            nearby.add(entity);
-                        }
-                    }
-                }
-            }
-        }
-        
+        forEachNearby(x, y, radius, nearby::add);
         return nearby;
     }
-    
+
     /**
      * 获取指定网格中的所有实体
      * @param gridX 网格X坐标
@@ -114,11 +460,11 @@ public class SpatialPartitionSystem {
      * @return 该网格中的实体列表
      */
     public List<Entity> getEntitiesInGrid(int gridX, int gridY) {
-        String key = gridX + "," + gridY;
-        List<Entity> entities = spatialGrid.get(key);
-        return entities != null ? new ArrayList<>(entities) : new ArrayList<>();
+        List<Entity> entities = new ArrayList<>();
+        forEachInGridRange(gridX, gridY, gridX, gridY, entities::add);
+        return entities;
     }
-    
+
     /**
      * 获取指定网格中的所有实体
      * @param worldX 世界X坐标
@@ -126,48 +472,191 @@ public class SpatialPartitionSystem {
      * @return 该网格中的实体列表
      */
     public List<Entity> getEntitiesInGrid(double worldX, double worldY) {
-        int gridX = (int) (worldX / GRID_SIZE);
-        int gridY = (int) (worldY / GRID_SIZE);
-        return getEntitiesInGrid(gridX, gridY);
+        return getEntitiesInGrid(worldToGrid(worldX), worldToGrid(worldY));
     }
-    
+
     /**
-     * 清除所有空间网格数据
+     * 清除所有空间网格数据（网格桶与记录归还对象池）
      */
+    @Override
     public void clear() {
-        spatialGrid.clear();
+        for (int i = activeRecordCount - 1; i >= 0; i--) {
+            removeRecord(activeRecords[i]);
+        }
+        cellSnapshotCount = 0;
     }
-    
+
     /**
-     * 获取网格大小
+     * 获取网格大小（基准层级）
      */
     public static int getGridSize() {
         return GRID_SIZE;
     }
-    
+
     /**
-     * 将世界坐标转换为网格坐标
+     * 将世界坐标转换为基准网格坐标（向下取整，负坐标同样正确）
      */
     public static int worldToGrid(double worldCoord) {
-        return (int) (worldCoord / GRID_SIZE);
+        return (int) Math.floor(worldCoord / GRID_SIZE);
     }
-    
+
     /**
-     * 将网格坐标转换为世界坐标
+     * 将基准网格坐标转换为世界坐标
      */
     public static double gridToWorld(int gridCoord) {
-        return gridCoord * GRID_SIZE;
+        return (double) gridCoord * GRID_SIZE;
+    }
+
+    /**
+     * 打包网格键值
+     */
+    static long packKey(int gridX, int gridY) {
+        return ((long) gridX << 32) | (gridY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 计算实体碰撞箱中心X
+     */
+    public static double centerX(Entity entity) {
+        BoundingBoxComponent box = entity.getBoundingBoxComponent();
+        if (box != null) {
+            return entity.getX() + box.getMinXLocal() + box.getWidth() / 2.0;
+        }
+        return entity.getX() + entity.getWidth() / 2.0;
+    }
+
+    /**
+     * 计算实体碰撞箱中心Y
+     */
+    public static double centerY(Entity entity) {
+        BoundingBoxComponent box = entity.getBoundingBoxComponent();
+        if (box != null) {
+            return entity.getY() + box.getMinYLocal() + box.getHeight() / 2.0;
+        }
+        return entity.getY() + entity.getHeight() / 2.0;
+    }
+
+    /**
+     * 计算实体碰撞箱半宽
+     */
+    static double halfWidth(Entity entity) {
+        BoundingBoxComponent box = entity.getBoundingBoxComponent();
+        return (box != null ? box.getWidth() : entity.getWidth()) / 2.0;
+    }
+
+    /**
+     * 计算实体碰撞箱半高
+     */
+    static double halfHeight(Entity entity) {
+        BoundingBoxComponent box = entity.getBoundingBoxComponent();
+        return (box != null ? box.getHeight() : entity.getHeight()) / 2.0;
+    }
+
+    /**
+     * 能容纳指定碰撞箱的最细层级
+     */
+    private static int levelFor(double halfWidth, double halfHeight) {
+        double extent = 2 * Math.max(halfWidth, halfHeight);
+        for (int i = 0; i < LEVEL_CELL_SIZES.length - 1; i++) {
+            if (extent <= LEVEL_CELL_SIZES[i]) {
+                return i;
+            }
+        }
+        return LEVEL_CELL_SIZES.length - 1;
+    }
+
+    // ---------------- 网格桶管理 ----------------
+
+    private void attachToCell(EntityRecord record, Level level, int gridX, int gridY) {
+        Cell cell = level.find(gridX, gridY);
+        if (cell == null) {
+            cell = cellPool.isEmpty() ? new Cell() : cellPool.pop();
+            cell.level = level;
+            cell.gridX = gridX;
+            cell.gridY = gridY;
+            level.insert(packKey(gridX, gridY), cell);
+        }
+        cell.add(record);
+        level.recordCount++;
+    }
+
+    private void detachFromCell(EntityRecord record) {
+        Cell cell = record.cell;
+        Level level = cell.level;
+        cell.remove(record);
+        level.recordCount--;
+        if (cell.size == 0) {
+            level.delete(packKey(cell.gridX, cell.gridY));
+            cell.level = null;
+            cellPool.push(cell);
+        }
+    }
+
+    private void removeRecord(EntityRecord record) {
+        if (record.cell != null) {
+            detachFromCell(record);
+        }
+        records.remove(record.entity);
+        removeActiveRecord(record);
+        record.reset();
+        recordPool.push(record);
+    }
+
+    private EntityRecord obtainRecord(Entity entity) {
+        EntityRecord record = recordPool.isEmpty() ? new EntityRecord() : recordPool.pop();
+        record.reset();
+        record.entity = entity;
+        record.cell = null;
+        record.indexInCell = -1;
+        return record;
+    }
+
+    private void addActiveRecord(EntityRecord record) {
+        if (activeRecordCount == activeRecords.length) {
+            EntityRecord[] grown = new EntityRecord[activeRecords.length * 2];
+            System.arraycopy(activeRecords, 0, grown, 0, activeRecordCount);
+            activeRecords = grown;
+        }
+        record.activeIndex = activeRecordCount;
+        activeRecords[activeRecordCount++] = record;
     }
-    
+
+    private void removeActiveRecord(EntityRecord record) {
+        int index = record.activeIndex;
+        int last = --activeRecordCount;
+        if (index != last) {
+            EntityRecord moved = activeRecords[last];
+            activeRecords[index] = moved;
+            moved.activeIndex = index;
+        }
+        activeRecords[last] = null;
+        record.activeIndex = -1;
+    }
+
     /**
-     * 生成网格键值
+     * 记录本批次所有层级的非空网格桶
      */
-    private String getGridKey(double x, double y) {
-        int gridX = (int) (x / GRID_SIZE);
-        int gridY = (int) (y / GRID_SIZE);
-        return gridX + "," + gridY;
+    private void snapshotCells() {
+        int occupied = 0;
+        for (Level level : levels) {
+            occupied += level.occupiedCells;
+        }
+        if (cellSnapshot.length < occupied) {
+            cellSnapshot = new Cell[occupied * 2];
+        }
+        int count = 0;
+        for (Level level : levels) {
+            Cell[] table = level.cellTable;
+            for (int slot = 0; slot < table.length; slot++) {
+                Cell cell = table[slot];
+                if (cell != null) {
+                    cellSnapshot[count++] = cell;
+                }
+            }
+        }
+        cellSnapshotCount = count;
     }
-    
+
     /**
      * 设置调试模式
      */
@@ -177,25 +666,25 @@ public class SpatialPartitionSystem {
             clearDebugGrid();
         }
     }
-    
+
     /**
      * 更新调试网格可视化
      */
     public void updateDebugGrid() {
         if (!debugMode) return;
-        
+
         clearDebugGrid();
-        
+
         // 获取当前视口范围
         double viewportWidth = 1280; // 假设视口宽度
         double viewportHeight = 720; // 假设视口高度
-        
+
         // 计算需要显示的网格范围
         int startGridX = 0;
         int startGridY = 0;
         int endGridX = (int) Math.ceil(viewportWidth / GRID_SIZE);
         int endGridY = (int) Math.ceil(viewportHeight / GRID_SIZE);
-        
+
         // 创建调试网格
         for (int x = startGridX; x <= endGridX; x++) {
             for (int y = startGridY; y <= endGridY; y++) {
@@ -210,37 +699,196 @@ public class SpatialPartitionSystem {
             }
         }
     }
-    
+
     /**
      * 清除调试网格
      */
     private void clearDebugGrid() {
         debugGrid.clear();
     }
-    
+
     /**
      * 获取调试网格
      */
     public List<Rectangle> getDebugGrid() {
         return debugGrid;
     }
-    
+
     /**
      * 获取调试信息
      */
+    @Override
     public String getDebugInfo() {
-        int totalEntities = spatialGrid.values().stream()
-            .mapToInt(List::size)
-            .sum();
-        
-        int occupiedGrids = spatialGrid.size();
-        
+        int totalEntities = activeRecordCount;
+        int occupiedGrids = 0;
+        StringBuilder perLevel = new StringBuilder();
+        for (Level level : levels) {
+            occupiedGrids += level.occupiedCells;
+            if (level.recordCount == 0) continue;
+            perLevel.append(String.format("\n    · %dpx: 实体 %d, 网格 %d, 平均 %.2f",
+                level.cellSize, level.recordCount, level.occupiedCells,
+                level.occupiedCells > 0 ? (double) level.recordCount / level.occupiedCells : 0));
+        }
+
         return String.format("空间分割调试信息:\n" +
-                           "  - 网格大小: %d x %d\n" +
+                           "  - 网格层级: %s\n" +
                            "  - 占用网格数: %d\n" +
                            "  - 总实体数: %d\n" +
-                           "  - 平均每网格实体数: %.2f",
-                           GRID_SIZE, GRID_SIZE, occupiedGrids, totalEntities,
-                           occupiedGrids > 0 ? (double) totalEntities / occupiedGrids : 0);
+                           "  - 平均每网格实体数: %.2f\n" +
+                           "  - 池化网格桶/记录: %d / %d\n" +
+                           "  - 各层级:%s",
+                           java.util.Arrays.toString(LEVEL_CELL_SIZES), occupiedGrids, totalEntities,
+                           occupiedGrids > 0 ? (double) totalEntities / occupiedGrids : 0,
+                           cellPool.size(), recordPool.size(),
+                           perLevel.length() > 0 ? perLevel.toString() : " 无");
+    }
+
+    /**
+     * 网格层级：固定边长的网格与其开放寻址哈希表（线性探测）
+     */
+    static final class Level {
+        final int index;
+        final int cellSize;
+
+        // cellTable 槽位为 null 表示空槽
+        long[] cellKeys = new long[INITIAL_TABLE_CAPACITY];
+        Cell[] cellTable = new Cell[INITIAL_TABLE_CAPACITY];
+        int occupiedCells = 0;
+        int recordCount = 0;
+
+        // 本批次内该层级实体碰撞箱的最大半宽/半高（决定邻域搜索需要覆盖的网格圈数）
+        double maxHalfWidth = 0;
+        double maxHalfHeight = 0;
+
+        Level(int index, int cellSize) {
+            this.index = index;
+            this.cellSize = cellSize;
+        }
+
+        int toGrid(double worldCoord) {
+            return (int) Math.floor(worldCoord / cellSize);
+        }
+
+        /**
+         * 逐步扩展查询的前 step 步需要覆盖的网格圈数（覆盖距离不小于 step 个基准网格）
+         */
+        int ringsFor(int step) {
+            return (int) (((long) step * GRID_SIZE + cellSize - 1) / cellSize);
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        Cell find(int gridX, int gridY) {
+            long key = packKey(gridX, gridY);
+            int mask = cellTable.length - 1;
+            int slot = hash(key) & mask;
+            while (cellTable[slot] != null) {
+                if (cellKeys[slot] == key) {
+                    return cellTable[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        void insert(long key, Cell cell) {
+            if (occupiedCells + 1 > cellTable.length * MAX_LOAD_FACTOR) {
+                resize(cellTable.length * 2);
+            }
+            int mask = cellTable.length - 1;
+            int slot = hash(key) & mask;
+            while (cellTable[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            cellKeys[slot] = key;
+            cellTable[slot] = cell;
+            occupiedCells++;
+        }
+
+        void delete(long key) {
+            int mask = cellTable.length - 1;
+            int slot = hash(key) & mask;
+            while (cellTable[slot] != null && cellKeys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (cellTable[slot] == null) return;
+
+            // 向后移位删除，保持探测链连续
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (cellTable[next] != null) {
+                int home = hash(cellKeys[next]) & mask;
+                boolean shouldMove = (hole <= next) ? (home <= hole || home > next) : (home <= hole && home > next);
+                if (shouldMove) {
+                    cellKeys[hole] = cellKeys[next];
+                    cellTable[hole] = cellTable[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            cellTable[hole] = null;
+            cellKeys[hole] = 0L;
+            occupiedCells--;
+        }
+
+        private void resize(int newCapacity) {
+            long[] oldKeys = cellKeys;
+            Cell[] oldTable = cellTable;
+            cellKeys = new long[newCapacity];
+            cellTable = new Cell[newCapacity];
+            occupiedCells = 0;
+            for (int i = 0; i < oldTable.length; i++) {
+                if (oldTable[i] != null) {
+                    insert(oldKeys[i], oldTable[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 网格桶：保存位于某层级某网格的实体记录
+     */
+    static final class Cell {
+        Level level;
+        int gridX;
+        int gridY;
+        EntityRecord[] members = new EntityRecord[8];
+        int size;
+
+        void add(EntityRecord record) {
+            if (size == members.length) {
+                EntityRecord[] grown = new EntityRecord[members.length * 2];
+                System.arraycopy(members, 0, grown, 0, size);
+                members = grown;
+            }
+            record.cell = this;
+            record.indexInCell = size;
+            members[size++] = record;
+        }
+
+        void remove(EntityRecord record) {
+            int index = record.indexInCell;
+            int last = --size;
+            if (index != last) {
+                EntityRecord moved = members[last];
+                members[index] = moved;
+                moved.indexInCell = index;
+            }
+            members[last] = null;
+            record.cell = null;
+            record.indexInCell = -1;
+        }
+    }
+
+    /**
+     * 实体记录：在碰撞代理之上缓存实体所在网格
+     */
+    static final class EntityRecord extends CollisionProxy {
+        Cell cell;
+        int indexInCell = -1;
+        int activeIndex = -1;
     }
 }
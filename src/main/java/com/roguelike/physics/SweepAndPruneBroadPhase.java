@@ -0,0 +1,256 @@
+package com.roguelike.physics;
+
+import com.almasb.fxgl.entity.Entity;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+
+/**
+ * 排序扫描宽相位（Sweep and Prune）
+ * 代理按碰撞箱左边界（minX）排序，候选对只在 X 区间重叠的代理之间产生，再用 Y 区间剔除。
+ *
+ * 帧间连贯性：代理数组跨帧保留上一帧的顺序，实体每帧移动很小，数组几乎有序，
+ * 插入排序只需少量交换即可恢复有序，整体接近 O(n)。
+ * 不依赖网格尺寸，对大小差异大、分布稀疏或成长条分布（成排子弹）的场景更稳定。
+ */
+public class SweepAndPruneBroadPhase implements BroadPhase {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 按 minX 排序的代理及其 minX（并行数组，扫描时只读连续的 double）
+    private SweepProxy[] sorted = new SweepProxy[INITIAL_CAPACITY];
+    private double[] minXs = new double[INITIAL_CAPACITY];
+    private int count = 0;
+
+    // 实体 -> 代理（按引用比较）
+    private final IdentityHashMap<Entity, SweepProxy> proxies = new IdentityHashMap<>();
+    private final ArrayDeque<SweepProxy> proxyPool = new ArrayDeque<>();
+
+    // 增量更新批次戳
+    private int updateStamp = 0;
+
+    // 本批次内的最大半宽/半高（决定单体查询的回溯范围）
+    private double maxHalfWidth = 0;
+    private double maxHalfHeight = 0;
+
+    // 统计：最近一次排序的交换次数（体现帧间连贯性）
+    private long lastSortSwaps = 0;
+
+    @Override
+    public Type getType() {
+        return Type.SWEEP_AND_PRUNE;
+    }
+
+    @Override
+    public void beginUpdate() {
+        updateStamp++;
+        maxHalfWidth = 0;
+        maxHalfHeight = 0;
+    }
+
+    @Override
+    public void updateEntity(Entity entity) {
+        if (entity == null) return;
+
+        SweepProxy proxy = proxies.get(entity);
+        if (proxy == null) {
+            proxy = proxyPool.isEmpty() ? new SweepProxy() : proxyPool.pop();
+            proxy.reset();
+            proxies.put(entity, proxy);
+            append(proxy);
+        }
+        proxy.stamp = updateStamp;
+        proxy.capture(entity);
+        if (proxy.halfWidth > maxHalfWidth) maxHalfWidth = proxy.halfWidth;
+        if (proxy.halfHeight > maxHalfHeight) maxHalfHeight = proxy.halfHeight;
+    }
+
+    /**
+     * 结束一轮更新：剔除本轮未更新的代理（保持相对顺序），刷新 minX 后插入排序
+     */
+    @Override
+    public void endUpdate() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            SweepProxy proxy = sorted[i];
+            if (proxy.stamp != updateStamp) {
+                release(proxy);
+                continue;
+            }
+            sorted[kept] = proxy;
+            minXs[kept] = proxy.centerX - proxy.halfWidth;
+            kept++;
+        }
+        for (int i = kept; i < count; i++) {
+            sorted[i] = null;
+        }
+        count = kept;
+        insertionSort();
+    }
+
+    @Override
+    public void removeEntity(Entity entity) {
+        if (entity == null) return;
+        SweepProxy proxy = proxies.get(entity);
+        if (proxy == null) return;
+
+        int index = -1;
+        for (int i = 0; i < count; i++) {
+            if (sorted[i] == proxy) {
+                index = i;
+                break;
+            }
+        }
+        if (index >= 0) {
+            System.arraycopy(sorted, index + 1, sorted, index, count - index - 1);
+            System.arraycopy(minXs, index + 1, minXs, index, count - index - 1);
+            sorted[--count] = null;
+        }
+        release(proxy);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            release(sorted[i]);
+            sorted[i] = null;
+        }
+        count = 0;
+    }
+
+    @Override
+    public int getProxyCount() {
+        return count;
+    }
+
+    @Override
+    public CollisionProxy getProxy(int index) {
+        return sorted[index];
+    }
+
+    @Override
+    public CollisionProxy proxyOf(Entity entity) {
+        return proxies.get(entity);
+    }
+
+    /**
+     * 单体查询：二分定位 minX 可能重叠的起点，向右扫描到 minX 超过查询框右边界为止
+     * 查询框为代理的扫掠包围盒（上一批次与当前碰撞箱的并集）
+     */
+    @Override
+    public void forEachCandidate(CollisionProxy proxy, ProxyVisitor visitor) {
+        if (proxy == null || count == 0) return;
+        double queryMinX = proxy.sweptMinX();
+        double queryMaxX = proxy.sweptMaxX();
+        double queryMinY = proxy.sweptMinY();
+        double queryMaxY = proxy.sweptMaxY();
+
+        // 任何代理的宽度都不超过 2 * maxHalfWidth，minX 更小的代理不可能与查询框重叠
+        for (int i = lowerBound(queryMinX - 2 * maxHalfWidth); i < count && minXs[i] <= queryMaxX; i++) {
+            SweepProxy other = sorted[i];
+            if (other == proxy || !proxy.accepts(other)) continue;
+            if (other.centerX + other.halfWidth < queryMinX) continue;
+            if (other.centerY + other.halfHeight < queryMinY || other.centerY - other.halfHeight > queryMaxY) continue;
+            visitor.visit(other);
+        }
+    }
+
+    /**
+     * 每个代理是一个工作单元：与排在其后、minX 落在其 X 区间内的代理组成候选对
+     */
+    @Override
+    public int getPairUnitCount() {
+        return count;
+    }
+
+    @Override
+    public void forEachCandidatePairInUnit(int unit, ProxyPairVisitor visitor) {
+        SweepProxy first = sorted[unit];
+        double maxX = first.centerX + first.halfWidth;
+        for (int j = unit + 1; j < count && minXs[j] < maxX; j++) {
+            SweepProxy second = sorted[j];
+            if (!first.accepts(second)) continue;
+            if (Math.abs(second.centerY - first.centerY) >= first.halfHeight + second.halfHeight) continue;
+            visitor.visit(first, second);
+        }
+    }
+
+    @Override
+    public String getDebugInfo() {
+        return String.format("排序扫描宽相位调试信息:\n" +
+                           "  - 代理数: %d\n" +
+                           "  - 最近一次排序交换次数: %d\n" +
+                           "  - 最大半宽/半高: %.1f / %.1f\n" +
+                           "  - 池化代理: %d",
+                           count, lastSortSwaps, maxHalfWidth, maxHalfHeight, proxyPool.size());
+    }
+
+    // ---------------- 内部实现 ----------------
+
+    private void append(SweepProxy proxy) {
+        if (count == sorted.length) {
+            int capacity = sorted.length * 2;
+            SweepProxy[] grownProxies = new SweepProxy[capacity];
+            System.arraycopy(sorted, 0, grownProxies, 0, count);
+            sorted = grownProxies;
+            double[] grownMinXs = new double[capacity];
+            System.arraycopy(minXs, 0, grownMinXs, 0, count);
+            minXs = grownMinXs;
+        }
+        // 新代理先追加到末尾，endUpdate 中随插入排序归位
+        sorted[count] = proxy;
+        minXs[count] = Double.MAX_VALUE;
+        count++;
+    }
+
+    private void release(SweepProxy proxy) {
+        proxies.remove(proxy.entity);
+        proxy.reset();
+        proxyPool.push(proxy);
+    }
+
+    /**
+     * 插入排序：对几乎有序的数组接近线性
+     */
+    private void insertionSort() {
+        long swaps = 0;
+        for (int i = 1; i < count; i++) {
+            double key = minXs[i];
+            if (minXs[i - 1] <= key) continue;
+            SweepProxy proxy = sorted[i];
+            int j = i - 1;
+            while (j >= 0 && minXs[j] > key) {
+                minXs[j + 1] = minXs[j];
+                sorted[j + 1] = sorted[j];
+                j--;
+                swaps++;
+            }
+            minXs[j + 1] = key;
+            sorted[j + 1] = proxy;
+        }
+        lastSortSwaps = swaps;
+    }
+
+    /**
+     * 第一个 minX >= value 的下标
+     */
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (minXs[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 排序扫描代理
+     */
+    static final class SweepProxy extends CollisionProxy {
+    }
+}
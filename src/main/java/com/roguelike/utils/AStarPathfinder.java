@@ -97,9 +97,28 @@ public class AStarPathfinder {
         int getMapHeight();
     }
     
+    // 移动代价（正交10，对角14，整数近似 √2）
+    static final int STRAIGHT_COST = 10;
+    static final int DIAGONAL_COST = 14;
+    
+    // 搜索窗口：起点与终点包围盒向外扩展的瓦片数
+    static final int SEARCH_WINDOW_MARGIN = 32;
+    
+    // 相邻方向：前4个为正交方向，后4个为对角方向
+    private static final int[] NEIGHBOR_X = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] NEIGHBOR_Y = {0, 0, -1, 1, -1, 1, -1, 1};
+    
+    // expand 的返回值
+    private static final int SEARCH_FAILED = 0;
+    private static final int SEARCH_FOUND = 1;
+    private static final int SEARCH_SUSPENDED = 2;
+    
+    // 每个线程一份可复用的搜索工作区，搜索过程不再分配对象
+    private static final ThreadLocal<SearchWorkspace> WORKSPACE = ThreadLocal.withInitial(SearchWorkspace::new);
+    
     private final MapInterface map;
     private final boolean allowDiagonal; // 是否允许对角线移动
-    private final double diagonalCost; // 对角线移动的代价倍数
+    private final int windowMargin;      // 搜索窗口扩展（瓦片）
     
     /**
      * 构造函数
@@ -107,9 +126,17 @@ public class AStarPathfinder {
      * @param allowDiagonal 是否允许对角线移动
      */
     public AStarPathfinder(MapInterface map, boolean allowDiagonal) {
+        this(map, allowDiagonal, SEARCH_WINDOW_MARGIN);
+    }
+    
+    /**
+     * 构造函数，指定搜索窗口扩展
+     * @param windowMargin 起点与终点包围盒向外扩展的瓦片数；地图本身较小时传入地图尺寸即可不限制窗口
+     */
+    AStarPathfinder(MapInterface map, boolean allowDiagonal, int windowMargin) {
         this.map = map;
         this.allowDiagonal = allowDiagonal;
-        this.diagonalCost = Math.sqrt(2); // 对角线移动代价约为1.414
+        this.windowMargin = windowMargin;
     }
     
     /**
@@ -120,8 +147,17 @@ public class AStarPathfinder {
         this(map, true);
     }
     
+    /**
+     * 搜索窗口扩展（瓦片），路径缓存据此判定瓦片变化是否影响缓存路径
+     */
+    int getWindowMargin() {
+        return windowMargin;
+    }
+    
     /**
      * 使用A*算法寻找从起点到终点的路径
+     * 搜索限制在起点与终点包围盒外扩 windowMargin（默认 SEARCH_WINDOW_MARGIN）的窗口内，窗口内格子按下标存放在线程工作区的数组中，
+     * 代价、父节点、关闭状态和可通行缓存都用代数标记区分不同次搜索，不需要清空；除返回的路径外不分配对象
      * @param startX 起点X坐标
      * @param startY 起点Y坐标
      * @param endX 终点X坐标
@@ -129,6 +165,147 @@ public class AStarPathfinder {
      * @return 路径节点列表，如果找不到路径则返回空列表
      */
     public List<Node> findPath(int startX, int startY, int endX, int endY) {
+        List<Node> trivial = trivialPath(startX, startY, endX, endY);
+        if (trivial != null) {
+            return trivial;
+        }
+        
+        SearchWorkspace ws = WORKSPACE.get();
+        int goal = beginSearch(ws, startX, startY, endX, endY);
+        if (expand(ws, goal, Integer.MAX_VALUE) == SEARCH_FOUND) {
+            return reconstructPath(ws, goal);
+        }
+        // 没有找到路径
+        return new ArrayList<>();
+    }
+    
+    /**
+     * 开始一次可分帧执行的搜索：每次 Search.step 最多展开给定数量的节点，未完成时保留开放列表，下次从中断处继续
+     * 搜索使用自己的工作区（不占用线程工作区），可以与其他搜索交替推进；窗口内的通行性在第一次访问时读取，
+     * 之后地图发生的变化只影响尚未访问过的格子
+     * @return 搜索句柄；起终点无效、重合或终点不可通行时返回已完成的句柄
+     */
+    public Search beginSearch(int startX, int startY, int endX, int endY) {
+        List<Node> trivial = trivialPath(startX, startY, endX, endY);
+        if (trivial != null) {
+            return completed(trivial);
+        }
+        SearchWorkspace ws = SearchWorkspace.acquire();
+        return new AStarSearch(ws, beginSearch(ws, startX, startY, endX, endY));
+    }
+    
+    /**
+     * 可分帧执行的搜索（A*、跳点搜索和分层寻路共用），只在一个线程中推进，但可以在不同步之间换线程
+     */
+    public interface Search {
+        /**
+         * 继续搜索
+         * @param maxCost 本次最多消耗的预算（按展开节点计，跳点搜索把扫描的格子折算为节点）
+         * @return 本次实际消耗的预算；不可分割的工作（如分层寻路的抽象图规划）可能超出 maxCost
+         */
+        int step(int maxCost);
+        
+        boolean isDone();
+        
+        /**
+         * 搜索结果（完成前为 null，找不到路径时为空列表）
+         */
+        List<Node> getPath();
+        
+        /**
+         * 放弃未完成的搜索并归还占用的工作区
+         */
+        void cancel();
+    }
+    
+    /**
+     * 已经有结果、不需要推进的搜索
+     */
+    static Search completed(List<Node> path) {
+        return new Search() {
+            @Override
+            public int step(int maxCost) {
+                return 0;
+            }
+            
+            @Override
+            public boolean isDone() {
+                return true;
+            }
+            
+            @Override
+            public List<Node> getPath() {
+                return path;
+            }
+            
+            @Override
+            public void cancel() {
+            }
+        };
+    }
+    
+    /**
+     * 可分帧执行的A*搜索，每步按展开节点数计费
+     */
+    private final class AStarSearch implements Search {
+        private SearchWorkspace workspace; // 完成或取消后归还
+        private final int goal;
+        private List<Node> path;
+        
+        private AStarSearch(SearchWorkspace workspace, int goal) {
+            this.workspace = workspace;
+            this.goal = goal;
+        }
+        
+        @Override
+        public int step(int maxCost) {
+            if (path != null) {
+                return 0;
+            }
+            int before = workspace.expandedNodes;
+            int status = expand(workspace, goal, Math.max(1, maxCost));
+            int expanded = workspace.expandedNodes - before;
+            if (status == SEARCH_FOUND) {
+                path = reconstructPath(workspace, goal);
+                release();
+            } else if (status == SEARCH_FAILED) {
+                path = new ArrayList<>();
+                release();
+            }
+            return expanded;
+        }
+        
+        @Override
+        public boolean isDone() {
+            return path != null;
+        }
+        
+        @Override
+        public List<Node> getPath() {
+            return path;
+        }
+        
+        @Override
+        public void cancel() {
+            if (path == null) {
+                path = new ArrayList<>();
+                release();
+            }
+        }
+        
+        private void release() {
+            if (workspace != null) {
+                SearchWorkspace.release(workspace);
+                workspace = null;
+            }
+        }
+    }
+    
+    /**
+     * 不需要搜索的情况：起终点无效、重合或终点不可通行
+     * @return 需要搜索时返回 null
+     */
+    private List<Node> trivialPath(int startX, int startY, int endX, int endY) {
         // 检查起点和终点是否有效
         if (!isValidPosition(startX, startY) || !isValidPosition(endX, endY)) {
             return new ArrayList<>();
@@ -141,122 +318,125 @@ public class AStarPathfinder {
             return path;
         }
         
-        // 初始化开放列表和关闭列表
-        PriorityQueue<Node> openList = new PriorityQueue<>(Comparator.comparingDouble(node -> node.fCost));
-        Set<Node> closedList = new HashSet<>();
-        
-        // 创建起点和终点节点
-        Node startNode = new Node(startX, startY);
-        Node endNode = new Node(endX, endY);
-        
-        // 计算起点的启发式代价
-        startNode.hCost = calculateHeuristic(startNode, endNode);
-        startNode.calculateFCost();
-        
-        openList.add(startNode);
-        
-        while (!openList.isEmpty()) {
+        // 终点不可通行时不可能到达，避免搜满整个窗口
+        if (!map.isWalkable(endX, endY)) {
+            return new ArrayList<>();
+        }
+        return null;
+    }
+    
+    /**
+     * 在工作区中设置搜索窗口并放入起点
+     * @return 终点在窗口中的下标
+     */
+    private int beginSearch(SearchWorkspace ws, int startX, int startY, int endX, int endY) {
+        // 计算搜索窗口
+        int minX = Math.max(0, Math.min(startX, endX) - windowMargin);
+        int minY = Math.max(0, Math.min(startY, endY) - windowMargin);
+        int maxX = Math.min(map.getMapWidth() - 1, Math.max(startX, endX) + windowMargin);
+        int maxY = Math.min(map.getMapHeight() - 1, Math.max(startY, endY) + windowMargin);
+        
+        ws.begin(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        int goalX = endX - minX;
+        int goalY = endY - minY;
+        int start = ws.index(startX - minX, startY - minY);
+        ws.open(start, 0, calculateHeuristic(startX - minX, startY - minY, goalX, goalY), -1);
+        return ws.index(goalX, goalY);
+    }
+    
+    /**
+     * 展开节点直到到达终点、开放列表为空或用完展开预算
+     * @return SEARCH_FOUND、SEARCH_FAILED 或 SEARCH_SUSPENDED（开放列表保留在工作区中，可以继续）
+     */
+    private int expand(SearchWorkspace ws, int goal, int maxExpansions) {
+        int generation = ws.generation;
+        int windowWidth = ws.windowWidth;
+        int goalX = goal % windowWidth;
+        int goalY = goal / windowWidth;
+        int directions = allowDiagonal ? 8 : 4;
+        int budget = maxExpansions;
+        while (ws.heapSize > 0) {
+            if (budget-- == 0) {
+                return SEARCH_SUSPENDED;
+            }
             // 从开放列表中选择fCost最小的节点
-            Node currentNode = openList.poll();
-            closedList.add(currentNode);
+            int current = ws.poll();
+            ws.closedStamp[current] = generation;
+            ws.expandedNodes++;
             
-            // 如果到达终点，重构路径
-            if (currentNode.equals(endNode)) {
-                return reconstructPath(currentNode);
+            // 如果到达终点，由调用方重构路径
+            if (current == goal) {
+                return SEARCH_FOUND;
             }
             
+            int cx = current % windowWidth;
+            int cy = current / windowWidth;
+            int currentG = ws.gCost[current];
+            
             // 检查所有相邻节点
-            for (Node neighbor : getNeighbors(currentNode)) {
-                // 跳过已经在关闭列表中的节点或不可通行的节点
-                if (closedList.contains(neighbor) || !map.isWalkable(neighbor.x, neighbor.y)) {
+            for (int d = 0; d < directions; d++) {
+                int nx = cx + NEIGHBOR_X[d];
+                int ny = cy + NEIGHBOR_Y[d];
+                
+                // 跳过窗口外、不可通行或已经在关闭列表中的节点
+                if (!ws.isWalkable(map, nx, ny)) {
+                    continue;
+                }
+                int neighbor = ws.index(nx, ny);
+                if (ws.closedStamp[neighbor] == generation) {
+                    continue;
+                }
+                // 对角移动不允许切过障碍的拐角
+                if (d >= 4 && (!ws.isWalkable(map, nx, cy) || !ws.isWalkable(map, cx, ny))) {
                     continue;
                 }
                 
                 // 计算从起点到相邻节点的代价
-                double tentativeGCost = currentNode.gCost + calculateDistance(currentNode, neighbor);
+                int tentativeGCost = currentG + (d < 4 ? STRAIGHT_COST : DIAGONAL_COST);
                 
                 // 如果相邻节点不在开放列表中，或者找到更好的路径
-                if (!openList.contains(neighbor) || tentativeGCost < neighbor.gCost) {
-                    neighbor.parent = currentNode;
-                    neighbor.gCost = tentativeGCost;
-                    neighbor.hCost = calculateHeuristic(neighbor, endNode);
-                    neighbor.calculateFCost();
-                    
-                    if (!openList.contains(neighbor)) {
-                        openList.add(neighbor);
-                    }
+                if (ws.seenStamp[neighbor] != generation) {
+                    ws.open(neighbor, tentativeGCost, tentativeGCost + calculateHeuristic(nx, ny, goalX, goalY), current);
+                } else if (tentativeGCost < ws.gCost[neighbor]) {
+                    ws.decrease(neighbor, tentativeGCost, tentativeGCost + calculateHeuristic(nx, ny, goalX, goalY), current);
                 }
             }
         }
         
-        // 没有找到路径
-        return new ArrayList<>();
+        return SEARCH_FAILED;
     }
     
     /**
-     * 获取指定节点的所有相邻节点
-     * @param node 当前节点
-     * @return 相邻节点列表
+     * 当前线程上一次搜索展开的节点数
      */
-    private List<Node> getNeighbors(Node node) {
-        List<Node> neighbors = new ArrayList<>();
-        
-        // 四个基本方向
-        int[] dx = {-1, 1, 0, 0};
-        int[] dy = {0, 0, -1, 1};
-        
-        for (int i = 0; i < 4; i++) {
-            int newX = node.x + dx[i];
-            int newY = node.y + dy[i];
-            
-            if (isValidPosition(newX, newY)) {
-                neighbors.add(new Node(newX, newY));
-            }
-        }
-        
-        // 如果允许对角线移动，添加对角线方向
-        if (allowDiagonal) {
-            int[] diagonalDx = {-1, -1, 1, 1};
-            int[] diagonalDy = {-1, 1, -1, 1};
-            
-            for (int i = 0; i < 4; i++) {
-                int newX = node.x + diagonalDx[i];
-                int newY = node.y + diagonalDy[i];
-                
-                if (isValidPosition(newX, newY)) {
-                    neighbors.add(new Node(newX, newY));
-                }
-            }
-        }
-        
-        return neighbors;
+    public static int getLastExpandedNodes() {
+        return WORKSPACE.get().expandedNodes;
     }
     
     /**
-     * 计算两个节点之间的距离
-     * @param from 起始节点
-     * @param to 目标节点
-     * @return 距离
+     * 计算启发式代价（对角距离，与移动代价一致，保证可采纳）
      */
-    private double calculateDistance(Node from, Node to) {
-        double distance = from.distanceTo(to);
-        
-        // 如果是对角线移动，应用对角线代价
-        if (allowDiagonal && Math.abs(from.x - to.x) == 1 && Math.abs(from.y - to.y) == 1) {
-            distance *= diagonalCost;
+    private int calculateHeuristic(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(x - goalX);
+        int dy = Math.abs(y - goalY);
+        if (!allowDiagonal) {
+            return STRAIGHT_COST * (dx + dy);
         }
-        
-        return distance;
+        return octileDistance(dx, dy);
+    }
+    
+    /**
+     * 对角距离（允许对角移动时两格之间的最小代价）
+     */
+    static int octileDistance(int dx, int dy) {
+        return STRAIGHT_COST * Math.max(dx, dy) + (DIAGONAL_COST - STRAIGHT_COST) * Math.min(dx, dy);
     }
     
     /**
-     * 计算启发式代价（使用欧几里得距离）
-     * @param from 起始节点
-     * @param to 目标节点
-     * @return 启发式代价
+     * 获取当前线程的搜索工作区（A*与跳点搜索共用）
      */
-    private double calculateHeuristic(Node from, Node to) {
-        return from.distanceTo(to);
+    static SearchWorkspace workspace() {
+        return WORKSPACE.get();
     }
     
     /**
@@ -270,22 +450,198 @@ public class AStarPathfinder {
     }
     
     /**
-     * 重构路径
-     * @param endNode 终点节点
+     * 重构路径（沿父节点下标回溯，按窗口原点换回地图坐标）
      * @return 从起点到终点的路径
      */
-    private List<Node> reconstructPath(Node endNode) {
-        List<Node> path = new ArrayList<>();
-        Node currentNode = endNode;
+    private List<Node> reconstructPath(SearchWorkspace ws, int goal) {
+        int minX = ws.minX;
+        int minY = ws.minY;
+        int windowWidth = ws.windowWidth;
+        int length = 0;
+        for (int index = goal; index >= 0; index = ws.parent[index]) {
+            length++;
+        }
         
-        while (currentNode != null) {
-            path.add(0, currentNode); // 在列表开头插入，确保路径顺序正确
-            currentNode = currentNode.parent;
+        Node[] nodes = new Node[length];
+        int i = length;
+        for (int index = goal; index >= 0; index = ws.parent[index]) {
+            Node node = new Node(index % windowWidth + minX, index / windowWidth + minY);
+            node.gCost = ws.gCost[index] / (double) STRAIGHT_COST;
+            node.fCost = node.gCost;
+            nodes[--i] = node;
         }
         
+        List<Node> path = new ArrayList<>(length);
+        Collections.addAll(path, nodes);
+        for (int k = 1; k < length; k++) {
+            path.get(k).parent = path.get(k - 1);
+        }
         return path;
     }
     
+    /**
+     * 线程私有的搜索工作区
+     * 数组按窗口格子数增长后复用；seenStamp/closedStamp/walkStamp 等于当前代数时对应数据有效
+     * 开放列表为按下标存储的二叉堆，heapIndex 记录每个格子在堆中的位置，支持原地降低代价
+     */
+    static final class SearchWorkspace {
+        // 分帧搜索各自占用一个工作区，完成后归还；只保留少量空闲工作区
+        private static final int MAX_POOLED = 8;
+        private static final ArrayDeque<SearchWorkspace> POOL = new ArrayDeque<>();
+        
+        int minX, minY;
+        int windowWidth, windowHeight;
+        int[] gCost = new int[0];
+        int[] fCost = new int[0];
+        int[] parent = new int[0];
+        int[] seenStamp = new int[0];
+        int[] closedStamp = new int[0];
+        int[] walkStamp = new int[0];
+        boolean[] walkable = new boolean[0];
+        int[] heap = new int[0];
+        int[] heapIndex = new int[0];
+        int heapSize = 0;
+        int generation = 0;
+        int expandedNodes = 0;
+        int scannedCells = 0;  // 跳点搜索跳跃时扫描的格子数
+        // 跳点搜索展开节点时暂存剪枝后的方向（dx, dy 成对存放）
+        final int[] directionBuffer = new int[16];
+        
+        /**
+         * 开始一次新的搜索：设置窗口（地图坐标的左上角与尺寸），必要时扩容，递增代数
+         */
+        void begin(int minX, int minY, int windowWidth, int windowHeight) {
+            this.minX = minX;
+            this.minY = minY;
+            this.windowWidth = windowWidth;
+            this.windowHeight = windowHeight;
+            int cells = windowWidth * windowHeight;
+            if (cells > gCost.length) {
+                int capacity = Math.max(cells, gCost.length * 2);
+                gCost = new int[capacity];
+                fCost = new int[capacity];
+                parent = new int[capacity];
+                seenStamp = new int[capacity];
+                closedStamp = new int[capacity];
+                walkStamp = new int[capacity];
+                walkable = new boolean[capacity];
+                heap = new int[capacity];
+                heapIndex = new int[capacity];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(seenStamp, 0);
+                Arrays.fill(closedStamp, 0);
+                Arrays.fill(walkStamp, 0);
+                generation = 1;
+            }
+            heapSize = 0;
+            expandedNodes = 0;
+            scannedCells = 0;
+        }
+        
+        static SearchWorkspace acquire() {
+            synchronized (POOL) {
+                SearchWorkspace ws = POOL.poll();
+                return ws != null ? ws : new SearchWorkspace();
+            }
+        }
+        
+        static void release(SearchWorkspace ws) {
+            synchronized (POOL) {
+                if (POOL.size() < MAX_POOLED) {
+                    POOL.push(ws);
+                }
+            }
+        }
+        
+        int index(int x, int y) {
+            return y * windowWidth + x;
+        }
+        
+        /**
+         * 查询窗口坐标处是否可通行（窗口外视为障碍），同一次搜索内每个格子只查询一次地图
+         */
+        boolean isWalkable(MapInterface map, int x, int y) {
+            if (x < 0 || y < 0 || x >= windowWidth || y >= windowHeight) {
+                return false;
+            }
+            int index = y * windowWidth + x;
+            if (walkStamp[index] != generation) {
+                walkStamp[index] = generation;
+                walkable[index] = map.isWalkable(x + minX, y + minY);
+            }
+            return walkable[index];
+        }
+        
+        void open(int index, int g, int f, int parentIndex) {
+            seenStamp[index] = generation;
+            gCost[index] = g;
+            fCost[index] = f;
+            parent[index] = parentIndex;
+            heap[heapSize] = index;
+            heapIndex[index] = heapSize;
+            siftUp(heapSize++);
+        }
+        
+        void decrease(int index, int g, int f, int parentIndex) {
+            gCost[index] = g;
+            fCost[index] = f;
+            parent[index] = parentIndex;
+            siftUp(heapIndex[index]);
+        }
+        
+        int poll() {
+            int top = heap[0];
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                heap[0] = last;
+                heapIndex[last] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+        
+        /**
+         * f 小者优先；f 相同时 g 大者优先（更靠近终点，减少展开）
+         */
+        private boolean less(int a, int b) {
+            return fCost[a] < fCost[b] || (fCost[a] == fCost[b] && gCost[a] > gCost[b]);
+        }
+        
+        private void siftUp(int pos) {
+            int item = heap[pos];
+            while (pos > 0) {
+                int parentPos = (pos - 1) >>> 1;
+                int parentItem = heap[parentPos];
+                if (!less(item, parentItem)) break;
+                heap[pos] = parentItem;
+                heapIndex[parentItem] = pos;
+                pos = parentPos;
+            }
+            heap[pos] = item;
+            heapIndex[item] = pos;
+        }
+        
+        private void siftDown(int pos) {
+            int item = heap[pos];
+            int half = heapSize >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int right = child + 1;
+                if (right < heapSize && less(heap[right], heap[child])) {
+                    child = right;
+                }
+                if (!less(heap[child], item)) break;
+                heap[pos] = heap[child];
+                heapIndex[heap[pos]] = pos;
+                pos = child;
+            }
+            heap[pos] = item;
+            heapIndex[item] = pos;
+        }
+    }
+    
     /**
      * 将路径转换为坐标点列表
      * @param path 节点路径
@@ -6,6 +6,8 @@ import com.roguelike.map.InfiniteMapManager;
 import javafx.geometry.Point2D;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * 自适应路径寻找系统
@@ -20,8 +22,23 @@ public class AdaptivePathfinder {
      * 路径寻找算法类型
      */
     public enum PathfindingType {
-        ASTAR,      // A*算法
-        FLOW_FIELD  // 流体算法
+        ASTAR,       // A*算法
+        JUMP_POINT,  // 跳点搜索（与A*路径代价相同，障碍密集的地图上更快）
+        FLOW_FIELD;  // 流体算法
+        
+        /**
+         * 从地图配置读取单体寻路算法（jump_point / astar），未配置或无法识别时使用A*
+         */
+        public static PathfindingType fromConfig(String value) {
+            if (value != null) {
+                String normalized = value.trim();
+                if ("jump_point".equalsIgnoreCase(normalized) || "jps".equalsIgnoreCase(normalized)
+                        || JUMP_POINT.name().equalsIgnoreCase(normalized)) {
+                    return JUMP_POINT;
+                }
+            }
+            return ASTAR;
+        }
     }
     
     /**
@@ -34,6 +51,10 @@ public class AdaptivePathfinder {
         private boolean enablePathOptimization = true; // 是否启用路径优化
         private boolean enableSmoothing = true; // 是否启用路径平滑
         private boolean ignorePlayerAsObstacle = true; // 吸血鬼幸存者风格：不把玩家当作障碍物
+        private PathfindingType gridAlgorithm = PathfindingType.ASTAR; // 敌人数量低于阈值时使用的单体寻路算法
+        private boolean enableAsyncPathfinding = true; // 是否在工作线程上执行单体寻路
+        private int pathResultsPerFrame = 8; // 每个模拟步最多送达的异步寻路结果数
+        private int pathSearchNodeBudget = 2000; // 所有寻路搜索每个模拟步共享的预算（展开节点数）
         
         // Getters and Setters
         public int getEnemyCountThreshold() { return enemyCountThreshold; }
@@ -53,28 +74,77 @@ public class AdaptivePathfinder {
         
         public boolean isIgnorePlayerAsObstacle() { return ignorePlayerAsObstacle; }
         public void setIgnorePlayerAsObstacle(boolean ignore) { this.ignorePlayerAsObstacle = ignore; }
+        
+        public PathfindingType getGridAlgorithm() { return gridAlgorithm; }
+        public void setGridAlgorithm(PathfindingType algorithm) {
+            // 流场是群体导航，不能作为单体寻路算法
+            this.gridAlgorithm = algorithm == PathfindingType.JUMP_POINT ? PathfindingType.JUMP_POINT : PathfindingType.ASTAR;
+        }
+        
+        public boolean isEnableAsyncPathfinding() { return enableAsyncPathfinding; }
+        public void setEnableAsyncPathfinding(boolean enable) { this.enableAsyncPathfinding = enable; }
+        
+        public int getPathResultsPerFrame() { return pathResultsPerFrame; }
+        public void setPathResultsPerFrame(int count) { this.pathResultsPerFrame = Math.max(1, count); }
+        
+        public int getPathSearchNodeBudget() { return pathSearchNodeBudget; }
+        public void setPathSearchNodeBudget(int budget) { this.pathSearchNodeBudget = Math.max(1, budget); }
     }
     
     private final MapRenderer mapRenderer;
     private final InfiniteMapManager infiniteMapManager;
     private final AStarPathfinder aStarPathfinder;
+    private final JumpPointPathfinder jumpPointPathfinder;
+    private final AStarPathfinder.MapInterface gridMap;
     private final PathfindingConfig config;
+    // 同一区域出发、前往同一目标瓦片的敌人共享网格路径
+    private final PathCache pathCache = PathCache.shared();
+    // 异步寻路：工作线程基于通行性快照搜索，结果按每帧预算送回游戏线程（第一次使用时创建，构造期间不暴露 this）
+    private PathfindingService pathfindingService;
+    // 无限地图的区块入口图：起终点跨区块且距离较远时做分层寻路（传统地图为 null）
+    private final ChunkPortalGraph chunkPortalGraph;
+    private static final int HIERARCHICAL_MIN_DISTANCE = 16; // 起终点切比雪夫距离（瓦片）超过此值才走分层寻路
     
     private int currentEnemyCount = 0;
     private PathfindingType currentAlgorithm = PathfindingType.ASTAR;
     private boolean useInfiniteMap = false;
     
+    // 瓦片尺寸（像素）：无限地图取当前地图的 TMX/配置瓦片尺寸，传统地图取渲染器瓦片尺寸
+    private final int tileWidth;
+    private final int tileHeight;
+    
+    // 共享流场：以玩家所在瓦片为中心的窗口，所有敌人采样同一张流场
+    static final long LIVE_MAP_VERSION = -1; // 搜索使用实时地图时的版本号
+    private static final int FLOW_FIELD_HALF_WIDTH = 64;  // 窗口半宽（瓦片）
+    private static final int FLOW_FIELD_HALF_HEIGHT = 48; // 窗口半高（瓦片）
+    private static final int FLOW_FIELD_RECENTER_MARGIN = 24; // 目标离窗口边缘不足此距离（瓦片）时重新居中
+    private final FlowField flowField;
+    private final boolean[] flowPassability = new boolean[FLOW_FIELD_HALF_WIDTH * 2 * FLOW_FIELD_HALF_HEIGHT * 2];
+    private boolean flowFieldValid = false;
+    private int flowTargetTileX = Integer.MIN_VALUE;
+    private int flowTargetTileY = Integer.MIN_VALUE;
+    private long flowChunkRevision = -1;
+    private long flowPassabilityVersion = -1; // 读取流场通行性时的 PathCache 通行性版本号（瓦片变化时递增）
+    private long flowFieldRebuilds = 0;
+    
     /**
      * 构造函数
      */
     public AdaptivePathfinder(MapRenderer mapRenderer) {
         this.mapRenderer = mapRenderer;
         this.infiniteMapManager = null;
+        this.chunkPortalGraph = null;
+        this.tileWidth = mapRenderer.getTileWidth();
+        this.tileHeight = mapRenderer.getTileHeight();
+        this.flowField = new FlowField(FLOW_FIELD_HALF_WIDTH * 2, FLOW_FIELD_HALF_HEIGHT * 2, tileWidth);
         this.config = new PathfindingConfig();
         
-        // 初始化A*路径寻找器
+        // 初始化A*路径寻找器（有限地图搜索整张地图，窗口扩展取地图尺寸）
         MapInterfaceAdapter mapAdapter = new MapInterfaceAdapter(mapRenderer);
-        this.aStarPathfinder = new AStarPathfinder(mapAdapter, config.isAllowDiagonal());
+        int windowMargin = Math.max(mapRenderer.getMapWidth(), mapRenderer.getMapHeight());
+        this.aStarPathfinder = new AStarPathfinder(mapAdapter, config.isAllowDiagonal(), windowMargin);
+        this.jumpPointPathfinder = new JumpPointPathfinder(mapAdapter, windowMargin);
+        this.gridMap = mapAdapter;
     }
     
     /**
@@ -83,11 +153,18 @@ public class AdaptivePathfinder {
     public AdaptivePathfinder(MapRenderer mapRenderer, PathfindingConfig config) {
         this.mapRenderer = mapRenderer;
         this.infiniteMapManager = null;
+        this.chunkPortalGraph = null;
+        this.tileWidth = mapRenderer.getTileWidth();
+        this.tileHeight = mapRenderer.getTileHeight();
+        this.flowField = new FlowField(FLOW_FIELD_HALF_WIDTH * 2, FLOW_FIELD_HALF_HEIGHT * 2, tileWidth);
         this.config = config;
         
-        // 初始化A*路径寻找器
+        // 初始化A*路径寻找器（有限地图搜索整张地图，窗口扩展取地图尺寸）
         MapInterfaceAdapter mapAdapter = new MapInterfaceAdapter(mapRenderer);
-        this.aStarPathfinder = new AStarPathfinder(mapAdapter, config.isAllowDiagonal());
+        int windowMargin = Math.max(mapRenderer.getMapWidth(), mapRenderer.getMapHeight());
+        this.aStarPathfinder = new AStarPathfinder(mapAdapter, config.isAllowDiagonal(), windowMargin);
+        this.jumpPointPathfinder = new JumpPointPathfinder(mapAdapter, windowMargin);
+        this.gridMap = mapAdapter;
     }
     
     /**
@@ -96,14 +173,24 @@ public class AdaptivePathfinder {
     public AdaptivePathfinder(InfiniteMapManager infiniteMapManager) {
         this.mapRenderer = null;
         this.infiniteMapManager = infiniteMapManager;
+        this.tileWidth = infiniteMapManager.getTileSize();
+        this.tileHeight = tileWidth;
+        this.flowField = new FlowField(FLOW_FIELD_HALF_WIDTH * 2, FLOW_FIELD_HALF_HEIGHT * 2, tileWidth);
         this.config = new PathfindingConfig();
         this.useInfiniteMap = true;
         
         // 初始化A*路径寻找器（使用无限地图适配器）
         InfiniteMapInterfaceAdapter mapAdapter = new InfiniteMapInterfaceAdapter(infiniteMapManager);
         this.aStarPathfinder = new AStarPathfinder(mapAdapter, config.isAllowDiagonal());
+        this.jumpPointPathfinder = new JumpPointPathfinder(mapAdapter);
+        this.gridMap = mapAdapter;
+        
+        // 区块入口图随区块加载/卸载增量维护
+        this.chunkPortalGraph = new ChunkPortalGraph(
+            infiniteMapManager.getChunkWidthTiles(), infiniteMapManager.getChunkHeightTiles());
+        infiniteMapManager.addChunkLifecycleListener(chunkPortalGraph);
         
-        System.out.println("✅ 无限地图路径寻找系统初始化完成（仅A*算法）");
+        System.out.println("✅ 无限地图路径寻找系统初始化完成（A*算法 + 区块入口图 + 共享流场）");
     }
     
     /**
@@ -112,14 +199,24 @@ public class AdaptivePathfinder {
     public AdaptivePathfinder(InfiniteMapManager infiniteMapManager, PathfindingConfig config) {
         this.mapRenderer = null;
         this.infiniteMapManager = infiniteMapManager;
+        this.tileWidth = infiniteMapManager.getTileSize();
+        this.tileHeight = tileWidth;
+        this.flowField = new FlowField(FLOW_FIELD_HALF_WIDTH * 2, FLOW_FIELD_HALF_HEIGHT * 2, tileWidth);
         this.config = config;
         this.useInfiniteMap = true;
         
         // 初始化A*路径寻找器（使用无限地图适配器）
         InfiniteMapInterfaceAdapter mapAdapter = new InfiniteMapInterfaceAdapter(infiniteMapManager);
         this.aStarPathfinder = new AStarPathfinder(mapAdapter, config.isAllowDiagonal());
+        this.jumpPointPathfinder = new JumpPointPathfinder(mapAdapter);
+        this.gridMap = mapAdapter;
         
-        System.out.println("✅ 无限地图路径寻找系统初始化完成（仅A*算法）");
+        // 区块入口图随区块加载/卸载增量维护
+        this.chunkPortalGraph = new ChunkPortalGraph(
+            infiniteMapManager.getChunkWidthTiles(), infiniteMapManager.getChunkHeightTiles());
+        infiniteMapManager.addChunkLifecycleListener(chunkPortalGraph);
+        
+        System.out.println("✅ 无限地图路径寻找系统初始化完成（A*算法 + 区块入口图 + 共享流场）");
     }
     
     /**
@@ -128,11 +225,14 @@ public class AdaptivePathfinder {
     public void updateEnemyCount(int enemyCount) {
         this.currentEnemyCount = enemyCount;
         
-        // 始终使用A*算法，移除流场算法
-        PathfindingType newAlgorithm = PathfindingType.ASTAR;
+        // 敌人数量达到阈值时切换到共享流场，否则每个敌人按配置单独走A*或跳点搜索
+        PathfindingType newAlgorithm = enemyCount >= config.getEnemyCountThreshold()
+            ? PathfindingType.FLOW_FIELD : config.getGridAlgorithm();
             
         if (newAlgorithm != currentAlgorithm) {
             currentAlgorithm = newAlgorithm;
+            // 切换到流场时下一次 setTarget 强制重建
+            flowFieldValid = false;
         }
     }
     
@@ -147,113 +247,347 @@ public class AdaptivePathfinder {
      * 寻找路径（带强制算法选择）
      */
     public List<Point2D> findPath(double startX, double startY, double endX, double endY, boolean forceAStar) {
-        if (useInfiniteMap) {
-            return findPathInfiniteMap(startX, startY, endX, endY, forceAStar);
-        } else {
-            return findPathTraditional(startX, startY, endX, endY, forceAStar);
+        List<Point2D> path = resolveWithoutSearch(startX, startY, endX, endY, forceAStar);
+        if (path != null) {
+            return path;
+        }
+        path = getCachedPath(startX, startY, endX, endY);
+        if (path != null) {
+            return path;
         }
+        PathSearch search = beginPathSearch(startX, startY, endX, endY, forceAStar,
+                                             aStarPathfinder, jumpPointPathfinder, LIVE_MAP_VERSION);
+        while (!search.isDone()) {
+            search.step(Integer.MAX_VALUE);
+        }
+        return search.getResult();
     }
     
     /**
-     * 传统地图寻路
+     * 异步寻路：不需要网格搜索或命中路径缓存时直接返回路径；
+     * 否则把请求交给 PathfindingService 并返回 null，结果稍后在游戏线程中通过 callback 送达。
+     * 所有搜索（A*、跳点搜索、分层寻路）分步推进，共享每个模拟步 PathfindingConfig.pathSearchNodeBudget 的预算，
+     * 启用异步寻路时在工作线程上推进，否则在 deliverPathResults 中由游戏线程推进
      */
-    private List<Point2D> findPathTraditional(double startX, double startY, double endX, double endY, boolean forceAStar) {
-        // 转换世界坐标到瓦片坐标
-        int startTileX = (int) (startX / mapRenderer.getTileWidth());
-        int startTileY = (int) (startY / mapRenderer.getTileHeight());
-        int endTileX = (int) (endX / mapRenderer.getTileWidth());
-        int endTileY = (int) (endY / mapRenderer.getTileHeight());
-        
-        List<Point2D> path = new ArrayList<>();
-        
-        if (forceAStar || currentAlgorithm == PathfindingType.ASTAR) {
-            // 使用A*算法
-            List<AStarPathfinder.Node> nodePath = aStarPathfinder.findPath(
-                startTileX, startTileY, endTileX, endTileY);
-            
-            if (config.isEnablePathOptimization()) {
-                nodePath = aStarPathfinder.optimizePath(nodePath);
-            }
-            
-            // 转换为世界坐标
-            for (AStarPathfinder.Node node : nodePath) {
-                double worldX = node.x * mapRenderer.getTileWidth() + mapRenderer.getTileWidth() / 2.0;
-                double worldY = node.y * mapRenderer.getTileHeight() + mapRenderer.getTileHeight() / 2.0;
-                path.add(new Point2D(worldX, worldY));
+    public List<Point2D> findPathAsync(double startX, double startY, double endX, double endY,
+                                       Consumer<List<Point2D>> callback) {
+        return findPathAsync(startX, startY, endX, endY, callback, () -> true);
+    }
+    
+    /**
+     * 异步寻路，带请求者存活检查
+     * @param requesterAlive 在游戏线程中检查；请求者已死亡或失活时取消尚未完成的搜索，回调收到空路径
+     */
+    public List<Point2D> findPathAsync(double startX, double startY, double endX, double endY,
+                                       Consumer<List<Point2D>> callback, BooleanSupplier requesterAlive) {
+        List<Point2D> path = resolveWithoutSearch(startX, startY, endX, endY, false);
+        if (path != null) {
+            return path;
+        }
+        path = getCachedPath(startX, startY, endX, endY);
+        if (path != null) {
+            return path;
+        }
+        getPathfindingService().submit(startX, startY, endX, endY, callback, requesterAlive);
+        return null;
+    }
+    
+    /**
+     * 每个模拟步的寻路维护（游戏线程）：重建通行性变化过的区块入口图，为分步搜索发放本步预算，送达已完成的异步寻路结果
+     */
+    public void deliverPathResults() {
+        // 先重建瓦片通行性变化过的区块入口图，再送达结果
+        if (chunkPortalGraph != null) {
+            chunkPortalGraph.refreshChangedChunks();
+        }
+        PathfindingService service = getPathfindingService();
+        service.runSearches(config.getPathSearchNodeBudget());
+        service.deliverResults(config.getPathResultsPerFrame());
+    }
+    
+    /**
+     * 获取异步寻路服务（游戏线程）
+     */
+    public PathfindingService getPathfindingService() {
+        if (pathfindingService == null) {
+            pathfindingService = new PathfindingService(this);
+        }
+        return pathfindingService;
+    }
+    
+    /**
+     * 不需要网格搜索时直接给出路径：流场模式的回退、无限地图上超出直接搜索范围又不能走区块入口图时的直线路径
+     * @return 需要网格搜索时返回 null
+     */
+    private List<Point2D> resolveWithoutSearch(double startX, double startY, double endX, double endY,
+                                               boolean forceAStar) {
+        if (!useInfiniteMap) {
+            // 流场模式下敌人直接采样 getMovementDirection，这里只提供直接路径作为回退
+            if (!forceAStar && currentAlgorithm == PathfindingType.FLOW_FIELD) {
+                return generateDirectPath(startX, startY, endX, endY);
             }
-            
-        } else {
-            // 流场算法已移除，使用直接路径作为回退
-            path = generateDirectPath(startX, startY, endX, endY);
+            return null;
         }
         
-        // 路径平滑处理
-        if (config.isEnableSmoothing() && path.size() > 2) {
-            path = smoothPath(path);
+        if (isWithinDirectSearchRange(startX, startY, endX, endY)
+                || useHierarchicalSearch(toTileX(startX), toTileY(startY), toTileX(endX), toTileY(endY))) {
+            return null;
         }
-        
-        return path;
+        // 远距离且起终点区块没有都在入口图中：直接朝向目标移动
+        return generateDirectPath(startX, startY, endX, endY);
     }
     
     /**
-     * 无限地图寻路
+     * 无限地图上直接做网格搜索的范围：距离不超过半个区块宽度且起终点在相邻区块内
+     * 区块尺寸取当前地图（各地图的区块瓦片数不同，见 map_config.json）
      */
-    private List<Point2D> findPathInfiniteMap(double startX, double startY, double endX, double endY, boolean forceAStar) {
+    private boolean isWithinDirectSearchRange(double startX, double startY, double endX, double endY) {
         // 检查距离，如果超过一个区块距离，使用简化寻路
         double distance = Math.sqrt((endX - startX) * (endX - startX) + (endY - startY) * (endY - startY));
-        // 区块大小：96瓦片 * 32像素 = 3072像素宽，54瓦片 * 32像素 = 1728像素高
         // 使用半个区块宽度作为距离阈值，提高寻路响应速度
-        double maxDistance = 48 * 32; // 1536像素
+        double maxDistance = infiniteMapManager.getChunkWidthPixels() / 2.0;
         
         if (distance > maxDistance) {
-            // 远距离简化寻路：直接朝向目标移动
-            return generateDirectPath(startX, startY, endX, endY);
+            return false;
         }
         
-        // 近距离精细寻路：使用A*算法在邻近区块内寻路
-        return findPathInNeighboringChunks(startX, startY, endX, endY);
+        // 计算起点和终点所在的区块
+        int startChunkX = infiniteMapManager.worldToChunkX(startX);
+        int startChunkY = infiniteMapManager.worldToChunkY(startY);
+        int endChunkX = infiniteMapManager.worldToChunkX(endX);
+        int endChunkY = infiniteMapManager.worldToChunkY(endY);
+        
+        // 检查是否在邻近区块内（3x3区块范围）
+        return Math.abs(startChunkX - endChunkX) <= 1 && Math.abs(startChunkY - endChunkY) <= 1;
     }
     
     /**
-     * 在邻近区块内寻路
+     * 是否走区块入口图：起终点位于不同的已加载区块，且距离足够远（近距离直接网格搜索更便宜）
      */
-    private List<Point2D> findPathInNeighboringChunks(double startX, double startY, double endX, double endY) {
-        // 计算起点和终点所在的区块
-        // 区块大小：96瓦片 * 32像素 = 3072像素宽，54瓦片 * 32像素 = 1728像素高
-        int startChunkX = (int) (startX / (96 * 32)); // 区块X坐标
-        int startChunkY = (int) (startY / (54 * 32)); // 区块Y坐标
-        int endChunkX = (int) (endX / (96 * 32));     // 区块X坐标
-        int endChunkY = (int) (endY / (54 * 32));     // 区块Y坐标
+    private boolean useHierarchicalSearch(int startTileX, int startTileY, int endTileX, int endTileY) {
+        return chunkPortalGraph != null
+            && Math.max(Math.abs(endTileX - startTileX), Math.abs(endTileY - startTileY)) > HIERARCHICAL_MIN_DISTANCE
+            && chunkPortalGraph.covers(startTileX, startTileY, endTileX, endTileY);
+    }
+    
+    /**
+     * 查询共享路径缓存（只在游戏线程中调用，接入检查读取实时地图）
+     */
+    private List<Point2D> getCachedPath(double startX, double startY, double endX, double endY) {
+        return pathCache.get(toTileX(startX), toTileY(startY), toTileX(endX), toTileY(endY), this::canWalkStraight);
+    }
+    
+    /**
+     * 开始一次分步执行的寻路搜索
+     * 同步寻路传入基于实时地图的寻路器；PathfindingService 的工作线程传入基于通行性快照的寻路器，
+     * 搜索过程不直接读取实时地图
+     * @param snapshotVersion 通行性快照的版本号（快照之后地图已变化时不写入缓存），实时地图传 LIVE_MAP_VERSION
+     */
+    PathSearch beginPathSearch(double startX, double startY, double endX, double endY, boolean forceAStar,
+                               AStarPathfinder aStar, JumpPointPathfinder jumpPoint, long snapshotVersion) {
+        return new PathSearch(startX, startY, endX, endY, forceAStar, aStar, jumpPoint, snapshotVersion);
+    }
+    
+    /**
+     * 一次寻路请求的分步搜索：跨区块远距离时先在区块入口图上分层寻路，失败或不适用时做网格搜索，
+     * 完成后转换为世界坐标路径并写入共享路径缓存。只在一个线程中推进，但可以在不同步之间换线程
+     */
+    final class PathSearch {
+        private final double startX, startY, endX, endY;
+        private final boolean forceAStar;
+        private final AStarPathfinder aStar;
+        private final JumpPointPathfinder jumpPoint;
+        private final long snapshotVersion;
+        private AStarPathfinder.Search search;
+        private boolean hierarchical;
+        private int windowMargin;
+        private List<Point2D> result;
+        
+        private PathSearch(double startX, double startY, double endX, double endY, boolean forceAStar,
+                           AStarPathfinder aStar, JumpPointPathfinder jumpPoint, long snapshotVersion) {
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+            this.forceAStar = forceAStar;
+            this.aStar = aStar;
+            this.jumpPoint = jumpPoint;
+            this.snapshotVersion = snapshotVersion;
+            
+            int startTileX = toTileX(startX);
+            int startTileY = toTileY(startY);
+            int endTileX = toTileX(endX);
+            int endTileY = toTileY(endY);
+            if (useInfiniteMap && useHierarchicalSearch(startTileX, startTileY, endTileX, endTileY)) {
+                // 跨区块远距离：入口图上分层寻路，只在经过的区块内细化
+                search = chunkPortalGraph.beginSearch(startTileX, startTileY, endTileX, endTileY);
+                hierarchical = search != null;
+                windowMargin = chunkPortalGraph.getInvalidationMargin();
+            }
+            if (search == null) {
+                beginGridSearch();
+            }
+        }
         
-        // 检查是否在邻近区块内（3x3区块范围）
-        if (Math.abs(startChunkX - endChunkX) > 1 || Math.abs(startChunkY - endChunkY) > 1) {
-            // 超出邻近区块范围，使用简化寻路
-            return generateDirectPath(startX, startY, endX, endY);
+        /**
+         * 瓦片网格寻路：按配置选择A*或跳点搜索（两者路径代价相同），forceAStar 时固定使用A*
+         * 跳点搜索不支持禁止对角移动，此时也回到A*
+         */
+        private void beginGridSearch() {
+            int startTileX = toTileX(startX);
+            int startTileY = toTileY(startY);
+            int endTileX = toTileX(endX);
+            int endTileY = toTileY(endY);
+            if (!forceAStar && config.getGridAlgorithm() == PathfindingType.JUMP_POINT && config.isAllowDiagonal()) {
+                search = jumpPoint.beginSearch(startTileX, startTileY, endTileX, endTileY);
+                windowMargin = jumpPoint.getWindowMargin();
+            } else {
+                search = aStar.beginSearch(startTileX, startTileY, endTileX, endTileY);
+                windowMargin = aStar.getWindowMargin();
+            }
+            hierarchical = false;
         }
         
-        // 在邻近区块内，使用A*算法
-        int startTileX = (int) (startX / 32);
-        int startTileY = (int) (startY / 32);
-        int endTileX = (int) (endX / 32);
-        int endTileY = (int) (endY / 32);
+        /**
+         * 继续搜索
+         * @return 本次消耗的预算（见 AStarPathfinder.Search.step）
+         */
+        int step(int maxCost) {
+            if (result != null) {
+                return 0;
+            }
+            int cost = search.step(maxCost);
+            if (search.isDone()) {
+                List<AStarPathfinder.Node> gridPath = search.getPath();
+                if (hierarchical && gridPath.isEmpty()) {
+                    if (!isWithinDirectSearchRange(startX, startY, endX, endY)) {
+                        result = generateDirectPath(startX, startY, endX, endY);
+                    } else {
+                        // 分层寻路失败但距离不远：下一步改做网格搜索
+                        beginGridSearch();
+                    }
+                } else {
+                    result = buildPath(startX, startY, endX, endY, gridPath, windowMargin, aStar, snapshotVersion);
+                }
+            }
+            return cost;
+        }
         
-        List<AStarPathfinder.Node> nodePath = aStarPathfinder.findPath(startTileX, startTileY, endTileX, endTileY);
+        boolean isDone() {
+            return result != null;
+        }
         
-        if (nodePath == null || nodePath.isEmpty()) {
-            // A*寻路失败，回退到直接寻路
-            return generateDirectPath(startX, startY, endX, endY);
+        /**
+         * 世界坐标路径（完成前为 null）
+         */
+        List<Point2D> getResult() {
+            return result;
         }
         
-        // 转换为世界坐标
-        List<Point2D> path = new ArrayList<>();
-        for (AStarPathfinder.Node node : nodePath) {
-            double worldX = node.x * 32 + 16; // 瓦片中心
-            double worldY = node.y * 32 + 16;
-            path.add(new Point2D(worldX, worldY));
+        /**
+         * 放弃未完成的搜索并归还工作区
+         */
+        void cancel() {
+            if (result == null) {
+                search.cancel();
+                result = new ArrayList<>();
+            }
         }
+    }
+    
+    /**
+     * 网格路径转换为世界坐标路径（优化、平滑），成功时写入共享路径缓存；网格路径为空时给出回退路径
+     * @param windowMargin 得到该网格路径的搜索窗口扩展（瓦片），用于缓存失效判定
+     * @param aStar 路径优化使用的寻路器（与搜索使用同一份地图）
+     */
+    List<Point2D> buildPath(double startX, double startY, double endX, double endY,
+                            List<AStarPathfinder.Node> gridPath, int windowMargin,
+                            AStarPathfinder aStar, long snapshotVersion) {
+        int startTileX = toTileX(startX);
+        int startTileY = toTileY(startY);
+        int endTileX = toTileX(endX);
+        int endTileY = toTileY(endY);
         
+        List<Point2D> path = new ArrayList<>();
+        if (useInfiniteMap) {
+            if (gridPath.isEmpty()) {
+                // A*寻路失败，回退到直接寻路
+                return generateDirectPath(startX, startY, endX, endY);
+            }
+            
+            // 转换为世界坐标
+            for (AStarPathfinder.Node node : gridPath) {
+                double worldX = node.x * tileWidth + tileWidth / 2.0; // 瓦片中心
+                double worldY = node.y * tileHeight + tileHeight / 2.0;
+                path.add(new Point2D(worldX, worldY));
+            }
+        } else {
+            List<AStarPathfinder.Node> nodePath = gridPath;
+            if (config.isEnablePathOptimization()) {
+                nodePath = aStar.optimizePath(nodePath);
+            }
+            
+            // 转换为世界坐标
+            for (AStarPathfinder.Node node : nodePath) {
+                double worldX = node.x * mapRenderer.getTileWidth() + mapRenderer.getTileWidth() / 2.0;
+                double worldY = node.y * mapRenderer.getTileHeight() + mapRenderer.getTileHeight() / 2.0;
+                path.add(new Point2D(worldX, worldY));
+            }
+            
+            // 路径平滑处理
+            if (config.isEnableSmoothing() && path.size() > 2) {
+                path = smoothPath(path);
+            }
+            
+            if (gridPath.isEmpty()) {
+                return path;
+            }
+        }
         
-        return path;
+        if (snapshotVersion == LIVE_MAP_VERSION) {
+            return pathCache.put(startTileX, startTileY, endTileX, endTileY, path, gridPath, windowMargin);
+        }
+        return pathCache.put(startTileX, startTileY, endTileX, endTileY, path, gridPath, windowMargin, snapshotVersion);
+    }
+    
+    /**
+     * 瓦片尺寸（像素），与 toTileX/toTileY 使用的一致
+     */
+    int getTileWidth() {
+        return tileWidth;
+    }
+    
+    int getTileHeight() {
+        return tileHeight;
+    }
+    
+    int toTileX(double worldX) {
+        return (int) (worldX / tileWidth);
+    }
+    
+    int toTileY(double worldY) {
+        return (int) (worldY / tileHeight);
+    }
+    
+    /**
+     * 路径缓存命中但起点不同时，检查能否从请求者所在瓦片逐格直走到共享路径的起点（斜走不切角）
+     */
+    private boolean canWalkStraight(int fromX, int fromY, int toX, int toY) {
+        int x = fromX;
+        int y = fromY;
+        while (x != toX || y != toY) {
+            int dx = Integer.signum(toX - x);
+            int dy = Integer.signum(toY - y);
+            if (dx != 0 && dy != 0 && (!gridMap.isWalkable(x + dx, y) || !gridMap.isWalkable(x, y + dy))) {
+                return false;
+            }
+            x += dx;
+            y += dy;
+            if (!gridMap.isWalkable(x, y)) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
@@ -267,11 +601,22 @@ public class AdaptivePathfinder {
     }
     
     /**
-     * 获取移动方向（已移除流场算法，此方法保留用于兼容性）
+     * 获取移动方向：在共享流场中按当前位置采样（单位向量写入 out[0]、out[1]，不创建对象）
+     * 非流场模式、流场尚未建立、位置在窗口外或不可达时返回 false，由调用方回退到A*或直线移动
      */
-    public Point2D getMovementDirection(double currentX, double currentY) {
-        // 流场算法已移除，返回零向量
-        return new Point2D(0, 0);
+    public boolean sampleMovementDirection(double currentX, double currentY, double[] out) {
+        if (currentAlgorithm != PathfindingType.FLOW_FIELD || !flowFieldValid
+                || !flowField.containsWorldPos(currentX, currentY)) {
+            return false;
+        }
+        return flowField.sampleDirection(currentX, currentY, out);
+    }
+    
+    /**
+     * 是否正在使用共享流场导航
+     */
+    public boolean isFlowFieldActive() {
+        return currentAlgorithm == PathfindingType.FLOW_FIELD && flowFieldValid;
     }
     
     
@@ -302,24 +647,145 @@ public class AdaptivePathfinder {
         return smoothedPath;
     }
     
+    /**
+     * 以目标瓦片为中心重建窗口并整场重算
+     */
+    private void rebuildFlowField(int targetTileX, int targetTileY) {
+        int originX = targetTileX - FLOW_FIELD_HALF_WIDTH;
+        int originY = targetTileY - FLOW_FIELD_HALF_HEIGHT;
+        
+        readFlowPassability(originX, originY);
+        flowField.setOrigin(originX, originY);
+        flowField.setPassability(flowPassability);
+        flowField.setTarget(FLOW_FIELD_HALF_WIDTH, FLOW_FIELD_HALF_HEIGHT);
+        flowField.updateFlowField();
+        flowFieldRebuilds++;
+    }
+    
     /**
      * 同步障碍物到流体算法
      */
+    private void readFlowPassability(int originX, int originY) {
+        fillPassability(originX, originY, flowField.getWidth(), flowField.getHeight(), flowPassability);
+    }
+    
+    /**
+     * 读取一块瓦片矩形的可通行性（流场与异步寻路快照共用，只在游戏线程中调用）
+     * 无限地图按区块批量读取（未加载区块视为障碍），传统地图超出边界视为障碍
+     */
+    void fillPassability(int originX, int originY, int width, int height, boolean[] out) {
+        if (useInfiniteMap) {
+            infiniteMapManager.fillTilePassability(originX, originY, width, height, out);
+        } else {
+            int mapWidth = mapRenderer.getMapWidth();
+            int mapHeight = mapRenderer.getMapHeight();
+            for (int y = 0; y < height; y++) {
+                int tileY = originY + y;
+                for (int x = 0; x < width; x++) {
+                    int tileX = originX + x;
+                    out[y * width + x] = tileX >= 0 && tileX < mapWidth && tileY >= 0 && tileY < mapHeight
+                        && mapRenderer.isPassable(tileX, tileY);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 是否为无限地图（异步寻路据此决定快照范围）
+     */
+    boolean isInfiniteMap() {
+        return useInfiniteMap;
+    }
+    
+    /**
+     * 已加载区块集合的修订号（传统地图为 0），任何区块加载或卸载时变化；
+     * 区块数不能代替它：同一步内加载一个、卸载另一个时区块数不变
+     */
+    long getChunkRevision() {
+        return useInfiniteMap ? infiniteMapManager.getChunkRevision() : 0;
+    }
+    
+    /**
+     * 网格地图尺寸（瓦片），与同步寻路使用的地图适配器一致
+     */
+    int getGridMapWidth() {
+        return gridMap.getMapWidth();
+    }
+    
+    int getGridMapHeight() {
+        return gridMap.getMapHeight();
+    }
     
     /**
      * 更新路径寻找系统
      */
     public void update(double deltaTime) {
-        // 移除流场算法更新逻辑，只使用A*算法
-        // 不需要定期更新
+        // 流场只在 setTarget 检测到目标换格时重建，这里不需要定期更新
     }
     
     /**
-     * 设置目标位置（已移除流场算法，此方法保留用于兼容性）
+     * 设置目标位置（通常为玩家中心，每个模拟步调用一次）
+     * 只有在流场模式下、目标换到新瓦片、瓦片通行性变化（定时器瓦片等，见 PathCache.getPassabilityVersion）
+     * 或已加载区块变化时才更新流场：窗口保持不动，先重新读取窗口通行性，目标未换格时只增量修复通行性改变的格子，
+     * 目标换格时在新的障碍上整场重算；目标接近窗口边缘时才重新居中并整场重算
      */
     public void setTarget(double worldX, double worldY) {
-        // 流场算法已移除，此方法保留用于兼容性
-        // 不需要实际功能
+        if (currentAlgorithm != PathfindingType.FLOW_FIELD) {
+            return;
+        }
+        int tileX = (int) Math.floor(worldX / tileWidth);
+        int tileY = (int) Math.floor(worldY / tileHeight);
+        long chunkRevision = getChunkRevision();
+        long passabilityVersion = pathCache.getPassabilityVersion();
+        boolean mapChanged = chunkRevision != flowChunkRevision || passabilityVersion != flowPassabilityVersion;
+        if (flowFieldValid && tileX == flowTargetTileX && tileY == flowTargetTileY && !mapChanged) {
+            return;
+        }
+        
+        int localX = tileX - flowField.getOriginX();
+        int localY = tileY - flowField.getOriginY();
+        boolean nearEdge = localX < FLOW_FIELD_RECENTER_MARGIN || localY < FLOW_FIELD_RECENTER_MARGIN
+            || localX >= flowField.getWidth() - FLOW_FIELD_RECENTER_MARGIN
+            || localY >= flowField.getHeight() - FLOW_FIELD_RECENTER_MARGIN;
+        if (!flowFieldValid || nearEdge) {
+            rebuildFlowField(tileX, tileY);
+        } else {
+            boolean targetMoved = tileX != flowTargetTileX || tileY != flowTargetTileY;
+            if (mapChanged) {
+                readFlowPassability(flowField.getOriginX(), flowField.getOriginY());
+                if (targetMoved) {
+                    // 随后整场重算，只同步障碍
+                    flowField.setPassability(flowPassability);
+                } else {
+                    flowField.updatePassability(flowPassability);
+                }
+            }
+            if (targetMoved) {
+                // 目标换格时整场重算（见 FlowField 类注释）
+                flowField.setTarget(localX, localY);
+                flowField.updateFlowField();
+            }
+            flowFieldRebuilds++;
+        }
+        flowTargetTileX = tileX;
+        flowTargetTileY = tileY;
+        flowChunkRevision = chunkRevision;
+        flowPassabilityVersion = passabilityVersion;
+        flowFieldValid = true;
+    }
+    
+    /**
+     * 获取共享流场（调试绘制用）
+     */
+    public FlowField getFlowField() {
+        return flowField;
+    }
+    
+    /**
+     * 获取流场更新次数（整场重算与增量修复之和，明细见 FlowField.getDebugInfo）
+     */
+    public long getFlowFieldRebuilds() {
+        return flowFieldRebuilds;
     }
     
     /**
@@ -350,6 +816,20 @@ public class AdaptivePathfinder {
         return aStarPathfinder;
     }
     
+    /**
+     * 获取区块入口图（传统地图为 null）
+     */
+    public ChunkPortalGraph getChunkPortalGraph() {
+        return chunkPortalGraph;
+    }
+    
+    /**
+     * 获取跳点搜索寻路器
+     */
+    public JumpPointPathfinder getJumpPointPathfinder() {
+        return jumpPointPathfinder;
+    }
+    
     
     /**
      * 地图接口适配器，将MapRenderer适配到A*算法的MapInterface
@@ -394,9 +874,8 @@ public class AdaptivePathfinder {
         @Override
         public boolean isWalkable(int x, int y) {
             // 将瓦片坐标转换为世界坐标
-            // 使用正确的瓦片大小：32像素
-            double worldX = x * 32.0;
-            double worldY = y * 32.0;
+            double worldX = x * (double) tileWidth;
+            double worldY = y * (double) tileHeight;
             
             // 检查是否在邻近区块范围内
             boolean passable = infiniteMapManager.isPassable(worldX, worldY);
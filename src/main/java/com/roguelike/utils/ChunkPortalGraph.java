@@ -0,0 +1,779 @@
+package com.roguelike.utils;
+
+import com.roguelike.map.InfiniteMapManager;
+import com.roguelike.map.MapChunk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 区块入口图（分层寻路 HPA*）
+ * 区块加载完成时扫描它与已加载相邻区块之间的公共边，两侧都可通行的连续格段作为入口，在入口处放置成对的入口节点；
+ * 同一区块内的入口节点之间用区块内最短路代价连边，这部分在查询第一次经过该区块时才计算，加载本身只做边界扫描。
+ * 区块卸载时拆除它的节点以及相邻区块一侧只为它服务的节点。
+ *
+ * 查询时先把起点、终点接到各自区块的入口节点上，在入口图上做A*得到经过的入口序列，
+ * 再只在实际经过的区块内逐段做网格A*细化成逐格路径。区块通行性拷贝在建图时读取，之后不可变，
+ * 细化可以在工作线程上进行；图结构的修改和入口图搜索在同一把锁内。
+ * 瓦片通行性变化（MapChunk 修订号）由游戏线程调用 refreshChangedChunks 重建对应区块。
+ */
+public class ChunkPortalGraph implements InfiniteMapManager.ChunkLifecycleListener {
+
+    // 入口格段长度小于该值时只在中点放一个入口节点，否则在两端各放一个
+    private static final int SINGLE_PORTAL_MAX_RUN = 6;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * 已加载区块：通行性拷贝与入口节点
+     */
+    static final class ChunkEntry implements AStarPathfinder.MapInterface {
+        final MapChunk chunk;
+        final int chunkX;
+        final int chunkY;
+        final int originX;    // 区块左上角的世界瓦片坐标
+        final int originY;
+        final int width;
+        final int height;
+        final int revision;
+        final boolean[] passable;
+        final List<PortalNode> nodes = new ArrayList<>();
+        boolean intraEdgesDirty = true; // 入口节点有增减，区块内连边需要重算
+
+        ChunkEntry(MapChunk chunk, int chunkX, int chunkY, int width, int height, boolean[] passable, int revision) {
+            this.chunk = chunk;
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.originX = chunkX * width;
+            this.originY = chunkY * height;
+            this.width = width;
+            this.height = height;
+            this.passable = passable;
+            this.revision = revision;
+        }
+
+        // MapInterface：区块内局部瓦片坐标，供细化A*使用
+        @Override
+        public boolean isWalkable(int x, int y) {
+            return x >= 0 && y >= 0 && x < width && y < height && passable[y * width + x];
+        }
+
+        @Override
+        public int getMapWidth() {
+            return width;
+        }
+
+        @Override
+        public int getMapHeight() {
+            return height;
+        }
+    }
+
+    /**
+     * 入口节点（位于区块边缘的一个瓦片）
+     */
+    static final class PortalNode {
+        final int tileX;      // 世界瓦片坐标
+        final int tileY;
+        final ChunkEntry owner;
+        final List<Edge> edges = new ArrayList<>();
+
+        // 入口图搜索的临时状态（只在锁内使用）
+        int stamp;
+        int g;
+        boolean closed;
+        PortalNode parent;
+        boolean parentCrossing;
+        int goalStamp;
+        int goalCost;
+
+        PortalNode(int tileX, int tileY, ChunkEntry owner) {
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * 入口图的边：crossing 为跨越区块边界的一步，否则为区块内最短路
+     */
+    static final class Edge {
+        final PortalNode to;
+        final int cost;
+        final boolean crossing;
+
+        Edge(PortalNode to, int cost, boolean crossing) {
+            this.to = to;
+            this.cost = cost;
+            this.crossing = crossing;
+        }
+    }
+
+    /**
+     * 入口图搜索的结果：起点、经过的入口节点、终点，以及每一段是跨边界一步还是需要在某个区块内细化
+     */
+    private static final class Plan {
+        final int[] xs;
+        final int[] ys;
+        final ChunkEntry[] segmentChunks; // 第 i 段 (i -> i+1) 所在区块，跨边界时为 null
+
+        Plan(int length) {
+            xs = new int[length];
+            ys = new int[length];
+            segmentChunks = new ChunkEntry[length - 1];
+        }
+    }
+
+    private static final class OpenEntry {
+        final PortalNode node;
+        final int g;
+        final int f;
+
+        OpenEntry(PortalNode node, int g, int f) {
+            this.node = node;
+            this.g = g;
+            this.f = f;
+        }
+    }
+
+    private static final Plan NO_ROUTE = new Plan(1);
+
+    private final int chunkWidth;
+    private final int chunkHeight;
+    private final Map<Long, ChunkEntry> chunks = new HashMap<>();
+    private final PriorityQueue<OpenEntry> open = new PriorityQueue<>((a, b) -> Integer.compare(a.f, b.f));
+    private int searchStamp = 0;
+
+    // 区块内 Dijkstra 缓冲（只在锁内使用）
+    private final int[] dist;
+    private final int[] distStamp;
+    private final int[] targetStamp;
+    private int distGeneration = 0;
+    private long[] heap = new long[256];
+
+    // 统计
+    private long chunkBuilds = 0;
+    private long buildNanos = 0;
+    private long queries = 0;
+    private long routesFound = 0;
+    private long abstractExpansions = 0;
+    private long settledCells = 0; // 区块内 Dijkstra 确定的格子数（分帧搜索按此计费）
+    private long refinedSegments = 0;
+    private long intraEdgeBuilds = 0;
+    private long intraEdgeNanos = 0;
+
+    /**
+     * @param chunkWidth 区块宽度（瓦片）
+     * @param chunkHeight 区块高度（瓦片）
+     */
+    public ChunkPortalGraph(int chunkWidth, int chunkHeight) {
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+        this.dist = new int[chunkWidth * chunkHeight];
+        this.distStamp = new int[chunkWidth * chunkHeight];
+        this.targetStamp = new int[chunkWidth * chunkHeight];
+    }
+
+    // ---------------- 建图与拆图 ----------------
+
+    @Override
+    public synchronized void onChunkLoaded(MapChunk chunk) {
+        addChunk(chunk);
+    }
+
+    @Override
+    public synchronized void onChunkUnloaded(MapChunk chunk) {
+        long key = chunkKey(chunk.getChunkX(), chunk.getChunkY());
+        ChunkEntry entry = chunks.get(key);
+        if (entry != null && entry.chunk == chunk) {
+            removeChunk(key);
+        }
+    }
+
+    /**
+     * 重建瓦片通行性发生变化的区块（游戏线程，每个模拟步调用一次）
+     */
+    public synchronized void refreshChangedChunks() {
+        List<MapChunk> changed = null;
+        for (ChunkEntry entry : chunks.values()) {
+            if (entry.chunk.getPassabilityRevision() != entry.revision) {
+                if (changed == null) {
+                    changed = new ArrayList<>();
+                }
+                changed.add(entry.chunk);
+            }
+        }
+        if (changed != null) {
+            for (MapChunk chunk : changed) {
+                addChunk(chunk);
+            }
+        }
+    }
+
+    private void addChunk(MapChunk chunk) {
+        long start = System.nanoTime();
+        long key = chunkKey(chunk.getChunkX(), chunk.getChunkY());
+        if (chunks.containsKey(key)) {
+            removeChunk(key);
+        }
+
+        boolean[] passable = new boolean[chunkWidth * chunkHeight];
+        chunk.fillTilePassability(0, 0, chunkWidth - 1, chunkHeight - 1, passable, 0, chunkWidth);
+        ChunkEntry entry = new ChunkEntry(chunk, chunk.getChunkX(), chunk.getChunkY(),
+                                          chunkWidth, chunkHeight, passable, chunk.getPassabilityRevision());
+        chunks.put(key, entry);
+
+        // 与四个方向已加载的相邻区块建立入口，涉及的区块等到查询经过时再重算区块内连边
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        for (int[] d : directions) {
+            ChunkEntry neighbour = chunks.get(chunkKey(entry.chunkX + d[0], entry.chunkY + d[1]));
+            if (neighbour != null) {
+                buildBorder(entry, neighbour, d[0], d[1]);
+                neighbour.intraEdgesDirty = true;
+            }
+        }
+
+        chunkBuilds++;
+        buildNanos += System.nanoTime() - start;
+    }
+
+    private void removeChunk(long key) {
+        ChunkEntry entry = chunks.remove(key);
+        if (entry == null) {
+            return;
+        }
+        for (PortalNode node : entry.nodes) {
+            for (Edge edge : node.edges) {
+                if (!edge.crossing) {
+                    continue;
+                }
+                PortalNode partner = edge.to;
+                partner.edges.removeIf(e -> e.to == node);
+                // 相邻区块一侧只为这条边界服务的节点一并移除
+                boolean stillPortal = false;
+                for (Edge e : partner.edges) {
+                    if (e.crossing) {
+                        stillPortal = true;
+                        break;
+                    }
+                }
+                if (!stillPortal) {
+                    ChunkEntry owner = partner.owner;
+                    owner.nodes.remove(partner);
+                    for (PortalNode other : owner.nodes) {
+                        other.edges.removeIf(e -> e.to == partner);
+                    }
+                }
+            }
+        }
+        entry.nodes.clear();
+    }
+
+    /**
+     * 扫描 a 与相邻区块 b（偏移 dx, dy）的公共边，按连续可通行格段放置入口
+     */
+    private void buildBorder(ChunkEntry a, ChunkEntry b, int dx, int dy) {
+        int length = dx != 0 ? chunkHeight : chunkWidth;
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length
+                && a.isWalkable(borderX(dx, i, true), borderY(dy, i, true))
+                && b.isWalkable(borderX(dx, i, false), borderY(dy, i, false));
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 < SINGLE_PORTAL_MAX_RUN) {
+                    connect(a, b, dx, dy, (runStart + runEnd) / 2);
+                } else {
+                    connect(a, b, dx, dy, runStart);
+                    connect(a, b, dx, dy, runEnd);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    // 公共边上第 i 格在 a（near=true）或 b 中的局部坐标
+    private int borderX(int dx, int i, boolean near) {
+        if (dx == 0) {
+            return i;
+        }
+        boolean right = (dx > 0) == near;
+        return right ? chunkWidth - 1 : 0;
+    }
+
+    private int borderY(int dy, int i, boolean near) {
+        if (dy == 0) {
+            return i;
+        }
+        boolean bottom = (dy > 0) == near;
+        return bottom ? chunkHeight - 1 : 0;
+    }
+
+    private void connect(ChunkEntry a, ChunkEntry b, int dx, int dy, int i) {
+        PortalNode nodeA = getOrCreateNode(a, borderX(dx, i, true), borderY(dy, i, true));
+        PortalNode nodeB = getOrCreateNode(b, borderX(dx, i, false), borderY(dy, i, false));
+        for (Edge edge : nodeA.edges) {
+            if (edge.to == nodeB) {
+                return;
+            }
+        }
+        nodeA.edges.add(new Edge(nodeB, AStarPathfinder.STRAIGHT_COST, true));
+        nodeB.edges.add(new Edge(nodeA, AStarPathfinder.STRAIGHT_COST, true));
+    }
+
+    private PortalNode getOrCreateNode(ChunkEntry entry, int localX, int localY) {
+        int tileX = entry.originX + localX;
+        int tileY = entry.originY + localY;
+        for (PortalNode node : entry.nodes) {
+            if (node.tileX == tileX && node.tileY == tileY) {
+                return node;
+            }
+        }
+        PortalNode node = new PortalNode(tileX, tileY, entry);
+        entry.nodes.add(node);
+        return node;
+    }
+
+    /**
+     * 需要时重算区块内入口节点两两之间的最短路连边
+     */
+    private void ensureIntraEdges(ChunkEntry entry) {
+        if (!entry.intraEdgesDirty) {
+            return;
+        }
+        long start = System.nanoTime();
+        entry.intraEdgesDirty = false;
+        List<PortalNode> nodes = entry.nodes;
+        for (PortalNode node : nodes) {
+            node.edges.removeIf(e -> !e.crossing);
+        }
+        for (PortalNode node : nodes) {
+            dijkstra(entry, node.tileX - entry.originX, node.tileY - entry.originY, nodes);
+            for (PortalNode other : nodes) {
+                if (other == node) {
+                    continue;
+                }
+                int cost = distanceTo(entry, other.tileX - entry.originX, other.tileY - entry.originY);
+                if (cost != UNREACHABLE) {
+                    node.edges.add(new Edge(other, cost, false));
+                }
+            }
+        }
+        intraEdgeBuilds++;
+        intraEdgeNanos += System.nanoTime() - start;
+    }
+
+    // ---------------- 查询 ----------------
+
+    /**
+     * 起终点所在区块都已加入入口图且不是同一个区块
+     */
+    public synchronized boolean covers(int startTileX, int startTileY, int goalTileX, int goalTileY) {
+        ChunkEntry start = chunkAt(startTileX, startTileY);
+        ChunkEntry goal = chunkAt(goalTileX, goalTileY);
+        return start != null && goal != null && start != goal;
+    }
+
+    /**
+     * 分层寻路
+     * @return 逐格路径（世界瓦片坐标）；起终点区块未加载或同一区块时返回 null，不可达时返回空列表
+     */
+    public List<AStarPathfinder.Node> findPath(int startTileX, int startTileY, int goalTileX, int goalTileY) {
+        AStarPathfinder.Search search = beginSearch(startTileX, startTileY, goalTileX, goalTileY);
+        if (search == null) {
+            return null;
+        }
+        while (!search.isDone()) {
+            search.step(Integer.MAX_VALUE);
+        }
+        return search.getPath();
+    }
+
+    /**
+     * 开始一次可分帧执行的分层寻路
+     * 第一步在锁内完成入口图规划（区块内 Dijkstra 确定的格子数加展开的入口节点数计入本步消耗，不可分割），
+     * 剩余预算和之后的每一步用于逐段细化，每段是一次区块内的可分帧A*
+     * @return 搜索句柄，起终点区块未加载或同一区块时返回 null；期间区块被卸载或不可达时结果为空列表
+     */
+    public AStarPathfinder.Search beginSearch(int startTileX, int startTileY, int goalTileX, int goalTileY) {
+        if (!covers(startTileX, startTileY, goalTileX, goalTileY)) {
+            return null;
+        }
+        return new HierarchicalSearch(startTileX, startTileY, goalTileX, goalTileY);
+    }
+
+    /**
+     * 可分帧执行的分层寻路：规划一次，细化逐段推进
+     */
+    private final class HierarchicalSearch implements AStarPathfinder.Search {
+        private final int startTileX, startTileY, goalTileX, goalTileY;
+        private Plan plan;                          // 第一步规划后设置
+        private List<AStarPathfinder.Node> refined; // 细化中的路径
+        private int segment = 0;                    // 下一段的下标
+        private AStarPathfinder.Search segmentSearch;
+        private ChunkEntry segmentChunk;
+        private List<AStarPathfinder.Node> path;
+
+        private HierarchicalSearch(int startTileX, int startTileY, int goalTileX, int goalTileY) {
+            this.startTileX = startTileX;
+            this.startTileY = startTileY;
+            this.goalTileX = goalTileX;
+            this.goalTileY = goalTileY;
+        }
+
+        @Override
+        public int step(int maxCost) {
+            if (path != null) {
+                return 0;
+            }
+            int cost = 0;
+            if (plan == null) {
+                synchronized (ChunkPortalGraph.this) {
+                    long before = abstractExpansions + settledCells;
+                    plan = plan(startTileX, startTileY, goalTileX, goalTileY);
+                    cost = (int) Math.min(Integer.MAX_VALUE, abstractExpansions + settledCells - before);
+                }
+                if (plan == null || plan == NO_ROUTE) {
+                    path = new ArrayList<>();
+                    return cost;
+                }
+                refined = new ArrayList<>();
+                refined.add(new AStarPathfinder.Node(plan.xs[0], plan.ys[0]));
+            }
+            // 细化：跨边界的段直接连一步，其余段只在所在区块内做网格A*
+            while (path == null && cost < maxCost) {
+                if (segmentSearch == null) {
+                    if (segment == plan.segmentChunks.length) {
+                        path = refined;
+                        break;
+                    }
+                    ChunkEntry chunk = plan.segmentChunks[segment];
+                    int fromX = plan.xs[segment];
+                    int fromY = plan.ys[segment];
+                    int toX = plan.xs[segment + 1];
+                    int toY = plan.ys[segment + 1];
+                    if (chunk == null) {
+                        append(refined, toX, toY);
+                        segment++;
+                        continue;
+                    }
+                    if (fromX == toX && fromY == toY) {
+                        segment++;
+                        continue;
+                    }
+                    // 入口图的区块内代价按整个区块计算，细化的搜索窗口也要覆盖整个区块，否则绕行段会找不到
+                    segmentChunk = chunk;
+                    segmentSearch = new AStarPathfinder(chunk, true, Math.max(chunkWidth, chunkHeight)).beginSearch(
+                        fromX - chunk.originX, fromY - chunk.originY, toX - chunk.originX, toY - chunk.originY);
+                }
+                cost += segmentSearch.step(maxCost - cost);
+                if (!segmentSearch.isDone()) {
+                    break;
+                }
+                List<AStarPathfinder.Node> result = segmentSearch.getPath();
+                segmentSearch = null;
+                if (result.isEmpty()) {
+                    path = new ArrayList<>();
+                    break;
+                }
+                for (int k = 1; k < result.size(); k++) {
+                    AStarPathfinder.Node node = result.get(k);
+                    append(refined, node.x + segmentChunk.originX, node.y + segmentChunk.originY);
+                }
+                segment++;
+                synchronized (ChunkPortalGraph.this) {
+                    refinedSegments++;
+                }
+            }
+            return cost;
+        }
+
+        @Override
+        public boolean isDone() {
+            return path != null;
+        }
+
+        @Override
+        public List<AStarPathfinder.Node> getPath() {
+            return path;
+        }
+
+        @Override
+        public void cancel() {
+            if (segmentSearch != null) {
+                segmentSearch.cancel();
+                segmentSearch = null;
+            }
+            if (path == null) {
+                path = new ArrayList<>();
+            }
+        }
+    }
+
+    private Plan plan(int startTileX, int startTileY, int goalTileX, int goalTileY) {
+        ChunkEntry startChunk = chunkAt(startTileX, startTileY);
+        ChunkEntry goalChunk = chunkAt(goalTileX, goalTileY);
+        if (startChunk == null || goalChunk == null || startChunk == goalChunk) {
+            return null;
+        }
+        queries++;
+        int startLocalX = startTileX - startChunk.originX;
+        int startLocalY = startTileY - startChunk.originY;
+        int goalLocalX = goalTileX - goalChunk.originX;
+        int goalLocalY = goalTileY - goalChunk.originY;
+        if (!startChunk.isWalkable(startLocalX, startLocalY) || !goalChunk.isWalkable(goalLocalX, goalLocalY)) {
+            return NO_ROUTE;
+        }
+
+        int stamp = ++searchStamp;
+
+        // 终点区块：各入口节点到终点的代价
+        dijkstra(goalChunk, goalLocalX, goalLocalY, goalChunk.nodes);
+        for (PortalNode node : goalChunk.nodes) {
+            node.goalStamp = stamp;
+            node.goalCost = distanceTo(goalChunk, node.tileX - goalChunk.originX, node.tileY - goalChunk.originY);
+        }
+
+        // 起点区块：起点到各入口节点的代价作为初始开放列表
+        open.clear();
+        dijkstra(startChunk, startLocalX, startLocalY, startChunk.nodes);
+        for (PortalNode node : startChunk.nodes) {
+            int cost = distanceTo(startChunk, node.tileX - startChunk.originX, node.tileY - startChunk.originY);
+            if (cost == UNREACHABLE) {
+                continue;
+            }
+            node.stamp = stamp;
+            node.g = cost;
+            node.closed = false;
+            node.parent = null;
+            node.parentCrossing = false;
+            open.add(new OpenEntry(node, cost, cost + heuristic(node, goalTileX, goalTileY)));
+        }
+
+        int bestCost = UNREACHABLE;
+        PortalNode bestLast = null;
+        while (!open.isEmpty()) {
+            OpenEntry current = open.poll();
+            PortalNode node = current.node;
+            if (node.closed || current.g != node.g) {
+                continue;
+            }
+            if (current.f >= bestCost) {
+                break;
+            }
+            node.closed = true;
+            abstractExpansions++;
+            ensureIntraEdges(node.owner);
+
+            if (node.goalStamp == stamp && node.goalCost != UNREACHABLE && node.g + node.goalCost < bestCost) {
+                bestCost = node.g + node.goalCost;
+                bestLast = node;
+            }
+
+            for (Edge edge : node.edges) {
+                PortalNode next = edge.to;
+                if (next.stamp != stamp) {
+                    next.stamp = stamp;
+                    next.g = UNREACHABLE;
+                    next.closed = false;
+                }
+                int g = node.g + edge.cost;
+                if (!next.closed && g < next.g) {
+                    next.g = g;
+                    next.parent = node;
+                    next.parentCrossing = edge.crossing;
+                    open.add(new OpenEntry(next, g, g + heuristic(next, goalTileX, goalTileY)));
+                }
+            }
+        }
+        open.clear();
+
+        if (bestLast == null) {
+            return NO_ROUTE;
+        }
+        routesFound++;
+
+        int portalCount = 0;
+        for (PortalNode node = bestLast; node != null; node = node.parent) {
+            portalCount++;
+        }
+        Plan plan = new Plan(portalCount + 2);
+        plan.xs[0] = startTileX;
+        plan.ys[0] = startTileY;
+        plan.xs[portalCount + 1] = goalTileX;
+        plan.ys[portalCount + 1] = goalTileY;
+        plan.segmentChunks[portalCount] = goalChunk;
+        int i = portalCount;
+        for (PortalNode node = bestLast; node != null; node = node.parent) {
+            plan.xs[i] = node.tileX;
+            plan.ys[i] = node.tileY;
+            // 第 i-1 段：从父节点（或起点）到该节点
+            plan.segmentChunks[i - 1] = node.parent == null || !node.parentCrossing ? node.owner : null;
+            i--;
+        }
+        return plan;
+    }
+
+    private static void append(List<AStarPathfinder.Node> path, int tileX, int tileY) {
+        AStarPathfinder.Node node = new AStarPathfinder.Node(tileX, tileY);
+        node.parent = path.get(path.size() - 1);
+        path.add(node);
+    }
+
+    private int heuristic(PortalNode node, int goalTileX, int goalTileY) {
+        return AStarPathfinder.octileDistance(Math.abs(node.tileX - goalTileX), Math.abs(node.tileY - goalTileY));
+    }
+
+    private ChunkEntry chunkAt(int tileX, int tileY) {
+        return chunks.get(chunkKey(Math.floorDiv(tileX, chunkWidth), Math.floorDiv(tileY, chunkHeight)));
+    }
+
+    private static long chunkKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    // ---------------- 区块内 Dijkstra ----------------
+
+    /**
+     * 从区块内 (x, y) 出发做 Dijkstra（与A*相同的代价与不切角规则），所有目标节点确定后提前结束
+     */
+    private void dijkstra(ChunkEntry entry, int x, int y, List<PortalNode> targets) {
+        int generation = ++distGeneration;
+        int remaining = 0;
+        for (PortalNode target : targets) {
+            int localX = target.tileX - entry.originX;
+            int localY = target.tileY - entry.originY;
+            if (entry.isWalkable(localX, localY)) {
+                targetStamp[localY * chunkWidth + localX] = generation;
+                remaining++;
+            }
+        }
+
+        int heapSize = 0;
+        int start = y * chunkWidth + x;
+        dist[start] = 0;
+        distStamp[start] = generation;
+        heapSize = push(heapSize, 0, start);
+
+        while (heapSize > 0 && remaining > 0) {
+            long top = heap[0];
+            heapSize = pop(heapSize);
+            int cost = (int) (top >>> 32);
+            int index = (int) top;
+            if (cost > dist[index]) {
+                continue;
+            }
+            settledCells++;
+            if (targetStamp[index] == generation) {
+                remaining--;
+            }
+            int cx = index % chunkWidth;
+            int cy = index / chunkWidth;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx == 0 && dy == 0) continue;
+                    int nx = cx + dx;
+                    int ny = cy + dy;
+                    if (!entry.isWalkable(nx, ny)) continue;
+                    boolean diagonal = dx != 0 && dy != 0;
+                    if (diagonal && (!entry.isWalkable(cx + dx, cy) || !entry.isWalkable(cx, cy + dy))) continue;
+                    int next = ny * chunkWidth + nx;
+                    int nextCost = cost + (diagonal ? AStarPathfinder.DIAGONAL_COST : AStarPathfinder.STRAIGHT_COST);
+                    if (distStamp[next] != generation || nextCost < dist[next]) {
+                        dist[next] = nextCost;
+                        distStamp[next] = generation;
+                        heapSize = push(heapSize, nextCost, next);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 最近一次 dijkstra 的结果（未到达或未确定时为 UNREACHABLE）
+     * 提前结束时只有目标节点的代价是确定的，只对目标节点调用
+     */
+    private int distanceTo(ChunkEntry entry, int x, int y) {
+        if (!entry.isWalkable(x, y)) {
+            return UNREACHABLE;
+        }
+        int index = y * chunkWidth + x;
+        return distStamp[index] == distGeneration ? dist[index] : UNREACHABLE;
+    }
+
+    private int push(int size, int cost, int index) {
+        if (size == heap.length) {
+            heap = java.util.Arrays.copyOf(heap, size * 2);
+        }
+        long value = ((long) cost << 32) | index;
+        int i = size;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+        return size + 1;
+    }
+
+    private int pop(int size) {
+        int last = size - 1;
+        long value = heap[last];
+        int i = 0;
+        int half = last >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < last && heap[child + 1] < heap[child]) child++;
+            if (value <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+        return last;
+    }
+
+    // ---------------- 统计 ----------------
+
+    public synchronized int getChunkCount() {
+        return chunks.size();
+    }
+
+    public synchronized int getPortalNodeCount() {
+        int count = 0;
+        for (ChunkEntry entry : chunks.values()) {
+            count += entry.nodes.size();
+        }
+        return count;
+    }
+
+    /**
+     * 路径缓存失效判定用的搜索范围扩展：分层路径可能绕行到所经区块的任意位置
+     */
+    public int getInvalidationMargin() {
+        return Math.max(chunkWidth, chunkHeight);
+    }
+
+    /**
+     * 获取调试信息
+     */
+    public synchronized String getDebugInfo() {
+        int edges = 0;
+        for (ChunkEntry entry : chunks.values()) {
+            for (PortalNode node : entry.nodes) {
+                edges += node.edges.size();
+            }
+        }
+        return String.format("区块入口图: %d 区块, %d 入口节点, %d 条边, 边界扫描 %d 次 (平均 %.2fms), "
+                             + "区块内连边 %d 次 (平均 %.2fms), 查询 %d 次 (可达 %d, 平均展开 %.1f 入口), 细化 %d 段",
+                             chunks.size(), getPortalNodeCount(), edges, chunkBuilds,
+                             chunkBuilds > 0 ? buildNanos / 1_000_000.0 / chunkBuilds : 0.0,
+                             intraEdgeBuilds, intraEdgeBuilds > 0 ? intraEdgeNanos / 1_000_000.0 / intraEdgeBuilds : 0.0,
+                             queries, routesFound, queries > 0 ? (double) abstractExpansions / queries : 0.0,
+                             refinedSegments);
+    }
+}
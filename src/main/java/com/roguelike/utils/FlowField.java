@@ -2,313 +2,758 @@ package com.roguelike.utils;
 
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * 流场寻路算法核心类
  * 从 FlowFieldPathfinding.java 中提取，用于游戏中的敌人AI寻路
+ *
+ * 流场覆盖世界网格中的一个矩形窗口（原点 originX/originY，单位为格），从目标格做一次 Dijkstra 得到集成场，
+ * 每格的方向指向最短路径上的下一格。所有朝同一目标移动的敌人只需在自身位置采样方向，不再各自寻路。
+ *
+ * 数据全部存放在按行优先的一维数组中（下标 = y * width + x），方向按 0~7 编码原地保存；
+ * 集成场使用按代价分桶的 Dial 队列（边权只有 10/14 两种整数），重算过程不分配对象。
+ * 方向始终指向最短路径树中的父格，因此单格通行性变化时可以只修复受影响的子树，而不必整场重算。
+ * 目标移动没有增量路径：即使只移动一格，开阔地上几乎每个格子的代价都会改变（沿移动方向 ±10，斜向 ±4），
+ * 精确修复同样要改写整个窗口，不比桶队列整场重算便宜，因此目标换格时整场重算。
  */
 public class FlowField {
-    private int gridSize;
-    private int cellSize;
+    // 移动代价（正交10，对角14，整数近似 √2）
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final byte NO_DIRECTION = -1;
+
+    // 8 个方向，下标 i 与 7 - i 互为反方向
+    private static final int[] DIR_X = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] DIR_Y = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DIR_COST = {
+        DIAGONAL_COST, STRAIGHT_COST, DIAGONAL_COST, STRAIGHT_COST,
+        STRAIGHT_COST, DIAGONAL_COST, STRAIGHT_COST, DIAGONAL_COST
+    };
+    private static final float[] DIR_UNIT_X = new float[8];
+    private static final float[] DIR_UNIT_Y = new float[8];
+
+    static {
+        for (int d = 0; d < 8; d++) {
+            double length = Math.sqrt(DIR_X[d] * DIR_X[d] + DIR_Y[d] * DIR_Y[d]);
+            DIR_UNIT_X[d] = (float) (DIR_X[d] / length);
+            DIR_UNIT_Y[d] = (float) (DIR_Y[d] / length);
+        }
+    }
+
+    // 通行性修复涉及的格子超过 1/8 时直接整场重算
+    private static final int FULL_REBUILD_DIVISOR = 8;
+
+    private int width;
+    private int height;
+    private int cellCount;
+    private final int cellSize;
+    private int originX, originY;
     private int targetX, targetY;
-    private int[][] costField;
-    private int[][] integrationField;
-    private Vector2D[][] flowField;
-    private boolean[][] obstacles;
-    
+    private boolean fieldReady = false;
+
+    private boolean[] obstacles;
+    private int[] integrationField;
+    private byte[] directions;
+
+    // Dial 桶队列：每个代价一个桶，桶内为侵入式双向链表
+    private int[] bucketHead = new int[0];
+    private int[] queueNext;
+    private int[] queuePrev;
+    private int[] queuedBucket;
+    private int currentBucket = 0;
+    private int maxBucket = -1;
+
+    // 修复过程的临时数据（代数标记，避免每次清空）
+    private int[] cellStack;
+    private int[] cellMark;
+    private int markGeneration = 0;
+    private int[] touchedCells;
+    private int[] touchedMark;
+    private int touchedGeneration = 0;
+    private int touchedCount = 0;
+
+    // 统计信息
+    private long fullRebuilds = 0;
+    private long incrementalRepairs = 0;
+    private int lastRepairCells = 0;
+
     public FlowField(int gridSize, int cellSize) {
-        this.gridSize = gridSize;
+        this(gridSize, gridSize, cellSize);
+    }
+
+    public FlowField(int width, int height, int cellSize) {
         this.cellSize = cellSize;
-        this.costField = new int[gridSize][gridSize];
-        this.integrationField = new int[gridSize][gridSize];
-        this.flowField = new Vector2D[gridSize][gridSize];
-        this.obstacles = new boolean[gridSize][gridSize];
-        
+        allocate(width, height);
+
         // 初始化流场
         initialize();
     }
-    
+
+    private void allocate(int width, int height) {
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        this.cellCount = this.width * this.height;
+        this.obstacles = new boolean[cellCount];
+        this.integrationField = new int[cellCount];
+        this.directions = new byte[cellCount];
+        this.queueNext = new int[cellCount];
+        this.queuePrev = new int[cellCount];
+        this.queuedBucket = new int[cellCount];
+        this.cellStack = new int[cellCount];
+        this.cellMark = new int[cellCount];
+        this.touchedCells = new int[cellCount];
+        this.touchedMark = new int[cellCount];
+        Arrays.fill(queuedBucket, -1);
+    }
+
     private void initialize() {
-        // 初始化成本场（所有单元格成本为1）
-        for (int y = 0; y < gridSize; y++) {
-            for (int x = 0; x < gridSize; x++) {
-                costField[y][x] = 1;
-                integrationField[y][x] = Integer.MAX_VALUE;
-                flowField[y][x] = new Vector2D(0, 0);
-            }
-        }
-        
         // 设置默认目标
-        setTarget(gridSize / 2, gridSize / 2);
+        setTarget(width / 2, height / 2);
         updateFlowField();
     }
-    
+
+    /**
+     * 调整窗口尺寸（格）；尺寸变化时清空障碍与流场
+     */
+    public void resize(int width, int height) {
+        if (width == this.width && height == this.height) return;
+        allocate(width, height);
+        initialize();
+    }
+
+    /**
+     * 设置窗口左上角在世界网格中的坐标（格）；窗口移动后需要重新设置障碍并整场重算
+     */
+    public void setOrigin(int originX, int originY) {
+        if (originX != this.originX || originY != this.originY) {
+            this.originX = originX;
+            this.originY = originY;
+            fieldReady = false;
+        }
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * 设置目标格（需要随后调用 updateFlowField 整场重算）
+     */
     public void setTarget(int x, int y) {
         if (isValidCell(x, y)) {
             this.targetX = x;
             this.targetY = y;
         }
     }
-    
+
     public int getTargetX() {
         return targetX;
     }
-    
+
     public int getTargetY() {
         return targetY;
     }
-    
+
     public void setTargetFromWorldPos(double worldX, double worldY) {
-        int x = (int) (worldX / cellSize);
-        int y = (int) (worldY / cellSize);
-        setTarget(x, y);
+        setTarget(worldToCellX(worldX), worldToCellY(worldY));
+    }
+
+    /**
+     * 世界坐标是否落在流场窗口内
+     */
+    public boolean containsWorldPos(double worldX, double worldY) {
+        return isValidCell(worldToCellX(worldX), worldToCellY(worldY));
     }
-    
+
     public void toggleObstacle(int x, int y) {
         if (isValidCell(x, y)) {
-            obstacles[y][x] = !obstacles[y][x];
-            costField[y][x] = obstacles[y][x] ? 255 : 1;
+            applyObstacleChange(x, y, !obstacles[index(x, y)]);
         }
     }
-    
+
+    /**
+     * 直接设置障碍（不修复流场，需要随后调用 updateFlowField；增量修改请使用 applyObstacleChange）
+     */
     public void setObstacle(int x, int y, boolean isObstacle) {
         if (isValidCell(x, y)) {
-            obstacles[y][x] = isObstacle;
-            costField[y][x] = isObstacle ? 255 : 1;
+            obstacles[index(x, y)] = isObstacle;
+            fieldReady = false;
         }
     }
-    
+
     public void setObstacleFromWorldPos(double worldX, double worldY, boolean isObstacle) {
-        int x = (int) (worldX / cellSize);
-        int y = (int) (worldY / cellSize);
-        setObstacle(x, y, isObstacle);
+        setObstacle(worldToCellX(worldX), worldToCellY(worldY), isObstacle);
     }
-    
+
+    /**
+     * 按行优先的可通行数组整体设置障碍（长度至少为 width * height，不修复流场）
+     */
+    public void setPassability(boolean[] passable) {
+        for (int i = 0; i < cellCount; i++) {
+            obstacles[i] = !passable[i];
+        }
+        fieldReady = false;
+    }
+
+    /**
+     * 按行优先的可通行数组同步障碍：变化的格子较少时逐格增量修复，否则整场重算
+     * @return 通行性发生变化的格子数
+     */
+    public int updatePassability(boolean[] passable) {
+        int changed = 0;
+        for (int i = 0; i < cellCount; i++) {
+            if (obstacles[i] == passable[i]) {
+                changed++;
+            }
+        }
+        if (changed == 0) {
+            return 0;
+        }
+
+        if (!fieldReady || changed > cellCount / FULL_REBUILD_DIVISOR) {
+            setPassability(passable);
+            updateFlowField();
+            return changed;
+        }
+        for (int i = 0; i < cellCount; i++) {
+            if (obstacles[i] == passable[i]) {
+                applyObstacleChange(i % width, i / width, !passable[i]);
+            }
+        }
+        return changed;
+    }
+
+    public boolean isObstacle(int x, int y) {
+        return !isValidCell(x, y) || obstacles[index(x, y)];
+    }
+
+    /**
+     * 获取集成值（到目标的代价，正交一步为10），不可达时返回 -1
+     */
+    public int getIntegration(int x, int y) {
+        if (!isValidCell(x, y)) return -1;
+        int value = integrationField[index(x, y)];
+        return value == UNREACHABLE ? -1 : value;
+    }
+
+    /**
+     * 整场重算集成场和方向
+     */
     public void updateFlowField() {
-        calculateIntegrationField();
-        calculateFlowField();
-    }
-    
-    private void calculateIntegrationField() {
-        // 重置集成场
-        for (int y = 0; y < gridSize; y++) {
-            for (int x = 0; x < gridSize; x++) {
-                integrationField[y][x] = Integer.MAX_VALUE;
+        Arrays.fill(integrationField, UNREACHABLE);
+        Arrays.fill(directions, NO_DIRECTION);
+
+        // 目标格即使被标为障碍也作为起点，玩家可能贴着墙边
+        int target = index(targetX, targetY);
+        integrationField[target] = 0;
+        push(target, 0);
+        propagate(false);
+
+        for (int i = 0; i < cellCount; i++) {
+            computeDirection(i);
+        }
+        fieldReady = true;
+        fullRebuilds++;
+        lastRepairCells = cellCount;
+    }
+
+    /**
+     * 修改单格通行性并增量修复流场
+     * 父边失效的格子（该格本身及对角切角受影响的相邻格）连同其子树重置后从外围重新传播；
+     * 新打开的边从该格及相邻格向外做只降不升的松弛
+     */
+    public void applyObstacleChange(int x, int y, boolean isObstacle) {
+        if (!isValidCell(x, y)) return;
+        int cell = index(x, y);
+        if (obstacles[cell] == isObstacle) return;
+        obstacles[cell] = isObstacle;
+        if (!fieldReady) return;
+
+        beginRepair();
+        int target = index(targetX, targetY);
+
+        // 收集父边失效的格子及其子树
+        int affected = 0;
+        for (int d = -1; d < 8; d++) {
+            int cx = d < 0 ? x : x + DIR_X[d];
+            int cy = d < 0 ? y : y + DIR_Y[d];
+            if (!isValidCell(cx, cy)) continue;
+            int c = index(cx, cy);
+            if (c == target || cellMark[c] == markGeneration) continue;
+            int dir = directions[c];
+            if (dir == NO_DIRECTION) continue;
+            // 父格到本格的边（父格方向为 7 - dir）
+            if (!edgeOpen(cx + DIR_X[dir], cy + DIR_Y[dir], 7 - dir)) {
+                affected = collectSubtree(c, affected);
+            }
+        }
+
+        if (affected > cellCount / FULL_REBUILD_DIVISOR) {
+            updateFlowField();
+            return;
+        }
+
+        for (int i = 0; i < affected; i++) {
+            int c = cellStack[i];
+            integrationField[c] = UNREACHABLE;
+            directions[c] = NO_DIRECTION;
+            touch(c);
+        }
+        for (int i = 0; i < affected; i++) {
+            seedFromNeighbors(cellStack[i]);
+        }
+
+        // 该格及相邻格的边可能新打开：尝试从周围取更小的代价
+        for (int d = -1; d < 8; d++) {
+            int cx = d < 0 ? x : x + DIR_X[d];
+            int cy = d < 0 ? y : y + DIR_Y[d];
+            if (!isValidCell(cx, cy)) continue;
+            int c = index(cx, cy);
+            touch(c);
+            if (c != target && cellMark[c] != markGeneration) {
+                seedFromNeighbors(c);
+            }
+        }
+
+        propagate(true);
+        finishRepair(affected);
+    }
+
+    /**
+     * 从相邻格计算 cell 的候选代价，优于当前值时入队
+     * 受影响的格子在播种前都已重置为不可达，因此这里读到的有限值都来自不受影响的格子或已播种的上界
+     */
+    private void seedFromNeighbors(int cell) {
+        if (obstacles[cell]) return;
+        int x = cell % width;
+        int y = cell / width;
+        int best = integrationField[cell];
+        for (int d = 0; d < 8; d++) {
+            int px = x + DIR_X[d];
+            int py = y + DIR_Y[d];
+            if (!isValidCell(px, py)) continue;
+            int p = index(px, py);
+            int value = integrationField[p];
+            if (value == UNREACHABLE) continue;
+            if (!edgeOpen(px, py, 7 - d)) continue;
+            int cost = value + DIR_COST[d];
+            if (cost < best) {
+                best = cost;
+            }
+        }
+        if (best < integrationField[cell]) {
+            integrationField[cell] = best;
+            push(cell, best);
+            touch(cell);
+        }
+    }
+
+    /**
+     * 收集 root 在最短路径树中的子树（方向指向父格），追加到 cellStack[start..]，并打上当前标记
+     * @return 追加后的长度
+     */
+    private int collectSubtree(int root, int start) {
+        int count = start;
+        cellMark[root] = markGeneration;
+        cellStack[count++] = root;
+        int read = start;
+        while (read < count) {
+            int c = cellStack[read++];
+            int x = c % width;
+            int y = c / width;
+            for (int d = 0; d < 8; d++) {
+                int wx = x + DIR_X[d];
+                int wy = y + DIR_Y[d];
+                if (!isValidCell(wx, wy)) continue;
+                int w = index(wx, wy);
+                // w 的方向指回 c 即为 c 的子节点
+                if (cellMark[w] != markGeneration && directions[w] == 7 - d) {
+                    cellMark[w] = markGeneration;
+                    cellStack[count++] = w;
+                }
             }
         }
-        
-        // 使用Dijkstra算法计算集成场
-        PriorityQueue<Cell> queue = new PriorityQueue<>();
-        integrationField[targetY][targetX] = 0;
-        queue.add(new Cell(targetX, targetY, 0));
-        
-        while (!queue.isEmpty()) {
-            Cell current = queue.poll();
-            
-            for (int dy = -1; dy <= 1; dy++) {
-                for (int dx = -1; dx <= 1; dx++) {
-                    if (dx == 0 && dy == 0) continue;
-                    
-                    int nx = current.x + dx;
-                    int ny = current.y + dy;
-                    
-                    if (isValidCell(nx, ny) && !obstacles[ny][nx]) {
-                        // 对角线移动成本更高（约1.4倍）
-                        int moveCost = (dx != 0 && dy != 0) ? 
-                            (int)(costField[ny][nx] * 1.4) : costField[ny][nx];
-                        
-                        int newCost = integrationField[current.y][current.x] + moveCost;
-                        
-                        if (newCost < integrationField[ny][nx]) {
-                            integrationField[ny][nx] = newCost;
-                            queue.add(new Cell(nx, ny, newCost));
-                        }
+        return count;
+    }
+
+    /**
+     * Dijkstra 主循环：按代价从桶队列取格子并松弛相邻格
+     */
+    private void propagate(boolean trackTouched) {
+        int cell;
+        while ((cell = pop()) >= 0) {
+            int x = cell % width;
+            int y = cell / width;
+            int base = integrationField[cell];
+            for (int d = 0; d < 8; d++) {
+                if (!edgeOpen(x, y, d)) continue;
+                int n = cell + DIR_Y[d] * width + DIR_X[d];
+                int cost = base + DIR_COST[d];
+                if (cost < integrationField[n]) {
+                    integrationField[n] = cost;
+                    push(n, cost);
+                    if (trackTouched) {
+                        touch(n);
                     }
                 }
             }
         }
     }
-    
-    private void calculateFlowField() {
-        for (int y = 0; y < gridSize; y++) {
-            for (int x = 0; x < gridSize; x++) {
-                if (obstacles[y][x] || integrationField[y][x] == Integer.MAX_VALUE) {
-                    flowField[y][x] = new Vector2D(0, 0);
-                    continue;
+
+    /**
+     * 能否从 (x, y) 沿方向 d 走到相邻格：目标格在窗口内且可通行；对角移动不允许切过障碍的拐角
+     */
+    private boolean edgeOpen(int x, int y, int d) {
+        int nx = x + DIR_X[d];
+        int ny = y + DIR_Y[d];
+        if (!isValidCell(nx, ny) || obstacles[index(nx, ny)]) return false;
+        if (DIR_X[d] != 0 && DIR_Y[d] != 0) {
+            return !obstacles[index(nx, y)] && !obstacles[index(x, ny)];
+        }
+        return true;
+    }
+
+    /**
+     * 方向指向最短路径上的父格（相邻格代价 + 边代价最小者）
+     */
+    private void computeDirection(int cell) {
+        directions[cell] = NO_DIRECTION;
+        if (integrationField[cell] == UNREACHABLE || cell == index(targetX, targetY)) {
+            return;
+        }
+        int x = cell % width;
+        int y = cell / width;
+        int best = UNREACHABLE;
+        for (int d = 0; d < 8; d++) {
+            int px = x + DIR_X[d];
+            int py = y + DIR_Y[d];
+            if (!isValidCell(px, py)) continue;
+            int value = integrationField[index(px, py)];
+            if (value == UNREACHABLE || !edgeOpen(px, py, 7 - d)) continue;
+            int cost = value + DIR_COST[d];
+            if (cost < best) {
+                best = cost;
+                directions[cell] = (byte) d;
+            }
+        }
+    }
+
+    private void beginRepair() {
+        if (++markGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(cellMark, 0);
+            markGeneration = 1;
+        }
+        if (++touchedGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(touchedMark, 0);
+            touchedGeneration = 1;
+        }
+        touchedCount = 0;
+    }
+
+    private void touch(int cell) {
+        if (touchedMark[cell] != touchedGeneration) {
+            touchedMark[cell] = touchedGeneration;
+            touchedCells[touchedCount++] = cell;
+        }
+    }
+
+    /**
+     * 重算被修改格子及其相邻格的方向
+     */
+    private void finishRepair(int affected) {
+        if (++markGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(cellMark, 0);
+            markGeneration = 1;
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            int c = touchedCells[i];
+            int x = c % width;
+            int y = c / width;
+            for (int d = -1; d < 8; d++) {
+                int nx = d < 0 ? x : x + DIR_X[d];
+                int ny = d < 0 ? y : y + DIR_Y[d];
+                if (!isValidCell(nx, ny)) continue;
+                int n = index(nx, ny);
+                if (cellMark[n] != markGeneration) {
+                    cellMark[n] = markGeneration;
+                    computeDirection(n);
                 }
-                
-                // 使用梯度计算获得更平滑的方向
-                Vector2D gradient = calculateGradient(x, y);
-                flowField[y][x] = gradient.normalize();
             }
         }
+        incrementalRepairs++;
+        lastRepairCells = Math.max(affected, touchedCount);
     }
-    
-    private Vector2D calculateGradient(int x, int y) {
-        // 计算集成场的梯度
-        double dx = 0, dy = 0;
-        
-        // 使用中心差分法计算梯度
-        if (x > 0 && x < gridSize - 1) {
-            dx = (integrationField[y][x + 1] - integrationField[y][x - 1]) / 2.0;
-        } else if (x == 0) {
-            dx = integrationField[y][x + 1] - integrationField[y][x];
-        } else if (x == gridSize - 1) {
-            dx = integrationField[y][x] - integrationField[y][x - 1];
-        }
-        
-        if (y > 0 && y < gridSize - 1) {
-            dy = (integrationField[y + 1][x] - integrationField[y - 1][x]) / 2.0;
-        } else if (y == 0) {
-            dy = integrationField[y + 1][x] - integrationField[y][x];
-        } else if (y == gridSize - 1) {
-            dy = integrationField[y][x] - integrationField[y - 1][x];
-        }
-        
-        // 梯度指向成本增加最快的方向，我们需要相反方向
-        return new Vector2D(-dx, -dy);
-    }
-    
-    public Vector2D getVector(int x, int y) {
-        if (isValidCell(x, y)) {
-            return flowField[y][x];
-        }
-        
-        // 如果超出范围，返回朝向目标的方向
-        if (targetX >= 0 && targetY >= 0) {
-            double dx = targetX - x;
-            double dy = targetY - y;
-            double length = Math.sqrt(dx * dx + dy * dy);
-            if (length > 0) {
-                return new Vector2D(dx / length, dy / length);
+
+    private void push(int cell, int cost) {
+        if (queuedBucket[cell] >= 0) {
+            unlink(cell);
+        }
+        if (cost >= bucketHead.length) {
+            int oldLength = bucketHead.length;
+            bucketHead = Arrays.copyOf(bucketHead, Math.max(cost + 1, oldLength * 2));
+            Arrays.fill(bucketHead, oldLength, bucketHead.length, -1);
+        }
+        int head = bucketHead[cost];
+        queueNext[cell] = head;
+        queuePrev[cell] = -1;
+        if (head >= 0) {
+            queuePrev[head] = cell;
+        }
+        bucketHead[cost] = cell;
+        queuedBucket[cell] = cost;
+
+        if (maxBucket < 0) {
+            currentBucket = cost;
+            maxBucket = cost;
+        } else {
+            if (cost < currentBucket) currentBucket = cost;
+            if (cost > maxBucket) maxBucket = cost;
+        }
+    }
+
+    private int pop() {
+        while (currentBucket <= maxBucket) {
+            int cell = bucketHead[currentBucket];
+            if (cell >= 0) {
+                unlink(cell);
+                return cell;
             }
+            currentBucket++;
         }
-        
-        return new Vector2D(0, 0);
+        currentBucket = 0;
+        maxBucket = -1;
+        return -1;
+    }
+
+    private void unlink(int cell) {
+        int bucket = queuedBucket[cell];
+        int prev = queuePrev[cell];
+        int next = queueNext[cell];
+        if (prev >= 0) {
+            queueNext[prev] = next;
+        } else {
+            bucketHead[bucket] = next;
+        }
+        if (next >= 0) {
+            queuePrev[next] = prev;
+        }
+        queuedBucket[cell] = -1;
+    }
+
+    public Vector2D getVector(int x, int y) {
+        return new Vector2D(directionX(x, y), directionY(x, y));
     }
-    
+
+    /**
+     * 世界坐标处的流动方向（创建新向量；逐步采样请使用 sampleDirection）
+     */
     public Vector2D getVectorAtWorldPos(double worldX, double worldY) {
-        // 使用双线性插值获得更平滑的向量
-        return getInterpolatedVector(worldX, worldY);
-    }
-    
-    private Vector2D getInterpolatedVector(double worldX, double worldY) {
-        // 计算精确的网格坐标
-        double gridX = worldX / cellSize;
-        double gridY = worldY / cellSize;
-        
+        double[] out = new double[2];
+        sampleDirection(worldX, worldY, out);
+        return new Vector2D(out[0], out[1]);
+    }
+
+    /**
+     * 在世界坐标处采样流动方向（双线性插值后的单位向量），写入 out[0]、out[1]，不创建对象
+     * @return 是否得到非零方向
+     */
+    public boolean sampleDirection(double worldX, double worldY, double[] out) {
+        // 计算精确的网格坐标（以格中心为采样点）
+        double gridX = worldX / cellSize - originX - 0.5;
+        double gridY = worldY / cellSize - originY - 0.5;
+
         // 获取四个相邻格子的坐标
         int x1 = (int) Math.floor(gridX);
         int y1 = (int) Math.floor(gridY);
         int x2 = x1 + 1;
         int y2 = y1 + 1;
-        
+
         // 计算插值权重
         double fx = gridX - x1;
         double fy = gridY - y1;
-        
-        // 获取四个角点的向量
-        Vector2D v11 = getVector(x1, y1);
-        Vector2D v12 = getVector(x1, y2);
-        Vector2D v21 = getVector(x2, y1);
-        Vector2D v22 = getVector(x2, y2);
-        
-        // 双线性插值
-        Vector2D v1 = interpolateVectors(v11, v12, fy);
-        Vector2D v2 = interpolateVectors(v21, v22, fy);
-        Vector2D result = interpolateVectors(v1, v2, fx);
-        
-        return result.normalize();
-    }
-    
-    private Vector2D interpolateVectors(Vector2D v1, Vector2D v2, double t) {
-        // 向量插值，考虑向量的方向性
-        if (v1.length() == 0 && v2.length() == 0) {
-            return new Vector2D(0, 0);
+
+        // 双线性插值（方向按编码查表，不创建中间向量）
+        double w11 = (1 - fx) * (1 - fy);
+        double w21 = fx * (1 - fy);
+        double w12 = (1 - fx) * fy;
+        double w22 = fx * fy;
+        double vx = directionX(x1, y1) * w11 + directionX(x2, y1) * w21
+                  + directionX(x1, y2) * w12 + directionX(x2, y2) * w22;
+        double vy = directionY(x1, y1) * w11 + directionY(x2, y1) * w21
+                  + directionY(x1, y2) * w12 + directionY(x2, y2) * w22;
+
+        double length = Math.sqrt(vx * vx + vy * vy);
+        if (length > 1e-6) {
+            out[0] = vx / length;
+            out[1] = vy / length;
+            return true;
         }
-        
-        // 使用球面线性插值（SLERP）的简化版本
-        double x = v1.x + t * (v2.x - v1.x);
-        double y = v1.y + t * (v2.y - v1.y);
-        
-        return new Vector2D(x, y);
+
+        // 相反方向相互抵消时退回所在格自身的方向
+        int cellX = worldToCellX(worldX);
+        int cellY = worldToCellY(worldY);
+        out[0] = directionX(cellX, cellY);
+        out[1] = directionY(cellX, cellY);
+        return out[0] != 0 || out[1] != 0;
+    }
+
+    /**
+     * 格子方向的 X 分量；超出范围时朝向目标
+     */
+    private double directionX(int x, int y) {
+        if (isValidCell(x, y)) {
+            int d = directions[index(x, y)];
+            return d == NO_DIRECTION ? 0 : DIR_UNIT_X[d];
+        }
+        double dx = targetX - x;
+        double dy = targetY - y;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        return length > 0 ? dx / length : 0;
+    }
+
+    /**
+     * 格子方向的 Y 分量；超出范围时朝向目标
+     */
+    private double directionY(int x, int y) {
+        if (isValidCell(x, y)) {
+            int d = directions[index(x, y)];
+            return d == NO_DIRECTION ? 0 : DIR_UNIT_Y[d];
+        }
+        double dx = targetX - x;
+        double dy = targetY - y;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        return length > 0 ? dy / length : 0;
+    }
+
+    private int worldToCellX(double worldX) {
+        return (int) Math.floor(worldX / cellSize) - originX;
+    }
+
+    private int worldToCellY(double worldY) {
+        return (int) Math.floor(worldY / cellSize) - originY;
     }
-    
+
+    private int index(int x, int y) {
+        return y * width + x;
+    }
+
     private boolean isValidCell(int x, int y) {
-        return x >= 0 && x < gridSize && y >= 0 && y < gridSize;
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * 整场重算次数
+     */
+    public long getFullRebuildCount() {
+        return fullRebuilds;
+    }
+
+    /**
+     * 增量修复次数
+     */
+    public long getIncrementalRepairCount() {
+        return incrementalRepairs;
     }
-    
+
+    /**
+     * 获取调试信息
+     */
+    public String getDebugInfo() {
+        return String.format("流场: %dx%d 格, 原点(%d,%d), 目标(%d,%d), 整场重算 %d 次, 增量修复 %d 次, 上次涉及 %d 格",
+                             width, height, originX, originY, targetX, targetY,
+                             fullRebuilds, incrementalRepairs, lastRepairCells);
+    }
+
     public void draw(GraphicsContext gc) {
+        double baseX = (double) originX * cellSize;
+        double baseY = (double) originY * cellSize;
+
         // 绘制集成场（背景色）
-        for (int y = 0; y < gridSize; y++) {
-            for (int x = 0; x < gridSize; x++) {
-                if (obstacles[y][x]) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = index(x, y);
+                if (obstacles[i]) {
                     gc.setFill(Color.BLACK);
-                    gc.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                    gc.fillRect(baseX + x * cellSize, baseY + y * cellSize, cellSize, cellSize);
                 } else {
                     // 根据集成场值设置颜色
-                    double intensity = 1.0 - Math.min(integrationField[y][x] / 50.0, 1.0);
+                    double intensity = 1.0 - Math.min(integrationField[i] / (50.0 * STRAIGHT_COST), 1.0);
                     gc.setFill(Color.color(intensity, intensity, 1.0));
-                    gc.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                    gc.fillRect(baseX + x * cellSize, baseY + y * cellSize, cellSize, cellSize);
                 }
             }
         }
-        
+
         // 绘制流场方向（箭头）
         gc.setStroke(Color.RED);
         gc.setLineWidth(1);
-        
+
         int arrowSpacing = 2; // 减少箭头密度以提高性能
-        for (int y = 0; y < gridSize; y += arrowSpacing) {
-            for (int x = 0; x < gridSize; x += arrowSpacing) {
-                if (!obstacles[y][x] && integrationField[y][x] != Integer.MAX_VALUE) {
-                    Vector2D vec = flowField[y][x];
-                    if (vec.length() > 0) {
-                        double centerX = x * cellSize + cellSize / 2;
-                        double centerY = y * cellSize + cellSize / 2;
-                        
-                        double endX = centerX + vec.x * cellSize * 0.4;
-                        double endY = centerY + vec.y * cellSize * 0.4;
-                        
-                        gc.strokeLine(centerX, centerY, endX, endY);
-                        
-                        // 绘制箭头头部
-                        double angle = Math.atan2(vec.y, vec.x);
-                        double arrowLength = cellSize * 0.2;
-                        
-                        double arrowX1 = endX - arrowLength * Math.cos(angle - Math.PI / 6);
-                        double arrowY1 = endY - arrowLength * Math.sin(angle - Math.PI / 6);
-                        double arrowX2 = endX - arrowLength * Math.cos(angle + Math.PI / 6);
-                        double arrowY2 = endY - arrowLength * Math.sin(angle + Math.PI / 6);
-                        
-                        gc.strokeLine(endX, endY, arrowX1, arrowY1);
-                        gc.strokeLine(endX, endY, arrowX2, arrowY2);
-                    }
+        for (int y = 0; y < height; y += arrowSpacing) {
+            for (int x = 0; x < width; x += arrowSpacing) {
+                int d = directions[index(x, y)];
+                if (d != NO_DIRECTION) {
+                    double centerX = baseX + x * cellSize + cellSize / 2;
+                    double centerY = baseY + y * cellSize + cellSize / 2;
+
+                    double endX = centerX + DIR_UNIT_X[d] * cellSize * 0.4;
+                    double endY = centerY + DIR_UNIT_Y[d] * cellSize * 0.4;
+
+                    gc.strokeLine(centerX, centerY, endX, endY);
+
+                    // 绘制箭头头部
+                    double angle = Math.atan2(DIR_UNIT_Y[d], DIR_UNIT_X[d]);
+                    double arrowLength = cellSize * 0.2;
+
+                    double arrowX1 = endX - arrowLength * Math.cos(angle - Math.PI / 6);
+                    double arrowY1 = endY - arrowLength * Math.sin(angle - Math.PI / 6);
+                    double arrowX2 = endX - arrowLength * Math.cos(angle + Math.PI / 6);
+                    double arrowY2 = endY - arrowLength * Math.sin(angle + Math.PI / 6);
+
+                    gc.strokeLine(endX, endY, arrowX1, arrowY1);
+                    gc.strokeLine(endX, endY, arrowX2, arrowY2);
                 }
             }
         }
-        
+
         // 绘制目标点
         gc.setFill(Color.GREEN);
-        gc.fillRect(targetX * cellSize, targetY * cellSize, cellSize, cellSize);
+        gc.fillRect(baseX + targetX * cellSize, baseY + targetY * cellSize, cellSize, cellSize);
     }
-    
+
     /**
      * 二维向量类
      */
     public static class Vector2D {
         public double x, y;
-        
+
         public Vector2D(double x, double y) {
             this.x = x;
             this.y = y;
         }
-        
+
         public double length() {
             return Math.sqrt(x * x + y * y);
         }
-        
+
         public Vector2D normalize() {
             double len = length();
             if (len > 0) {
@@ -316,28 +761,9 @@ public class FlowField {
             }
             return new Vector2D(0, 0);
         }
-        
+
         public Vector2D multiply(double scalar) {
             return new Vector2D(x * scalar, y * scalar);
         }
     }
-    
-    /**
-     * 用于优先级队列的单元格类
-     */
-    private static class Cell implements Comparable<Cell> {
-        public int x, y;
-        public int cost;
-        
-        public Cell(int x, int y, int cost) {
-            this.x = x;
-            this.y = y;
-            this.cost = cost;
-        }
-        
-        @Override
-        public int compareTo(Cell other) {
-            return Integer.compare(this.cost, other.cost);
-        }
-    }
 }
@@ -0,0 +1,442 @@
+package com.roguelike.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 跳点搜索（Jump Point Search）寻路
+ * 与 AStarPathfinder 使用相同的 MapInterface、搜索窗口和线程工作区，返回同样的逐格路径；
+ * 开阔区域内沿直线和对角线连续“跳跃”，只有遇到强制邻居或目标时才把格子放入开放列表，
+ * 避免普通A*在空地上展开大量代价相同的对称节点。
+ * 对角移动规则与 AStarPathfinder 一致：两侧正交格都可通行时才允许斜走（不切角），因此两者的路径代价相同。
+ */
+public class JumpPointPathfinder {
+
+    // expand 的返回值
+    private static final int SEARCH_FAILED = 0;
+    private static final int SEARCH_FOUND = 1;
+    private static final int SEARCH_SUSPENDED = 2;
+
+    // 分帧预算折算：跳跃扫描一格只做几次通行性查询、没有堆操作，约8格的耗时相当于A*展开一个节点
+    private static final int SCANNED_CELLS_PER_NODE = 8;
+
+    private final AStarPathfinder.MapInterface map;
+    private final int windowMargin; // 搜索窗口扩展（瓦片）
+
+    /**
+     * 构造函数
+     * @param map 地图接口实现
+     */
+    public JumpPointPathfinder(AStarPathfinder.MapInterface map) {
+        this(map, AStarPathfinder.SEARCH_WINDOW_MARGIN);
+    }
+
+    /**
+     * 构造函数，指定搜索窗口扩展（含义同 AStarPathfinder）
+     */
+    JumpPointPathfinder(AStarPathfinder.MapInterface map, int windowMargin) {
+        this.map = map;
+        this.windowMargin = windowMargin;
+    }
+
+    /**
+     * 搜索窗口扩展（瓦片）
+     */
+    int getWindowMargin() {
+        return windowMargin;
+    }
+
+    /**
+     * 使用跳点搜索寻找从起点到终点的路径
+     * @return 路径节点列表（包含跳点之间的每一格），如果找不到路径则返回空列表
+     */
+    public List<AStarPathfinder.Node> findPath(int startX, int startY, int endX, int endY) {
+        List<AStarPathfinder.Node> trivial = trivialPath(startX, startY, endX, endY);
+        if (trivial != null) {
+            return trivial;
+        }
+
+        AStarPathfinder.SearchWorkspace ws = AStarPathfinder.workspace();
+        int goal = beginSearch(ws, startX, startY, endX, endY);
+        if (expand(ws, goal, Integer.MAX_VALUE) == SEARCH_FOUND) {
+            return reconstructPath(ws, goal);
+        }
+        // 没有找到路径
+        return new ArrayList<>();
+    }
+
+    /**
+     * 开始一次可分帧执行的跳点搜索，规则与 AStarPathfinder.beginSearch 相同
+     * 预算按展开的跳点数加扫描格子折算的节点数计算（见 SCANNED_CELLS_PER_NODE），
+     * 开阔区域内一次展开可能扫描很多格子，只按跳点计费会低估每步的耗时
+     * @return 搜索句柄；起终点无效、重合或终点不可通行时返回已完成的句柄
+     */
+    public AStarPathfinder.Search beginSearch(int startX, int startY, int endX, int endY) {
+        List<AStarPathfinder.Node> trivial = trivialPath(startX, startY, endX, endY);
+        if (trivial != null) {
+            return AStarPathfinder.completed(trivial);
+        }
+        AStarPathfinder.SearchWorkspace ws = AStarPathfinder.SearchWorkspace.acquire();
+        return new JumpPointSearch(ws, beginSearch(ws, startX, startY, endX, endY));
+    }
+
+    /**
+     * 不需要搜索的情况：起终点无效、重合或终点不可通行
+     * @return 需要搜索时返回 null
+     */
+    private List<AStarPathfinder.Node> trivialPath(int startX, int startY, int endX, int endY) {
+        // 检查起点和终点是否有效
+        if (!isValidPosition(startX, startY) || !isValidPosition(endX, endY)) {
+            return new ArrayList<>();
+        }
+
+        // 如果起点和终点相同，直接返回
+        if (startX == endX && startY == endY) {
+            List<AStarPathfinder.Node> path = new ArrayList<>();
+            path.add(new AStarPathfinder.Node(startX, startY));
+            return path;
+        }
+
+        // 终点不可通行时不可能到达
+        if (!map.isWalkable(endX, endY)) {
+            return new ArrayList<>();
+        }
+        return null;
+    }
+
+    /**
+     * 设置与A*相同的搜索窗口并放入起点
+     * @return 终点在窗口中的下标
+     */
+    private int beginSearch(AStarPathfinder.SearchWorkspace ws, int startX, int startY, int endX, int endY) {
+        int margin = windowMargin;
+        int minX = Math.max(0, Math.min(startX, endX) - margin);
+        int minY = Math.max(0, Math.min(startY, endY) - margin);
+        int maxX = Math.min(map.getMapWidth() - 1, Math.max(startX, endX) + margin);
+        int maxY = Math.min(map.getMapHeight() - 1, Math.max(startY, endY) + margin);
+
+        ws.begin(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        int goalX = endX - minX;
+        int goalY = endY - minY;
+        ws.open(ws.index(startX - minX, startY - minY), 0, heuristic(startX - minX, startY - minY, goalX, goalY), -1);
+        return ws.index(goalX, goalY);
+    }
+
+    /**
+     * 展开跳点直到到达终点、开放列表为空或用完预算（见 searchCost）
+     * 每个跳点的所有方向在一次展开内跳完，因此最后一次展开可能略超预算
+     * @return SEARCH_FOUND、SEARCH_FAILED 或 SEARCH_SUSPENDED
+     */
+    private int expand(AStarPathfinder.SearchWorkspace ws, int goal, int maxCost) {
+        int generation = ws.generation;
+        int windowWidth = ws.windowWidth;
+        int goalX = goal % windowWidth;
+        int goalY = goal / windowWidth;
+        long limit = (long) searchCost(ws) + maxCost;
+
+        while (ws.heapSize > 0) {
+            if (searchCost(ws) >= limit) {
+                return SEARCH_SUSPENDED;
+            }
+            int current = ws.poll();
+            ws.closedStamp[current] = generation;
+            ws.expandedNodes++;
+
+            if (current == goal) {
+                return SEARCH_FOUND;
+            }
+
+            int cx = current % windowWidth;
+            int cy = current / windowWidth;
+            int currentG = ws.gCost[current];
+
+            // 按剪枝规则得到需要尝试的方向，沿每个方向跳到下一个跳点
+            int count = collectDirections(ws, current, cx, cy);
+            for (int i = 0; i < count; i += 2) {
+                int dx = ws.directionBuffer[i];
+                int dy = ws.directionBuffer[i + 1];
+                int jumpPoint = jump(ws, cx + dx, cy + dy, dx, dy, goal);
+                if (jumpPoint < 0 || ws.closedStamp[jumpPoint] == generation) {
+                    continue;
+                }
+
+                int jx = jumpPoint % windowWidth;
+                int jy = jumpPoint / windowWidth;
+                int tentativeGCost = currentG + AStarPathfinder.octileDistance(Math.abs(jx - cx), Math.abs(jy - cy));
+                if (ws.seenStamp[jumpPoint] != generation) {
+                    ws.open(jumpPoint, tentativeGCost, tentativeGCost + heuristic(jx, jy, goalX, goalY), current);
+                } else if (tentativeGCost < ws.gCost[jumpPoint]) {
+                    ws.decrease(jumpPoint, tentativeGCost, tentativeGCost + heuristic(jx, jy, goalX, goalY), current);
+                }
+            }
+        }
+        return SEARCH_FAILED;
+    }
+
+    /**
+     * 本次搜索累计消耗的预算（节点数）
+     */
+    private static int searchCost(AStarPathfinder.SearchWorkspace ws) {
+        return ws.expandedNodes + ws.scannedCells / SCANNED_CELLS_PER_NODE;
+    }
+
+    /**
+     * 可分帧执行的跳点搜索
+     */
+    private final class JumpPointSearch implements AStarPathfinder.Search {
+        private AStarPathfinder.SearchWorkspace workspace; // 完成或取消后归还
+        private final int goal;
+        private List<AStarPathfinder.Node> path;
+
+        private JumpPointSearch(AStarPathfinder.SearchWorkspace workspace, int goal) {
+            this.workspace = workspace;
+            this.goal = goal;
+        }
+
+        @Override
+        public int step(int maxCost) {
+            if (path != null) {
+                return 0;
+            }
+            int before = searchCost(workspace);
+            int status = expand(workspace, goal, Math.max(1, maxCost));
+            int cost = searchCost(workspace) - before;
+            if (status == SEARCH_FOUND) {
+                path = reconstructPath(workspace, goal);
+                release();
+            } else if (status == SEARCH_FAILED) {
+                path = new ArrayList<>();
+                release();
+            }
+            return cost;
+        }
+
+        @Override
+        public boolean isDone() {
+            return path != null;
+        }
+
+        @Override
+        public List<AStarPathfinder.Node> getPath() {
+            return path;
+        }
+
+        @Override
+        public void cancel() {
+            if (path == null) {
+                path = new ArrayList<>();
+                release();
+            }
+        }
+
+        private void release() {
+            if (workspace != null) {
+                AStarPathfinder.SearchWorkspace.release(workspace);
+                workspace = null;
+            }
+        }
+    }
+
+    /**
+     * 剪枝：起点尝试全部可走方向；其余节点只保留沿来向的自然邻居和由障碍产生的强制邻居
+     * 方向成对写入 ws.directionBuffer
+     * @return 写入的整数个数（方向数 × 2）
+     */
+    private int collectDirections(AStarPathfinder.SearchWorkspace ws, int node, int x, int y) {
+        int[] out = ws.directionBuffer;
+        int count = 0;
+        int parent = ws.parent[node];
+
+        if (parent < 0) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx == 0 && dy == 0) continue;
+                    if (!walkable(ws, x + dx, y + dy)) continue;
+                    if (dx != 0 && dy != 0 && (!walkable(ws, x + dx, y) || !walkable(ws, x, y + dy))) continue;
+                    out[count++] = dx;
+                    out[count++] = dy;
+                }
+            }
+            return count;
+        }
+
+        int px = parent % ws.windowWidth;
+        int py = parent / ws.windowWidth;
+        int dx = Integer.signum(x - px);
+        int dy = Integer.signum(y - py);
+
+        if (dx != 0 && dy != 0) {
+            // 对角来向：两个正交分量，以及两侧都可走时继续斜走
+            boolean vertical = walkable(ws, x, y + dy);
+            boolean horizontal = walkable(ws, x + dx, y);
+            if (vertical) {
+                out[count++] = 0;
+                out[count++] = dy;
+            }
+            if (horizontal) {
+                out[count++] = dx;
+                out[count++] = 0;
+            }
+            if (vertical && horizontal) {
+                out[count++] = dx;
+                out[count++] = dy;
+            }
+        } else if (dx != 0) {
+            // 水平来向：前方、上下两侧（跳点处两侧的拐角可能被障碍挡住过）
+            boolean next = walkable(ws, x + dx, y);
+            boolean up = walkable(ws, x, y - 1);
+            boolean down = walkable(ws, x, y + 1);
+            if (next) {
+                out[count++] = dx;
+                out[count++] = 0;
+                if (up) {
+                    out[count++] = dx;
+                    out[count++] = -1;
+                }
+                if (down) {
+                    out[count++] = dx;
+                    out[count++] = 1;
+                }
+            }
+            if (up) {
+                out[count++] = 0;
+                out[count++] = -1;
+            }
+            if (down) {
+                out[count++] = 0;
+                out[count++] = 1;
+            }
+        } else {
+            // 垂直来向
+            boolean next = walkable(ws, x, y + dy);
+            boolean left = walkable(ws, x - 1, y);
+            boolean right = walkable(ws, x + 1, y);
+            if (next) {
+                out[count++] = 0;
+                out[count++] = dy;
+                if (left) {
+                    out[count++] = -1;
+                    out[count++] = dy;
+                }
+                if (right) {
+                    out[count++] = 1;
+                    out[count++] = dy;
+                }
+            }
+            if (left) {
+                out[count++] = -1;
+                out[count++] = 0;
+            }
+            if (right) {
+                out[count++] = 1;
+                out[count++] = 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 从 (x, y) 起沿 (dx, dy) 跳跃，返回遇到的跳点下标，撞墙或出窗口返回 -1
+     * 直线：侧面格可走而其身后一格被挡时出现强制邻居；斜线：任一正交分量能跳到跳点时本格即为跳点
+     */
+    private int jump(AStarPathfinder.SearchWorkspace ws, int x, int y, int dx, int dy, int goal) {
+        while (true) {
+            ws.scannedCells++;
+            if (!walkable(ws, x, y)) {
+                return -1;
+            }
+            int index = ws.index(x, y);
+            if (index == goal) {
+                return index;
+            }
+
+            if (dx != 0 && dy != 0) {
+                if (jump(ws, x + dx, y, dx, 0, goal) >= 0 || jump(ws, x, y + dy, 0, dy, goal) >= 0) {
+                    return index;
+                }
+            } else if (dx != 0) {
+                if ((walkable(ws, x, y - 1) && !walkable(ws, x - dx, y - 1))
+                        || (walkable(ws, x, y + 1) && !walkable(ws, x - dx, y + 1))) {
+                    return index;
+                }
+            } else {
+                if ((walkable(ws, x - 1, y) && !walkable(ws, x - 1, y - dy))
+                        || (walkable(ws, x + 1, y) && !walkable(ws, x + 1, y - dy))) {
+                    return index;
+                }
+            }
+
+            // 斜走需要两侧正交格都可通行（直线时等价于检查前方一格）
+            if (!walkable(ws, x + dx, y) || !walkable(ws, x, y + dy)) {
+                return -1;
+            }
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private boolean walkable(AStarPathfinder.SearchWorkspace ws, int x, int y) {
+        return ws.isWalkable(map, x, y);
+    }
+
+    private int heuristic(int x, int y, int goalX, int goalY) {
+        return AStarPathfinder.octileDistance(Math.abs(x - goalX), Math.abs(y - goalY));
+    }
+
+    private boolean isValidPosition(int x, int y) {
+        return x >= 0 && x < map.getMapWidth() && y >= 0 && y < map.getMapHeight();
+    }
+
+    /**
+     * 重构路径：沿跳点回溯，并把相邻跳点之间的直线/斜线段逐格展开
+     */
+    private List<AStarPathfinder.Node> reconstructPath(AStarPathfinder.SearchWorkspace ws, int goal) {
+        int windowWidth = ws.windowWidth;
+
+        // 统计展开后的格数（每段长度为两跳点坐标差的最大分量）
+        int length = 1;
+        for (int index = goal; ws.parent[index] >= 0; index = ws.parent[index]) {
+            int parent = ws.parent[index];
+            length += Math.max(Math.abs(index % windowWidth - parent % windowWidth),
+                               Math.abs(index / windowWidth - parent / windowWidth));
+        }
+
+        AStarPathfinder.Node[] nodes = new AStarPathfinder.Node[length];
+        int i = length;
+        for (int index = goal; ; index = ws.parent[index]) {
+            int x = index % windowWidth;
+            int y = index / windowWidth;
+            int parent = ws.parent[index];
+            if (parent < 0) {
+                nodes[--i] = createNode(ws, x, y, ws.gCost[index]);
+                break;
+            }
+            int px = parent % windowWidth;
+            int py = parent / windowWidth;
+            int sx = Integer.signum(x - px);
+            int sy = Integer.signum(y - py);
+            int steps = Math.max(Math.abs(x - px), Math.abs(y - py));
+            int stepCost = (sx != 0 && sy != 0) ? AStarPathfinder.DIAGONAL_COST : AStarPathfinder.STRAIGHT_COST;
+            // 段内从跳点向父跳点回退，不包含父跳点本身
+            for (int k = 0; k < steps; k++) {
+                nodes[--i] = createNode(ws, x - sx * k, y - sy * k, ws.gCost[index] - stepCost * k);
+            }
+        }
+
+        List<AStarPathfinder.Node> path = new ArrayList<>(length);
+        for (int k = 0; k < length; k++) {
+            if (k > 0) {
+                nodes[k].parent = nodes[k - 1];
+            }
+            path.add(nodes[k]);
+        }
+        return path;
+    }
+
+    private AStarPathfinder.Node createNode(AStarPathfinder.SearchWorkspace ws, int x, int y, int gCost) {
+        AStarPathfinder.Node node = new AStarPathfinder.Node(x + ws.minX, y + ws.minY);
+        node.gCost = gCost / (double) AStarPathfinder.STRAIGHT_COST;
+        node.fCost = node.gCost;
+        return node;
+    }
+}
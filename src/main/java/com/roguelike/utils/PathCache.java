@@ -0,0 +1,292 @@
+package com.roguelike.utils;
+
+import javafx.geometry.Point2D;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 共享路径缓存
+ * 同一批生成的敌人往往从相邻位置寻路到同一个玩家瓦片，按（起点区域, 目标瓦片）缓存网格寻路结果，
+ * 命中时直接返回同一条不可变路径，避免重复的A*或跳点搜索。
+ *
+ * 容量固定，按最近使用顺序淘汰（LRU）。只缓存成功找到的网格路径，直线回退路径不进入缓存。
+ * 瓦片通行性变化（定时器瓦片、MapChunk.makeTilePassable/makeTileUnpassable）和区块加载、卸载时按瓦片坐标失效：
+ * 瓦片变为障碍只影响经过它的路径；瓦片变为可通行可能出现更短的路径，失效搜索窗口覆盖它的条目。
+ * 寻路可能在后台线程进行，所有方法都是同步的。
+ */
+public class PathCache {
+
+    // 起点区域边长（瓦片）：区域内的敌人共享一条路径
+    public static final int REGION_SIZE = 4;
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private static final PathCache SHARED = new PathCache(DEFAULT_CAPACITY);
+
+    /**
+     * 命中时判断请求者能否接入共享路径（区域内可能隔着障碍）
+     */
+    public interface StartFilter {
+        boolean canJoin(int fromTileX, int fromTileY, int pathStartTileX, int pathStartTileY);
+    }
+
+    /**
+     * 缓存条目：不可变路径及其失效判定所需的瓦片信息
+     */
+    private static final class Entry {
+        final List<Point2D> path;
+        final int startTileX;
+        final int startTileY;
+        final int[] tiles;       // 网格路径经过的瓦片（x, y 交替）
+        final int pathMinX, pathMinY, pathMaxX, pathMaxY;
+        final int windowMinX, windowMinY, windowMaxX, windowMaxY;
+
+        Entry(List<Point2D> path, int startTileX, int startTileY, int goalTileX, int goalTileY,
+              int[] tiles, int windowMargin) {
+            this.path = path;
+            this.startTileX = startTileX;
+            this.startTileY = startTileY;
+            this.tiles = tiles;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < tiles.length; i += 2) {
+                minX = Math.min(minX, tiles[i]);
+                maxX = Math.max(maxX, tiles[i]);
+                minY = Math.min(minY, tiles[i + 1]);
+                maxY = Math.max(maxY, tiles[i + 1]);
+            }
+            this.pathMinX = minX;
+            this.pathMinY = minY;
+            this.pathMaxX = maxX;
+            this.pathMaxY = maxY;
+            this.windowMinX = Math.min(startTileX, goalTileX) - windowMargin;
+            this.windowMinY = Math.min(startTileY, goalTileY) - windowMargin;
+            this.windowMaxX = Math.max(startTileX, goalTileX) + windowMargin;
+            this.windowMaxY = Math.max(startTileY, goalTileY) + windowMargin;
+        }
+
+        boolean pathCrosses(int tileX, int tileY) {
+            if (tileX < pathMinX || tileX > pathMaxX || tileY < pathMinY || tileY > pathMaxY) {
+                return false;
+            }
+            for (int i = 0; i < tiles.length; i += 2) {
+                if (tiles[i] == tileX && tiles[i + 1] == tileY) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean pathCrossesArea(int minX, int minY, int maxX, int maxY) {
+            if (pathMaxX < minX || pathMinX > maxX || pathMaxY < minY || pathMinY > maxY) {
+                return false;
+            }
+            for (int i = 0; i < tiles.length; i += 2) {
+                if (tiles[i] >= minX && tiles[i] <= maxX && tiles[i + 1] >= minY && tiles[i + 1] <= maxY) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean windowContains(int tileX, int tileY) {
+            return tileX >= windowMinX && tileX <= windowMaxX && tileY >= windowMinY && tileY <= windowMaxY;
+        }
+
+        boolean windowOverlaps(int minX, int minY, int maxX, int maxY) {
+            return windowMaxX >= minX && windowMinX <= maxX && windowMaxY >= minY && windowMinY <= maxY;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Long, Entry> entries;
+
+    // 统计
+    private long hits = 0;
+    private long misses = 0;
+    private long rejected = 0;   // 同区域但无法接入共享路径（计入未命中）
+    private long evictions = 0;
+    private long staleResults = 0; // 快照过期而未写入的结果
+    private long invalidations = 0;
+    private long invalidationEvents = 0;
+    // 通行性版本号：每次瓦片或区块变化递增，不随统计清零（异步寻路用来判断快照是否过期）
+    private long passabilityVersion = 0;
+
+    /**
+     * 获取共享实例
+     */
+    public static PathCache shared() {
+        return SHARED;
+    }
+
+    public PathCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<Long, Entry>(this.capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > PathCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 查询缓存
+     * @param filter 起点不是条目起点时用来确认能否走到共享路径的起点，为 null 时不检查
+     * @return 起点所在区域到目标瓦片的共享路径（不可变）；未命中或无法接入时返回 null
+     */
+    public synchronized List<Point2D> get(int startTileX, int startTileY, int goalTileX, int goalTileY,
+                                          StartFilter filter) {
+        Entry entry = entries.get(key(startTileX, startTileY, goalTileX, goalTileY));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (filter != null && (entry.startTileX != startTileX || entry.startTileY != startTileY)
+                && !filter.canJoin(startTileX, startTileY, entry.startTileX, entry.startTileY)) {
+            misses++;
+            rejected++;
+            return null;
+        }
+        hits++;
+        return entry.path;
+    }
+
+    /**
+     * 写入一条网格寻路结果
+     * @param path 最终返回给敌人的世界坐标路径（会被包装为不可变列表）
+     * @param nodePath 原始逐格路径（用于失效判定）
+     * @param windowMargin 寻路搜索窗口在起终点包围盒外扩展的瓦片数
+     * @return 缓存中的不可变路径
+     */
+    public synchronized List<Point2D> put(int startTileX, int startTileY, int goalTileX, int goalTileY,
+                                          List<Point2D> path, List<AStarPathfinder.Node> nodePath, int windowMargin) {
+        int[] tiles = new int[nodePath.size() * 2];
+        for (int i = 0; i < nodePath.size(); i++) {
+            AStarPathfinder.Node node = nodePath.get(i);
+            tiles[i * 2] = node.x;
+            tiles[i * 2 + 1] = node.y;
+        }
+        List<Point2D> shared = Collections.unmodifiableList(path);
+        entries.put(key(startTileX, startTileY, goalTileX, goalTileY),
+                    new Entry(shared, startTileX, startTileY, goalTileX, goalTileY, tiles, windowMargin));
+        return shared;
+    }
+
+    /**
+     * 写入基于通行性快照算出的路径：快照之后通行性已经变化时不写入（结果仍返回给请求者）
+     * @param snapshotVersion 快照读取时的 getPassabilityVersion()
+     */
+    public synchronized List<Point2D> put(int startTileX, int startTileY, int goalTileX, int goalTileY,
+                                          List<Point2D> path, List<AStarPathfinder.Node> nodePath, int windowMargin,
+                                          long snapshotVersion) {
+        if (snapshotVersion != passabilityVersion) {
+            staleResults++;
+            return Collections.unmodifiableList(path);
+        }
+        return put(startTileX, startTileY, goalTileX, goalTileY, path, nodePath, windowMargin);
+    }
+
+    /**
+     * 瓦片通行性改变
+     * @param passable 改变后是否可通行
+     */
+    public synchronized void invalidateTile(int tileX, int tileY, boolean passable) {
+        invalidationEvents++;
+        passabilityVersion++;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            boolean affected = passable ? entry.windowContains(tileX, tileY) : entry.pathCrosses(tileX, tileY);
+            if (affected) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * 一片瓦片的通行性整体改变（区块加载或卸载）
+     * @param passable 区域是否可能变为可通行：加载时为 true，失效搜索窗口与该区域重叠的条目；
+     *                 卸载时为 false，只失效经过该区域的路径
+     */
+    public synchronized void invalidateArea(int minTileX, int minTileY, int maxTileX, int maxTileY, boolean passable) {
+        invalidationEvents++;
+        passabilityVersion++;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            boolean affected = passable
+                ? entry.windowOverlaps(minTileX, minTileY, maxTileX, maxTileY)
+                : entry.pathCrossesArea(minTileX, minTileY, maxTileX, maxTileY);
+            if (affected) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * 清空缓存（切换地图时调用），统计保留
+     */
+    public synchronized void clear() {
+        passabilityVersion++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        rejected = 0;
+        evictions = 0;
+        staleResults = 0;
+        invalidations = 0;
+        invalidationEvents = 0;
+    }
+
+    public synchronized long getPassabilityVersion() {
+        return passabilityVersion;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 命中率（0~1），尚无查询时为 0
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * 获取调试信息
+     */
+    public synchronized String getDebugInfo() {
+        return String.format("路径缓存: %d/%d 条, 命中 %d / 未命中 %d (命中率 %.1f%%, 无法接入 %d), 淘汰 %d, 过期未写入 %d, 失效 %d 条 (%d 次通行性变化)",
+                             entries.size(), capacity, hits, misses, getHitRate() * 100, rejected,
+                             evictions, staleResults, invalidations, invalidationEvents);
+    }
+
+    private static long key(int startTileX, int startTileY, int goalTileX, int goalTileY) {
+        long regionX = Math.floorDiv(startTileX, REGION_SIZE) & 0xFFFFL;
+        long regionY = Math.floorDiv(startTileY, REGION_SIZE) & 0xFFFFL;
+        return (regionX << 48) | (regionY << 32) | ((goalTileX & 0xFFFFL) << 16) | (goalTileY & 0xFFFFL);
+    }
+}
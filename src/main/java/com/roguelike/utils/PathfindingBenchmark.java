@@ -0,0 +1,202 @@
+package com.roguelike.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 寻路基准：在随包发布的 map1~map3 布局上对比普通A*与跳点搜索
+ * 直接读取 TMX 中各图层瓦片的 unaccessible 属性得到通行性（与 CollisionMap.fromTiledMap 规则一致），
+ * 按无限地图的方式把一个区块平铺成 3x3，随机生成固定种子的起终点对，分别统计耗时、展开节点数，并校验两者路径代价一致。
+ *
+ * 用法：java -cp target/classes com.roguelike.utils.PathfindingBenchmark [查询数，默认2000]
+ */
+public final class PathfindingBenchmark {
+
+    private static final String[][] MAPS = {
+        {"map1", "test"},
+        {"map2", "square"},
+        {"map3", "dungeon"}
+    };
+    private static final int TILE_REPEAT = 3;          // 区块平铺次数（每个方向）
+    private static final int MAX_QUERY_DISTANCE = 48;  // 起终点最大瓦片距离（与无限地图A*的距离阈值一致）
+    private static final int WARMUP_ROUNDS = 2;
+
+    private PathfindingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        for (String[] entry : MAPS) {
+            GridMap map = loadMap(entry[0], entry[1]);
+            runMap(entry[0] + "/" + entry[1], map, queries);
+        }
+    }
+
+    private static void runMap(String name, GridMap map, int queries) {
+        AStarPathfinder aStar = new AStarPathfinder(map, true);
+        JumpPointPathfinder jumpPoint = new JumpPointPathfinder(map);
+        int[][] pairs = generateQueries(map, queries, new Random(42));
+
+        // 预热 JIT
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int[] q : pairs) {
+                aStar.findPath(q[0], q[1], q[2], q[3]);
+                jumpPoint.findPath(q[0], q[1], q[2], q[3]);
+            }
+        }
+
+        long aStarNanos = 0, jumpNanos = 0;
+        long aStarExpanded = 0, jumpExpanded = 0;
+        int found = 0, mismatches = 0;
+        for (int[] q : pairs) {
+            long t0 = System.nanoTime();
+            List<AStarPathfinder.Node> p1 = aStar.findPath(q[0], q[1], q[2], q[3]);
+            long t1 = System.nanoTime();
+            aStarExpanded += AStarPathfinder.getLastExpandedNodes();
+            List<AStarPathfinder.Node> p2 = jumpPoint.findPath(q[0], q[1], q[2], q[3]);
+            long t2 = System.nanoTime();
+            jumpExpanded += AStarPathfinder.getLastExpandedNodes();
+            aStarNanos += t1 - t0;
+            jumpNanos += t2 - t1;
+
+            if (!p1.isEmpty()) found++;
+            if (pathCost(p1) != pathCost(p2)) mismatches++;
+        }
+
+        System.out.println(String.format("%s (%dx%d, 障碍 %.1f%%, %d 次查询, 可达 %d):",
+                                         name, map.width, map.height, map.blockedRatio() * 100, queries, found));
+        System.out.println(String.format("  A*      平均 %.1fus, 展开 %.1f 节点", aStarNanos / 1000.0 / queries,
+                                         (double) aStarExpanded / queries));
+        System.out.println(String.format("  跳点搜索 平均 %.1fus, 展开 %.1f 节点 (耗时 %.2fx)", jumpNanos / 1000.0 / queries,
+                                         (double) jumpExpanded / queries, (double) aStarNanos / Math.max(1, jumpNanos)));
+        System.out.println("  路径代价不一致: " + mismatches);
+    }
+
+    private static int[][] generateQueries(GridMap map, int count, Random random) {
+        int[][] pairs = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int sx, sy, ex, ey;
+            do {
+                sx = random.nextInt(map.width);
+                sy = random.nextInt(map.height);
+            } while (!map.isWalkable(sx, sy));
+            do {
+                ex = sx + random.nextInt(MAX_QUERY_DISTANCE * 2 + 1) - MAX_QUERY_DISTANCE;
+                ey = sy + random.nextInt(MAX_QUERY_DISTANCE * 2 + 1) - MAX_QUERY_DISTANCE;
+            } while (!map.isWalkable(ex, ey));
+            pairs[i] = new int[]{sx, sy, ex, ey};
+        }
+        return pairs;
+    }
+
+    private static int pathCost(List<AStarPathfinder.Node> path) {
+        if (path.isEmpty()) return -1;
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            boolean diagonal = path.get(i).x != path.get(i - 1).x && path.get(i).y != path.get(i - 1).y;
+            cost += diagonal ? AStarPathfinder.DIAGONAL_COST : AStarPathfinder.STRAIGHT_COST;
+        }
+        return cost;
+    }
+
+    /**
+     * 读取 TMX：内嵌瓦片集中 unaccessible=true 的瓦片，任一图层放置了这类瓦片的格子即不可通行
+     */
+    private static GridMap loadMap(String dir, String mapName) throws Exception {
+        String resourcePath = "/assets/maps/" + dir + "/" + mapName + ".tmx";
+        java.io.InputStream in = PathfindingBenchmark.class.getResourceAsStream(resourcePath);
+        if (in == null) {
+            throw new Exception("无法找到地图文件: " + resourcePath);
+        }
+        org.w3c.dom.Document doc;
+        try (in) {
+            doc = javax.xml.parsers.DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        }
+        org.w3c.dom.Element mapElement = doc.getDocumentElement();
+        int width = Integer.parseInt(mapElement.getAttribute("width"));
+        int height = Integer.parseInt(mapElement.getAttribute("height"));
+
+        // 收集不可通行的全局 GID
+        List<Integer> blockedGids = new ArrayList<>();
+        org.w3c.dom.NodeList tilesets = mapElement.getElementsByTagName("tileset");
+        for (int i = 0; i < tilesets.getLength(); i++) {
+            org.w3c.dom.Element tileset = (org.w3c.dom.Element) tilesets.item(i);
+            int firstGid = Integer.parseInt(tileset.getAttribute("firstgid"));
+            org.w3c.dom.NodeList tiles = tileset.getElementsByTagName("tile");
+            for (int t = 0; t < tiles.getLength(); t++) {
+                org.w3c.dom.Element tile = (org.w3c.dom.Element) tiles.item(t);
+                org.w3c.dom.NodeList properties = tile.getElementsByTagName("property");
+                for (int p = 0; p < properties.getLength(); p++) {
+                    org.w3c.dom.Element property = (org.w3c.dom.Element) properties.item(p);
+                    if ("unaccessible".equals(property.getAttribute("name"))
+                            && "true".equals(property.getAttribute("value"))) {
+                        blockedGids.add(firstGid + Integer.parseInt(tile.getAttribute("id")));
+                    }
+                }
+            }
+        }
+        java.util.Set<Integer> blockedSet = new java.util.HashSet<>(blockedGids);
+
+        boolean[] chunkBlocked = new boolean[width * height];
+        org.w3c.dom.NodeList layers = mapElement.getElementsByTagName("layer");
+        for (int i = 0; i < layers.getLength(); i++) {
+            org.w3c.dom.Element layer = (org.w3c.dom.Element) layers.item(i);
+            org.w3c.dom.Element data = (org.w3c.dom.Element) layer.getElementsByTagName("data").item(0);
+            String[] values = data.getTextContent().trim().split("\\s*,\\s*");
+            for (int index = 0; index < values.length && index < chunkBlocked.length; index++) {
+                // 去掉翻转标志位
+                int gid = (int) (Long.parseLong(values[index].trim()) & 0x1FFFFFFFL);
+                if (gid > 0 && blockedSet.contains(gid)) {
+                    chunkBlocked[index] = true;
+                }
+            }
+        }
+
+        GridMap map = new GridMap(width * TILE_REPEAT, height * TILE_REPEAT);
+        for (int y = 0; y < map.height; y++) {
+            for (int x = 0; x < map.width; x++) {
+                map.blocked[y * map.width + x] = chunkBlocked[(y % height) * width + (x % width)];
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 基准用的静态网格地图
+     */
+    private static final class GridMap implements AStarPathfinder.MapInterface {
+        final int width;
+        final int height;
+        final boolean[] blocked;
+
+        GridMap(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.blocked = new boolean[width * height];
+        }
+
+        @Override
+        public boolean isWalkable(int x, int y) {
+            return x >= 0 && y >= 0 && x < width && y < height && !blocked[y * width + x];
+        }
+
+        @Override
+        public int getMapWidth() {
+            return width;
+        }
+
+        @Override
+        public int getMapHeight() {
+            return height;
+        }
+
+        double blockedRatio() {
+            int count = 0;
+            for (boolean b : blocked) {
+                if (b) count++;
+            }
+            return (double) count / blocked.length;
+        }
+    }
+}
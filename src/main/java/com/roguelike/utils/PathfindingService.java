@@ -0,0 +1,465 @@
+package com.roguelike.utils;
+
+import javafx.geometry.Point2D;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 异步寻路服务
+ * 游戏线程提交请求时读取一份不可变的通行性快照，工作线程只在快照上运行A*或跳点搜索，不接触实时地图；
+ * 完成的结果进入队列，由游戏线程每个模拟步按预算取出并回调给请求者，请求者在结果到达前继续沿旧路径或直接朝目标移动。
+ *
+ * 快照在通行性版本号（PathCache）或已加载区块修订号变化、目标离开快照中心过远时重建；
+ * 无限地图只截取目标周围的窗口，传统地图截取整张地图。快照过期后算出的路径照常送达，但不写入路径缓存。
+ *
+ * 所有搜索（A*、跳点搜索、分层寻路）都分步推进，共享每个模拟步一份预算（按展开节点计，跳点搜索的扫描格子折算为节点）：
+ * 每次推进从预算中取一份（本步预算按进行中的搜索数均分，至少 MIN_SEARCH_SLICE），用不完的退回，
+ * 未完成的搜索排到队尾轮转；预算用完时搜索挂起到下一步继续，个别绕远路的搜索不会在一步内占满工作线程或游戏线程。
+ * 不可分割的工作（分层寻路的入口图规划、跳点搜索的一次展开）可能超出所取的份额，超出部分从剩余预算中扣除，扣成负数时由下一步偿还。
+ * 只有完成的搜索才会送达；每步开始时在游戏线程检查请求者是否存活，已死亡或失活的搜索被取消。
+ *
+ * 启用异步寻路时搜索在工作线程上基于快照推进；未启用时同样的搜索在游戏线程上基于实时地图推进。
+ */
+public class PathfindingService {
+
+    // 无限地图快照半径（瓦片）：覆盖48瓦片寻路距离加搜索窗口扩展，再留出目标移动的余量
+    private static final int SNAPSHOT_HALF_SIZE = 96;
+    // 目标离快照中心超过该距离（瓦片）时重建快照
+    private static final int SNAPSHOT_RECENTER_DISTANCE = 16;
+
+    // 每次推进至少取得的预算，避免预算被切得过碎
+    private static final int MIN_SEARCH_SLICE = 64;
+
+    private static ExecutorService workers;
+
+    /**
+     * 不可变的通行性快照，实现 MapInterface 供工作线程上的寻路器使用；窗口外视为障碍
+     */
+    static final class PassabilitySnapshot implements AStarPathfinder.MapInterface {
+        final int originX;
+        final int originY;
+        final int width;
+        final int height;
+        final int mapWidth;
+        final int mapHeight;
+        final long chunkRevision;
+        final long version;
+        private final boolean[] passable;
+
+        PassabilitySnapshot(int originX, int originY, int width, int height, int mapWidth, int mapHeight,
+                            long chunkRevision, long version, boolean[] passable) {
+            this.originX = originX;
+            this.originY = originY;
+            this.width = width;
+            this.height = height;
+            this.mapWidth = mapWidth;
+            this.mapHeight = mapHeight;
+            this.chunkRevision = chunkRevision;
+            this.version = version;
+            this.passable = passable;
+        }
+
+        @Override
+        public boolean isWalkable(int x, int y) {
+            int localX = x - originX;
+            int localY = y - originY;
+            return localX >= 0 && localY >= 0 && localX < width && localY < height && passable[localY * width + localX];
+        }
+
+        @Override
+        public int getMapWidth() {
+            return mapWidth;
+        }
+
+        @Override
+        public int getMapHeight() {
+            return mapHeight;
+        }
+    }
+
+    /**
+     * 已完成的请求
+     */
+    private static final class Result {
+        final List<Point2D> path;
+        final Consumer<List<Point2D>> callback;
+
+        Result(List<Point2D> path, Consumer<List<Point2D>> callback) {
+            this.path = path;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * 进行中的搜索：任一时刻只在一处（工作线程队列、游戏线程队列、挂起队列或正在推进），由持有它的线程推进或结束
+     */
+    private final class Job implements Runnable {
+        final AdaptivePathfinder.PathSearch search;
+        final Consumer<List<Point2D>> callback;
+        final BooleanSupplier requesterAlive; // 只在游戏线程中调用
+        final boolean onWorkers;
+        final long firstStep;
+        volatile boolean cancelled = false;
+
+        Job(AdaptivePathfinder.PathSearch search, Consumer<List<Point2D>> callback,
+            BooleanSupplier requesterAlive, boolean onWorkers, long firstStep) {
+            this.search = search;
+            this.callback = callback;
+            this.requesterAlive = requesterAlive;
+            this.onWorkers = onWorkers;
+            this.firstStep = firstStep;
+        }
+
+        @Override
+        public void run() {
+            runSlice(this);
+        }
+    }
+
+    private final AdaptivePathfinder pathfinder;
+    private final ConcurrentLinkedQueue<Result> completed = new ConcurrentLinkedQueue<>();
+    private final Set<Job> jobs = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Job> suspended = new ConcurrentLinkedQueue<>(); // 本步预算用完时挂起
+    private final ArrayDeque<Job> gameThreadJobs = new ArrayDeque<>();                   // 未启用工作线程时的轮转队列
+    private final AtomicLong budget = new AtomicLong(0);  // 本步剩余预算，为负表示不可分割的工作超支
+    private volatile int stepBudget = 0;
+    private long grantedBudget = 0;  // 本步开始时发放后的余额（游戏线程）
+    private volatile long stepIndex = 0;
+    private PassabilitySnapshot snapshot;
+
+    // 统计
+    private long submitted = 0;
+    private long delivered = 0;
+    private long deferredFrames = 0;   // 有结果因预算推迟到下一步送达的模拟步数
+    private int maxBacklog = 0;        // 送达后队列中剩余结果的最大值
+    private long snapshotRebuilds = 0;
+    private long cancelledSearches = 0;
+    private final AtomicLong searchNanos = new AtomicLong(0);
+    private final AtomicLong finishedSearches = new AtomicLong(0);
+    private final AtomicLong failedSearches = new AtomicLong(0);
+    private final AtomicInteger maxSearchSteps = new AtomicInteger(0); // 单个搜索最多跨越的模拟步数
+    private long busySteps = 0;        // 有搜索消耗预算的模拟步数
+    private long totalCost = 0;
+    private int lastStepCost = 0;
+    private int maxStepCost = 0;
+    private long carriedOverFrames = 0;     // 有搜索因预算用完留到下一步的模拟步数
+    private long carriedOverSearches = 0;   // 累计留到下一步的搜索数（同一个搜索每跨一步计一次）
+
+    PathfindingService(AdaptivePathfinder pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+
+    /**
+     * 提交寻路请求（游戏线程），完成后通过 deliverResults 在游戏线程中回调
+     * 启用异步寻路时基于通行性快照在工作线程上开始推进（使用本步剩余预算），否则在下一次 runSearches 中推进
+     * @param requesterAlive 请求者是否存活，每步开始时检查，返回 false 时取消搜索并回调空路径
+     */
+    void submit(double startX, double startY, double endX, double endY, Consumer<List<Point2D>> callback,
+                BooleanSupplier requesterAlive) {
+        AdaptivePathfinder.PathfindingConfig config = pathfinder.getConfig();
+        boolean onWorkers = config.isEnableAsyncPathfinding();
+        AdaptivePathfinder.PathSearch search;
+        if (onWorkers) {
+            PassabilitySnapshot current = ensureSnapshot(endX, endY);
+            // 与同步寻路使用相同的搜索窗口（有限地图不限制窗口）
+            int windowMargin = pathfinder.getAStarPathfinder().getWindowMargin();
+            search = pathfinder.beginPathSearch(startX, startY, endX, endY, false,
+                                                new AStarPathfinder(current, config.isAllowDiagonal(), windowMargin),
+                                                new JumpPointPathfinder(current, windowMargin), current.version);
+        } else {
+            search = pathfinder.beginPathSearch(startX, startY, endX, endY, false,
+                                                pathfinder.getAStarPathfinder(), pathfinder.getJumpPointPathfinder(),
+                                                PathCache.shared().getPassabilityVersion());
+        }
+        if (stepBudget == 0) {
+            // 还没有调用过 runSearches：先按配置发放第一步的预算
+            stepBudget = config.getPathSearchNodeBudget();
+            grantedBudget = stepBudget;
+            budget.set(stepBudget);
+        }
+
+        submitted++;
+        Job job = new Job(search, callback, requesterAlive, onWorkers, stepIndex);
+        jobs.add(job);
+        dispatch(job);
+    }
+
+    /**
+     * 开始新的模拟步（游戏线程，每步调用一次）：结算上一步的消耗，发放本步预算，
+     * 取消请求者已不存在的搜索，恢复上一步挂起的搜索；未启用工作线程时在这里推进搜索直到预算用完
+     * @param nodeBudget 本步所有搜索共享的预算
+     */
+    void runSearches(int nodeBudget) {
+        stepIndex++;
+        stepBudget = nodeBudget;
+        // 上一步的超支从本步扣除，上一步没用完的不累积；发放前的余额即上一步的实际消耗
+        long remaining = budget.getAndUpdate(value -> Math.min(value, 0) + nodeBudget);
+        int used = (int) Math.max(0, Math.min(Integer.MAX_VALUE, grantedBudget - remaining));
+        grantedBudget = Math.min(remaining, 0) + nodeBudget;
+        lastStepCost = used;
+        if (used > 0) {
+            busySteps++;
+            totalCost += used;
+            maxStepCost = Math.max(maxStepCost, used);
+        }
+
+        for (Job job : jobs) {
+            if (!job.cancelled && !job.requesterAlive.getAsBoolean()) {
+                job.cancelled = true;
+            }
+        }
+
+        // 只处理本步开始时已挂起的搜索，工作线程在此期间挂起的搜索留给下一步
+        int resumed = 0;
+        for (int i = suspended.size(); i > 0; i--) {
+            Job job = suspended.poll();
+            if (job == null) {
+                break;
+            }
+            if (job.cancelled) {
+                cancel(job);
+            } else {
+                resumed++;
+                dispatch(job);
+            }
+        }
+        if (resumed > 0) {
+            carriedOverFrames++;
+            carriedOverSearches += resumed;
+        }
+
+        while (!gameThreadJobs.isEmpty()) {
+            runSlice(gameThreadJobs.poll());
+        }
+    }
+
+    /**
+     * 送达已完成的结果（游戏线程，每个模拟步调用一次）
+     * @param budget 本步最多送达的结果数，剩余结果留到下一步
+     */
+    void deliverResults(int budget) {
+        int count = 0;
+        Result result;
+        while (count < budget && (result = completed.poll()) != null) {
+            result.callback.accept(result.path);
+            count++;
+        }
+        delivered += count;
+        if (count == budget && !completed.isEmpty()) {
+            deferredFrames++;
+            maxBacklog = Math.max(maxBacklog, completed.size());
+        }
+    }
+
+    /**
+     * 推进一次搜索（持有该搜索的线程）：取得一份预算后推进，完成时放入结果队列，否则排回队尾；
+     * 预算用完时挂起到下一步
+     */
+    private void runSlice(Job job) {
+        if (job.cancelled) {
+            cancel(job);
+            return;
+        }
+        long grantStep = stepIndex;
+        int grant = takeBudget();
+        if (grant == 0) {
+            suspended.add(job);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int cost;
+        try {
+            cost = job.search.step(grant);
+        } catch (Exception e) {
+            failedSearches.incrementAndGet();
+            settle(grantStep, grant, 0);
+            // 空路径：请求者回退到直接朝目标移动
+            finish(job, new ArrayList<>());
+            return;
+        } finally {
+            searchNanos.addAndGet(System.nanoTime() - start);
+        }
+        settle(grantStep, grant, cost);
+
+        if (job.search.isDone()) {
+            finish(job, job.search.getResult());
+        } else {
+            dispatch(job);
+        }
+    }
+
+    /**
+     * 结算一次推进：没用完的部分只在同一步内退回（跨步时上一步的预算已作废），
+     * 不可分割的工作超出份额时差额从当前剩余预算中扣除
+     */
+    private void settle(long grantStep, int grant, int cost) {
+        int refund = grant - cost;
+        if (refund < 0 || stepIndex == grantStep) {
+            budget.addAndGet(refund);
+        }
+    }
+
+    /**
+     * 从本步剩余预算中取一份：剩余预算按进行中的搜索数均分，至少 MIN_SEARCH_SLICE
+     * @return 取得的预算，预算已用完时返回 0
+     */
+    private int takeBudget() {
+        int slice = Math.max(MIN_SEARCH_SLICE, stepBudget / Math.max(1, jobs.size()));
+        while (true) {
+            long remaining = budget.get();
+            if (remaining <= 0) {
+                return 0;
+            }
+            int grant = (int) Math.min(slice, remaining);
+            if (budget.compareAndSet(remaining, remaining - grant)) {
+                return grant;
+            }
+        }
+    }
+
+    private void dispatch(Job job) {
+        if (job.onWorkers) {
+            getWorkers().execute(job);
+        } else {
+            gameThreadJobs.add(job);
+        }
+    }
+
+    private void finish(Job job, List<Point2D> path) {
+        maxSearchSteps.accumulateAndGet((int) (stepIndex - job.firstStep + 1), Math::max);
+        finishedSearches.incrementAndGet();
+        completed.add(new Result(path, job.callback));
+        jobs.remove(job);
+    }
+
+    /**
+     * 取消搜索并归还工作区，请求者收到空路径（重置等待状态）
+     */
+    private void cancel(Job job) {
+        job.search.cancel();
+        completed.add(new Result(job.search.getResult(), job.callback));
+        jobs.remove(job);
+        synchronized (this) {
+            cancelledSearches++;
+        }
+    }
+
+    /**
+     * 需要时重建通行性快照（游戏线程）
+     */
+    private PassabilitySnapshot ensureSnapshot(double targetX, double targetY) {
+        long version = PathCache.shared().getPassabilityVersion();
+        long chunkRevision = pathfinder.getChunkRevision();
+        if (snapshot != null && snapshot.version == version && snapshot.chunkRevision == chunkRevision) {
+            if (!pathfinder.isInfiniteMap()) {
+                return snapshot;
+            }
+            int centerX = snapshot.originX + SNAPSHOT_HALF_SIZE;
+            int centerY = snapshot.originY + SNAPSHOT_HALF_SIZE;
+            int targetTileX = (int) Math.floor(targetX / pathfinder.getTileWidth());
+            int targetTileY = (int) Math.floor(targetY / pathfinder.getTileHeight());
+            if (Math.abs(targetTileX - centerX) <= SNAPSHOT_RECENTER_DISTANCE
+                    && Math.abs(targetTileY - centerY) <= SNAPSHOT_RECENTER_DISTANCE) {
+                return snapshot;
+            }
+        }
+
+        int originX, originY, width, height;
+        if (pathfinder.isInfiniteMap()) {
+            originX = (int) Math.floor(targetX / pathfinder.getTileWidth()) - SNAPSHOT_HALF_SIZE;
+            originY = (int) Math.floor(targetY / pathfinder.getTileHeight()) - SNAPSHOT_HALF_SIZE;
+            width = SNAPSHOT_HALF_SIZE * 2;
+            height = SNAPSHOT_HALF_SIZE * 2;
+        } else {
+            originX = 0;
+            originY = 0;
+            width = pathfinder.getGridMapWidth();
+            height = pathfinder.getGridMapHeight();
+        }
+        boolean[] passable = new boolean[width * height];
+        pathfinder.fillPassability(originX, originY, width, height, passable);
+        snapshot = new PassabilitySnapshot(originX, originY, width, height,
+                                           pathfinder.getGridMapWidth(), pathfinder.getGridMapHeight(),
+                                           chunkRevision, version, passable);
+        snapshotRebuilds++;
+        return snapshot;
+    }
+
+    /**
+     * 工作线程：保留一个核心给渲染/主循环，最多两个线程
+     */
+    private static synchronized ExecutorService getWorkers() {
+        if (workers == null) {
+            int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+            AtomicInteger index = new AtomicInteger(0);
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "PathfindingWorker-" + index.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * 进行中（含挂起）的搜索数
+     */
+    public int getInFlightCount() {
+        return jobs.size();
+    }
+
+    /**
+     * 已完成、等待送达的结果数
+     */
+    public int getPendingResultCount() {
+        return completed.size();
+    }
+
+    /**
+     * 因本步预算用完而挂起的搜索数
+     */
+    public int getSuspendedSearchCount() {
+        return suspended.size();
+    }
+
+    /**
+     * 上一个模拟步所有搜索消耗的预算
+     */
+    public int getLastStepCost() {
+        return lastStepCost;
+    }
+
+    /**
+     * 获取调试信息
+     */
+    public String getDebugInfo() {
+        long finished = finishedSearches.get();
+        long cancelled;
+        synchronized (this) {
+            cancelled = cancelledSearches;
+        }
+        return String.format("异步寻路(%s): 提交 %d, 送达 %d, 搜索中 %d (挂起 %d), 待送达 %d, 平均搜索 %.3fms, 失败 %d, 取消 %d, "
+                             + "预算推迟 %d 步 (最大积压 %d), 快照重建 %d; "
+                             + "每步预算 %d, 每步消耗 平均 %.0f / 最大 %d / 上一步 %d, "
+                             + "跨步 %d 步 (累计 %d 个搜索), 单个搜索最多 %d 步",
+                             pathfinder.getConfig().isEnableAsyncPathfinding() ? "工作线程" : "游戏线程",
+                             submitted, delivered, jobs.size(), suspended.size(), completed.size(),
+                             finished > 0 ? searchNanos.get() / 1_000_000.0 / finished : 0.0,
+                             failedSearches.get(), cancelled, deferredFrames, maxBacklog, snapshotRebuilds,
+                             stepBudget, busySteps > 0 ? (double) totalCost / busySteps : 0.0,
+                             maxStepCost, lastStepCost,
+                             carriedOverFrames, carriedOverSearches, maxSearchSteps.get());
+    }
+}